@@ -8,6 +8,7 @@
 package frc.robot;
 
 import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.subsystem.autonomous.AutonomousSubsystem;
 import frc.robot.subsystem.climber.ClimberSubsystem;
 import frc.robot.subsystem.drive.DriveSubsystem;
 import frc.robot.subsystem.lighting.LightingSubsystem;
@@ -16,12 +17,19 @@ import frc.robot.subsystem.scoring.ScoringSubsystem;
 import frc.robot.subsystem.vision.VisionSubsystem;
 import frc.robot.operatorinterface.OI;
 import frc.robot.operatorinterface.PS4Constants;
+import frc.robot.utils.DeferredWorkQueue;
 import frc.robot.utils.autotuner.AutoTuner;
+import frc.robot.utils.logging.DataLogger;
+import frc.robot.utils.profiling.LoopProfiler;
+import frc.robot.utils.sensors.SensorSnapshot;
 import frc.robot.utils.talonutils.MotorTestModes;
+import frc.robot.utils.talonutils.StatusFrameScheduler;
+import frc.robot.utils.talonutils.TalonInitializer;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.buttons.JoystickButton;
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.command.Scheduler;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -61,6 +69,16 @@ public class Robot extends TimedRobot {
   private NavigationSubsystem navigationSubsystem;
   private VisionSubsystem     visionSubsystem;
   private LightingSubsystem   lightingSubsystem;
+  private AutonomousSubsystem autonomousSubsystem;
+
+  // Loop timing, see LoopProfiler
+  private final LoopProfiler profiler = LoopProfiler.instance();
+  private final LoopProfiler.Section sensorSection = profiler.section("Sensor Snapshot");
+  private final LoopProfiler.Section schedulerSection = profiler.section("Scheduler");
+  private final LoopProfiler.Section deferredSection = profiler.section("Deferred Work");
+
+  // dashboard updates that don't need to happen every loop
+  private static final int SENSOR_DASHBOARD_LOOPS = 10;
 
   /**
    * This function is run when the robot is first started up and should be
@@ -100,6 +118,43 @@ public class Robot extends TimedRobot {
 
     lightingSubsystem = LightingSubsystem.instance();
     lightingSubsystem.initialize();
+
+    autonomousSubsystem = AutonomousSubsystem.instance();
+    autonomousSubsystem.initialize();
+
+    // The subsystems started configuring their Talons in the background when
+    // they were created, wait for all of them before anything can use a motor
+    TalonInitializer.instance().awaitAll(RobotMap.TALON_INITIALIZATION_TIMEOUT_SEC);
+
+    // now every Talon is registered, slow down the frames nobody needs yet
+    setRunMode(RunMode.DISABLED);
+
+    // so anything that runs before the first robotPeriodic has real values
+    SensorSnapshot.instance().capture();
+
+    profiler.setLoopPeriod(getPeriod());
+
+    DeferredWorkQueue.instance().task("Sensor Snapshot Dashboard", DeferredWorkQueue.Priority.LOW,
+                                      SensorSnapshot.instance()::updateDashboard)
+      .every(SENSOR_DASHBOARD_LOOPS);
+    DeferredWorkQueue.instance().task("Loop Profiler Dashboard", DeferredWorkQueue.Priority.LOW,
+                                      profiler::updateDashboard)
+      .every(LoopProfiler.PUBLISH_LOOPS);
+    DeferredWorkQueue.instance().task("Talon Reset Check", DeferredWorkQueue.Priority.LOW,
+                                      StatusFrameScheduler.instance()::checkForResets)
+      .every(StatusFrameScheduler.RESET_CHECK_LOOPS);
+  }
+
+  /**
+   * Remember the mode we're in and set the Talon status frame rates for it
+   */
+  private void setRunMode(RunMode mode) {
+    runMode = mode;
+    StatusFrameScheduler.instance().setMode(mode);
+    profiler.reset();
+    // keeps the log from filling up with disabled time, and marks where modes change
+    DataLogger.instance().setRobotDisabled(mode == RunMode.DISABLED);
+    DataLogger.instance().message(Timer.getFPGATimestamp(), "Mode " + mode);
   }
 
   /**
@@ -112,6 +167,16 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    profiler.startLoop();
+
+    // Read every sensor once, before anything in the Scheduler uses them,
+    // so every subsystem and command works from the same values this loop
+    long start_ns = System.nanoTime();
+    SensorSnapshot.instance().capture();
+    sensorSection.stop(start_ns);
+
+    // and what the drivers were asking for at the same time
+    oi.logInputs(SensorSnapshot.instance().getTimestamp_sec());
 
     // NOTE: Normally one should not need to worry about the current order of execution
     // within the scheduler and the InterativeRobotBase underneath the TimeRobot class
@@ -159,7 +224,17 @@ public class Robot extends TimedRobot {
     //    Add Commands                    |---|    |
     //    dashboards                          |----|
 
+    // Subsystem periodics and commands are timed separately as they run
+    start_ns = System.nanoTime();
     Scheduler.getInstance().run();
+    schedulerSection.stop(start_ns);
+
+    // Then whatever dashboard and housekeeping work fits in what's left
+    start_ns = System.nanoTime();
+    DeferredWorkQueue.instance().run();
+    deferredSection.stop(start_ns);
+
+    profiler.endLoop();
   }
 
   /**
@@ -170,8 +245,12 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void disabledInit() {
+    setRunMode(RunMode.DISABLED);
+
     driveSubsystem.startIdle();
     climberSubsystem.startIdle();
+    autonomousSubsystem.disable();
+    MotorTestModes.stop();
   }
 
   /**
@@ -202,6 +281,8 @@ public class Robot extends TimedRobot {
   @Override
   public void autonomousInit() {
     teleopInit();
+    setRunMode(RunMode.AUTO);
+    autonomousSubsystem.startAutonomous();
     /*driveSubsystem.startIdle();
     scoringSubsystem.startIdle();
     climberSubsystem.startIdle();*/
@@ -228,6 +309,8 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void teleopInit() {
+    setRunMode(RunMode.TELEOP);
+
     driveSubsystem.startIdle();
     scoringSubsystem.startIdle();
     climberSubsystem.startIdle();
@@ -253,6 +336,8 @@ public class Robot extends TimedRobot {
   public void testInit() {
     // !!!!!! DON'T START THE SS IDLE COMMANDS HERE !!!!
 
+    setRunMode(RunMode.TEST);
+
     driveSubsystem.diagnosticsInitialize();
     climberSubsystem.diagnosticsInitialize();
     scoringSubsystem.diagnosticsInitialize();
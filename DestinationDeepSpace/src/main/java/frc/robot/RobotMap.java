@@ -48,6 +48,7 @@ public class RobotMap {
 	public static final int PRIMARY_PID_LOOP  = 0; // Constants to support new Talon interface types
 	public static final int CASCADED_PID_LOOP = 1; // That should have been enumerated rather than int
 	public static final int CONTROLLER_TIMEOUT_MS = 100; // Default timeout to wait for configuration response
+	public static final double TALON_INITIALIZATION_TIMEOUT_SEC = 10.0; // Longest robotInit waits for all Talons to be configured
     
     public static final int SUPER_HIGH_STATUS_FRAME_PERIOD_MS  =   5;	// CAUTION!
 	public static final int HIGH_STATUS_FRAME_PERIOD_MS        =  10;	
@@ -1,8 +1,10 @@
 package frc.robot.operatorinterface;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.buttons.Button;
 import frc.robot.subsystem.drive.DriveConstants;
+import frc.robot.utils.logging.DataLogger;
 
 public class OI {
 
@@ -284,7 +286,46 @@ public class OI {
 	public boolean beakRelease() {
 		return operatorControl.getRawButton(BEAK_RELEASE_BUTTON);
 	}
-}
 
+	//****************************
+	// LOGGING
+	//****************************
+	// PS4 and xbox both have 6 axes
+	private final static int LOGGED_AXES = 6;
+	private final static int[] LOGGED_JOYSTICKS = { DRIVER_JOYSTICK_ID, OPERATOR_JOYSTICK_ID };
+	private DataLogger.Record inputLog;
 
+	/**
+	 * Log both controllers' raw axes, buttons (as a bit mask) and POV, once a loop,
+	 * so we can see what the drivers did next to what the robot did
+	 */
+	public void logInputs(double timestamp_sec) {
+		if (inputLog == null) {
+			String[] fields = new String[LOGGED_JOYSTICKS.length * (LOGGED_AXES + 2)];
+			int field = 0;
+			for (int stick : LOGGED_JOYSTICKS) {
+				String prefix = (stick == DRIVER_JOYSTICK_ID) ? "Driver " : "Operator ";
+				for (int axis = 0; axis < LOGGED_AXES; axis++) {
+					fields[field++] = prefix + "Axis " + axis;
+				}
+				fields[field++] = prefix + "Buttons";
+				fields[field++] = prefix + "POV";
+			}
+			inputLog = DataLogger.instance().record("OI", fields);
+		}
 
+		// straight from the DriverStation, same as Joystick does; it warns about
+		// axes and POVs a controller doesn't have, so only read ones it does
+		DriverStation ds = DriverStation.getInstance();
+		int field = 0;
+		for (int stick : LOGGED_JOYSTICKS) {
+			int axes = ds.getStickAxisCount(stick);
+			for (int axis = 0; axis < LOGGED_AXES; axis++) {
+				inputLog.set(field++, (axis < axes) ? ds.getStickAxis(stick, axis) : 0.0);
+			}
+			inputLog.set(field++, ds.getStickButtons(stick));
+			inputLog.set(field++, (ds.getStickPOVCount(stick) > 0) ? ds.getStickPOV(stick, 0) : -1);
+		}
+		inputLog.append(timestamp_sec);
+	}
+}
@@ -0,0 +1,116 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem;
+
+import frc.robot.utils.logging.DataLogger;
+import frc.robot.utils.profiling.LoopProfiler;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Base for all of our commands, times execute() + isFinished() every loop
+ * with the LoopProfiler, and logs when each command starts, ends and gets
+ * interrupted to the DataLogger (as "Command drive.Idle start" etc. messages).
+ *
+ * Put what would go in initialize(), execute(), isFinished(), end() and
+ * interrupted() in commandInitialize(), commandExecute(), commandIsFinished(),
+ * commandEnd() and commandInterrupted().
+ */
+public abstract class BitBucketCommand extends Command {
+
+	// there are several Idles, so use the package too (ex. "drive.Idle");
+	// worked out once per command class, commands get made on every state change
+	private static final ClassValue<String> NAMES = new ClassValue<String>() {
+		@Override
+		protected String computeValue(Class<?> type) {
+			return type.getName().replace("frc.robot.subsystem.", "");
+		}
+	};
+	// one Section per command class, shared by all of its instances
+	private static final ClassValue<LoopProfiler.Section> SECTIONS = new ClassValue<LoopProfiler.Section>() {
+		@Override
+		protected LoopProfiler.Section computeValue(Class<?> type) {
+			return LoopProfiler.instance().section("Command/" + NAMES.get(type));
+		}
+	};
+
+	private final LoopProfiler.Section section = SECTIONS.get(getClass());
+	private long start_ns;
+
+	@Override
+	protected final void initialize() {
+		logEvent("start");
+		commandInitialize();
+	}
+
+	@Override
+	protected final void execute() {
+		start_ns = System.nanoTime();
+		commandExecute();
+	}
+
+	@Override
+	protected final boolean isFinished() {
+		boolean finished = commandIsFinished();
+		// only time it when the Scheduler ran execute() first
+		if (start_ns != 0) {
+			section.stop(start_ns);
+			start_ns = 0;
+		}
+		return finished;
+	}
+
+	@Override
+	protected final void end() {
+		commandEnd();
+		logEvent("end");
+	}
+
+	@Override
+	protected final void interrupted() {
+		commandInterrupted();
+		logEvent("interrupted");
+	}
+
+	// only on starts and stops, so the string building is fine
+	private void logEvent(String event) {
+		DataLogger.instance().message(Timer.getFPGATimestamp(), "Command " + NAMES.get(getClass()) + " " + event);
+	}
+
+	/**
+	 * Called just before this Command runs the first time
+	 */
+	protected void commandInitialize() {
+	}
+
+	/**
+	 * Called repeatedly when this Command is scheduled to run
+	 */
+	protected void commandExecute() {
+	}
+
+	/**
+	 * Make this return true when this Command no longer needs to run
+	 */
+	protected abstract boolean commandIsFinished();
+
+	/**
+	 * Called once after commandIsFinished returns true
+	 */
+	protected void commandEnd() {
+	}
+
+	/**
+	 * Called when another command which requires one or more of the same
+	 * subsystems is scheduled to run; ends it the same way by default
+	 */
+	protected void commandInterrupted() {
+		commandEnd();
+	}
+}
@@ -8,10 +8,15 @@
 package frc.robot.subsystem;
 
 import frc.robot.subsystem.SubsystemUtilities.DiagnosticsState;
+import frc.robot.utils.DeferredWorkQueue;
+import frc.robot.utils.profiling.LoopProfiler;
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryGroup;
 
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.command.Subsystem;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  *
@@ -36,35 +41,81 @@ public abstract class BitBucketSubsystem extends Subsystem {
 	public static double period;
 
 	protected int periodicCounter = 0;
+
+	// Dashboard values under this subsystem's name; made the first time they're
+	// needed (the name isn't set yet when this constructor runs)
+	protected TelemetryGroup baseTelemetry;		// always sent
+	protected TelemetryGroup telemetry;			// only sent while TelemetryEnabled is on
+	private TelemetryChannel periodicCounterChannel;
+	private TelemetryChannel currentCommandChannel;
+	private TelemetryChannel initializedBaseChannel;
+	private NetworkTableEntry telemetryEnabledEntry;
+	private NetworkTableEntry diagnosticsEnabledEntry;
+
+	// TelemetryEnabled only needs checking a few times a second, not every time it's asked
+	private static final int SWITCH_READ_LOOPS = 5;
+
+	// Times periodic(), made the first time it runs
+	private LoopProfiler.Section periodicSection;
 	
 	public BitBucketSubsystem() {
 		
 	}
 
+	private void makeDashboardEntries()
+	{
+		if (baseTelemetry != null)
+		{
+			return;
+		}
+		baseTelemetry = new TelemetryGroup(getName(), true);
+		telemetry = new TelemetryGroup(getName(), telemetryEnabled);
+		periodicCounterChannel = baseTelemetry.channel("PeriodicCounter");
+		currentCommandChannel = baseTelemetry.channel("CurrentCommand");
+		initializedBaseChannel = baseTelemetry.channel("InitializedBase");
+
+		NetworkTableInstance nt = NetworkTableInstance.getDefault();
+		telemetryEnabledEntry = nt.getTable("SmartDashboard").getEntry(getName() + "/TelemetryEnabled");
+		diagnosticsEnabledEntry = nt.getTable("SmartDashboard").getEntry(getName() + "/DiagnosticsEnabled");
+
+		DeferredWorkQueue.instance().task(getName() + " Switches", DeferredWorkQueue.Priority.LOW, this::readTelemetrySwitch)
+			.every(SWITCH_READ_LOOPS);
+	}
+
+	private void readTelemetrySwitch()
+	{
+		telemetryEnabled = telemetryEnabledEntry.getBoolean(false);
+		telemetry.setEnabled(telemetryEnabled);
+	}
+
 	protected void initializeBaseDashboard()
 	{
-		SmartDashboard.putBoolean(getName()+"/TelemetryEnabled", telemetryEnabled);
-		SmartDashboard.putBoolean(getName()+"/DiagnosticsEnabled", diagnosticsEnabled);
+		makeDashboardEntries();
+		telemetryEnabledEntry.setBoolean(telemetryEnabled);
+		diagnosticsEnabledEntry.setBoolean(diagnosticsEnabled);
 
 		initializedBase = true;
-		SmartDashboard.putBoolean(getName() + "/InitializedBase", initializedBase);
+		initializedBaseChannel.set(initializedBase);
 	}
 
 	/** updateBaseDashboard - call from derived class periodic function */
 	protected void updateBaseDashboard()
 	{
-		SmartDashboard.putNumber(getName() + "/PeriodicCounter", periodicCounter++);
-		SmartDashboard.putString(getName() + "/CurrentCommand",getCurrentCommandName());
+		makeDashboardEntries();
+		periodicCounterChannel.set(periodicCounter++);
+		currentCommandChannel.set(getCurrentCommandName());
 	}
 
 	/**
 	 * getTelementryEnabled - returns the current dashboard state
 	 * NOTE: "Extended" Telemetry can be enabled any time at the expense of
 	 * network bandwidth
+	 * NOTE: The switch is read in the background every few loops (DeferredWorkQueue),
+	 * so this can be a little behind the dashboard
 	 */
 	public boolean getTelemetryEnabled()
 	{
-		telemetryEnabled = SmartDashboard.getBoolean(getName() + "/TelemetryEnabled", false);
+		makeDashboardEntries();
 		return telemetryEnabled;
 	}
 	/**
@@ -73,18 +124,20 @@ public abstract class BitBucketSubsystem extends Subsystem {
 	 */
 	public boolean getDiagnosticsEnabled()
 	{
-		diagnosticsEnabled = SmartDashboard.getBoolean(getName() + "/DiagnosticsEnabled", false);
+		makeDashboardEntries();
+		diagnosticsEnabled = diagnosticsEnabledEntry.getBoolean(false);
 		if (! ds.isTest())
 		{
 			diagnosticsEnabled = false;
-			SmartDashboard.putBoolean(getName() + "/DiagnosticsEnabled", diagnosticsEnabled);
+			diagnosticsEnabledEntry.setBoolean(diagnosticsEnabled);
 		}
 		return diagnosticsEnabled;
 	}
 	public void clearDiagnosticsEnabled()
 	{
+		makeDashboardEntries();
 		diagnosticsEnabled = false;
-		SmartDashboard.putBoolean(getName() + "/DiagnosticsEnabled", diagnosticsEnabled);
+		diagnosticsEnabledEntry.setBoolean(diagnosticsEnabled);
 	}
 
 	public abstract void initialize();		// Force all derived classes to have these interfaces
@@ -98,6 +151,21 @@ public abstract class BitBucketSubsystem extends Subsystem {
 	@Override
     protected abstract void initDefaultCommand();
     
-    @Override
-    public abstract void periodic();
+	/**
+	 * Called by the Scheduler every loop; times subsystemPeriodic() with the LoopProfiler
+	 */
+	@Override
+	public final void periodic()
+	{
+		long start_ns = System.nanoTime();
+		subsystemPeriodic();
+		if (periodicSection == null)
+		{
+			periodicSection = LoopProfiler.instance().section("Subsystem/" + getName());
+		}
+		periodicSection.stop(start_ns);
+	}
+
+	/** What would normally go in periodic() */
+	protected abstract void subsystemPeriodic();
 }
\ No newline at end of file
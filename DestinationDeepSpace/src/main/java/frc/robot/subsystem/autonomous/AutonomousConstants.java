@@ -1,5 +1,6 @@
 package frc.robot.subsystem.autonomous;
 
+import frc.robot.subsystem.drive.DriveConstants;
 
 public class AutonomousConstants {    
 	
@@ -17,4 +18,13 @@ public class AutonomousConstants {
 	public static final double OFF_AXIS_GAIN_BOOST = 1; // (simulator)
 
 	public static final double GUIDANCE_STOP = 0.5;
+
+	// limits for paths made on the robot with PathSearch (inches, seconds)
+	public static final double PATH_ACCELERATION_IPSPS = 48.0;
+	public static final double PATH_DECELERATION_IPSPS = -48.0;
+	// tightest bend, any tighter and the inside wheel would have to go backwards
+	public static final double PATH_MIN_RADIUS_INCHES = DriveConstants.WHEEL_TRACK_INCHES / 2.0;
+
+	// extra time a precompiled trajectory gets past its duration before giving up on it
+	public static final double TRAJECTORY_TIMEOUT_MARGIN_SEC = 1.0;
 }
\ No newline at end of file
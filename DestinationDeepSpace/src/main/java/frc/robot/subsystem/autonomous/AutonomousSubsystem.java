@@ -7,7 +7,20 @@
 
 package frc.robot.subsystem.autonomous;
 
+import java.io.File;
+import java.io.IOException;
+
 import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.subsystem.autonomous.motion.PathSearch;
+import frc.robot.subsystem.autonomous.motion.TrajectoryLibrary;
+import frc.robot.subsystem.autonomous.motion.TrajectoryView;
+import frc.robot.subsystem.autonomous.motion.Waypoint;
+import frc.robot.subsystem.drive.DriveConstants;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 public class AutonomousSubsystem extends BitBucketSubsystem {
 
@@ -20,6 +33,24 @@ public class AutonomousSubsystem extends BitBucketSubsystem {
 		return inst;
 	}
     private static AutonomousSubsystem inst;
+
+    // trajectories generated at deploy time, see TrajectoryCompiler
+    private TrajectoryLibrary trajectoryLibrary = TrajectoryLibrary.empty();
+
+    // which precompiled trajectory to drive at the start of autonomous, by name ("" for none)
+    private SendableChooser<String> trajectoryChooser;
+    // picked in autonomousInit, taken by drive's Idle when it starts following it
+    private TrajectoryView pendingTrajectory;
+
+    // finds the fastest way through waypoints picked on the fly, starting and ending stopped
+    private final PathSearch pathSearch = new PathSearch(
+		AutonomousConstants.PATH_ACCELERATION_IPSPS,
+		DriveConstants.MAX_ALLOWED_SPEED_IPS,
+		AutonomousConstants.PATH_DECELERATION_IPSPS,
+		0.0, 0.0,
+		DriveConstants.MAX_LAT_ACCELERATION_IPSPS,
+		DriveConstants.WHEEL_TRACK_INCHES,
+		1.0 / AutonomousConstants.PATH_MIN_RADIUS_INCHES);
     
 
 
@@ -30,7 +61,7 @@ public class AutonomousSubsystem extends BitBucketSubsystem {
     }
     
     @Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
     }
 
 
@@ -50,11 +81,82 @@ public class AutonomousSubsystem extends BitBucketSubsystem {
     @Override
 	public void initialize() {
 		initializeBaseDashboard();
+
+		loadTrajectoryLibrary();
+    }
+
+    /**
+     * Map the precompiled trajectories from the deploy directory.
+     * If they can't be loaded we carry on with an empty library rather than
+     * stopping the robot from starting up.
+     */
+    private void loadTrajectoryLibrary() {
+		File file = new File(Filesystem.getDeployDirectory(), TrajectoryLibrary.DEFAULT_FILE_NAME);
+		try {
+			trajectoryLibrary = TrajectoryLibrary.load(file.toPath());
+		}
+		catch (IOException e) {
+			DriverStation.reportError("Unable to load trajectories from " + file + ": " + e.getMessage(), false);
+			trajectoryLibrary = TrajectoryLibrary.empty();
+		}
+
+		SmartDashboard.putNumber(getName() + "/LoadedTrajectories", trajectoryLibrary.size());
+
+		trajectoryChooser = new SendableChooser<String>();
+		trajectoryChooser.setDefaultOption("None", "");
+		for (String name : trajectoryLibrary.getNames()) {
+			trajectoryChooser.addOption(name, name);
+		}
+		SmartDashboard.putData(getName() + "/Trajectory", trajectoryChooser);
+    }
+
+    public TrajectoryLibrary getTrajectoryLibrary() {
+		return trajectoryLibrary;
     }
     
 
 
+    /**
+     * Look up the trajectory picked on the dashboard, call from autonomousInit
+     */
+    public void startAutonomous() {
+		String name = trajectoryChooser.getSelected();
+		pendingTrajectory = (name == null || name.isEmpty()) ? null : trajectoryLibrary.get(name);
+		if (pendingTrajectory == null && name != null && !name.isEmpty()) {
+			DriverStation.reportWarning("No trajectory named " + name, false);
+		}
+    }
+
+    /**
+     * The trajectory to drive this autonomous period, only given out once
+     *
+     * @return the trajectory, or null if there isn't one (or it was already taken)
+     */
+    public TrajectoryView takePendingTrajectory() {
+		TrajectoryView trajectory = pendingTrajectory;
+		pendingTrajectory = null;
+		return trajectory;
+    }
+
+    /**
+     * Search for the fastest path through some waypoints on the TrajectoryService thread.
+     * A newer search (or anything else) in the same slot stops this one part way.
+     */
+    public TrajectoryService.Request searchPath(String slot, Waypoint[] waypoints) {
+		// the search reads them on another thread, so it gets its own
+		Waypoint[] copy = new Waypoint[waypoints.length];
+		for (int i = 0; i < waypoints.length; i++) {
+			copy[i] = new Waypoint(waypoints[i].x, waypoints[i].y, waypoints[i].deg);
+		}
+		return TrajectoryService.instance().submit(slot, cancelled -> pathSearch.search(copy, cancelled));
+    }
+
     public void disable() {
+		pendingTrajectory = null;
 
+		// nobody is going to use paths that were being made for the last mode
+		TrajectoryService.instance().cancelAll();
+		// each cached search holds a whole trajectory, start the next mode fresh
+		pathSearch.clearCache();
     }
 }
\ No newline at end of file
@@ -3,11 +3,11 @@ package frc.robot.subsystem.autonomous;
 import frc.robot.operatorinterface.OI;
 import frc.robot.utils.CommandUtils;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
 
 
-public class Idle extends Command {
+public class Idle extends BitBucketCommand {
     private static OI oi = OI.instance();
     private static AutonomousSubsystem autonomousSubsystem = AutonomousSubsystem.instance();
 
@@ -21,13 +21,13 @@ public class Idle extends Command {
 
 
     @Override
-    protected void initialize() {
+    protected void commandInitialize() {
         System.out.println(this.getClass().getName() + " AUTO START " + " " + System.currentTimeMillis()/1000);
         autonomousSubsystem.disable();
     }
 
     @Override
-    protected boolean isFinished() {
+    protected boolean commandIsFinished() {
         boolean forceIdle = oi.driverIdle();
 
         if (forceIdle) {
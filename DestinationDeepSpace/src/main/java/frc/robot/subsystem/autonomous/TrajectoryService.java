@@ -0,0 +1,223 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import frc.robot.subsystem.autonomous.motion.TrajectoryFinder;
+
+/**
+ * Generates trajectories on a background thread so building a path never
+ * holds up the robot loop.
+ *
+ * Requests are made for a "slot" (ex. "DriveToTarget"). Asking for a new
+ * trajectory in a slot cancels whatever was still being made for it, since
+ * nobody wants the old one anymore. Commands hold on to the Request and
+ * check isReady() each execute() instead of waiting on it; the service only
+ * keeps track of requests until they're done or cancelled.
+ *
+ * There's only one thread, so a generator that's already running when it gets
+ * cancelled holds up everything after it. Generators that take a while should
+ * take the BooleanSupplier version of submit() and give up when it says so.
+ */
+public class TrajectoryService {
+
+	// Singleton method; use TrajectoryService.instance() to get the TrajectoryService instance.
+	public static TrajectoryService instance() {
+		if (inst == null) {
+			inst = new TrajectoryService();
+		}
+
+		return inst;
+	}
+	private static TrajectoryService inst;
+
+	// one thread is plenty, and keeps generation from fighting the robot loop for more than one core
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "TrajectoryService");
+		// don't keep the program alive or compete with the main loop
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+
+	// latest request for each slot, until it's done or cancelled
+	private final Map<String, Request> latest = new ConcurrentHashMap<>();
+
+	private TrajectoryService() {
+	}
+
+	/**
+	 * Start generating a trajectory in the background.
+	 * Any request still pending in the same slot is cancelled.
+	 *
+	 * @param slot what the trajectory is for, only the newest request in a slot is kept
+	 * @param generator makes the trajectory, ex. () -> new TrajectoryFinder(...)
+	 */
+	public Request submit(String slot, Supplier<TrajectoryFinder> generator) {
+		return submit(slot, cancelled -> generator.get());
+	}
+
+	/**
+	 * Start generating a trajectory in the background, with a way for the
+	 * generator to find out it's been cancelled part way through.
+	 * Any request still pending in the same slot is cancelled.
+	 *
+	 * @param slot what the trajectory is for, only the newest request in a slot is kept
+	 * @param generator makes the trajectory, and should stop early (return null or throw)
+	 *                  once the BooleanSupplier it's given returns true
+	 */
+	public Request submit(String slot, Function<BooleanSupplier, TrajectoryFinder> generator) {
+		Request request = new Request(slot);
+		request.future = CompletableFuture.supplyAsync(() -> {
+			long start = System.nanoTime();
+			try {
+				return generator.apply(request::isCancelRequested);
+			}
+			finally {
+				request.generationTime_sec = (System.nanoTime() - start) / 1e9;
+			}
+		}, executor);
+
+		// only publish it once it's all set up
+		Request stale = latest.put(slot, request);
+		if (stale != null) {
+			stale.cancel();
+		}
+		// added after the put, so a request that already finished still gets removed
+		// (and only removes itself, not a newer one in the same slot)
+		request.future.whenComplete((trajectory, error) -> latest.remove(slot, request));
+
+		return request;
+	}
+
+	/**
+	 * Request still being made for a slot
+	 *
+	 * @return the request, or null if nothing is pending in that slot
+	 */
+	public Request get(String slot) {
+		return latest.get(slot);
+	}
+
+	/**
+	 * Cancel everything still being made (ex. when disabling)
+	 */
+	public void cancelAll() {
+		for (Request request : latest.values()) {
+			request.cancel();
+		}
+	}
+
+	/**
+	 * Handle to a trajectory being generated. Nothing here ever blocks.
+	 */
+	public static class Request {
+		private final String slot;
+		private CompletableFuture<TrajectoryFinder> future;
+		private volatile double generationTime_sec = Double.NaN;
+		// set by cancel(), checked by generators that can stop part way
+		private volatile boolean cancelRequested;
+
+		private Request(String slot) {
+			this.slot = slot;
+		}
+
+		public String getSlot() {
+			return slot;
+		}
+
+		/**
+		 * True once the trajectory has been made successfully
+		 */
+		public boolean isReady() {
+			return future.isDone() && !future.isCompletedExceptionally();
+		}
+
+		/**
+		 * True if this will never produce a trajectory (cancelled or generation failed)
+		 */
+		public boolean isFailed() {
+			return future.isCompletedExceptionally();
+		}
+
+		public boolean isCancelled() {
+			return future.isCancelled();
+		}
+
+		/**
+		 * True once cancel() has been called, even if the generator is still running
+		 */
+		public boolean isCancelRequested() {
+			return cancelRequested;
+		}
+
+		/**
+		 * Get the trajectory if it's done
+		 *
+		 * @return the trajectory, or null if it isn't ready (yet or ever)
+		 */
+		public TrajectoryFinder getNow() {
+			return isReady() ? future.getNow(null) : null;
+		}
+
+		/**
+		 * Why generation failed
+		 *
+		 * @return the exception, or null if it hasn't failed
+		 */
+		public Throwable getError() {
+			if (!future.isCompletedExceptionally()) {
+				return null;
+			}
+			try {
+				future.getNow(null);
+				return null;
+			}
+			catch (CompletionException e) {
+				return e.getCause();
+			}
+			catch (CancellationException e) {
+				return e;
+			}
+		}
+
+		/**
+		 * Seconds it took to generate, NaN until it's done
+		 */
+		public double getGenerationTime() {
+			return generationTime_sec;
+		}
+
+		/**
+		 * Underlying future, for chaining more work onto the background thread
+		 */
+		public CompletableFuture<TrajectoryFinder> future() {
+			return future;
+		}
+
+		/**
+		 * Give up on this trajectory. If it hasn't started it won't be generated at all.
+		 * If it's already running it only stops early if the generator checks for it
+		 * (see submit()), otherwise it runs to the end and the result is thrown away.
+		 */
+		public void cancel() {
+			cancelRequested = true;
+			future.cancel(false);
+		}
+	}
+}
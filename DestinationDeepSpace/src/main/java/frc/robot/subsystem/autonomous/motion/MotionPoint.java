@@ -15,6 +15,15 @@ public class MotionPoint {
     public double r_pos;
     public double r_vel;
     public double r_acc;
+
+    /**
+     * Create an empty MotionPoint to be filled in later
+     * (lets samplers reuse one point instead of making a new one every loop)
+     */
+    public MotionPoint()
+    {
+    }
+
     public MotionPoint(double l_pos, double l_vel, double l_acc, double r_pos, double r_vel)
     {
         //long story short: r_acc not in constructor bc it is calculated after entirety of other points
@@ -10,27 +10,48 @@ package frc.robot.subsystem.autonomous.motion;
  * Add your docs here.
  */
 public class PathFinder {
+    // tangent vector magnitude as a multiple of the distance between waypoints
+    public static final double DEFAULT_TANGENT_SCALE = 1.25;
+
     // waypoints to cross
     private Waypoint[] waypoints;
     public PathType pathType;
+    // how hard the path leaves and enters each waypoint along its heading
+    public double tangentScale = DEFAULT_TANGENT_SCALE;
 
     public Spline[] splines;
-    // types of splines, currently only 3rd and 5th order Hermite (linear at end points) implemented
+    // types of splines, 3rd and 5th order Hermite (linear at end points) and uniform cubic B-spline
     public enum PathType{
         CUBIC_HERMITE, // 3rd order in x and y
         QUINTIC_HERMITE, // 5th order in x and y
-        B_SPLINE; // not implemented
+        B_SPLINE; // 3rd order in x and y, smoothest, passes through end points but only near the middle ones
     }
 
+    // B_SPLINE only: control points, the waypoints plus extra ones at each end to set the headings
+    private double[] controlX;
+    private double[] controlY;
+
     /**
      * Create a PathFinder of a certain PathType between Waypoints
      */
     public PathFinder(Waypoint[] waypoints, PathType pathType)
+    {
+        this(waypoints, pathType, DEFAULT_TANGENT_SCALE);
+    }
+
+    /**
+     * Create a PathFinder with a different tangent magnitude.
+     * Bigger makes the path stick to the waypoint headings longer, smaller cuts corners.
+     *
+     * @param tangentScale tangent magnitude as a multiple of the distance between waypoints
+     */
+    public PathFinder(Waypoint[] waypoints, PathType pathType, double tangentScale)
     {
         // copy the waypoints into this.waypoints
         copy(waypoints);
         // set path type
         this.pathType=pathType;
+        this.tangentScale=tangentScale;
         // ge
         generateAllSplines();
     }
@@ -50,6 +71,8 @@ public class PathFinder {
 
     private boolean generateAllSplines()
     {
+        if(pathType==PathType.B_SPLINE) return generateBSpline();
+
         // splines between waypoints
         splines = new Spline[waypoints.length-1];
         for(int i=0; i<splines.length; i++)
@@ -68,6 +91,194 @@ public class PathFinder {
         return true;
     }
 
+    /**
+     * Build a uniform cubic B-spline over the waypoints.
+     *
+     * Every piece only depends on 4 control points next to each other, so moving
+     * a waypoint only changes the few pieces around it (see setWaypoint).
+     * The ends get an extra control point on either side along the heading,
+     * (P - d, P, P + d), which makes the path start and end exactly on the
+     * waypoint facing the right way. Middle waypoints are control points, so the
+     * path is pulled toward them but doesn't go exactly through them, and their
+     * headings aren't used.
+     */
+    private boolean generateBSpline()
+    {
+        setControlPoints();
+
+        // a piece for every 4 control points in a row
+        splines = new Spline[controlX.length-3];
+        for(int i=0; i<splines.length; i++)
+        {
+            splines[i] = new Spline();
+            generateBSplinePiece(i, splines[i]);
+        }
+        updatePreviousLengths(0);
+
+        return true;
+    }
+
+    /**
+     * Work out B-spline control points from the waypoints
+     */
+    private void setControlPoints()
+    {
+        int n=waypoints.length;
+        // 2 extra at the start, 2 extra at the end
+        controlX=new double[n+4];
+        controlY=new double[n+4];
+
+        // start: P0 - d0, P0, P0 + d0
+        double[] d0=endTangent(waypoints[0], waypoints[1]);
+        controlX[0]=waypoints[0].x-d0[0];
+        controlY[0]=waypoints[0].y-d0[1];
+        controlX[1]=waypoints[0].x;
+        controlY[1]=waypoints[0].y;
+        controlX[2]=waypoints[0].x+d0[0];
+        controlY[2]=waypoints[0].y+d0[1];
+
+        // middle waypoints are control points as is
+        for(int i=1; i<n-1; i++)
+        {
+            controlX[i+2]=waypoints[i].x;
+            controlY[i+2]=waypoints[i].y;
+        }
+
+        // end: Pn - dn, Pn, Pn + dn
+        double[] d1=endTangent(waypoints[n-1], waypoints[n-2]);
+        controlX[n+1]=waypoints[n-1].x-d1[0];
+        controlY[n+1]=waypoints[n-1].y-d1[1];
+        controlX[n+2]=waypoints[n-1].x;
+        controlY[n+2]=waypoints[n-1].y;
+        controlX[n+3]=waypoints[n-1].x+d1[0];
+        controlY[n+3]=waypoints[n-1].y+d1[1];
+    }
+
+    /**
+     * Tangent at an end of a B-spline, along the end's heading and scaled like the Hermite tangents
+     *
+     * @param neighbor waypoint next to the end, to scale by distance
+     */
+    private double[] endTangent(Waypoint end, Waypoint neighbor)
+    {
+        double distance=Math.sqrt((neighbor.x-end.x)*(neighbor.x-end.x)+(neighbor.y-end.y)*(neighbor.y-end.y));
+        // control points are about a third of a Hermite tangent apart for the same curve
+        double magnitude=distance*tangentScale/3;
+        return new double[]{magnitude*Math.cos(SabaMath.d2r(end.deg)), magnitude*Math.sin(SabaMath.d2r(end.deg))};
+    }
+
+    /**
+     * Fit the i-th B-spline piece from control points i to i+3
+     */
+    private void generateBSplinePiece(int i, Spline temp)
+    {
+        fitBSpline(controlX[i], controlX[i+1], controlX[i+2], controlX[i+3], temp.xcoef);
+        fitBSpline(controlY[i], controlY[i+1], controlY[i+2], controlY[i+3], temp.ycoef);
+
+        // roughly how long the piece is, for the arc length tolerances
+        double dx=(controlX[i+2]-controlX[i])/2;
+        double dy=(controlY[i+2]-controlY[i])/2;
+        double ex=(controlX[i+3]-controlX[i+1])/2;
+        double ey=(controlY[i+3]-controlY[i+1])/2;
+        temp.knot_Distance=Math.max(Math.sqrt(dx*dx+dy*dy), Math.sqrt(ex*ex+ey*ey));
+
+        initializeSpline(temp);
+    }
+
+    /**
+     * Uniform cubic B-spline basis matrix, turned into coefficients on s^0 to s^3
+     */
+    private static void fitBSpline(double q0, double q1, double q2, double q3, double[] coef)
+    {
+        coef[5]=0;
+        coef[4]=0;
+        coef[3]=(-q0+3*q1-3*q2+q3)/6;
+        coef[2]=(3*q0-6*q1+3*q2)/6;
+        coef[1]=(-3*q0+3*q2)/6;
+        coef[0]=(q0+4*q1+q2)/6;
+    }
+
+    /**
+     * Move one waypoint and only redo the splines it affects.
+     * For Hermite paths that's the spline before and after it. For B-splines it's
+     * every piece that uses a control point that moved, at most 4 (more for the
+     * waypoints next to an end, since end tangents are scaled by their distance).
+     * Arc lengths before the first changed spline are kept.
+     *
+     * The splines array and the Splines in it are never changed, the changed
+     * ones (and the ones after them, whose previousLength moves) are swapped
+     * for new ones in a new array. So a TrajectoryFinder or TrajectorySampler
+     * made from this path keeps using the old path and stays consistent; make a
+     * new one to follow the new path.
+     */
+    public void setWaypoint(int index, Waypoint waypoint)
+    {
+        waypoints[index]=new Waypoint(waypoint.x, waypoint.y, waypoint.deg);
+
+        // everything from the first changed spline on gets replaced below
+        Spline[] next=splines.clone();
+        // first spline that changed
+        int first;
+        if(pathType==PathType.B_SPLINE)
+        {
+            double[] oldX=controlX;
+            double[] oldY=controlY;
+            setControlPoints();
+
+            first=-1;
+            for(int i=0; i<splines.length; i++)
+            {
+                // piece i uses control points i to i+3
+                boolean changed=false;
+                for(int k=i; k<=i+3; k++) changed|=(controlX[k]!=oldX[k] || controlY[k]!=oldY[k]);
+                if(!changed) continue;
+
+                next[i]=new Spline();
+                generateBSplinePiece(i, next[i]);
+                if(first<0) first=i;
+            }
+            if(first<0) return;
+        }
+        else
+        {
+            // splines on either side of the waypoint
+            first=Math.max(0, index-1);
+            int last=Math.min(splines.length-1, index);
+            for(int i=first; i<=last; i++) next[i]=generateASpline(waypoints[i], waypoints[i+1], new Spline());
+        }
+
+        // the rest are the same curves, but their previousLength may change
+        for(int i=first; i<next.length; i++)
+        {
+            if(next[i]==splines[i]) next[i]=new Spline(splines[i]);
+        }
+        splines=next;
+        updatePreviousLengths(first);
+    }
+
+    /**
+     * Get a copy of a waypoint
+     */
+    public Waypoint getWaypoint(int index)
+    {
+        return new Waypoint(waypoints[index].x, waypoints[index].y, waypoints[index].deg);
+    }
+
+    public int getWaypointCount()
+    {
+        return waypoints.length;
+    }
+
+    /**
+     * Redo accumulated lengths starting at spline first, the ones before it haven't changed
+     */
+    private void updatePreviousLengths(int first)
+    {
+        if(first==0) splines[0].previousLength=0;
+        for(int i=Math.max(first, 1); i<splines.length; i++)
+            splines[i].previousLength=splines[i-1].previousLength+splines[i-1].arcLength;
+    }
+
     /**
      * Generate a spline between two points
      * 
@@ -85,7 +296,7 @@ public class PathFinder {
         
         // who knows what any of this does, we just know it works :) (hopefully)
 
-        double cc=temp.knot_Distance*1.25;//tangent vector magnitude, Matlab investigates this a little more.
+        double cc=temp.knot_Distance*tangentScale;//tangent vector magnitude, Matlab investigates this a little more.
         //tangent magnitude doesnt "mean" much. Matlab experimentation shows different values and why they're chosen
         double a0x=0;//Second Derivative variable, there are only so many letters of the alphabet.
         double m0x=cc*Math.cos(SabaMath.d2r(theta0));
@@ -161,6 +372,14 @@ public class PathFinder {
      * @return [index of polynomial, how far into this polynomial d is]
      */
     public double[] getSplineNo(double d)
+    {
+        return getSplineNo(splines, d);
+    }
+
+    /**
+     * Same as getSplineNo(d), on a splines array from before a setWaypoint
+     */
+    static double[] getSplineNo(Spline[] splines, double d)
     {
         double[] result = new double[2];//first element is spline #, 2nd is how far in the spline it is
         // go through each spline
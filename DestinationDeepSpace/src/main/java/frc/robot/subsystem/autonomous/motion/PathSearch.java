@@ -0,0 +1,340 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tries a bunch of different paths through the same waypoints and keeps the fastest.
+ *
+ * PathFinder makes one path from fixed headings and one tangent magnitude, which
+ * isn't always the quickest way to get there. This tries every combination of
+ * - cubic and quintic splines
+ * - a few tangent magnitudes
+ * - each middle waypoint's heading nudged left and right
+ * scores each one by how long VelocityPlanner says it takes, throws out any that
+ * bend tighter than the robot can, and returns the fastest one left.
+ * Candidates are scored in parallel with fork/join, and the last MAX_CACHED
+ * results are remembered so asking for the same path again is free.
+ */
+public class PathSearch
+{
+    // path types to try
+    static final PathFinder.PathType[] PATH_TYPES = {
+        PathFinder.PathType.CUBIC_HERMITE,
+        PathFinder.PathType.QUINTIC_HERMITE
+    };
+    // tangent magnitudes to try, as a multiple of the distance between waypoints
+    static final double[] TANGENT_SCALES = { 0.75, 1.0, 1.25, 1.5, 1.75 };
+    // how far middle waypoint headings get nudged (degrees)
+    static final double[] HEADING_OFFSETS = { 0, -15, 15 };
+    // past this many heading combinations, only nudge one waypoint at a time
+    static final int MAX_HEADING_COMBINATIONS = 81;
+    // candidates scored in one task before it stops splitting
+    static final int SEQUENTIAL_THRESHOLD = 4;
+    // results kept, least recently used ones go first (each is a whole trajectory)
+    static final int MAX_CACHED = 16;
+
+    private final double acc;
+    private final double v_max;
+    private final double dec;
+    private final double v_start;
+    private final double v_end;
+    private final double maxLatAcc;
+    private final double trackWidth;
+    private final double maxCurvature;
+
+    private final ForkJoinPool pool;
+
+    // waypoints + limits -> best trajectory found for them
+    private final Map<Key, TrajectoryFinder> cache = Collections.synchronizedMap(
+        new LinkedHashMap<Key, TrajectoryFinder>(MAX_CACHED, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, TrajectoryFinder> eldest)
+            {
+                return size() > MAX_CACHED;
+            }
+        });
+
+    /**
+     * Create a search with the drive's limits, same meanings as VelocityPlanner
+     *
+     * @param maxCurvature tightest bend allowed (1/smallest radius)
+     */
+    public PathSearch(double acc, double v_max, double dec, double v_start, double v_end, double maxLatAcc, double trackWidth, double maxCurvature)
+    {
+        this(acc, v_max, dec, v_start, v_end, maxLatAcc, trackWidth, maxCurvature, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a search that scores candidates on a specific pool
+     */
+    public PathSearch(double acc, double v_max, double dec, double v_start, double v_end, double maxLatAcc, double trackWidth, double maxCurvature, ForkJoinPool pool)
+    {
+        this.acc=acc;
+        this.v_max=v_max;
+        this.dec=dec;
+        this.v_start=v_start;
+        this.v_end=v_end;
+        this.maxLatAcc=maxLatAcc;
+        this.trackWidth=trackWidth;
+        this.maxCurvature=maxCurvature;
+        this.pool=pool;
+    }
+
+    /**
+     * Find the fastest feasible TIME_OPTIMAL trajectory through the waypoints.
+     * Results are cached and shared, so don't change them.
+     *
+     * @return the trajectory, or null if every candidate bends too tightly
+     */
+    public TrajectoryFinder search(Waypoint[] waypoints)
+    {
+        return search(waypoints, () -> false);
+    }
+
+    /**
+     * Find the fastest feasible TIME_OPTIMAL trajectory through the waypoints,
+     * giving up part way if cancelled (ex. from TrajectoryService)
+     *
+     * @param cancelled checked before scoring each candidate
+     * @return the trajectory, or null if every candidate bends too tightly or it was cancelled
+     */
+    public TrajectoryFinder search(Waypoint[] waypoints, BooleanSupplier cancelled)
+    {
+        Key key = new Key(waypoints, new double[]{ acc, v_max, dec, v_start, v_end, maxLatAcc, trackWidth, maxCurvature });
+        TrajectoryFinder cached = cache.get(key);
+        if(cached!=null) return cached;
+
+        List<Candidate> candidates = candidates(waypoints);
+        Candidate best = pool.invoke(new ScoreTask(candidates, 0, candidates.size(), cancelled));
+        // a cancelled search only scored some of the candidates, don't cache it
+        if(cancelled.getAsBoolean()) return null;
+        if(best==null || Double.isInfinite(best.duration)) return null;
+
+        // reuse the plan the winner was scored with
+        TrajectoryFinder result = new TrajectoryFinder(best.path, best.planner, acc, v_max, dec, v_start, v_end, new TrajectoryBuffer());
+        cache.putIfAbsent(key, result);
+        return result;
+    }
+
+    public void clearCache()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Every combination of path type, tangent magnitude, and middle headings to try
+     */
+    List<Candidate> candidates(Waypoint[] waypoints)
+    {
+        List<double[]> headings = headingCombinations(waypoints);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for(PathFinder.PathType type : PATH_TYPES)
+            for(double scale : TANGENT_SCALES)
+                for(double[] heading : headings)
+                    candidates.add(new Candidate(waypoints, heading, type, scale));
+        return candidates;
+    }
+
+    /**
+     * Heading for each waypoint, for every combination of nudges to the middle ones.
+     * The first and last headings are where the robot starts and has to end up, so they never change.
+     */
+    private static List<double[]> headingCombinations(Waypoint[] waypoints)
+    {
+        int middle = Math.max(0, waypoints.length-2);
+        double[] base = new double[waypoints.length];
+        for(int i=0; i<waypoints.length; i++) base[i]=waypoints[i].deg;
+
+        List<double[]> combinations = new ArrayList<>();
+        if(Math.pow(HEADING_OFFSETS.length, middle) <= MAX_HEADING_COMBINATIONS)
+        {
+            // every combination, counting in base HEADING_OFFSETS.length
+            int total = (int) Math.pow(HEADING_OFFSETS.length, middle);
+            for(int c=0; c<total; c++)
+            {
+                double[] heading = base.clone();
+                int digits = c;
+                for(int i=1; i<=middle; i++)
+                {
+                    heading[i] += HEADING_OFFSETS[digits%HEADING_OFFSETS.length];
+                    digits /= HEADING_OFFSETS.length;
+                }
+                combinations.add(heading);
+            }
+        }
+        else
+        {
+            // too many, just nudge one at a time
+            combinations.add(base);
+            for(int i=1; i<=middle; i++)
+            {
+                for(double offset : HEADING_OFFSETS)
+                {
+                    if(offset==0) continue;
+                    double[] heading = base.clone();
+                    heading[i] += offset;
+                    combinations.add(heading);
+                }
+            }
+        }
+        return combinations;
+    }
+
+    /**
+     * Score a candidate
+     *
+     * @return seconds to drive it, infinite if the robot can't
+     */
+    double score(Candidate candidate)
+    {
+        candidate.path = new PathFinder(candidate.waypoints(), candidate.type, candidate.tangentScale);
+        candidate.planner = new VelocityPlanner(candidate.path, v_max, acc, dec, v_start, v_end, maxLatAcc, trackWidth);
+
+        if(candidate.planner.getMaxCurvature() > maxCurvature) return Double.POSITIVE_INFINITY;
+        return candidate.planner.getDuration();
+    }
+
+    /**
+     * Score candidates [from, to), splitting in half until there are few enough to do in a row
+     */
+    private class ScoreTask extends RecursiveTask<Candidate>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Candidate> candidates;
+        private final int from;
+        private final int to;
+        private final BooleanSupplier cancelled;
+
+        ScoreTask(List<Candidate> candidates, int from, int to, BooleanSupplier cancelled)
+        {
+            this.candidates=candidates;
+            this.from=from;
+            this.to=to;
+            this.cancelled=cancelled;
+        }
+
+        @Override
+        protected Candidate compute()
+        {
+            if(to-from <= SEQUENTIAL_THRESHOLD)
+            {
+                Candidate best = null;
+                for(int i=from; i<to; i++)
+                {
+                    if(cancelled.getAsBoolean()) break;
+                    Candidate candidate = candidates.get(i);
+                    candidate.duration = score(candidate);
+                    best = faster(best, candidate);
+                }
+                return best;
+            }
+
+            int mid = (from+to)>>>1;
+            ScoreTask left = new ScoreTask(candidates, from, mid, cancelled);
+            left.fork();
+            Candidate right = new ScoreTask(candidates, mid, to, cancelled).compute();
+            return faster(left.join(), right);
+        }
+    }
+
+    private static Candidate faster(Candidate a, Candidate b)
+    {
+        if(a==null) return b;
+        if(b==null) return a;
+        Candidate winner = b.duration < a.duration ? b : a;
+        // don't keep paths that lost around
+        if(winner!=a) a.drop();
+        if(winner!=b) b.drop();
+        return winner;
+    }
+
+    /**
+     * One way to draw the path
+     */
+    static class Candidate
+    {
+        final Waypoint[] original;
+        final double[] heading;
+        final PathFinder.PathType type;
+        final double tangentScale;
+
+        // filled in when scored
+        PathFinder path;
+        VelocityPlanner planner;
+        double duration = Double.POSITIVE_INFINITY;
+
+        Candidate(Waypoint[] original, double[] heading, PathFinder.PathType type, double tangentScale)
+        {
+            this.original=original;
+            this.heading=heading;
+            this.type=type;
+            this.tangentScale=tangentScale;
+        }
+
+        void drop()
+        {
+            path = null;
+            planner = null;
+        }
+
+        Waypoint[] waypoints()
+        {
+            Waypoint[] waypoints = new Waypoint[original.length];
+            for(int i=0; i<original.length; i++) waypoints[i] = new Waypoint(original[i].x, original[i].y, heading[i]);
+            return waypoints;
+        }
+    }
+
+    /**
+     * Cache key, every number that went into the search
+     */
+    private static class Key
+    {
+        private final double[] values;
+        private final int hash;
+
+        Key(Waypoint[] waypoints, double[] limits)
+        {
+            values = Arrays.copyOf(limits, limits.length+3*waypoints.length);
+            for(int i=0; i<waypoints.length; i++)
+            {
+                values[limits.length+3*i] = waypoints[i].x;
+                values[limits.length+3*i+1] = waypoints[i].y;
+                values[limits.length+3*i+2] = waypoints[i].deg;
+            }
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Key && Arrays.equals(values, ((Key) other).values);
+        }
+    }
+}
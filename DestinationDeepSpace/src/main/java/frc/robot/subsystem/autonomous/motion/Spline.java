@@ -5,7 +5,7 @@
 /* the project.                                                               */
 /*----------------------------------------------------------------------------*/
 package frc.robot.subsystem.autonomous.motion;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
  * Add your docs here.
@@ -33,42 +33,211 @@ public class Spline
 
     // l - accumulated arc length as a function of s
 
-    // maps accumulated arc length to normalized time parameter
-    public TreeMap<Double, Double> ltos = new TreeMap<Double, Double>();// map is called l to s bc it's mapping l to s
+    // table of (s, l) pairs, sorted by both s and l since l only ever grows with s
+    // only as many entries as the curve needs to hit the tolerances below, so a
+    // straight-ish spline is a handful of doubles instead of thousands of map entries
+    double[] sTable;
+    double[] lTable;
+    // number of valid entries in the tables
+    int tableSize;
+
+    // allowed error in the arc length of each integrated interval, as a fraction of knot distance
+    static final double ARC_LENGTH_TOLERANCE = 1e-9;
+    // allowed error from linearly interpolating l between table entries, as a fraction of knot distance
+    static final double INTERPOLATION_TOLERANCE = 1e-4;
+    // always split [0, 1] at least this many times so symmetric curves can't fool the error estimate
+    static final int MIN_DEPTH = 3;
+    // don't split any interval more than this many times (2^-20 in s is already tiny)
+    static final int MAX_DEPTH = 20;
+
+    // 5 point Gauss-Legendre nodes and weights on [-1, 1]
+    // exact for polynomials up to degree 9, which covers the speed of a quintic really well
+    private static final double[] GL_NODES = {
+        0.0,
+        -0.5384693101056831, 0.5384693101056831,
+        -0.9061798459386640, 0.9061798459386640
+    };
+    private static final double[] GL_WEIGHTS = {
+        0.5688888888888889,
+        0.4786286704993665, 0.4786286704993665,
+        0.2369268850561891, 0.2369268850561891
+    };
 
     public double previousLength;
     public double arcLength;
     // time difference between "knots" aka points
     public double knot_Distance;
 
+    // tolerances for the spline currently being integrated, in length units
+    private double quadratureTolerance;
+    private double interpolationTolerance;
+
     public Spline()
     {
     }
 
+    /**
+     * Copy of a finished spline, for PathFinder.setWaypoint. Shares the
+     * coefficient and arc length tables, nothing changes them once they're made.
+     */
+    Spline(Spline other)
+    {
+        xcoef = other.xcoef;
+        ycoef = other.ycoef;
+        xprimecoef = other.xprimecoef;
+        yprimecoef = other.yprimecoef;
+        xdoubleprimecoef = other.xdoubleprimecoef;
+        ydoubleprimecoef = other.ydoubleprimecoef;
+        sTable = other.sTable;
+        lTable = other.lTable;
+        tableSize = other.tableSize;
+        previousLength = other.previousLength;
+        arcLength = other.arcLength;
+        knot_Distance = other.knot_Distance;
+    }
+
     public void setArcLength()
     {
-        // number of integration steps for arc length approximation
-        double NUM_STEPS=10000;
-        // delta s is going to be 1 divided by NUM_STEPS to split [0, 1] into NUM_STEPS intervals in s
-        double ds=1/NUM_STEPS;
+        // scale the tolerances to the size of the spline so they mean the same thing for
+        // a 10 inch wiggle and a 20 foot drive (and never go to 0 for a 0 length spline)
+        quadratureTolerance = Math.max(knot_Distance*ARC_LENGTH_TOLERANCE, Double.MIN_NORMAL);
+        interpolationTolerance = Math.max(knot_Distance*INTERPOLATION_TOLERANCE, Double.MIN_NORMAL);
+
+        // start small, add() grows it if the curve needs more points
+        sTable = new double[64];
+        lTable = new double[64];
+        tableSize = 0;
+
         // accumulated arc length
-        arcLength=0;
-        // approximate arc length of one small interval of size ds
-        double integrand=0;
-        double s=0;
-        // start at s=0, go to s=1
-        for(int i=1; i<=NUM_STEPS; i++)
+        arcLength = 0;
+        // (s=0, l=0) is always the first entry
+        add(0, 0);
+
+        // integrate sqrt((dx/ds)^2 + (dy/ds)^2) ds over [0, 1], splitting only where needed
+        integrate(0, 1, gaussLegendre(0, 1), 0);
+
+        // trim the tables down to what was actually used
+        sTable = Arrays.copyOf(sTable, tableSize);
+        lTable = Arrays.copyOf(lTable, tableSize);
+    }
+
+    /**
+     * Adaptively integrate arc length over [a, b] and add the table entries in order
+     *
+     * @param whole arc length over [a, b] already estimated with one Gauss-Legendre pass
+     */
+    private void integrate(double a, double b, double whole, int depth)
+    {
+        double m = 0.5*(a+b);
+        double left = gaussLegendre(a, m);
+        double right = gaussLegendre(m, b);
+
+        // if the halves agree with the whole, the quadrature is good, and if the midpoint
+        // is where a straight line between the ends would put it, interpolating is good
+        boolean converged = Math.abs(left+right-whole) <= quadratureTolerance
+                         && Math.abs(left-0.5*whole) <= interpolationTolerance;
+
+        if (depth >= MAX_DEPTH || (depth >= MIN_DEPTH && converged))
+        {
+            // left is done before right so the table stays sorted
+            add(m, arcLength+left);
+            add(b, arcLength+right);
+            return;
+        }
+
+        integrate(a, m, left, depth+1);
+        integrate(m, b, right, depth+1);
+    }
+
+    /**
+     * Arc length over [a, b] with 5 point Gauss-Legendre quadrature
+     */
+    private double gaussLegendre(double a, double b)
+    {
+        // map [-1, 1] onto [a, b]
+        double half = 0.5*(b-a);
+        double mid = 0.5*(a+b);
+        double sum = 0;
+        for(int i=0; i<GL_NODES.length; i++)
         {
-            // ending point of interval at i*ds, bc i intervals so far of width ds
-            s=i*ds;
-            // sqrt((dx/ds)^2 + (dy/ds)^2) ds - pythagorean theorem
-            integrand=Math.sqrt(Math.pow(evaluateFunction(xprimecoef, s), 2)+ Math.pow(evaluateFunction(yprimecoef, s), 2));
-            // add the integrand to the accumulated arc length
-            arcLength+=integrand*ds;
-            // add (accumulated arc length, s) pair to ltos
-            ltos.put(arcLength,s);
+            double s = mid+half*GL_NODES[i];
+            // pythagorean theorem on the derivatives
+            double xp = evaluateFunction(xprimecoef, s);
+            double yp = evaluateFunction(yprimecoef, s);
+            sum += GL_WEIGHTS[i]*Math.sqrt(xp*xp+yp*yp);
         }
-   }
+        return sum*half;
+    }
+
+    /**
+     * Add a (s, l) pair to the end of the tables
+     */
+    private void add(double s, double l)
+    {
+        if (tableSize == sTable.length)
+        {
+            sTable = Arrays.copyOf(sTable, 2*tableSize);
+            lTable = Arrays.copyOf(lTable, 2*tableSize);
+        }
+        sTable[tableSize] = s;
+        lTable[tableSize] = l;
+        tableSize++;
+        arcLength = l;
+    }
+
+    /**
+     * Get the s value that is distance l into the spline
+     *
+     * @param l distance into this spline (not counting previous splines)
+     * @return s between 0 and 1
+     */
+    public double getS(double l)
+    {
+        if (l <= 0) return 0;
+        if (l >= arcLength) return 1;
+        return interpolate(findIndex(l), l);
+    }
+
+    /**
+     * Binary search for the last table entry with arc length <= l
+     *
+     * @return index between 0 and tableSize-2 so there is always an entry after it
+     */
+    int findIndex(double l)
+    {
+        int lo = 0;
+        int hi = tableSize-1;
+        while (hi-lo > 1)
+        {
+            int mid = (lo+hi) >>> 1;
+            if (lTable[mid] <= l) lo = mid;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Linearly interpolate s between table entries index and index+1
+     */
+    double interpolate(int index, double l)
+    {
+        double dl = lTable[index+1]-lTable[index];
+        // 0 length interval (ex. 0 length spline), any s in it is right
+        if (dl <= 0) return sTable[index];
+        return sTable[index]+(sTable[index+1]-sTable[index])*(l-lTable[index])/dl;
+    }
+
+    /**
+     * Signed curvature (1/radius) of the spline at s, positive when turning left
+     */
+    public double getCurvature(double s)
+    {
+        double xp=evaluateFunction(xprimecoef, s);
+        double xpp=evaluateFunction(xdoubleprimecoef, s);
+        double yp=evaluateFunction(yprimecoef, s);
+        double ypp=evaluateFunction(ydoubleprimecoef, s);
+        return (xp*ypp-yp*xpp)/Math.pow(xp*xp+yp*yp, 1.5);
+    }
 
    /**
     * Evaluate a polynomial at s
@@ -80,9 +249,10 @@ public class Spline
     public double evaluateFunction(double[] coefficients, double s)
     {
         double value=0;
-        // just add all the terms to the return value
-        for(int i=0; i<coefficients.length; i++)
-            value+=Math.pow(s,i)*coefficients[i];
+        // horner's method, start from the highest power and work down
+        // ((c_n s + c_n-1) s + ...) s + c_0
+        for(int i=coefficients.length-1; i>=0; i--)
+            value=value*s+coefficients[i];
         return value;
     }
-}
\ No newline at end of file
+}
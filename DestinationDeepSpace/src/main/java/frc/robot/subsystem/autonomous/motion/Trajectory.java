@@ -0,0 +1,70 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+/**
+ * A motion profile with one point per motion loop iteration, no matter where
+ * the points are actually stored (generated on the robot or loaded from a file)
+ */
+public interface Trajectory
+{
+    /**
+     * Number of points in the profile
+     */
+    int size();
+
+    double getPosition(int i);
+    double getVelocity(int i);
+    double getAcceleration(int i);
+    double getHeading(int i);
+    double getTurnRate(int i);
+    double getTurnAcceleration(int i);
+
+    /**
+     * Turn rate at point i with a sign, counter-clockwise (left) positive.
+     * The stored turn rate is only a magnitude, so the direction comes from
+     * which way the heading is changing around point i.
+     */
+    default double getSignedTurnRate(int i)
+    {
+        if (size() < 2) return 0;
+        // heading change into point i (out of it for the first point)
+        int from = (i == 0) ? 0 : i-1;
+        int to = (i == 0) ? 1 : i;
+        // heading is atan2, so wrap the change back into -pi to pi
+        double dHeading = Math.IEEEremainder(getHeading(to)-getHeading(from), 2*Math.PI);
+        return Math.copySign(Math.abs(getTurnRate(i)), dHeading);
+    }
+
+    /**
+     * Copy the i-th point into a MotionPoint
+     *
+     * @param into point to fill in
+     * @return into
+     */
+    default MotionPoint get(int i, MotionPoint into)
+    {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("point " + i + " of " + size());
+
+        into.l_pos = getPosition(i);
+        into.l_vel = getVelocity(i);
+        into.l_acc = getAcceleration(i);
+        into.r_pos = getHeading(i);
+        into.r_vel = getTurnRate(i);
+        into.r_acc = getTurnAcceleration(i);
+        return into;
+    }
+
+    /**
+     * Get the i-th point as a new MotionPoint
+     */
+    default MotionPoint get(int i)
+    {
+        return get(i, new MotionPoint());
+    }
+}
@@ -0,0 +1,181 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+/**
+ * Holds a whole motion profile as one array per quantity instead of one
+ * MotionPoint object per loop iteration.
+ *
+ * Reading point after point in order walks straight through memory, and the
+ * arrays are kept when the buffer is filled again, so regenerating a path that
+ * is no longer than the last one doesn't allocate anything.
+ */
+public class TrajectoryBuffer implements Trajectory
+{
+    // linear position, velocity, acceleration (same as MotionPoint l_pos, l_vel, l_acc)
+    double[] position;
+    double[] velocity;
+    double[] acceleration;
+    // heading, turn rate, turn acceleration (same as MotionPoint r_pos, r_vel, r_acc)
+    double[] heading;
+    double[] turnRate;
+    double[] turnAcceleration;
+
+    // number of points currently in the buffer
+    private int size;
+
+    /**
+     * Create an empty buffer
+     *
+     * @param capacity number of points to make room for up front
+     */
+    public TrajectoryBuffer(int capacity)
+    {
+        allocate(capacity);
+    }
+
+    public TrajectoryBuffer()
+    {
+        this(0);
+    }
+
+    private void allocate(int capacity)
+    {
+        position = new double[capacity];
+        velocity = new double[capacity];
+        acceleration = new double[capacity];
+        heading = new double[capacity];
+        turnRate = new double[capacity];
+        turnAcceleration = new double[capacity];
+    }
+
+    /**
+     * Make sure there is room for at least capacity points.
+     * Only reallocates if the buffer is too small, and doesn't keep old points when it does.
+     */
+    public void ensureCapacity(int capacity)
+    {
+        if (capacity > position.length) allocate(capacity);
+    }
+
+    public int capacity()
+    {
+        return position.length;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Forget all points but keep the arrays around
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Replace the contents of the buffer with every point left in the sampler,
+     * then work out the turn accelerations
+     *
+     * @param loopHertz frequency the points are spaced at
+     */
+    public void fill(TrajectorySampler sampler, double loopHertz)
+    {
+        clear();
+        ensureCapacity(sampler.size()-sampler.getIndex());
+
+        // only point made, gets copied into the columns each time
+        MotionPoint point = new MotionPoint();
+        while (sampler.hasNext())
+        {
+            add(sampler.next(point));
+        }
+
+        computeTurnAcceleration(loopHertz);
+    }
+
+    /**
+     * Add a point to the end of the buffer
+     */
+    public void add(MotionPoint point)
+    {
+        if (size == position.length) grow();
+        set(size++, point);
+    }
+
+    // only used if someone adds past the capacity, fill() sizes it up front
+    private void grow()
+    {
+        int capacity = Math.max(16, position.length*2);
+        double[][] columns = { position, velocity, acceleration, heading, turnRate, turnAcceleration };
+        allocate(capacity);
+        System.arraycopy(columns[0], 0, position, 0, size);
+        System.arraycopy(columns[1], 0, velocity, 0, size);
+        System.arraycopy(columns[2], 0, acceleration, 0, size);
+        System.arraycopy(columns[3], 0, heading, 0, size);
+        System.arraycopy(columns[4], 0, turnRate, 0, size);
+        System.arraycopy(columns[5], 0, turnAcceleration, 0, size);
+    }
+
+    /**
+     * Overwrite the i-th point
+     */
+    public void set(int i, MotionPoint point)
+    {
+        position[i] = point.l_pos;
+        velocity[i] = point.l_vel;
+        acceleration[i] = point.l_acc;
+        heading[i] = point.r_pos;
+        turnRate[i] = point.r_vel;
+        turnAcceleration[i] = point.r_acc;
+    }
+
+    /**
+     * Approximate the turn acceleration of every point from the turn rates around it
+     *
+     * @param loopHertz frequency the points are spaced at
+     */
+    public void computeTurnAcceleration(double loopHertz)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            // want it to have no angular acceleration at the ends
+            if (i == 0 || i == size-1) turnAcceleration[i] = 0;
+            // symmetric derivative, points are 1/loopHertz apart so the
+            // two around it are 2/loopHertz apart
+            else turnAcceleration[i] = (turnRate[i+1]-turnRate[i-1])*loopHertz/2;
+        }
+    }
+
+    @Override
+    public double getPosition(int i) { return position[i]; }
+    @Override
+    public double getVelocity(int i) { return velocity[i]; }
+    @Override
+    public double getAcceleration(int i) { return acceleration[i]; }
+    @Override
+    public double getHeading(int i) { return heading[i]; }
+    @Override
+    public double getTurnRate(int i) { return turnRate[i]; }
+    @Override
+    public double getTurnAcceleration(int i) { return turnAcceleration[i]; }
+
+    /**
+     * Copy the whole buffer out as MotionPoints, for code that still wants the old array
+     */
+    public MotionPoint[] toArray()
+    {
+        MotionPoint[] points = new MotionPoint[size];
+        for (int i = 0; i < size; i++) points[i] = get(i);
+        return points;
+    }
+}
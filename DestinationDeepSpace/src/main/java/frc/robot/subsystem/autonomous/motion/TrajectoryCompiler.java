@@ -0,0 +1,166 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import frc.robot.subsystem.drive.DriveConstants;
+
+/**
+ * Runs on the desktop (gradle generateTrajectories, which deploy depends on)
+ * to turn a spec file into a TrajectoryLibrary file.
+ *
+ * Spec file format, one thing per line, # starts a comment:
+ * <pre>
+ * trajectory &lt;name&gt; &lt;MotionProfile&gt; &lt;PathType&gt;
+ * limits &lt;acc&gt; &lt;v_cruise&gt; &lt;dec&gt; &lt;v_start&gt; &lt;v_end&gt; [jerk]
+ * waypoint &lt;x&gt; &lt;y&gt; &lt;deg&gt;
+ * waypoint ...
+ * end
+ * </pre>
+ * Same units and signs as the TrajectoryFinder constructor (dec is negative).
+ * Jerk is optional and only matters for S_CURVE, leaving it out means unlimited.
+ * TIME_OPTIMAL treats v_cruise as the top wheel speed and slows down for bends
+ * using the lateral acceleration limit and wheel track from DriveConstants.
+ */
+public class TrajectoryCompiler
+{
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("usage: TrajectoryCompiler <spec file> <output file>");
+            System.exit(1);
+        }
+
+        Path spec = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+
+        Map<String, TrajectoryFinder> trajectories = compile(spec);
+
+        Map<String, Trajectory> points = new LinkedHashMap<>();
+        double loopHertz = 0;
+        for (Map.Entry<String, TrajectoryFinder> entry : trajectories.entrySet())
+        {
+            TrajectoryFinder trajectory = entry.getValue();
+            points.put(entry.getKey(), trajectory.getPoints());
+            loopHertz = trajectory.LOOP_HERTZ;
+
+            System.out.printf("%s: %d points, %.2f s%n", entry.getKey(), trajectory.getPoints().size(), trajectory.t_total);
+        }
+
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output)))
+        {
+            TrajectoryLibrary.write(points, loopHertz, out);
+        }
+    }
+
+    /**
+     * Read a spec file and generate every trajectory in it
+     */
+    public static Map<String, TrajectoryFinder> compile(Path spec) throws IOException
+    {
+        Map<String, TrajectoryFinder> trajectories = new LinkedHashMap<>();
+
+        List<String> lines = Files.readAllLines(spec, StandardCharsets.UTF_8);
+
+        // trajectory currently being read
+        String name = null;
+        TrajectoryFinder.MotionProfile profile = null;
+        PathFinder.PathType pathType = null;
+        double[] limits = null;
+        List<Waypoint> waypoints = new ArrayList<>();
+
+        for (int n = 0; n < lines.size(); n++)
+        {
+            String line = lines.get(n);
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String[] words = line.split("\\s+");
+            String where = spec + ":" + (n+1) + ": ";
+            try
+            {
+                switch (words[0])
+                {
+                    case "trajectory":
+                        if (name != null) throw new IOException(where + "missing end for " + name);
+                        expect(words, 4, where);
+                        name = words[1];
+                        profile = TrajectoryFinder.MotionProfile.valueOf(words[2]);
+                        pathType = PathFinder.PathType.valueOf(words[3]);
+                        limits = null;
+                        waypoints.clear();
+                        break;
+
+                    case "limits":
+                        if (words.length != 7) expect(words, 6, where);
+                        limits = new double[] { 0, 0, 0, 0, 0, Double.POSITIVE_INFINITY };
+                        for (int i = 1; i < words.length; i++) limits[i-1] = Double.parseDouble(words[i]);
+                        break;
+
+                    case "waypoint":
+                        expect(words, 4, where);
+                        waypoints.add(new Waypoint(Double.parseDouble(words[1]), Double.parseDouble(words[2]), Double.parseDouble(words[3])));
+                        break;
+
+                    case "end":
+                        if (name == null) throw new IOException(where + "end without trajectory");
+                        if (limits == null) throw new IOException(where + name + " has no limits");
+                        if (waypoints.size() < 2) throw new IOException(where + name + " needs at least 2 waypoints");
+                        if (trajectories.containsKey(name)) throw new IOException(where + "duplicate trajectory " + name);
+
+                        Waypoint[] path = waypoints.toArray(new Waypoint[0]);
+                        if (profile == TrajectoryFinder.MotionProfile.TIME_OPTIMAL)
+                        {
+                            trajectories.put(name, new TrajectoryFinder(pathType, path,
+                                limits[0], limits[1], limits[2], limits[3], limits[4],
+                                DriveConstants.MAX_LAT_ACCELERATION_IPSPS, DriveConstants.WHEEL_TRACK_INCHES));
+                        }
+                        else
+                        {
+                            trajectories.put(name, new TrajectoryFinder(profile, pathType, path,
+                                limits[0], limits[1], limits[2], limits[3], limits[4], limits[5]));
+                        }
+                        name = null;
+                        break;
+
+                    default:
+                        throw new IOException(where + "unknown line " + words[0]);
+                }
+            }
+            catch (IllegalArgumentException e)
+            {
+                // bad number or enum name
+                throw new IOException(where + e.getMessage(), e);
+            }
+        }
+
+        if (name != null) throw new IOException(spec + ": missing end for " + name);
+
+        return trajectories;
+    }
+
+    private static void expect(String[] words, int count, String where) throws IOException
+    {
+        if (words.length != count) throw new IOException(where + words[0] + " takes " + (count-1) + " values");
+    }
+}
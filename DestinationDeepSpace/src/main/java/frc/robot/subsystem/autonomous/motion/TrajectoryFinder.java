@@ -10,6 +10,9 @@ package frc.robot.subsystem.autonomous.motion;
 public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
     MotionProfile profile;
     PathFinder pathfinder;
+    // the path's splines when this was made, PathFinder.setWaypoint swaps in
+    // a new array instead of changing this one
+    Spline[] splines;
 
     // total distance to be travelled
     double totalDistance;
@@ -23,6 +26,9 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
     double v_start;
     // ending velocity
     double v_end;
+    // jerk (rate acceleration changes at), only used by S_CURVE
+    // infinite jerk makes S_CURVE the same as TRAPEZOIDAL
+    double jerk=Double.POSITIVE_INFINITY;
 
     // time spent accelerating
     double t_acc;
@@ -37,18 +43,30 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
     // distance moved by decelerating
     double d_dec;
 
+    // S_CURVE only: time spent changing acceleration at the start and end of
+    // the accelerating phase (jerk phases), and the highest acceleration reached
+    double tj_acc;
+    double a_peak;
+    // same for the decelerating phase, dec_peak is negative like dec
+    double tj_dec;
+    double dec_peak;
+
     // total duration of path
     public double t_total;
 
+    // TIME_OPTIMAL only: velocity along the path
+    VelocityPlanner planner;
+
     // motion points to cross
-    MotionPoint[] mPoints;
+    TrajectoryBuffer points;
     // frequency of motion controller loop
     public double LOOP_HERTZ=200;
 
     public enum MotionProfile{
         TRIANGULAR,
         TRAPEZOIDAL,
-        S_CURVE;//this isn't programmed in, idk how to do that. Using trapezoidal most often
+        S_CURVE,//trapezoidal, but acceleration ramps up and down at a limited jerk instead of jumping
+        TIME_OPTIMAL;//fastest the robot can go while slowing down for bends, see VelocityPlanner
     }
 
     /**
@@ -65,7 +83,105 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
      */
     public TrajectoryFinder(MotionProfile profile, PathFinder.PathType pathtype, Waypoint[] waypoint, double acc, double v_cruise, double dec, double v_start, double v_end)
     {
-        this.pathfinder = new PathFinder(waypoint, pathtype);
+        this(profile, pathtype, waypoint, acc, v_cruise, dec, v_start, v_end, new TrajectoryBuffer());
+    }
+
+    /**
+     * Create a TrajectoryFinder with limited jerk (for S_CURVE profiles)
+     *
+     * @param jerk how fast acceleration can change, always positive
+     */
+    public TrajectoryFinder(MotionProfile profile, PathFinder.PathType pathtype, Waypoint[] waypoint, double acc, double v_cruise, double dec, double v_start, double v_end, double jerk)
+    {
+        this(profile, pathtype, waypoint, acc, v_cruise, dec, v_start, v_end, jerk, new TrajectoryBuffer());
+    }
+
+    /**
+     * Create a TIME_OPTIMAL TrajectoryFinder, that goes as fast as it can on straights
+     * and slows down for bends
+     *
+     * @param v_max maximum velocity (of either wheel)
+     * @param maxLatAcc maximum lateral acceleration in a bend
+     * @param trackWidth distance between left and right wheels
+     */
+    public TrajectoryFinder(PathFinder.PathType pathtype, Waypoint[] waypoint, double acc, double v_max, double dec, double v_start, double v_end, double maxLatAcc, double trackWidth)
+    {
+        this(pathtype, waypoint, acc, v_max, dec, v_start, v_end, maxLatAcc, trackWidth, new TrajectoryBuffer());
+    }
+
+    /**
+     * Create a TIME_OPTIMAL TrajectoryFinder that puts its points into an existing buffer
+     */
+    public TrajectoryFinder(PathFinder.PathType pathtype, Waypoint[] waypoint, double acc, double v_max, double dec, double v_start, double v_end, double maxLatAcc, double trackWidth, TrajectoryBuffer points)
+    {
+        this(new PathFinder(waypoint, pathtype), acc, v_max, dec, v_start, v_end, maxLatAcc, trackWidth, points);
+    }
+
+    /**
+     * Create a TIME_OPTIMAL TrajectoryFinder along a path that's already been made
+     */
+    public TrajectoryFinder(PathFinder pathfinder, double acc, double v_max, double dec, double v_start, double v_end, double maxLatAcc, double trackWidth, TrajectoryBuffer points)
+    {
+        this(pathfinder, new VelocityPlanner(pathfinder, v_max, acc, dec, v_start, v_end, maxLatAcc, trackWidth), acc, v_max, dec, v_start, v_end, points);
+    }
+
+    /**
+     * Create a TIME_OPTIMAL TrajectoryFinder from a velocity plan that's already been made
+     * (PathSearch plans every candidate to score it, no point doing the winner twice)
+     *
+     * @param planner plan for pathfinder, made with the same limits
+     */
+    TrajectoryFinder(PathFinder pathfinder, VelocityPlanner planner, double acc, double v_max, double dec, double v_start, double v_end, TrajectoryBuffer points)
+    {
+        this.pathfinder = pathfinder;
+        this.splines = pathfinder.splines;
+        this.profile = MotionProfile.TIME_OPTIMAL;
+        this.acc=acc;
+        this.v_cruise=v_max;
+        this.dec=dec;
+        this.v_start=v_start;
+        this.v_end=v_end;
+        this.points = points;
+        this.planner = planner;
+        initializeTraj();
+        generateMotionProfile();
+    }
+
+    /**
+     * Create a TrajectoryFinder that puts its points into an existing buffer,
+     * so regenerating paths reuses the same arrays
+     *
+     * @param points buffer to fill with the motion profile
+     */
+    public TrajectoryFinder(MotionProfile profile, PathFinder.PathType pathtype, Waypoint[] waypoint, double acc, double v_cruise, double dec, double v_start, double v_end, TrajectoryBuffer points)
+    {
+        this(profile, pathtype, waypoint, acc, v_cruise, dec, v_start, v_end, Double.POSITIVE_INFINITY, points);
+    }
+
+    /**
+     * Create a TrajectoryFinder with limited jerk (for S_CURVE profiles)
+     *
+     * @param jerk how fast acceleration can change, always positive
+     * @param points buffer to fill with the motion profile
+     */
+    public TrajectoryFinder(MotionProfile profile, PathFinder.PathType pathtype, Waypoint[] waypoint, double acc, double v_cruise, double dec, double v_start, double v_end, double jerk, TrajectoryBuffer points)
+    {
+        this(profile, new PathFinder(waypoint, pathtype), acc, v_cruise, dec, v_start, v_end, jerk, points);
+    }
+
+    /**
+     * Create a TrajectoryFinder along a path that's already been made
+     *
+     * @param pathfinder path to follow
+     * @param jerk how fast acceleration can change, only used by S_CURVE
+     * @param points buffer to fill with the motion profile
+     */
+    public TrajectoryFinder(MotionProfile profile, PathFinder pathfinder, double acc, double v_cruise, double dec, double v_start, double v_end, double jerk, TrajectoryBuffer points)
+    {
+        this.jerk = jerk;
+        this.points = points;
+        this.pathfinder = pathfinder;
+        this.splines = pathfinder.splines;
         this.profile = profile;
         this.acc=acc;
         this.v_cruise=v_cruise;
@@ -83,7 +199,22 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
     private void initializeTraj()
     {
         // calculate total distance travelled by adding individual spline arc lengths
-        for(int i=0; i<pathfinder.splines.length; i++) totalDistance+=pathfinder.splines[i].arcLength;
+        for(int i=0; i<splines.length; i++) totalDistance+=splines[i].arcLength;
+
+        // time optimal already knows how long it takes
+        if(profile==MotionProfile.TIME_OPTIMAL)
+        {
+            t_total=planner.getDuration();
+            return;
+        }
+
+        // s curve has its own math for figuring out the phases
+        if(profile==MotionProfile.S_CURVE)
+        {
+            initializeSCurve();
+            return;
+        }
+
         // sometimes, given the acceleration and velocity restrictions, no trapezoidal path
         // can be made that has the specified cruise velocity, and the best that can be done
         // is to increase at acceleration to some maximum velocity then decrease to the ending velocity
@@ -128,12 +259,171 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
         t_total=t_cruise+t_acc+t_dec;
     }
 
+    /**
+     * Work out the phases of an S_CURVE profile.
+     *
+     * Accelerating happens in 3 parts: acceleration ramps up at the jerk limit,
+     * stays at the acceleration limit, then ramps back down to 0 at cruise.
+     * Decelerating is the same thing backwards, and with cruise that makes 7 phases.
+     * If the velocity change is too small to ever reach the acceleration limit,
+     * the middle part disappears and acceleration peaks lower. If the path is too
+     * short to reach cruise velocity, the highest velocity is lowered until the
+     * accelerating and decelerating distances exactly fill the path.
+     */
+    private void initializeSCurve()
+    {
+        // velocity we'd reach if there was room for all of it
+        double v_peak=v_cruise;
+        if(sCurveDistance(v_peak)>totalDistance)
+        {
+            // too short, find the highest velocity that fits
+            // distance used is always increasing with peak velocity so bisection works
+            double lo=Math.max(v_start, v_end);
+            double hi=v_cruise;
+            // path too short to even get between start and end velocities, best we can do
+            if(sCurveDistance(lo)>=totalDistance) hi=lo;
+            for(int i=0; i<60 && hi-lo>1e-9; i++)
+            {
+                double mid=(lo+hi)/2;
+                if(sCurveDistance(mid)>totalDistance) hi=mid;
+                else lo=mid;
+            }
+            v_peak=lo;
+        }
+        v_cruise=v_peak;
+
+        // accelerating phase
+        double[] phase=sCurvePhase(v_cruise-v_start, acc);
+        tj_acc=phase[0];
+        t_acc=phase[1];
+        a_peak=phase[2];
+        d_acc=(v_start+v_cruise)/2*t_acc;
+
+        // decelerating phase, dec is negative
+        phase=sCurvePhase(v_cruise-v_end, -dec);
+        tj_dec=phase[0];
+        t_dec=phase[1];
+        dec_peak=-phase[2];
+        d_dec=(v_cruise+v_end)/2*t_dec;
+
+        // whatever's left is cruising
+        d_cruise=Math.max(0, totalDistance-d_acc-d_dec);
+        t_cruise=v_cruise>0 ? d_cruise/v_cruise : 0;
+
+        t_total=t_acc+t_cruise+t_dec;
+    }
+
+    /**
+     * Distance an S_CURVE profile needs to go from v_start to v_peak and then to v_end, without cruising
+     */
+    private double sCurveDistance(double v_peak)
+    {
+        // with a symmetric acceleration curve average velocity is halfway between the ends
+        double t_up=sCurvePhase(v_peak-v_start, acc)[1];
+        double t_down=sCurvePhase(v_peak-v_end, -dec)[1];
+        return (v_start+v_peak)/2*t_up + (v_peak+v_end)/2*t_down;
+    }
+
+    /**
+     * Timing of one jerk-limited change in velocity
+     *
+     * @param dv change in velocity (positive)
+     * @param a_max highest acceleration allowed (positive)
+     * @return time spent ramping acceleration up (and down), total time, highest acceleration reached
+     */
+    private double[] sCurvePhase(double dv, double a_max)
+    {
+        dv=Math.max(0, dv);
+        // infinite jerk, acceleration jumps straight to a_max (trapezoidal)
+        if(Double.isInfinite(jerk)) return new double[]{0, dv/a_max, a_max};
+
+        if(dv*jerk>=a_max*a_max)
+        {
+            // reaches a_max, holds it for a while
+            double tj=a_max/jerk;
+            return new double[]{tj, dv/a_max+tj, a_max};
+        }
+        // velocity change is too small to get to a_max, ramp up and straight back down
+        double tj=Math.sqrt(dv/jerk);
+        return new double[]{tj, 2*tj, jerk*tj};
+    }
+
+    /**
+     * Distance, velocity, and acceleration gained tau into one jerk-limited change in velocity
+     * starting from rest, all positive. Closed form for each of the 3 parts.
+     *
+     * @param tau time since the change started
+     * @param T total time of the change
+     * @param tj time spent ramping acceleration up (and down)
+     * @param a_max highest acceleration reached
+     * @param dv total change in velocity
+     */
+    private static void sCurveRamp(double tau, double T, double tj, double a_max, double dv, double[] result)
+    {
+        if(tau<tj)
+        {
+            // acceleration ramping up
+            double j=a_max/tj;
+            result[0]=j*tau*tau*tau/6;
+            result[1]=j*tau*tau/2;
+            result[2]=j*tau;
+        }
+        else if(tau<=T-tj)
+        {
+            // constant acceleration (works for tj=0 too, that's just trapezoidal)
+            result[0]=a_max/6*(3*tau*tau-3*tj*tau+tj*tj);
+            result[1]=a_max*(tau-tj/2);
+            result[2]=a_max;
+        }
+        else
+        {
+            // acceleration ramping down, mirror of ramping up measured back from the end
+            double j=a_max/tj;
+            double u=T-tau;
+            result[0]=dv*T/2-dv*u+j*u*u*u/6;
+            result[1]=dv-j*u*u/2;
+            result[2]=j*u;
+        }
+    }
+
     /**
      * Get travelled distance, velocity, and acceleration at time t
      */
     public double[] getPointInfo(double t)
     {
-        double[] result = new double[3];//contains position, velocity, acceleration in that order
+        return getPointInfo(t, new double[3]);
+    }
+
+    /**
+     * Get travelled distance, velocity, and acceleration at time t
+     * without allocating anything
+     *
+     * @param result array of at least 3 to put position, velocity, acceleration in
+     * @return result
+     */
+    public double[] getPointInfo(double t, double[] result)
+    {
+        //contains position, velocity, acceleration in that order
+        // clear it out so points before the profile are all 0
+        result[0]=0;
+        result[1]=0;
+        result[2]=0;
+
+        // once it's done, it stays at the end of the path
+        // (the last motion point lands exactly on t_total, so this has to be the real end)
+        if(t>=t_total)
+        {
+            result[0]=totalDistance;
+            result[1]=v_end;
+            return result;
+        }
+
+        // planner has a velocity for every bit of the path
+        if(profile==MotionProfile.TIME_OPTIMAL)
+        {
+            if(t>=0) planner.getPointInfo(t, result);
+            return result;
+        }
 
         // consider cases for trapezoidal and triangular profiles
         // equivalent bc triangular is a special case of trapezoidal
@@ -173,6 +463,34 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
                 return result;
             }
         }
+        if(profile==MotionProfile.S_CURVE)
+        {
+            if(t>=0&t<=t_acc)
+            {
+                // gaining speed on top of starting velocity
+                sCurveRamp(t, t_acc, tj_acc, a_peak, v_cruise-v_start, result);
+                result[0]+=v_start*t;
+                result[1]+=v_start;
+                return result;
+            }
+            if(t>=t_acc&t<=(t_cruise+t_acc))
+            {
+                result[0]=d_acc+(t-t_acc)*v_cruise;
+                result[1]=v_cruise;
+                result[2]=0;
+                return result;
+            }
+            if(t>=(t_acc+t_cruise)&t<t_total)
+            {
+                // losing speed from cruise, the same ramp but taken away
+                double tau=t-t_acc-t_cruise;
+                sCurveRamp(tau, t_dec, tj_dec, -dec_peak, v_cruise-v_end, result);
+                result[0]=d_acc+d_cruise+v_cruise*tau-result[0];
+                result[1]=v_cruise-result[1];
+                result[2]=-result[2];
+                return result;
+            }
+        }
         // same comments apply
         if(profile==MotionProfile.TRIANGULAR)//this entire thing is unnecessary. It's the same as previous (trapezoidal) code, but with t_cruise and d_cruise trivialized to 0, which already happened. somehow it makes me less nervous to have this though
         {
@@ -194,69 +512,99 @@ public class TrajectoryFinder {//deceleration is NEGATIVE* remember that pls
         return result;
     }
 
+    /**
+     * Number of motion points in the profile, one per loop iteration
+     */
+    public int getNumPoints()
+    {
+        // always at least starting point -> +1
+        // total time * frequency = number of times it will run in the total time interval
+        return (int) (t_total*LOOP_HERTZ + 1);
+    }
+
+    /**
+     * Get a sampler that walks the profile one loop iteration at a time
+     * without building the whole MotionPoint array
+     */
+    public TrajectorySampler sampler()
+    {
+        return new TrajectorySampler(this);
+    }
+
     public void generateMotionProfile()
     {
         // spline generating between waypoints
         // extrapolate points at in between times
         // specifically, at times when the motion profile loop starts an iteration
+        // the sampler goes through each point loop will run at, and the buffer
+        // sets their rotational accelerations once they're all in
+        points.fill(sampler(), LOOP_HERTZ);
+    }
 
-        // always at least starting point -> +1
-        // total time * frequency = number of times it will run in the total time interval
-        mPoints = new MotionPoint[(int) ((t_acc + t_cruise + t_dec)*LOOP_HERTZ + 1)];
-        // go through each point loop will run at
-        // and get the motion point at that time
-        double time;
-        for(int i=0; i<mPoints.length; i++)
-        {
-            // time into path so far -> i-th iteration in loop of LOOP_HERTZ frequency
-            // time = #/(# per second)
-            time=i/LOOP_HERTZ;
-            // generate i-th motion point
-            mPoints[i] = getMotionPoint(time);
-        }
-        for(int i=0; i<mPoints.length; i++)//sets their rotational acclerations
-        {
-            // calculate time at i-th MP
-            time=i/LOOP_HERTZ;
-            // want it to have no angular acceleration at the end
-            if(i==0||i==mPoints.length-1) mPoints[i].r_acc=0;
-            // approximate angular acceleration with symmetric derivative approximation
-            else mPoints[i].r_acc=(mPoints[i+1].r_vel-mPoints[i-1].r_vel)*2/LOOP_HERTZ;
-        }
+    /**
+     * Motion profile, one point per loop iteration
+     */
+    public TrajectoryBuffer getPoints()
+    {
+        return points;
+    }
+
+    /**
+     * Get the i-th point of the generated profile
+     */
+    public MotionPoint getPoint(int i)
+    {
+        return points.get(i);
     }
 
     public MotionPoint getMotionPoint(double t)
     {
         // get point info at t, set data as variables
-        double linvel=getPointInfo(t)[1];
-        double linpos=getPointInfo(t)[0];
-        double linacc=getPointInfo(t)[2];
+        double[] info=getPointInfo(t);
+        double linpos=info[0];
+        double linvel=info[1];
+        double linacc=info[2];
 
         // polynomial number in which the distance linpos along spline is at
-        int splno= (int) (pathfinder.getSplineNo(linpos)[0]);
-        // how far into that polynomial the distance is
-        double d=pathfinder.getSplineNo(linpos)[1];
+        // and how far into that polynomial the distance is
+        double[] splineNo=PathFinder.getSplineNo(splines, linpos);
+        Spline spline=splines[(int) splineNo[0]];
         // get parameter value for polynomial at distance d into it
-        double sval=pathfinder.splines[splno].ltos.ceilingEntry(d).getValue();
+        double sval=spline.getS(splineNo[1]);
+
+        // create the MP given data of motion at the point
+        MotionPoint point = new MotionPoint();
+        fillMotionPoint(point, linpos, linvel, linacc, spline, sval);
+        return point;
+    }
+
+    /**
+     * Fill in a motion point given the linear motion and where it is on the spline
+     *
+     * @param sval parameter value for the spline at the current position
+     */
+    static void fillMotionPoint(MotionPoint point, double linpos, double linvel, double linacc, Spline spline, double sval)
+    {
         // calculate x derivative at point
-        double xp=pathfinder.splines[splno].evaluateFunction(pathfinder.splines[splno].xprimecoef, sval);
+        double xp=spline.evaluateFunction(spline.xprimecoef, sval);
         // calculate x double derivative at point
-        double xpp=pathfinder.splines[splno].evaluateFunction(pathfinder.splines[splno].xdoubleprimecoef, sval);
+        double xpp=spline.evaluateFunction(spline.xdoubleprimecoef, sval);
         // calculate y derivative at point
-        double yp=pathfinder.splines[splno].evaluateFunction(pathfinder.splines[splno].yprimecoef, sval);
+        double yp=spline.evaluateFunction(spline.yprimecoef, sval);
         // calculate y double derivative at point
-        double ypp=pathfinder.splines[splno].evaluateFunction(pathfinder.splines[splno].ydoubleprimecoef, sval);
+        double ypp=spline.evaluateFunction(spline.ydoubleprimecoef, sval);
 
         // fancy equation for curvature of path at point
         double curv=Math.abs(xpp*yp-ypp*xp)/Math.pow((xp*xp + yp*yp), 1.5);// curvature is 1/radius
 
+        point.l_pos=linpos;
+        point.l_vel=linvel;
+        point.l_acc=linacc;
         // angle robot is facing
-        double rotpos=Math.atan2(yp, xp);
+        point.r_pos=Math.atan2(yp, xp);
         // angular velocity
-        double rotvel=linvel*curv;//cuz curvature is 1/radius
-        
-        // create the MP given data of motion at the point
-        return new MotionPoint(linpos, linvel, linacc,rotpos, rotvel);
-    }       
+        point.r_vel=linvel*curv;//cuz curvature is 1/radius
+        point.r_acc=0;
+    }
 
 }
@@ -0,0 +1,191 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trajectories generated ahead of time (by TrajectoryCompiler when deploying)
+ * so the robot doesn't have to run PathFinder/TrajectoryFinder itself.
+ *
+ * File layout, big endian:
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    number of trajectories
+ * for each trajectory:
+ *   short  name length, then the name in UTF-8
+ *   double loop hertz
+ *   int    number of points
+ *   long   offset of the point data from the start of the file
+ * point data for each trajectory, starting 8 byte aligned:
+ *   position[], velocity[], acceleration[], heading[], turnRate[], turnAcceleration[]
+ * </pre>
+ */
+public class TrajectoryLibrary
+{
+    // "BBTJ"
+    public static final int MAGIC = 0x4242544A;
+    // bump if the layout changes, old files won't load
+    public static final int VERSION = 1;
+    // number of doubles stored for each point
+    static final int COLUMNS = 6;
+
+    public static final String DEFAULT_FILE_NAME = "trajectories.bin";
+
+    private final Map<String, TrajectoryView> trajectories;
+
+    private TrajectoryLibrary(Map<String, TrajectoryView> trajectories)
+    {
+        this.trajectories = trajectories;
+    }
+
+    /**
+     * Library with nothing in it, for when the file couldn't be loaded
+     */
+    public static TrajectoryLibrary empty()
+    {
+        return new TrajectoryLibrary(Collections.emptyMap());
+    }
+
+    /**
+     * Map a trajectory file into memory and read its directory.
+     * The point data isn't read until something asks for it.
+     */
+    public static TrajectoryLibrary load(Path file) throws IOException
+    {
+        MappedByteBuffer buffer;
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try
+        {
+            return read(buffer);
+        }
+        catch (RuntimeException e)
+        {
+            // BufferUnderflow, IllegalArgument, etc. all mean a broken file
+            throw new IOException(file + " is not a valid trajectory file", e);
+        }
+    }
+
+    private static TrajectoryLibrary read(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.getInt() != MAGIC) throw new IOException("not a trajectory file");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("trajectory file version " + version + ", expected " + VERSION);
+
+        int count = buffer.getInt();
+        Map<String, TrajectoryView> trajectories = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++)
+        {
+            byte[] nameBytes = new byte[buffer.getShort()];
+            buffer.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            double loopHertz = buffer.getDouble();
+            int size = buffer.getInt();
+            long offset = buffer.getLong();
+
+            // view of just this trajectory's points, shares memory with the mapping
+            ByteBuffer points = buffer.duplicate();
+            points.limit(Math.toIntExact(offset + (long) size*COLUMNS*Double.BYTES));
+            points.position(Math.toIntExact(offset));
+
+            trajectories.put(name, new TrajectoryView(name, loopHertz, size, points.slice().asDoubleBuffer()));
+        }
+
+        return new TrajectoryLibrary(Collections.unmodifiableMap(trajectories));
+    }
+
+    /**
+     * Write trajectories in the format load() reads
+     *
+     * @param trajectories name to trajectory, written in iteration order
+     * @param loopHertz frequency all the trajectories were generated at
+     */
+    public static void write(Map<String, ? extends Trajectory> trajectories, double loopHertz, OutputStream stream) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(stream);
+
+        // header size has to be known to work out where the point data goes
+        long headerSize = 3*Integer.BYTES;
+        for (String name : trajectories.keySet())
+        {
+            headerSize += Short.BYTES + name.getBytes(StandardCharsets.UTF_8).length
+                + Double.BYTES + Integer.BYTES + Long.BYTES;
+        }
+        // so every double lands on an 8 byte boundary
+        long padding = (8 - headerSize%8) % 8;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(trajectories.size());
+
+        long offset = headerSize + padding;
+        for (Map.Entry<String, ? extends Trajectory> entry : trajectories.entrySet())
+        {
+            byte[] nameBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(nameBytes.length);
+            out.write(nameBytes);
+            out.writeDouble(loopHertz);
+            out.writeInt(entry.getValue().size());
+            out.writeLong(offset);
+
+            offset += (long) entry.getValue().size()*COLUMNS*Double.BYTES;
+        }
+        for (int i = 0; i < padding; i++) out.writeByte(0);
+
+        for (Trajectory trajectory : trajectories.values())
+        {
+            int size = trajectory.size();
+            for (int i = 0; i < size; i++) out.writeDouble(trajectory.getPosition(i));
+            for (int i = 0; i < size; i++) out.writeDouble(trajectory.getVelocity(i));
+            for (int i = 0; i < size; i++) out.writeDouble(trajectory.getAcceleration(i));
+            for (int i = 0; i < size; i++) out.writeDouble(trajectory.getHeading(i));
+            for (int i = 0; i < size; i++) out.writeDouble(trajectory.getTurnRate(i));
+            for (int i = 0; i < size; i++) out.writeDouble(trajectory.getTurnAcceleration(i));
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Get a trajectory by the name it was given in the spec file
+     *
+     * @return the trajectory, or null if there isn't one by that name
+     */
+    public TrajectoryView get(String name)
+    {
+        return trajectories.get(name);
+    }
+
+    public Set<String> getNames()
+    {
+        return trajectories.keySet();
+    }
+
+    public int size()
+    {
+        return trajectories.size();
+    }
+}
@@ -0,0 +1,177 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks a TrajectoryFinder's profile one motion loop iteration at a time.
+ *
+ * Points are made on demand instead of all at once, and the sampler remembers
+ * which spline and which arc length table entry it was on last time. Since the
+ * robot only ever moves forward along the path, finding the next point is
+ * usually just a step or two forward instead of a search from the start.
+ */
+public class TrajectorySampler implements Iterator<MotionPoint>
+{
+    private final TrajectoryFinder trajectory;
+    private final Spline[] splines;
+    // number of points the profile has
+    private final int numPoints;
+
+    // index of the next point to give out
+    private int index;
+    // spline the last point was on
+    private int splineIndex;
+    // arc length table entry the last point was after
+    private int tableIndex;
+
+    // reused so sampling doesn't allocate
+    private final double[] info = new double[3];
+
+    TrajectorySampler(TrajectoryFinder trajectory)
+    {
+        this.trajectory = trajectory;
+        this.splines = trajectory.splines;
+        this.numPoints = trajectory.getNumPoints();
+    }
+
+    /**
+     * Index of the next point, also the number of loop iterations already sampled
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Total number of points in the profile
+     */
+    public int size()
+    {
+        return numPoints;
+    }
+
+    /**
+     * Go back to the start of the profile
+     */
+    public void reset()
+    {
+        index = 0;
+        splineIndex = 0;
+        tableIndex = 0;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return index < numPoints;
+    }
+
+    /**
+     * Get the next point as a new MotionPoint
+     */
+    @Override
+    public MotionPoint next()
+    {
+        return next(new MotionPoint());
+    }
+
+    /**
+     * Put the next point into an existing MotionPoint instead of making a new one
+     *
+     * @param into point to fill in
+     * @return into
+     */
+    public MotionPoint next(MotionPoint into)
+    {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        sample(index/trajectory.LOOP_HERTZ, into);
+        index++;
+
+        return into;
+    }
+
+    /**
+     * Stream of the remaining points, each one a new MotionPoint
+     */
+    public Stream<MotionPoint> stream()
+    {
+        return StreamSupport.stream(Spliterators.spliterator(this, numPoints-index,
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED), false);
+    }
+
+    /**
+     * Fill in the point at time t, moving the cursor to wherever it is
+     */
+    private void sample(double t, MotionPoint into)
+    {
+        trajectory.getPointInfo(t, info);
+        double linpos = info[0];
+
+        // same as PathFinder.getSplineNo, positions off of the path
+        // are treated like the very start of it
+        double l;
+        if (linpos < 0 || !seekSpline(linpos))
+        {
+            splineIndex = 0;
+            tableIndex = 0;
+            l = 0;
+        }
+        else l = linpos-splines[splineIndex].previousLength;
+
+        Spline spline = splines[splineIndex];
+        double sval = getS(spline, l);
+
+        TrajectoryFinder.fillMotionPoint(into, linpos, info[1], info[2], spline, sval);
+    }
+
+    /**
+     * Move the spline cursor to the spline that holds distance d
+     *
+     * @return false if d is past the end of the path
+     */
+    private boolean seekSpline(double d)
+    {
+        // went backwards (someone sampled out of order), start over
+        if (d < splines[splineIndex].previousLength)
+        {
+            splineIndex = 0;
+            tableIndex = 0;
+        }
+
+        while (d > splines[splineIndex].previousLength+splines[splineIndex].arcLength)
+        {
+            if (splineIndex == splines.length-1) return false;
+            splineIndex++;
+            tableIndex = 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * Spline.getS, but walking forward from the last table entry instead of searching
+     */
+    private double getS(Spline spline, double l)
+    {
+        if (l <= 0) return 0;
+        if (l >= spline.arcLength) return 1;
+
+        if (spline.lTable[tableIndex] > l) tableIndex = spline.findIndex(l);
+        while (tableIndex < spline.tableSize-2 && spline.lTable[tableIndex+1] <= l) tableIndex++;
+
+        return spline.interpolate(tableIndex, l);
+    }
+}
@@ -0,0 +1,83 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A trajectory read straight out of a TrajectoryLibrary file.
+ * Nothing is copied, every get reads from the mapped file.
+ */
+public class TrajectoryView implements Trajectory
+{
+    private final String name;
+    private final double loopHertz;
+    private final int size;
+    // all six columns one after another, same order as TrajectoryBuffer
+    private final DoubleBuffer data;
+
+    TrajectoryView(String name, double loopHertz, int size, DoubleBuffer data)
+    {
+        this.name = name;
+        this.loopHertz = loopHertz;
+        this.size = size;
+        this.data = data;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Frequency the points were generated at
+     */
+    public double getLoopHertz()
+    {
+        return loopHertz;
+    }
+
+    /**
+     * Total time it takes to follow the trajectory
+     */
+    public double getDuration()
+    {
+        return (size-1)/loopHertz;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public double getPosition(int i) { return data.get(i); }
+    @Override
+    public double getVelocity(int i) { return data.get(size+i); }
+    @Override
+    public double getAcceleration(int i) { return data.get(2*size+i); }
+    @Override
+    public double getHeading(int i) { return data.get(3*size+i); }
+    @Override
+    public double getTurnRate(int i) { return data.get(4*size+i); }
+    @Override
+    public double getTurnAcceleration(int i) { return data.get(5*size+i); }
+
+    /**
+     * Copy the whole trajectory into a buffer, if something needs to change it
+     */
+    public void copyTo(TrajectoryBuffer buffer)
+    {
+        buffer.clear();
+        buffer.ensureCapacity(size);
+
+        MotionPoint point = new MotionPoint();
+        for (int i = 0; i < size; i++) buffer.add(get(i, point));
+    }
+}
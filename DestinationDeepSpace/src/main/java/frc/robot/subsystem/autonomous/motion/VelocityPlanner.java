@@ -0,0 +1,200 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.autonomous.motion;
+
+/**
+ * Plans the fastest velocity along a path that the robot can actually follow.
+ *
+ * The path is sampled every SAMPLE_SPACING, and at each sample velocity is capped by
+ * - the maximum velocity
+ * - lateral acceleration in the bend (v^2 * curvature &lt;= maxLatAcc)
+ * - the outside wheel's speed (v * (1 + curvature*trackWidth/2) &lt;= maximum velocity)
+ * Then a forward pass limits how fast it can speed up and a backward pass limits
+ * how fast it has to slow down, so straights run at full speed and only bends slow down.
+ */
+public class VelocityPlanner
+{
+    // distance between samples along the path
+    public static final double SAMPLE_SPACING = 0.5;
+    // never plan slower than this fraction of the maximum velocity, or a kink in the
+    // path (curvature blowing up) would make it take forever
+    static final double MIN_VELOCITY_FRACTION = 0.01;
+
+    // distance along the path of each sample
+    private double[] distance;
+    // planned velocity at each sample
+    private double[] velocity;
+    // time the robot reaches each sample
+    private double[] time;
+    private int size;
+
+    // tightest bend anywhere on the path
+    private double maxCurvature;
+
+    /**
+     * Plan velocities along a path
+     *
+     * @param path path to follow
+     * @param v_max maximum velocity (of the center of the robot, and of either wheel)
+     * @param acc maximum acceleration
+     * @param dec maximum deceleration (negative, like TrajectoryFinder)
+     * @param v_start starting velocity
+     * @param v_end ending velocity
+     * @param maxLatAcc maximum lateral (sideways) acceleration before the wheels slip
+     * @param trackWidth distance between left and right wheels
+     */
+    public VelocityPlanner(PathFinder path, double v_max, double acc, double dec, double v_start, double v_end, double maxLatAcc, double trackWidth)
+    {
+        sample(path, v_max, maxLatAcc, trackWidth);
+
+        double v_min=v_max*MIN_VELOCITY_FRACTION;
+
+        // forward pass, can't get faster than accelerating from the last sample allows
+        velocity[0]=Math.min(velocity[0], v_start);
+        for(int i=1; i<size; i++)
+        {
+            double ds=distance[i]-distance[i-1];
+            velocity[i]=Math.min(velocity[i], Math.sqrt(velocity[i-1]*velocity[i-1]+2*acc*ds));
+        }
+
+        // backward pass, has to be slow enough to decelerate to the next sample
+        velocity[size-1]=Math.min(velocity[size-1], v_end);
+        for(int i=size-2; i>=0; i--)
+        {
+            double ds=distance[i+1]-distance[i];
+            velocity[i]=Math.min(velocity[i], Math.sqrt(velocity[i+1]*velocity[i+1]-2*dec*ds));
+        }
+
+        // time to get to each sample, constant acceleration in between so average velocity is the midpoint
+        time=new double[size];
+        for(int i=1; i<size; i++)
+        {
+            double ds=distance[i]-distance[i-1];
+            double v_avg=Math.max((velocity[i-1]+velocity[i])/2, v_min);
+            time[i]=time[i-1]+ds/v_avg;
+        }
+    }
+
+    /**
+     * Sample the path and set velocity to the cap at each sample
+     */
+    private void sample(PathFinder path, double v_max, double maxLatAcc, double trackWidth)
+    {
+        // samples per spline so every spline's start and end are sampled
+        size=1;
+        for(Spline spline : path.splines) size+=Math.max(1, (int) Math.ceil(spline.arcLength/SAMPLE_SPACING));
+
+        distance=new double[size];
+        velocity=new double[size];
+
+        int i=0;
+        double v_min=v_max*MIN_VELOCITY_FRACTION;
+        for(int n=0; n<path.splines.length; n++)
+        {
+            Spline spline=path.splines[n];
+            int count=Math.max(1, (int) Math.ceil(spline.arcLength/SAMPLE_SPACING));
+            // last spline includes its end, others leave it for the next one's start
+            int last=(n==path.splines.length-1) ? count : count-1;
+            for(int k=0; k<=last; k++)
+            {
+                double l=spline.arcLength*k/count;
+                double curvature=Math.abs(spline.getCurvature(spline.getS(l)));
+                // NaN (from a point where the path stops) counts as the tightest bend possible
+                maxCurvature=Double.isNaN(curvature) ? Double.POSITIVE_INFINITY : Math.max(maxCurvature, curvature);
+
+                double cap=v_max;
+                // lateral acceleration v^2/r = v^2*curvature
+                if(curvature*maxLatAcc>0) cap=Math.min(cap, Math.sqrt(maxLatAcc/curvature));
+                // outside wheel goes faster than the center by (r+track/2)/r
+                cap=Math.min(cap, v_max/(1+curvature*trackWidth/2));
+                if(Double.isNaN(cap)) cap=v_min;
+
+                distance[i]=spline.previousLength+l;
+                velocity[i]=Math.max(cap, v_min);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Total time to follow the path
+     */
+    public double getDuration()
+    {
+        return time[size-1];
+    }
+
+    /**
+     * Largest curvature (1/smallest radius) anywhere on the path
+     */
+    public double getMaxCurvature()
+    {
+        return maxCurvature;
+    }
+
+    /**
+     * Total length of the path
+     */
+    public double getTotalDistance()
+    {
+        return distance[size-1];
+    }
+
+    /**
+     * Get travelled distance, velocity, and acceleration at time t
+     *
+     * @param result array of at least 3 to put position, velocity, acceleration in
+     * @return result
+     */
+    public double[] getPointInfo(double t, double[] result)
+    {
+        if(t<=0)
+        {
+            result[0]=0;
+            result[1]=velocity[0];
+            result[2]=size>1 ? acceleration(0) : 0;
+            return result;
+        }
+        if(t>=time[size-1])
+        {
+            result[0]=distance[size-1];
+            result[1]=velocity[size-1];
+            result[2]=0;
+            return result;
+        }
+
+        // last sample at or before t
+        int lo=0;
+        int hi=size-1;
+        while(hi-lo>1)
+        {
+            int mid=(lo+hi)>>>1;
+            if(time[mid]<=t) lo=mid;
+            else hi=mid;
+        }
+
+        // constant acceleration between samples
+        double tau=t-time[lo];
+        double a=acceleration(lo);
+        // (min in case the minimum velocity made this interval a little longer)
+        result[0]=Math.min(distance[lo]+velocity[lo]*tau+a*tau*tau/2, distance[lo+1]);
+        result[1]=velocity[lo]+a*tau;
+        result[2]=a;
+        return result;
+    }
+
+    /**
+     * Acceleration between sample i and i+1
+     */
+    private double acceleration(int i)
+    {
+        double dt=time[i+1]-time[i];
+        if(dt<=0) return 0;
+        return (velocity[i+1]-velocity[i])/dt;
+    }
+}
@@ -23,6 +23,10 @@ import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import frc.robot.MotorId;
 import frc.robot.ServoId;
 import frc.robot.operatorinterface.OI;
+import frc.robot.utils.sensors.SensorSnapshot;
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.talonutils.StatusFrameScheduler;
+import frc.robot.utils.talonutils.TalonInitializer;
 import frc.robot.utils.talonutils.TalonUtils;
 /**
  * Add your docs here.
@@ -35,6 +39,13 @@ public class ClimberSubsystem extends BitBucketSubsystem {
 	Servo climbServo;
 	WPI_TalonSRX  climbMotor1;
 	WPI_TalonSRX climbMotor2;
+	// This loop's readings from the motors, see SensorSnapshot
+	private final SensorSnapshot.Talon climb1Sensors;
+	private final SensorSnapshot.Talon climb2Sensors;
+
+	// Dashboard values, made in initializeDashboard()
+	private TelemetryChannel endLimitChannel;
+
 	// TODO: Set proper values for angles and motors
 	double highClimbAngle = 40;
 	double highClimbSpeed = 0.25;
@@ -59,21 +70,34 @@ public class ClimberSubsystem extends BitBucketSubsystem {
 		climbMotor1 = new WPI_TalonSRX(MotorId.CLIMB_MOTOR_1_ID);
 		climbMotor2 = new WPI_TalonSRX(MotorId.CLIMB_MOTOR_2_ID);
 
-		TalonUtils.initializeMotorDefaults(climbMotor1);
-		TalonUtils.initializeMotorDefaults(climbMotor2);
-
-		climbMotor1.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, LimitSwitchNormal.NormallyOpen,0);
-		climbMotor1.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector,LimitSwitchNormal.NormallyOpen,0);
-		
-		climbMotor1.overrideLimitSwitchesEnable(true);
-
-		climbMotor1.setInverted(ClimberConstants.CLIMBER_INVERSION);
-		climbMotor2.setInverted(!ClimberConstants.CLIMBER_INVERSION);
-
-		climbMotor1.setNeutralMode(NeutralMode.Brake);
-		climbMotor2.setNeutralMode(NeutralMode.Brake);
-
-		climbMotor2.follow(climbMotor1);
+		// Status frame rates are managed centrally to keep CAN bus load down
+		StatusFrameScheduler.instance().register(climbMotor1);
+		StatusFrameScheduler.instance().register(climbMotor2);
+
+		// Read once a loop
+		climb1Sensors = SensorSnapshot.instance().track(climbMotor1, SensorSnapshot.CURRENT | SensorSnapshot.LIMIT_SWITCHES);
+		climb2Sensors = SensorSnapshot.instance().track(climbMotor2, SensorSnapshot.CURRENT);
+
+		// Configured in the background with everything else, robotInit waits for it
+		TalonInitializer.instance().device(getName() + " Climb 1", climbMotor1)
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(climbMotor1))
+			.step("forward limit switch", () -> climbMotor1.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, LimitSwitchNormal.NormallyOpen,0))
+			.step("reverse limit switch", () -> climbMotor1.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector,LimitSwitchNormal.NormallyOpen,0))
+			.run("setup", () -> {
+				climbMotor1.overrideLimitSwitchesEnable(true);
+				climbMotor1.setInverted(ClimberConstants.CLIMBER_INVERSION);
+				climbMotor1.setNeutralMode(NeutralMode.Brake);
+			})
+			.start();
+
+		TalonInitializer.instance().device(getName() + " Climb 2", climbMotor2)
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(climbMotor2))
+			.run("setup", () -> {
+				climbMotor2.setInverted(!ClimberConstants.CLIMBER_INVERSION);
+				climbMotor2.setNeutralMode(NeutralMode.Brake);
+				climbMotor2.follow(climbMotor1);
+			})
+			.start();
 	}
 
 	public static ClimberSubsystem instance() {
@@ -93,13 +117,13 @@ public class ClimberSubsystem extends BitBucketSubsystem {
 	
 
 	@Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
 		clearDiagnosticsEnabled();
 		updateBaseDashboard();
-		SmartDashboard.putBoolean(getName()+"/END Limit Switch", climbMotor1.getSensorCollection().isRevLimitSwitchClosed());
+		endLimitChannel.set(climb1Sensors.isRevLimitSwitchClosed());
 		//SmartDashboard.putNumber(getName() + "/ManualJoystickCommand", oi.manualClimbControl());
-		double climbMotor1current = climbMotor1.getOutputCurrent();
-		double climbMotor2current = climbMotor2.getOutputCurrent();
+		double climbMotor1current = climb1Sensors.getOutputCurrent_amps();
+		double climbMotor2current = climb2Sensors.getOutputCurrent_amps();
 		//SmartDashboard.putNumber(getName() + "/climbMotor1Current", climbMotor1current);
 		//SmartDashboard.putNumber(getName() + "/climbMotor2Current", climbMotor2current);
 		switch (state) {
@@ -181,6 +205,7 @@ public class ClimberSubsystem extends BitBucketSubsystem {
 
 	void initializeDashboard()
 	{
+		endLimitChannel = baseTelemetry.channel("END Limit Switch");
 		//SmartDashboard.putNumber(getName()+"/ServoTestAngle(deg)", 0.0);
 	}
 
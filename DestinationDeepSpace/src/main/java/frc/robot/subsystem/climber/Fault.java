@@ -7,9 +7,9 @@
 
 package frc.robot.subsystem.climber;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
-public class Fault extends Command {
+public class Fault extends BitBucketCommand {
   public Fault() {
     // Use requires() here to declare subsystem dependencies
     // eg. requires(chassis);
@@ -17,28 +17,28 @@ public class Fault extends Command {
 
   // Called just before this Command runs the first time
   @Override
-  protected void initialize() {
+  protected void commandInitialize() {
   }
 
   // Called repeatedly when this Command is scheduled to run
   @Override
-  protected void execute() {
+  protected void commandExecute() {
   }
 
   // Make this return true when this Command no longer needs to run execute()
   @Override
-  protected boolean isFinished() {
+  protected boolean commandIsFinished() {
     return false;
   }
 
   // Called once after isFinished returns true
   @Override
-  protected void end() {
+  protected void commandEnd() {
   }
 
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
   @Override
-  protected void interrupted() {
+  protected void commandInterrupted() {
   }
 }
@@ -7,10 +7,10 @@
 
 package frc.robot.subsystem.climber;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 import frc.robot.operatorinterface.OI;
 
-public class Idle extends Command {
+public class Idle extends BitBucketCommand {
 
   private final OI oi = OI.instance();
 
@@ -23,17 +23,17 @@ public class Idle extends Command {
 
   // Called just before this Command runs the first time
   @Override
-  protected void initialize() {
+  protected void commandInitialize() {
   }
 
   // Called repeatedly when this Command is scheduled to run
   @Override
-  protected void execute() {
+  protected void commandExecute() {
   }
 
   // Make this return true when this Command no longer needs to run execute()
   @Override
-  protected boolean isFinished() {
+  protected boolean commandIsFinished() {
     //thePressingButtonThing();
     if (oi.armClimber()){
     
@@ -43,13 +43,13 @@ public class Idle extends Command {
 
   // Called once after isFinished returns true
   @Override
-  protected void end() {
+  protected void commandEnd() {
   }
 
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
   @Override
-  protected void interrupted() {
+  protected void commandInterrupted() {
   }
 
   public boolean armClimber()
@@ -9,9 +9,9 @@ package frc.robot.subsystem.drive;
 
 import frc.robot.operatorinterface.OI;
 import frc.robot.utils.CommandUtils;
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
-public class AlignLock extends Command {
+public class AlignLock extends BitBucketCommand {
   private final OI oi = OI.instance();
   private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
 
@@ -25,20 +25,20 @@ public class AlignLock extends Command {
 
   // Called just before this Command runs the first time
   @Override
-  protected void initialize() {
+  protected void commandInitialize() {
     System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);
     driveSubsystem.setAlignDrive(true);
   }
 
   // Called repeatedly when this Command is scheduled to run
   @Override
-  protected void execute() {
+  protected void commandExecute() {
     driveSubsystem.doAlignDrive(oi.speed(), oi.turn());
   }
 
   // Make this return true when this Command no longer needs to run execute()
   @Override
-  protected boolean isFinished() {
+  protected boolean commandIsFinished() {
 
     // If more than one button is pressed resolve the conflict
     boolean lock = oi.driveLock();
@@ -70,7 +70,7 @@ public class AlignLock extends Command {
 
   // Called once after isFinished returns true
   @Override
-  protected void end() {
+  protected void commandEnd() {
     System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000);
         driveSubsystem.setAlignDrive(false);
   }
@@ -78,7 +78,7 @@ public class AlignLock extends Command {
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
   @Override
-  protected void interrupted() {
-    end();
+  protected void commandInterrupted() {
+    commandEnd();
   }
 }
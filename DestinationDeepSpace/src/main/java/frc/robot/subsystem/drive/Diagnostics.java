@@ -9,13 +9,13 @@ package frc.robot.subsystem.drive;
 
 import frc.robot.utils.CommandUtils;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
 
 /**
  * Add your docs here.
  */
-public class Diagnostics extends Command {
+public class Diagnostics extends BitBucketCommand {
     private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
 
     private int diagInitLoops;
@@ -28,13 +28,13 @@ public class Diagnostics extends Command {
     }
 
     // Called just before this Command runs the first time
-    protected void initialize() {
+    protected void commandInitialize() {
     	driveSubsystem.diagnosticsInitialize();
     	System.out.println("Entering Drive Diagnostics");
     }
 
     // Called repeatedly when this Command is scheduled to run
-    protected void execute() {
+    protected void commandExecute() {
     	System.out.println("Executing Drive Diagnostics");
     	if(diagInitLoops < driveSubsystem.DIAG_LOOPS_RUN) {
     		driveSubsystem.diagnosticsPeriodic();
@@ -43,7 +43,7 @@ public class Diagnostics extends Command {
     }
 
     // Make this return true when this Command no longer needs to run execute()
-    protected boolean isFinished() {
+    protected boolean commandIsFinished() {
 
     	if(diagInitLoops >= driveSubsystem.DIAG_LOOPS_RUN) {
     		System.out.println("Checking Drive Diagnostics");
@@ -54,12 +54,12 @@ public class Diagnostics extends Command {
     }
 
     // Called once after isFinished returns true
-    protected void end() {
+    protected void commandEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
-    protected void interrupted() {
-    	end();
+    protected void commandInterrupted() {
+    	commandEnd();
     }
 }
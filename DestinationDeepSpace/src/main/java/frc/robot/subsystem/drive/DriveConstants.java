@@ -195,6 +195,20 @@ public class DriveConstants {
     // Similar process but slightly different focus
 
     public static final int PID_VELOCITY_SLOT = 1;
+
+    // Motion profile streaming (TrajectoryExecutor) is position control with
+    // velocity feed forward, same as Motion Magic, so it shares those gains
+    public static final int PID_MOTION_PROFILE_SLOT = PID_MOTION_MAGIC_SLOT;
+
+    // Ramsete path following (PathFollower), the usual b = 2 /m^2 converted to inches
+    // b is like a proportional gain (bigger corrects harder), zeta is damping (0 to 1)
+    public static final double RAMSETE_B = 2.0 / (39.37 * 39.37);
+    public static final double RAMSETE_ZETA = 0.7;
+
+    // Odometry rate; Odometry has the StatusFrameScheduler keep the master
+    // encoders sending a new position every 10 ms, running faster would just
+    // re-read it. PathFollower doesn't run faster than this either.
+    public static final double ODOMETRY_HERTZ = 100.0;
     
     // LEFT SIDE
     public static double LEFT_VELOCITY_KF 	 = 0.114944; //0.113039; 
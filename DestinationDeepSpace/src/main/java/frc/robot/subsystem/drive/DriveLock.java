@@ -7,12 +7,12 @@
 
 package frc.robot.subsystem.drive;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
 import frc.robot.utils.CommandUtils;
 import frc.robot.operatorinterface.OI;
 
-public class DriveLock extends Command {
+public class DriveLock extends BitBucketCommand {
   private final OI oi = OI.instance();
   private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
 
@@ -24,20 +24,20 @@ public class DriveLock extends Command {
 
   // Called just before this Command runs the first time
   @Override
-  protected void initialize() {
+  protected void commandInitialize() {
     System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);	
     driveSubsystem.resetMotion();
   }
 
   // Called repeatedly when this Command is scheduled to run
   @Override
-  protected void execute() {
+  protected void commandExecute() {
       driveSubsystem.doLockDrive(0.0);
   }
 
   // Make this return true when this Command no longer needs to run execute()
   @Override
-  protected boolean isFinished() {
+  protected boolean commandIsFinished() {
     // If more than one button is pressed resolve the conflict
     boolean lock = oi.driveLock();
     boolean align = oi.alignLock();
@@ -70,7 +70,7 @@ public class DriveLock extends Command {
 
   // Called once after isFinished returns true
   @Override
-  protected void end() {
+  protected void commandEnd() {
     System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000);
 
   }
@@ -78,8 +78,8 @@ public class DriveLock extends Command {
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
   @Override
-  protected void interrupted() {
-    end();
+  protected void commandInterrupted() {
+    commandEnd();
   }
 
   protected double sineWave(double f_Hz) {
@@ -9,7 +9,6 @@ package frc.robot.subsystem.drive;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
@@ -21,11 +20,20 @@ import frc.robot.operatorinterface.OI;
 import frc.robot.subsystem.BitBucketSubsystem;
 import frc.robot.subsystem.autonomous.AutonomousConstants;
 import frc.robot.subsystem.autonomous.GuidanceAlgorithm;
+import frc.robot.subsystem.autonomous.motion.Trajectory;
 import frc.robot.subsystem.navigation.NavigationSubsystem;
 import frc.robot.subsystem.vision.CameraFeedback;
+import frc.robot.subsystem.vision.VisionConstants;
 import frc.robot.subsystem.vision.VisionSubsystem;
 import frc.robot.utils.Deadzone;
+import frc.robot.utils.DeferredWorkQueue;
 import frc.robot.utils.JoystickScale;//for sam <3
+import frc.robot.utils.sensors.SensorSnapshot;
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryFrame;
+import frc.robot.utils.talonutils.TalonConfigCache;
+import frc.robot.utils.talonutils.StatusFrameScheduler;
+import frc.robot.utils.talonutils.TalonInitializer;
 import frc.robot.utils.talonutils.TalonUtils;
 
 
@@ -81,6 +89,37 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 	private final WPI_TalonSRX rightMotors[];
 
+	// This loop's readings from the motors and navX, see SensorSnapshot
+	private final SensorSnapshot sensors = SensorSnapshot.instance();
+	private final SensorSnapshot.Talon leftSensors[];
+	private final SensorSnapshot.Talon rightSensors[];
+
+	// Extended telemetry, made in initialize()
+	private TelemetryChannel leftEncoderChannel;
+	private TelemetryChannel rightEncoderChannel;
+	private TelemetryChannel leftSpeedChannel;
+	private TelemetryChannel rightSpeedChannel;
+	private TelemetryChannel commandSpeedChannel;
+	private TelemetryChannel commandTurnChannel;
+	private TelemetryChannel latAccelChannel;
+	private TelemetryChannel turnRadiusChannel;
+	private TelemetryChannel achievedSpeedChannel;
+	private TelemetryChannel achievedTurnChannel;
+	private TelemetryChannel leftCommandSpeedChannel;
+	private TelemetryChannel rightCommandSpeedChannel;
+	// sends the extended telemetry after the control work is done
+	private DeferredWorkQueue.Task telemetryTask;
+
+	// Every loop's readings in one NetworkTables write, see TelemetryFrame
+	private TelemetryFrame frame;
+	private int frameLeftTicks;
+	private int frameRightTicks;
+	private int frameLeftSpeed;
+	private int frameRightSpeed;
+	private int frameCurrent;
+	private int frameYaw;
+	private int frameYawRate;
+
 	private static DifferentialDrive differentialDrive;
 
 
@@ -115,9 +154,25 @@ public class DriveSubsystem extends BitBucketSubsystem {
 	Idle initialCommand;
 
 	// Keep track of when followers are need or being used
-	private boolean usingFollowers = true;
+	// (volatile, the PathFollower's Notifier reads it in setVelocity())
+	private volatile boolean usingFollowers = true;
 	private boolean velocityMode = false;
 	private boolean motionMode   = false;
+	private boolean motionProfileMode = false;
+
+	// Last velocity command, from whichever thread sent it, for the dashboard
+	private volatile double commandSpeed_ips;
+	private volatile double commandTurn_radps;
+	private volatile double latAccel_gs;
+	private volatile int leftCommand_tickP100;
+	private volatile int rightCommand_tickP100;
+
+	// Streams generated trajectories into the master Talons
+	private final TrajectoryExecutor trajectoryExecutor;
+	// Follows generated trajectories with velocity commands and pose feedback
+	private final PathFollower pathFollower;
+	// Field pose from the encoders and navX, on its own Notifier
+	private final Odometry odometry;
 
 	// ASSUME left and right are symmetrical
 	// This is package local so unit tests can use it
@@ -183,134 +238,32 @@ public class DriveSubsystem extends BitBucketSubsystem {
 			leftMotors[i] = new WPI_TalonSRX(DriveConstants.LEFT_DRIVE_MOTOR_IDS[i]);
             leftMotors[i].setName(getName(),"Left_" + Integer.toString(i));
 
-			TalonUtils.initializeMotorDefaults(leftMotors[i]);
-			if (i > 0)
-			{   // Slave motor for now
-				leftMotors[i].follow(leftMotors[0]);
-			}
-
-			leftMotors[i].setInverted(DriveConstants.LEFT_DRIVE_MOTOR_INVERSION_FLAG[i]);
-
-			// Assume all motor controllers have a sensor or access to one and the phase
-			// is always the same (for now)
-			leftMotors[i].setSensorPhase(DriveConstants.LEFT_DRIVE_MOTOR_SENSOR_PHASE);
-	
-			// Set relevant frame periods to be at least as fast as periodic rate
-			// NOTE: This increases load on CAN bus, so pay attention as more motor
-			// controllers are added to the system as we may want slave motors running
-			// at a reduced rate
-			leftMotors[i].setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 
-											DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS, 
-											DriveConstants.CONTROLLER_TIMEOUT_MS);
-			leftMotors[i].setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 
-											DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS, 
-											DriveConstants.CONTROLLER_TIMEOUT_MS);
-			
-			leftMotors[i].configNeutralDeadband(DriveConstants.LEFT_DRIVE_MOTOR_NEUTRAL_DEADBAND,
-											DriveConstants.CONTROLLER_TIMEOUT_MS);
-			
-			leftMotors[i].configOpenloopRamp(DriveConstants.DRIVE_MOTOR_OPEN_LOOP_RAMP_SEC, 
-										DriveConstants.CONTROLLER_TIMEOUT_MS);
-
-			leftMotors[i].configClosedloopRamp(DriveConstants.DRIVE_MOTOR_CLOSED_LOOP_RAMP_SEC, 
-													DriveConstants.CONTROLLER_TIMEOUT_MS);	
-													
-			// For ALL motors in case we disable slaving
-			TalonUtils.initializeQuadEncoderMotor(leftMotors[i]);
-
-			// Set closed loop gains in different slots for different uses
-			TalonUtils.initializeMotorFPID(leftMotors[i], 
-										DriveConstants.MOTION_MAGIC_KF, 
-										DriveConstants.MOTION_MAGIC_KP, 
-										DriveConstants.MOTION_MAGIC_KI, 
-										DriveConstants.MOTION_MAGIC_KD, 
-										DriveConstants.MOTION_MAGIC_IZONE,
-										DriveConstants.PID_MOTION_MAGIC_SLOT);
-
-			// Motion Magic likes to specify a trapezoidal speed profile
-			// These two settings provide the top speed and acceleration (slope) of profile
-			leftMotors[i].configMotionCruiseVelocity(DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS, 
-												DriveConstants.CONTROLLER_TIMEOUT_MS);
-			leftMotors[i].configMotionAcceleration(DriveConstants.DRIVE_MOTOR_MOTION_ACCELERATION_NATIVE_TICKS, 
-												DriveConstants.CONTROLLER_TIMEOUT_MS);
-
-			TalonUtils.initializeMotorFPID(leftMotors[i], 
-										DriveConstants.LEFT_VELOCITY_KF, 
-										DriveConstants.LEFT_VELOCITY_KP, 
-										DriveConstants.LEFT_VELOCITY_KI, 
-										DriveConstants.LEFT_VELOCITY_KD, 
-										DriveConstants.LEFT_VELOCITY_IZONE,
-										DriveConstants.PID_VELOCITY_SLOT);
-
-			// !!!!!!!!!!!!!!! RIGHT !!!!!!!!!!!!!!!!!
-			// TODO: May make this into a function with a few arguments							
 			rightMotors[i] = new WPI_TalonSRX(DriveConstants.RIGHT_DRIVE_MOTOR_IDS[i]);
             rightMotors[i].setName(getName(),"Right_" + Integer.toString(i));			
-			TalonUtils.initializeMotorDefaults(rightMotors[i]);
-			if (i > 0)
-			{   // Slave motor for now
-				rightMotors[i].follow(rightMotors[0]);
-			}
-
-			rightMotors[i].setInverted(DriveConstants.RIGHT_DRIVE_MOTOR_INVERSION_FLAG[i]);
-
-			// Assume all motor controllers have a sensor or access to one and the phase
-			// is always the same (for now)
-			rightMotors[i].setSensorPhase(DriveConstants.RIGHT_DRIVE_MOTOR_SENSOR_PHASE);
-	
-			// Set relevant frame periods to be at least as fast as periodic rate
-			// NOTE: This increases load on CAN bus, so pay attention as more motor
-			// controllers are added to the system as we may want slave motors running
-			// at a reduced rate
-			rightMotors[i].setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 
-											DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS, 
-											DriveConstants.CONTROLLER_TIMEOUT_MS);
-			rightMotors[i].setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 
-											DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS, 
-											DriveConstants.CONTROLLER_TIMEOUT_MS);
-			
-			rightMotors[i].configNeutralDeadband(DriveConstants.RIGHT_DRIVE_MOTOR_NEUTRAL_DEADBAND,
-											DriveConstants.CONTROLLER_TIMEOUT_MS);
-			
-			rightMotors[i].configOpenloopRamp(DriveConstants.DRIVE_MOTOR_OPEN_LOOP_RAMP_SEC, 
-										DriveConstants.CONTROLLER_TIMEOUT_MS);
-
-			rightMotors[i].configClosedloopRamp(DriveConstants.DRIVE_MOTOR_CLOSED_LOOP_RAMP_SEC, 
-													DriveConstants.CONTROLLER_TIMEOUT_MS);	
-													
-			// For ALL motors in case we disable slaving
-			TalonUtils.initializeQuadEncoderMotor(rightMotors[i]);
-
-			// Set closed loop gains in different slots for different uses
-			TalonUtils.initializeMotorFPID(rightMotors[i], 
-										DriveConstants.MOTION_MAGIC_KF, 
-										DriveConstants.MOTION_MAGIC_KP, 
-										DriveConstants.MOTION_MAGIC_KI, 
-										DriveConstants.MOTION_MAGIC_KD, 
-										DriveConstants.MOTION_MAGIC_IZONE,
-										DriveConstants.PID_MOTION_MAGIC_SLOT);
 
-			// Motion Magic likes to specify a trapezoidal speed profile
-			// These two settings provide the top speed and acceleration (slope) of profile
-			rightMotors[i].configMotionCruiseVelocity(DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS, 
-												DriveConstants.CONTROLLER_TIMEOUT_MS);
-			rightMotors[i].configMotionAcceleration(DriveConstants.DRIVE_MOTOR_MOTION_ACCELERATION_NATIVE_TICKS, 
-												DriveConstants.CONTROLLER_TIMEOUT_MS);
-
-			TalonUtils.initializeMotorFPID(rightMotors[i], 
-										DriveConstants.RIGHT_VELOCITY_KF, 
-										DriveConstants.RIGHT_VELOCITY_KP, 
-										DriveConstants.RIGHT_VELOCITY_KI, 
-										DriveConstants.RIGHT_VELOCITY_KD, 
-										DriveConstants.RIGHT_VELOCITY_IZONE,
-										DriveConstants.PID_VELOCITY_SLOT);
-
-									
-		}	
+			// Status frame rates are managed centrally to keep CAN bus load down
+			StatusFrameScheduler.instance().register(leftMotors[i]);
+			StatusFrameScheduler.instance().register(rightMotors[i]);
+		}
 
+		// Read once a loop: every motor's current, and the masters' encoders
+		leftSensors = new SensorSnapshot.Talon[NUM_MOTORS_PER_SIDE];
+		rightSensors = new SensorSnapshot.Talon[NUM_MOTORS_PER_SIDE];
+		for (int i = 0; i < NUM_MOTORS_PER_SIDE; i++)
+		{
+			int reads = (i == 0) ? SensorSnapshot.POSITION | SensorSnapshot.VELOCITY | SensorSnapshot.CURRENT
+			                     : SensorSnapshot.CURRENT;
+			leftSensors[i] = sensors.track(leftMotors[i], reads);
+			rightSensors[i] = sensors.track(rightMotors[i], reads);
+		}
 
-		// Now get the other modes set up
-		setNeutral(NeutralMode.Brake);
+		// Configure all of the motors at the same time in the background,
+		// robotInit waits for them to finish
+		for (int i = 0; i < NUM_MOTORS_PER_SIDE; i++)
+		{
+			startMotorInitialization(true, i);
+			startMotorInitialization(false, i);
+		}
 		
 		// Now that we have the motor instances set up the differential drive
 		// as a 2-motor solution regardless of how manu actual motors we have
@@ -321,6 +274,10 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		// !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
 		differentialDrive = new DifferentialDrive(leftMotors[0], rightMotors[0]);
 
+		trajectoryExecutor = new TrajectoryExecutor(leftMotors[0], rightMotors[0]);
+		pathFollower = new PathFollower(this);
+		odometry = new Odometry(leftMotors[0], rightMotors[0]);
+
 		// Since we going to use the TalonSRX in this class, the inversion, if needed is
 		// going to be passed to controllers so positive commands on left and right both
 		// move the wheels in the same direction. This means we don't want the diff drive
@@ -329,6 +286,67 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		
 		// Create the motion profile driver
 	}
+
+
+	/**
+	 * Start configuring one drive motor with the TalonInitializer.
+	 * Left and right are the same except for the constants.
+	 *
+	 * @param i index in the motor arrays (0 is the master)
+	 */
+	private void startMotorInitialization(boolean left, int i)
+	{
+		WPI_TalonSRX motor = left ? leftMotors[i] : rightMotors[i];
+		WPI_TalonSRX master = left ? leftMotors[0] : rightMotors[0];
+		TalonConfigCache config = TalonConfigCache.of(motor);
+
+		TalonInitializer.instance().device(getName() + (left ? " Left_" : " Right_") + i, motor)
+			// first, so it doesn't clear anything set after it
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(motor))
+			.run("follow", () -> {
+				if (i > 0)
+				{   // Slave motor for now
+					motor.follow(master);
+				}
+			})
+			.run("inversion", () -> {
+				motor.setInverted(left ? DriveConstants.LEFT_DRIVE_MOTOR_INVERSION_FLAG[i] 
+				                       : DriveConstants.RIGHT_DRIVE_MOTOR_INVERSION_FLAG[i]);
+
+				// Assume all motor controllers have a sensor or access to one and the phase
+				// is always the same (for now)
+				motor.setSensorPhase(left ? DriveConstants.LEFT_DRIVE_MOTOR_SENSOR_PHASE 
+				                          : DriveConstants.RIGHT_DRIVE_MOTOR_SENSOR_PHASE);
+			})
+			// NOTE: Status frame periods are set by the StatusFrameScheduler, not here
+			.step("neutral deadband", () -> config.configNeutralDeadband(left ? DriveConstants.LEFT_DRIVE_MOTOR_NEUTRAL_DEADBAND 
+			                                                                  : DriveConstants.RIGHT_DRIVE_MOTOR_NEUTRAL_DEADBAND))
+			.step("open loop ramp", () -> config.configOpenloopRamp(DriveConstants.DRIVE_MOTOR_OPEN_LOOP_RAMP_SEC))
+			.step("closed loop ramp", () -> config.configClosedloopRamp(DriveConstants.DRIVE_MOTOR_CLOSED_LOOP_RAMP_SEC))
+			// For ALL motors in case we disable slaving
+			.step("encoder", () -> TalonUtils.initializeQuadEncoderMotor(motor))
+			// Set closed loop gains in different slots for different uses
+			.step("motion magic gains", () -> TalonUtils.initializeMotorFPID(motor, 
+										DriveConstants.MOTION_MAGIC_KF, 
+										DriveConstants.MOTION_MAGIC_KP, 
+										DriveConstants.MOTION_MAGIC_KI, 
+										DriveConstants.MOTION_MAGIC_KD, 
+										DriveConstants.MOTION_MAGIC_IZONE,
+										DriveConstants.PID_MOTION_MAGIC_SLOT))
+			// Motion Magic likes to specify a trapezoidal speed profile
+			// These two settings provide the top speed and acceleration (slope) of profile
+			.step("cruise velocity", () -> config.configMotionCruiseVelocity(DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS))
+			.step("acceleration", () -> config.configMotionAcceleration(DriveConstants.DRIVE_MOTOR_MOTION_ACCELERATION_NATIVE_TICKS))
+			.step("velocity gains", () -> TalonUtils.initializeMotorFPID(motor, 
+										left ? DriveConstants.LEFT_VELOCITY_KF    : DriveConstants.RIGHT_VELOCITY_KF, 
+										left ? DriveConstants.LEFT_VELOCITY_KP    : DriveConstants.RIGHT_VELOCITY_KP, 
+										left ? DriveConstants.LEFT_VELOCITY_KI    : DriveConstants.RIGHT_VELOCITY_KI, 
+										left ? DriveConstants.LEFT_VELOCITY_KD    : DriveConstants.RIGHT_VELOCITY_KD, 
+										left ? DriveConstants.LEFT_VELOCITY_IZONE : DriveConstants.RIGHT_VELOCITY_IZONE,
+										DriveConstants.PID_VELOCITY_SLOT))
+			.run("brake", () -> motor.setNeutralMode(NeutralMode.Brake))
+			.start();
+	}
   
 
   	public double getTestModePeriod_sec()
@@ -347,10 +365,8 @@ public class DriveSubsystem extends BitBucketSubsystem {
     {
 		for (int i = 0; i < NUM_MOTORS_PER_SIDE; ++i)
 		{
-			leftMotors[i].configMotionCruiseVelocity((int)(fraction_full_speed * DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS), 
-													DriveConstants.CONTROLLER_TIMEOUT_MS);
-			rightMotors[i].configMotionCruiseVelocity((int)(fraction_full_speed * DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS), 
-													DriveConstants.CONTROLLER_TIMEOUT_MS);
+			TalonConfigCache.of(leftMotors[i]).configMotionCruiseVelocity((int)(fraction_full_speed * DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS));
+			TalonConfigCache.of(rightMotors[i]).configMotionCruiseVelocity((int)(fraction_full_speed * DriveConstants.DRIVE_MOTOR_MOTION_CRUISE_SPEED_NATIVE_TICKS));
 		}
     }
 
@@ -372,7 +388,7 @@ public class DriveSubsystem extends BitBucketSubsystem {
 			usingFollowers = true;
 	
 		}
-		else
+		else if (! needFollowers)
 		{
 			usingFollowers = false;
 		}
@@ -384,17 +400,19 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		{
 			selectFollowerState(DriveConstants.CLOSED_LOOP_FOLLOWER);
 			selectMotionMode(false);
+			selectMotionProfileMode(false);
 
 			for (int i = 0; i < NUM_MOTORS_PER_SIDE; ++i)
 			{
-				leftMotors[i].selectProfileSlot(DriveConstants.PID_VELOCITY_SLOT, 
+				TalonConfigCache.of(leftMotors[i]).selectProfileSlot(DriveConstants.PID_VELOCITY_SLOT, 
 				                                DriveConstants.PRIMARY_PID_LOOP);
-				rightMotors[i].selectProfileSlot(DriveConstants.PID_VELOCITY_SLOT, 
+				TalonConfigCache.of(rightMotors[i]).selectProfileSlot(DriveConstants.PID_VELOCITY_SLOT, 
 				                                 DriveConstants.PRIMARY_PID_LOOP);
 			}			
 			velocityMode = true;
+			updateStatusFrames();
 		}
-		else
+		else if (! needVelocityMode)
 		{
 			velocityMode = false;
 		}					
@@ -406,21 +424,107 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		{
 			selectFollowerState(DriveConstants.CLOSED_LOOP_FOLLOWER);
 			selectVelocityMode(false);
+			selectMotionProfileMode(false);
 
 			for (int i = 0; i < NUM_MOTORS_PER_SIDE; ++i)
 			{
-				leftMotors[i].selectProfileSlot(DriveConstants.PID_MOTION_MAGIC_SLOT, 
+				TalonConfigCache.of(leftMotors[i]).selectProfileSlot(DriveConstants.PID_MOTION_MAGIC_SLOT, 
 												DriveConstants.PRIMARY_PID_LOOP);
-				rightMotors[i].selectProfileSlot(DriveConstants.PID_MOTION_MAGIC_SLOT, 
+				TalonConfigCache.of(rightMotors[i]).selectProfileSlot(DriveConstants.PID_MOTION_MAGIC_SLOT, 
 												DriveConstants.PRIMARY_PID_LOOP);
 			}
 			motionMode = true;
+			updateStatusFrames();
 		}
-		else
+		else if (! needMotionMode)
 		{
 			motionMode = false;
 		}
 	}
+
+	void selectMotionProfileMode(boolean needMotionProfileMode)
+	{
+		if (needMotionProfileMode && ! motionProfileMode)
+		{
+			// Only the masters get points streamed to them, so followers
+			// have to follow regardless of CLOSED_LOOP_FOLLOWER
+			selectFollowerState(true);
+			selectVelocityMode(false);
+			selectMotionMode(false);
+
+			for (int i = 0; i < NUM_MOTORS_PER_SIDE; ++i)
+			{
+				TalonConfigCache.of(leftMotors[i]).selectProfileSlot(DriveConstants.PID_MOTION_PROFILE_SLOT, 
+												DriveConstants.PRIMARY_PID_LOOP);
+				TalonConfigCache.of(rightMotors[i]).selectProfileSlot(DriveConstants.PID_MOTION_PROFILE_SLOT, 
+												DriveConstants.PRIMARY_PID_LOOP);
+			}
+			motionProfileMode = true;
+			updateStatusFrames();
+		}
+		else if (! needMotionProfileMode)
+		{
+			motionProfileMode = false;
+		}
+	}
+
+	/**
+	 * Let the StatusFrameScheduler know if the masters are running closed loop,
+	 * they only need fast feedback frames when they are
+	 */
+	private void updateStatusFrames()
+	{
+		boolean closedLoop = velocityMode || motionMode || motionProfileMode;
+		StatusFrameScheduler.instance().setActive(leftMotors[0], closedLoop);
+		StatusFrameScheduler.instance().setActive(rightMotors[0], closedLoop);
+	}
+
+	/**
+	 * Start following a trajectory with the Talons' motion profile buffers
+	 *
+	 * @param loopHertz rate the trajectory's points are spaced at
+	 */
+	public void startTrajectory(Trajectory trajectory, double loopHertz)
+	{
+		selectMotionProfileMode(true);
+		trajectoryExecutor.start(trajectory, loopHertz);
+	}
+
+	public void stopTrajectory()
+	{
+		trajectoryExecutor.stop();
+	}
+
+	public TrajectoryExecutor getTrajectoryExecutor()
+	{
+		return trajectoryExecutor;
+	}
+
+	/**
+	 * Start following a trajectory with the PathFollower.
+	 * Call selectVelocityMode(true) first, on the main thread.
+	 *
+	 * @param loopHertz rate the trajectory's points are spaced at
+	 */
+	public void startFollowing(Trajectory trajectory, double loopHertz)
+	{
+		pathFollower.start(trajectory, loopHertz);
+	}
+
+	public void stopFollowing()
+	{
+		pathFollower.stop();
+	}
+
+	public Odometry getOdometry()
+	{
+		return odometry;
+	}
+
+	public PathFollower getPathFollower()
+	{
+		return pathFollower;
+	}
 	/**
 	 * drive - takes a speed and turn factor and passes to the selected drive algorithm
 	 * Context depends upon which algorithm is selected, but is generally [-1,1] domain
@@ -464,6 +568,7 @@ public class DriveSubsystem extends BitBucketSubsystem {
 					selectFollowerState(true);
 					selectVelocityMode(false);
 					selectMotionMode(false);
+					updateStatusFrames();
 
 					speed = map(speed,
 					-1.0,
@@ -499,7 +604,11 @@ public class DriveSubsystem extends BitBucketSubsystem {
 				
 						if (feedback != null)
 						{
-							double offAxis = feedback.getOffAxis();
+							// the picture is from a while ago, correct for how much we've turned since
+							// (once the camera numbers have been measured, see VisionConstants)
+							double offAxis = VisionConstants.CORRECT_OFF_AXIS_FOR_TURN
+							                 ? feedback.getOffAxis(navigation.getYawChangeSince_deg(feedback.getTimestamp_sec()))
+							                 : feedback.getOffAxis();
 							double parallax = feedback.getParallax();
 							double distance = feedback.getDistance();
 
@@ -583,6 +692,7 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		selectFollowerState(true);
 		selectVelocityMode(false);	/// TODO: Create setPercentMode to auto disable V and M
 		selectMotionMode(false);
+		updateStatusFrames();
 
 		double maxSteer = 1.0 - Math.abs(speed) / 2.0;	// Reduce steering by up to 50%
 		double steer = maxSteer * turn;
@@ -597,11 +707,20 @@ public class DriveSubsystem extends BitBucketSubsystem {
 	   return (x - inMin) * (outMax - outMin) / (inMax - inMin) + outMin;
 	}
 
-	private void velocityDrive_auto(double speed_ips, double turn_radps) {
+	public void velocityDrive_auto(double speed_ips, double turn_radps) {
 		// The following functions only do something if the state needs
 		// to be changed.
 		selectVelocityMode(true);
 
+		setVelocity(speed_ips, turn_radps);
+	}
+
+	/**
+	 * Send a velocity command to the motors, without changing modes, so it's
+	 * safe from any thread (the PathFollower calls it from its Notifier).
+	 * Velocity mode has to be selected already, on the main thread.
+	 */
+	void setVelocity(double speed_ips, double turn_radps) {
 		double diffSpeed_ips = turn_radps * DriveConstants.WHEEL_TRACK_INCHES / 2.0 ;
 
 		// Compute, report, and limit lateral acceleration
@@ -609,9 +728,6 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		{
 			speed_ips = Math.signum(speed_ips)*DriveConstants.MAX_LAT_ACCELERATION_IPSPS/Math.abs(turn_radps);
 		}
-		double latAccel_gs = turn_radps * speed_ips / 12.0 / DriveConstants.STANDARD_G_FTPSPS;
-		double turnRadius_inches = speed_ips / turn_radps;
-
 
 		int speed_tickP100 = DriveConstants.ipsToTicksP100(speed_ips);
 		int diffSpeed_tickP100 = DriveConstants.ipsToTicksP100(diffSpeed_ips);
@@ -631,17 +747,12 @@ public class DriveSubsystem extends BitBucketSubsystem {
 			}
 		}	
 
-		if (getTelemetryEnabled())
-		{
-			SmartDashboard.putNumber(getName()+"/Commanded Speed (ips)", speed_ips);
-			SmartDashboard.putNumber(getName()+"/Commanded Turn (dps)", Math.toDegrees(turn_radps));
-			SmartDashboard.putNumber(getName()+"/Lat Accel (g)", latAccel_gs );
-			SmartDashboard.putNumber(getName()+"/Turn Radius (inches)",turnRadius_inches);
-			SmartDashboard.putNumber(getName()+"/Acheived Speed (ips)", speed_ips);
-			SmartDashboard.putNumber(getName()+"/Acheived Turn (dps)", Math.toDegrees(turn_radps));
-			SmartDashboard.putNumber(getName()+"/leftCommandSpeed (ips)",DriveConstants.ticksP100ToIps(leftSpeed_tickP100));
-			SmartDashboard.putNumber(getName()+"/rightCommandSpeed (ips)",DriveConstants.ticksP100ToIps(rightSpeed_tickP100));
-		}
+		// the main loop puts these on the dashboard, see updateTelemetry()
+		commandSpeed_ips = speed_ips;
+		commandTurn_radps = turn_radps;
+		latAccel_gs = turn_radps * speed_ips / 12.0 / DriveConstants.STANDARD_G_FTPSPS;
+		leftCommand_tickP100 = leftSpeed_tickP100;
+		rightCommand_tickP100 = rightSpeed_tickP100;
 	}
 
 
@@ -675,7 +786,7 @@ public class DriveSubsystem extends BitBucketSubsystem {
 	
 	public void setAlignDrive(boolean start) {
 		if(start) {
-			yawSetPoint = navigation.getYaw_deg();
+			yawSetPoint = sensors.getYaw_deg();
 		} 
 	}
 	
@@ -697,8 +808,8 @@ public class DriveSubsystem extends BitBucketSubsystem {
 			// so + stick should lower the setpoint. 
 			yawSetPoint += -0.3 * turnStick;
 			
-			double error = -ALIGN_LOOP_GAIN * (yawSetPoint - navigation.getYaw_deg());
-			error = -ALIGN_LOOP_GAIN * -navigation.getYawRate_degPerSec();
+			double error = -ALIGN_LOOP_GAIN * (yawSetPoint - sensors.getYaw_deg());
+			error = -ALIGN_LOOP_GAIN * -sensors.getYawRate_degPerSec();
 			//SmartDashboard.putNumber(getName()+"/IMU_ERROR", error);
 			BBarcadeDrive( fwdStick, error + yawCorrect());
 		}
@@ -709,7 +820,7 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		if( fwd == 0.0)
 			setAllMotorsZero();
 		else {
-			double error = ALIGN_LOOP_GAIN * (yawSetPoint - navigation.getYaw_deg());				
+			double error = ALIGN_LOOP_GAIN * (yawSetPoint - sensors.getYaw_deg());				
 			BBarcadeDrive( fwd, error + yawCorrect());				
 		}			
 	}
@@ -737,29 +848,95 @@ public class DriveSubsystem extends BitBucketSubsystem {
 	public void initialize() 
 	{		
 		initializeBaseDashboard();
+
+		leftEncoderChannel = telemetry.channel("left encoder");
+		rightEncoderChannel = telemetry.channel("right encoder");
+		leftSpeedChannel = telemetry.channel("Real Left Speed (ips)");
+		rightSpeedChannel = telemetry.channel("Real Right Speed (ips)");
+		commandSpeedChannel = telemetry.channel("Commanded Speed (ips)");
+		commandTurnChannel = telemetry.channel("Commanded Turn (dps)");
+		latAccelChannel = telemetry.channel("Lat Accel (g)");
+		turnRadiusChannel = telemetry.channel("Turn Radius (inches)");
+		achievedSpeedChannel = telemetry.channel("Acheived Speed (ips)");
+		achievedTurnChannel = telemetry.channel("Acheived Turn (dps)");
+		leftCommandSpeedChannel = telemetry.channel("leftCommandSpeed (ips)");
+		rightCommandSpeedChannel = telemetry.channel("rightCommandSpeed (ips)");
+		odometry.createTelemetry(telemetry);
+		telemetryTask = DeferredWorkQueue.instance().task(getName() + " Telemetry",
+		                                                  DeferredWorkQueue.Priority.NORMAL,
+		                                                  this::updateTelemetry);
+
+		frame = new TelemetryFrame(getName());
+		frameLeftTicks  = frame.addField("Left Encoder (ticks)");
+		frameRightTicks = frame.addField("Right Encoder (ticks)");
+		frameLeftSpeed  = frame.addField("Left Speed (ips)");
+		frameRightSpeed = frame.addField("Right Speed (ips)");
+		frameCurrent    = frame.addField("Total Current (amps)");
+		frameYaw        = frame.addField("Yaw (deg)");
+		frameYawRate    = frame.addField("Yaw Rate (dps)");
+
+		odometry.start();
 	}
 	
 	@Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
 
 		updateBaseDashboard();
+
+		frame.set(frameLeftTicks,  leftSensors[0].getPosition_ticks());
+		frame.set(frameRightTicks, rightSensors[0].getPosition_ticks());
+		frame.set(frameLeftSpeed,  DriveConstants.ticksP100ToIps(leftSensors[0].getVelocity_tp100()));
+		frame.set(frameRightSpeed, DriveConstants.ticksP100ToIps(rightSensors[0].getVelocity_tp100()));
+		frame.set(frameCurrent,    getTotalCurrent_amps());
+		frame.set(frameYaw,        sensors.getYaw_deg());
+		frame.set(frameYawRate,    sensors.getYawRate_degPerSec());
+		frame.publish(sensors.getTimestamp_sec());
+
 		if (getTelemetryEnabled())
 		{
-			SmartDashboard.putNumber(getName() + "/left encoder",  leftMotors[0].getSelectedSensorPosition());
-			SmartDashboard.putNumber(getName() + "/right encoder", rightMotors[0].getSelectedSensorPosition());
+			telemetryTask.request();
+		}
+		//SmartDashboard.putBoolean(getName()+"/RunningDiag", false);  
+	}
+
+	// Extended telemetry, run from the DeferredWorkQueue when there's time
+	private void updateTelemetry()
+	{
+		leftEncoderChannel.set(leftSensors[0].getPosition_ticks());
+		rightEncoderChannel.set(rightSensors[0].getPosition_ticks());
+
 
 
+		double left_inchps = DriveConstants.ticksP100ToIps(leftSensors[0].getVelocity_tp100());
+		double right_inchps = DriveConstants.ticksP100ToIps(rightSensors[0].getVelocity_tp100());
 
-			double left_inchps = DriveConstants.ticksP100ToIps(leftMotors[0].getSelectedSensorVelocity());
-			double right_inchps = DriveConstants.ticksP100ToIps(rightMotors[0].getSelectedSensorVelocity());
+		leftSpeedChannel.set(left_inchps);
+		rightSpeedChannel.set(right_inchps);
 
-			SmartDashboard.putNumber(getName() + "/Real Left Speed (ips)", left_inchps);
-			SmartDashboard.putNumber(getName() + "/Real Right Speed (ips)", right_inchps);
+		double speed_ips = commandSpeed_ips;
+		double turn_radps = commandTurn_radps;
+		commandSpeedChannel.set(speed_ips);
+		commandTurnChannel.set(Math.toDegrees(turn_radps));
+		latAccelChannel.set(latAccel_gs);
+		turnRadiusChannel.set(speed_ips / turn_radps);
+		achievedSpeedChannel.set(getVelocity_ips());
+		achievedTurnChannel.set(getTurnRate_dps());
+		leftCommandSpeedChannel.set(DriveConstants.ticksP100ToIps(leftCommand_tickP100));
+		rightCommandSpeedChannel.set(DriveConstants.ticksP100ToIps(rightCommand_tickP100));
+
+		trajectoryExecutor.updateDashboard(getName());
+		pathFollower.updateDashboard(getName());
+		odometry.updateDashboard();
+		for (int i = 0; i < NUM_MOTORS_PER_SIDE; ++i)
+		{
+			TalonConfigCache.of(leftMotors[i]).updateDashboard(getName());
+			TalonConfigCache.of(rightMotors[i]).updateDashboard(getName());
 		}
-		//SmartDashboard.putBoolean(getName()+"/RunningDiag", false);  
 	}
   	
 	public void disable() {
+		trajectoryExecutor.stop();
+		pathFollower.stop();
 		setAllMotorsZero();
 	}
 	
@@ -805,31 +982,31 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		// Right motor encoder reads -position when going forward!
 		// TODO: This is wrong! Need new constants
 		return -DriveConstants.WHEEL_CIRCUMFERENCE_INCHES * 
-		        rightMotors[0].getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP);						
+		        rightSensors[0].getPosition_ticks();
 	}
 	
-	private int getMotorNativeUnits(WPI_TalonSRX m) {
-		return m.getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP);
+	private int getMotorNativeUnits(SensorSnapshot.Talon m) {
+		return m.getPosition_ticks();
 	}
 	
 	public int getRightNativeUnits() {
-		return getMotorNativeUnits(rightMotors[0]);
+		return getMotorNativeUnits(rightSensors[0]);
 	}
 	
 	public int getLeftNativeUnits() {
-		return getMotorNativeUnits(leftMotors[0]);
+		return getMotorNativeUnits(leftSensors[0]);
 	}
 	
-	private double getMotorEncoderUnits(WPI_TalonSRX m) {
+	private double getMotorEncoderUnits(SensorSnapshot.Talon m) {
 		return getMotorNativeUnits(m)/EDGES_PER_ENCODER_COUNT;
 	}
 	
 	public double getRightEncoderUnits() {
-		return getMotorEncoderUnits(rightMotors[0]);
+		return getMotorEncoderUnits(rightSensors[0]);
 	}
 	
 	public double getLeftEncoderUnits() {
-		return getMotorEncoderUnits(leftMotors[0]);
+		return getMotorEncoderUnits(leftSensors[0]);
 	}
 	
 	private ControlMode getMotorMode(WPI_TalonSRX m) {
@@ -865,14 +1042,14 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		// proper sensor phase and output polarity so their data can simply be
 		// added together
 
-		int velocity_tp100 = (leftMotors[0].getSelectedSensorVelocity(DriveConstants.PRIMARY_PID_LOOP) + 
-		                      rightMotors[0].getSelectedSensorVelocity(DriveConstants.PRIMARY_PID_LOOP))/2;
+		int velocity_tp100 = (leftSensors[0].getVelocity_tp100() + 
+		                      rightSensors[0].getVelocity_tp100())/2;
 		return DriveConstants.ticksP100ToIps(velocity_tp100);
 	}
 	public double getTurnRate_dps()
 	{
-		int differentialVelocity_tp100 = leftMotors[0].getSelectedSensorVelocity(DriveConstants.PRIMARY_PID_LOOP) -
-										 rightMotors[0].getSelectedSensorVelocity(DriveConstants.PRIMARY_PID_LOOP);
+		int differentialVelocity_tp100 = leftSensors[0].getVelocity_tp100() -
+										 rightSensors[0].getVelocity_tp100();
 		return Math.toDegrees(DriveConstants.ticksP100ToIps(differentialVelocity_tp100) / DriveConstants.WHEEL_TRACK_INCHES);
 	}
 
@@ -880,7 +1057,7 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		double amps = 0;
 		for (int i = 0; i < NUM_MOTORS_PER_SIDE; ++i)
 		{
-			amps += Math.abs(leftMotors[i].getOutputCurrent()) + Math.abs(rightMotors[i].getOutputCurrent());
+			amps += Math.abs(leftSensors[i].getOutputCurrent_amps()) + Math.abs(rightSensors[i].getOutputCurrent_amps());
 		}
 		return 	amps;
 
@@ -928,8 +1105,8 @@ public class DriveSubsystem extends BitBucketSubsystem {
 	public boolean isMoveComplete(double distance_inches)	// At timeout should be used with this
 	{
 		int ticks = (int)inchesToNativeTicks(distance_inches);
-		int errorL = (int) Math.abs(ticks - leftMotors[0].getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP));
-		int errorR = (int) Math.abs(ticks - rightMotors[0].getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP));
+		int errorL = (int) Math.abs(ticks - leftSensors[0].getPosition_ticks());
+		int errorR = (int) Math.abs(ticks - rightSensors[0].getPosition_ticks());
 		return (errorL  < DriveConstants.DRIVE_MOTOR_MAX_CLOSED_LOOP_ERROR_TICKS) &&
 			   (errorR < DriveConstants.DRIVE_MOTOR_MAX_CLOSED_LOOP_ERROR_TICKS);
 	}
@@ -954,8 +1131,8 @@ public class DriveSubsystem extends BitBucketSubsystem {
 		// then the equivalent angle is about 0.6 degrees of frame rotation.
 		
 		double targetPos_ticks = (angle_degrees * DriveConstants.WHEEL_ROTATION_PER_FRAME_DEGREES) * DriveConstants.DRIVE_MOTOR_NATIVE_TICKS_PER_REV;
-		int errorL = (int) Math.abs(targetPos_ticks - (leftMotors[0].getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP)));
-		int errorR = (int) Math.abs(-targetPos_ticks - (rightMotors[0].getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP)));
+		int errorL = (int) Math.abs(targetPos_ticks - (leftSensors[0].getPosition_ticks()));
+		int errorR = (int) Math.abs(-targetPos_ticks - (rightSensors[0].getPosition_ticks()));
 		return (errorL  < DriveConstants.DRIVE_MOTOR_MAX_CLOSED_LOOP_ERROR_TICKS_ROTATION) &&
 			   (errorR < DriveConstants.DRIVE_MOTOR_MAX_CLOSED_LOOP_ERROR_TICKS_ROTATION);
 		
@@ -7,12 +7,12 @@
 
 package frc.robot.subsystem.drive;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.utils.CommandUtils;
 import frc.robot.operatorinterface.OI;
 
-public class DriverControl extends Command {
+public class DriverControl extends BitBucketCommand {
   private static OI oi = OI.instance();
   private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
 
@@ -24,19 +24,19 @@ public class DriverControl extends Command {
   }
 
   // Called just before this Command runs the first time
-  protected void initialize() 
+  protected void commandInitialize() 
   {
     System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);
   }
 
   // Called repeatedly when this Command is scheduled to run
-  protected void execute() 
+  protected void commandExecute() 
   {
     driveSubsystem.drive(oi.speed(), oi.turn());
   }
 
   // Make this return true when this Command no longer needs to run execute()
-  protected boolean isFinished() 
+  protected boolean commandIsFinished() 
   {
     // If more than one button is pressed resolve the conflict
     boolean lock = oi.driveLock();
@@ -85,15 +85,15 @@ public class DriverControl extends Command {
 
 
   // Called once after isFinished returns true
-  protected void end() 
+  protected void commandEnd() 
   {
     System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000);
   }
 
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
-  protected void interrupted() 
+  protected void commandInterrupted() 
   {
-    end();
+    commandEnd();
   }
 }
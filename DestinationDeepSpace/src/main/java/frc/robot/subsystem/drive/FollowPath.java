@@ -0,0 +1,82 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.drive;
+
+import frc.robot.subsystem.autonomous.motion.Trajectory;
+import frc.robot.subsystem.autonomous.motion.TrajectoryFinder;
+import frc.robot.subsystem.autonomous.motion.TrajectoryView;
+
+import frc.robot.subsystem.BitBucketCommand;
+
+/**
+ * Follows a generated trajectory with the PathFollower, correcting for
+ * wherever the robot actually ends up along the way. Finishes at the end
+ * of the trajectory, or at the timeout.
+ */
+public class FollowPath extends BitBucketCommand
+{
+	private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
+	private final Trajectory trajectory;
+	private final double loopHertz;
+	private final double timeout_sec;
+
+	public FollowPath(Trajectory trajectory, double loopHertz, double timeout_sec)
+	{
+		requires(driveSubsystem);
+
+		this.trajectory = trajectory;
+		this.loopHertz = loopHertz;
+		this.timeout_sec = timeout_sec;
+	}
+
+	public FollowPath(TrajectoryFinder trajectory, double timeout_sec)
+	{
+		this(trajectory.getPoints(), trajectory.LOOP_HERTZ, timeout_sec);
+	}
+
+	public FollowPath(TrajectoryView trajectory, double timeout_sec)
+	{
+		this(trajectory, trajectory.getLoopHertz(), timeout_sec);
+	}
+
+	// Called just before this Command runs the first time
+	protected void commandInitialize()
+	{
+		System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);
+		// mode changes aren't thread safe, so here rather than on the follower's Notifier
+		driveSubsystem.selectVelocityMode(true);
+		driveSubsystem.startFollowing(trajectory, loopHertz);
+	}
+
+	// Called repeatedly when this Command is scheduled to run
+	protected void commandExecute()
+	{
+		// Nothing to do, the follower's notifier does all the work
+	}
+
+	// Make this return true when this Command no longer needs to run execute()
+	protected boolean commandIsFinished()
+	{
+		return driveSubsystem.getPathFollower().isFinished() ||
+		       timeSinceInitialized() > timeout_sec;
+	}
+
+	// Called once after isFinished returns true
+	protected void commandEnd()
+	{
+		System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000);
+		driveSubsystem.stopFollowing();
+	}
+
+	// Called when another command which requires one or more of the same
+	// subsystems is scheduled to run
+	protected void commandInterrupted()
+	{
+		commandEnd();
+	}
+}
@@ -9,13 +9,17 @@ package frc.robot.subsystem.drive;
 
 import frc.robot.utils.CommandUtils;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
+import frc.robot.subsystem.autonomous.AutonomousConstants;
+import frc.robot.subsystem.autonomous.AutonomousSubsystem;
+import frc.robot.subsystem.autonomous.motion.TrajectoryView;
 import frc.robot.subsystem.drive.DriveConstants;
 import frc.robot.subsystem.vision.VisionSubsystem;
 
-public class Idle extends Command {
+public class Idle extends BitBucketCommand {
 	private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
 	private final VisionSubsystem vision = VisionSubsystem.instance();
+	private final AutonomousSubsystem autonomous = AutonomousSubsystem.instance();
 	
 	static double lastTestModeTime_sec = 0.0;
 	
@@ -33,7 +37,7 @@ public class Idle extends Command {
     }
 
     // Called just before this Command runs the first time
-    protected void initialize() 
+    protected void commandInitialize() 
     {
     	System.out.println(this.getClass().getName() + " DRIVE START" + " " + System.currentTimeMillis()/1000);
     	driveSubsystem.disable();
@@ -41,12 +45,12 @@ public class Idle extends Command {
     }
 
     // Called repeatedly when this Command is scheduled to run
-    protected void execute() {
+    protected void commandExecute() {
     	vision.enableDriverExposure();
     }
 
     // Make this return true when this Command no longer needs to run execute()
-    protected boolean isFinished() 
+    protected boolean commandIsFinished() 
     {    	
     	// Getting into test mode requires 2 conditions to avoid inadvertent activation
     	// of future other test modes
@@ -69,7 +73,18 @@ public class Idle extends Command {
 		// that is true in real DS. For now the solution is to test for the other
 		// two states together
 	  
-		// Autonomous for us is just driver control with vision. Unfortunately.
+		// Drive the precompiled trajectory picked on the dashboard first, if there is one
+		if (ds.isAutonomous() && !ds.isDisabled())
+		{
+			TrajectoryView trajectory = autonomous.takePendingTrajectory();
+			if (trajectory != null)
+			{
+				return CommandUtils.stateChange(new StreamTrajectory(trajectory,
+					trajectory.getDuration() + AutonomousConstants.TRAJECTORY_TIMEOUT_MARGIN_SEC));
+			}
+		}
+
+		// Otherwise autonomous for us is just driver control with vision. Unfortunately.
 		if( /*! ds.isAutonomous() &&*/ !ds.isDisabled()) 
 		{
 			return CommandUtils.stateChange(new DriverControl());
@@ -79,15 +94,15 @@ public class Idle extends Command {
     }
 
     // Called once after isFinished returns true
-    protected void end() 
+    protected void commandEnd() 
     {    
     	System.out.println(this.getClass().getName() + " DRIVE END" + " " + System.currentTimeMillis()/1000);
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
-    protected void interrupted() 
+    protected void commandInterrupted() 
     {
-    	end();
+    	commandEnd();
     }
 }
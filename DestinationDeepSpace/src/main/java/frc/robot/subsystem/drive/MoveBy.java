@@ -10,9 +10,9 @@ package frc.robot.subsystem.drive;
 import frc.robot.utils.CommandUtils;
 import frc.robot.subsystem.drive.DriveSubsystem;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
-public class MoveBy extends Command
+public class MoveBy extends BitBucketCommand
 {
     private double timeout_sec;
 	private double distance_inches;
@@ -38,7 +38,7 @@ public class MoveBy extends Command
     }
 
     // Called just before this Command runs the first time
-    protected void initialize() 
+    protected void commandInitialize() 
     {
     	System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);
     	driveSubsystem.resetMotion();
@@ -47,7 +47,7 @@ public class MoveBy extends Command
     }
 
     // Called repeatedly when this Command is scheduled to run
-    protected void execute() 
+    protected void commandExecute() 
     {
     	System.out.println("Target: " + distance_inches + "\tCurrent: " + driveSubsystem.getLeftNativeUnits() + " \t" + driveSubsystem.getRightNativeUnits());
     	// Keep enforcing the current position request until we get there
@@ -55,7 +55,7 @@ public class MoveBy extends Command
     }
 
     // Make this return true when this Command no longer needs to run execute()
-    protected boolean isFinished() 
+    protected boolean commandIsFinished() 
     {
     	boolean timeout = (timeSinceInitialized() > timeout_sec);
     	//System.out.printf("Timeout is %s\n", timeout?"TRUE":"false");
@@ -70,16 +70,16 @@ public class MoveBy extends Command
     }
 
     // Called once after isFinished returns true
-    protected void end() {
+    protected void commandEnd() {
     	System.out.println("MoveBy end");
     	System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000);
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
-    protected void interrupted() {
+    protected void commandInterrupted() {
     	System.out.println("MoveBy interrupted");
     	
-    	end();
+    	commandEnd();
     }
 }
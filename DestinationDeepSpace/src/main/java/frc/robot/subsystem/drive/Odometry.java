@@ -0,0 +1,186 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.drive;
+
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+import com.kauailabs.navx.frc.AHRS;
+
+import frc.robot.subsystem.navigation.BitBucketsAHRS;
+import frc.robot.subsystem.navigation.NavState;
+import frc.robot.subsystem.navigation.NavigationSubsystem;
+import frc.robot.subsystem.navigation.Pose;
+import frc.robot.subsystem.navigation.PoseHistory;
+import frc.robot.utils.logging.DataLogger;
+import frc.robot.utils.talonutils.StatusFrameScheduler;
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryGroup;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Works out where the robot is on the field from the drive encoders and the
+ * navX, on its own Notifier at DriveConstants.ODOMETRY_HERTZ so the 50 Hz
+ * loop doesn't pay for it.
+ *
+ * Distance comes from the average of the two master encoders and the change
+ * in heading from the navX (the gyro is much better at angles than the
+ * difference between the wheels, which slip when turning). Each step moves
+ * along the heading halfway through the step.
+ *
+ * The encoders and navX don't update in step with the ticks (the navX is
+ * around 60 Hz), so some ticks see no change and the next sees two; that
+ * adds up fine for position, but not for rates. Speed comes from the
+ * Talons' own velocity and turn rate from the navX samples instead.
+ * While running, the masters are kept sending their position every 10 ms
+ * (StatusFrameScheduler.setFastFeedback()).
+ *
+ * Every tick makes a new Pose and hands it to NavigationSubsystem.publishPose(),
+ * which anyone can read with getPose() without locking, and which also goes
+ * into the pose history.
+ */
+public class Odometry {
+
+	private static final double TICKS_PER_INCH = DriveConstants.DRIVE_MOTOR_NATIVE_TICKS_PER_REV /
+	                                             DriveConstants.WHEEL_CIRCUMFERENCE_INCHES;
+
+	private final WPI_TalonSRX leftMaster;
+	private final WPI_TalonSRX rightMaster;
+	private final AHRS ahrs;
+	private final NavigationSubsystem navigation = NavigationSubsystem.instance();
+	private final Notifier notifier;
+	private final double period_sec = 1.0 / DriveConstants.ODOMETRY_HERTZ;
+
+	private final DataLogger.Record log = DataLogger.instance().record("Odometry",
+		"X (in)", "Y (in)", "Heading (deg)", "Speed (ips)", "Turn Rate (dps)");
+
+	// only touched on the Notifier thread
+	private final NavState navState = new NavState();
+	private boolean started;
+	private double lastTimestamp_sec;
+	private double lastLeft_inches;
+	private double lastRight_inches;
+	private double lastYaw_deg;
+	private double x_inches;
+	private double y_inches;
+	private double heading_rad;
+
+	private volatile boolean resetRequested;
+
+	// timing stats, for the dashboard
+	private volatile int ticks;
+	private volatile double maxPeriod_sec;
+	private volatile double maxExecution_sec;
+	private TelemetryChannel ticksChannel;
+	private TelemetryChannel maxPeriodChannel;
+	private TelemetryChannel maxExecutionChannel;
+
+	Odometry(WPI_TalonSRX leftMaster, WPI_TalonSRX rightMaster) {
+		this.leftMaster = leftMaster;
+		this.rightMaster = rightMaster;
+		// get it here on the main thread, BitBucketsAHRS.instance() isn't thread safe
+		ahrs = BitBucketsAHRS.instance();
+		notifier = new Notifier(this::run);
+	}
+
+	public void start() {
+		StatusFrameScheduler.instance().setFastFeedback(leftMaster, true);
+		StatusFrameScheduler.instance().setFastFeedback(rightMaster, true);
+		notifier.startPeriodic(period_sec);
+	}
+
+	public void stop() {
+		notifier.stop();
+		StatusFrameScheduler.instance().setFastFeedback(leftMaster, false);
+		StatusFrameScheduler.instance().setFastFeedback(rightMaster, false);
+	}
+
+	/**
+	 * Make where the robot is now (0, 0), keeping the navX heading.
+	 * Happens on the next tick.
+	 */
+	public void reset() {
+		resetRequested = true;
+	}
+
+	/**
+	 * Notifier tick
+	 */
+	private void run() {
+		double start_sec = Timer.getFPGATimestamp();
+
+		double left_inches = leftMaster.getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP) / TICKS_PER_INCH;
+		double right_inches = rightMaster.getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP) / TICKS_PER_INCH;
+		// latest navX sample, or straight from the navX until NavigationSubsystem has them coming
+		boolean haveNavState = navigation.getNavState(navState);
+		double yaw_deg = haveNavState ? navState.getYaw_deg() : ahrs.getYaw();
+
+		// the Talons' velocity is over their own window, so it doesn't jump when a tick misses a frame
+		int velocity_tp100 = (leftMaster.getSelectedSensorVelocity(DriveConstants.PRIMARY_PID_LOOP) +
+		                      rightMaster.getSelectedSensorVelocity(DriveConstants.PRIMARY_PID_LOOP)) / 2;
+		double speed_ips = DriveConstants.ticksP100ToIps(velocity_tp100);
+		// navX yaw rate is clockwise positive degrees
+		double turnRate_radps = haveNavState ? -Math.toRadians(navState.getYawRate_degPerSec()) : 0.0;
+		if (!started || resetRequested) {
+			x_inches = 0.0;
+			y_inches = 0.0;
+			// navX yaw is clockwise positive degrees
+			heading_rad = -Math.toRadians(yaw_deg);
+			started = true;
+			resetRequested = false;
+		}
+		else {
+			double ds = ((left_inches - lastLeft_inches) + (right_inches - lastRight_inches)) / 2.0;
+			double dHeading = -Math.toRadians(PoseHistory.wrap_deg(yaw_deg - lastYaw_deg));
+			double midHeading = heading_rad + dHeading / 2.0;
+			x_inches += ds * Math.cos(midHeading);
+			y_inches += ds * Math.sin(midHeading);
+			heading_rad += dHeading;
+
+			double dt = start_sec - lastTimestamp_sec;
+			if (!haveNavState && dt > 0.0) {
+				turnRate_radps = dHeading / dt;
+			}
+			maxPeriod_sec = Math.max(maxPeriod_sec, dt);
+		}
+		lastTimestamp_sec = start_sec;
+		lastLeft_inches = left_inches;
+		lastRight_inches = right_inches;
+		lastYaw_deg = yaw_deg;
+
+		navigation.publishPose(new Pose(start_sec, x_inches, y_inches, heading_rad, speed_ips, turnRate_radps));
+
+		log.set(0, x_inches);
+		log.set(1, y_inches);
+		log.set(2, Math.toDegrees(heading_rad));
+		log.set(3, speed_ips);
+		log.set(4, Math.toDegrees(turnRate_radps));
+		log.append(start_sec);
+
+		ticks++;
+		maxExecution_sec = Math.max(maxExecution_sec, Timer.getFPGATimestamp() - start_sec);
+	}
+
+	/**
+	 * Make the dashboard channels once, in the owning subsystem's initialize()
+	 */
+	public void createTelemetry(TelemetryGroup telemetry) {
+		ticksChannel = telemetry.channel("Odometry Ticks");
+		maxPeriodChannel = telemetry.channel("Odometry Max Period (ms)");
+		maxExecutionChannel = telemetry.channel("Odometry Max Exec (ms)");
+	}
+
+	/**
+	 * Put timing stats on the dashboard, call from the main loop after createTelemetry()
+	 */
+	public void updateDashboard() {
+		ticksChannel.set(ticks);
+		maxPeriodChannel.set(1000.0 * maxPeriod_sec);
+		maxExecutionChannel.set(1000.0 * maxExecution_sec);
+	}
+}
@@ -0,0 +1,311 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.drive;
+
+import frc.robot.subsystem.autonomous.motion.Trajectory;
+import frc.robot.subsystem.navigation.NavigationSubsystem;
+import frc.robot.subsystem.navigation.Pose;
+import frc.robot.utils.logging.DataLogger;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Follows a trajectory with a Ramsete controller running on its own Notifier,
+ * not the 50 Hz Scheduler. It runs at the trajectory's rate (TrajectoryFinder.LOOP_HERTZ)
+ * or DriveConstants.ODOMETRY_HERTZ, whichever is slower; faster than Odometry
+ * would just correct against the same pose twice. Points are picked by time,
+ * so it skips the ones in between.
+ *
+ * Every tick it works out where the robot should be on the trajectory right
+ * now, compares that to where the robot is (the latest Odometry pose), and
+ * corrects the trajectory's speed and turn rate to pull the robot back
+ * onto the path before sending them to DriveSubsystem.setVelocity(). Only
+ * the motor commands happen on the Notifier; whoever starts the follower
+ * selects velocity mode first, on the main thread.
+ *
+ * Positions are in inches relative to where the trajectory started, with
+ * x forward and y left at the start, and headings counter-clockwise positive.
+ *
+ * Every tick goes to the DataLogger as a "PathFollower" record.
+ */
+public class PathFollower {
+
+	public enum State {
+		IDLE,
+		RUNNING,
+		FINISHED
+	}
+
+	// fields in the log record
+	private static final int LOG_INDEX = 0;
+	private static final int LOG_REFERENCE_X = 1;
+	private static final int LOG_REFERENCE_Y = 2;
+	private static final int LOG_REFERENCE_HEADING = 3;
+	private static final int LOG_X = 4;
+	private static final int LOG_Y = 5;
+	private static final int LOG_HEADING = 6;
+	private static final int LOG_SPEED = 7;
+	private static final int LOG_TURN = 8;
+	private static final int LOG_COMMAND_SPEED = 9;
+	private static final int LOG_COMMAND_TURN = 10;
+	private static final int LOG_ALONG_ERROR = 11;
+	private static final int LOG_CROSS_ERROR = 12;
+	private static final int LOG_HEADING_ERROR = 13;
+
+	private final DriveSubsystem driveSubsystem;
+	private final NavigationSubsystem navigation = NavigationSubsystem.instance();
+	private final Notifier notifier;
+
+	private final DataLogger.Record log = DataLogger.instance().record("PathFollower",
+		"Index",
+		"Reference X (in)", "Reference Y (in)", "Reference Heading (deg)",
+		"X (in)", "Y (in)", "Heading (deg)",
+		"Speed (ips)", "Turn (dps)",
+		"Command Speed (ips)", "Command Turn (dps)",
+		"Along Error (in)", "Cross Error (in)", "Heading Error (deg)");
+
+	private volatile State state = State.IDLE;
+	private Trajectory trajectory;
+	private double loopHertz;
+	// between trajectory points
+	private double pointPeriod_sec;
+	// between Notifier ticks
+	private double period_sec;
+	private double start_sec;
+
+	// where the robot should be, integrated along the trajectory
+	private int referenceIndex;
+	private double referenceX_inches;
+	private double referenceY_inches;
+
+	// where the robot is, in the trajectory's frame
+	private double x_inches;
+	private double y_inches;
+	private double heading_rad;
+
+	// odometry pose when we started, and the turn from the odometry frame to the trajectory's
+	private Pose startPose;
+	private double headingOffset_rad;
+
+	// tracking error in the robot's frame, for the dashboard
+	private volatile double alongError_inches;
+	private volatile double crossError_inches;
+	private volatile double headingError_deg;
+	private volatile double maxCrossError_inches;
+
+	// timing stats, for the dashboard
+	private volatile int ticks;
+	private volatile int overruns;
+	private volatile double lastTickStart_sec;
+	private volatile double maxPeriod_sec;
+	private volatile double totalPeriod_sec;
+	private volatile double maxExecution_sec;
+	private volatile double totalExecution_sec;
+
+	PathFollower(DriveSubsystem driveSubsystem) {
+		this.driveSubsystem = driveSubsystem;
+		notifier = new Notifier(this::run);
+	}
+
+	/**
+	 * Start following a trajectory from where the robot is now
+	 *
+	 * @param loopHertz rate the trajectory's points are spaced at
+	 */
+	public synchronized void start(Trajectory trajectory, double loopHertz) {
+		notifier.stop();
+
+		this.trajectory = trajectory;
+		this.loopHertz = loopHertz;
+		pointPeriod_sec = 1.0 / loopHertz;
+		period_sec = 1.0 / Math.min(loopHertz, DriveConstants.ODOMETRY_HERTZ);
+
+		// robot is at the start of the trajectory, facing the way it starts
+		referenceIndex = 0;
+		referenceX_inches = 0;
+		referenceY_inches = 0;
+		x_inches = 0;
+		y_inches = 0;
+		heading_rad = trajectory.getHeading(0);
+		startPose = navigation.getPose();
+		headingOffset_rad = heading_rad - startPose.getHeading_rad();
+
+		ticks = 0;
+		overruns = 0;
+		maxPeriod_sec = 0;
+		totalPeriod_sec = 0;
+		maxExecution_sec = 0;
+		totalExecution_sec = 0;
+		maxCrossError_inches = 0;
+
+		start_sec = Timer.getFPGATimestamp();
+		lastTickStart_sec = start_sec;
+		state = State.RUNNING;
+
+		notifier.startPeriodic(period_sec);
+	}
+
+	public synchronized void stop() {
+		notifier.stop();
+		if (state == State.RUNNING) {
+			driveSubsystem.setVelocity(0.0, 0.0);
+		}
+		trajectory = null;
+		state = State.IDLE;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public boolean isFinished() {
+		return state == State.FINISHED;
+	}
+
+	/**
+	 * Notifier tick
+	 */
+	private synchronized void run() {
+		if (state != State.RUNNING) {
+			return;
+		}
+
+		double tickStart_sec = Timer.getFPGATimestamp();
+		double time_sec = tickStart_sec - start_sec;
+
+		updatePose();
+
+		// point on the trajectory for right now
+		int last = trajectory.size() - 1;
+		int index = Math.min((int) (time_sec * loopHertz), last);
+		advanceReference(index);
+
+		double speed_ips = trajectory.getVelocity(index);
+		double turn_radps = trajectory.getSignedTurnRate(index);
+		double referenceHeading_rad = trajectory.getHeading(index);
+
+		// error, turned into the robot's frame
+		double dx = referenceX_inches - x_inches;
+		double dy = referenceY_inches - y_inches;
+		double cos = Math.cos(heading_rad);
+		double sin = Math.sin(heading_rad);
+		double errorAlong = cos * dx + sin * dy;
+		double errorCross = -sin * dx + cos * dy;
+		double errorHeading = Math.IEEEremainder(referenceHeading_rad - heading_rad, 2.0 * Math.PI);
+
+		// Ramsete
+		double k = 2.0 * DriveConstants.RAMSETE_ZETA *
+		           Math.sqrt(turn_radps * turn_radps + DriveConstants.RAMSETE_B * speed_ips * speed_ips);
+		double sinc = (Math.abs(errorHeading) < 1e-6) ? 1.0 : Math.sin(errorHeading) / errorHeading;
+		double commandSpeed_ips = speed_ips * Math.cos(errorHeading) + k * errorAlong;
+		double commandTurn_radps = turn_radps + k * errorHeading +
+		                           DriveConstants.RAMSETE_B * speed_ips * sinc * errorCross;
+
+		if (time_sec >= last * pointPeriod_sec) {
+			// past the end, stop and let whoever started us know
+			commandSpeed_ips = 0.0;
+			commandTurn_radps = 0.0;
+			state = State.FINISHED;
+		}
+
+		// setVelocity turns clockwise for a positive turn rate
+		driveSubsystem.setVelocity(commandSpeed_ips, -commandTurn_radps);
+
+		alongError_inches = errorAlong;
+		crossError_inches = errorCross;
+		headingError_deg = Math.toDegrees(errorHeading);
+		maxCrossError_inches = Math.max(maxCrossError_inches, Math.abs(errorCross));
+
+		log.set(LOG_INDEX, index);
+		log.set(LOG_REFERENCE_X, referenceX_inches);
+		log.set(LOG_REFERENCE_Y, referenceY_inches);
+		log.set(LOG_REFERENCE_HEADING, Math.toDegrees(referenceHeading_rad));
+		log.set(LOG_X, x_inches);
+		log.set(LOG_Y, y_inches);
+		log.set(LOG_HEADING, Math.toDegrees(heading_rad));
+		log.set(LOG_SPEED, speed_ips);
+		log.set(LOG_TURN, Math.toDegrees(turn_radps));
+		log.set(LOG_COMMAND_SPEED, commandSpeed_ips);
+		log.set(LOG_COMMAND_TURN, Math.toDegrees(commandTurn_radps));
+		log.set(LOG_ALONG_ERROR, errorAlong);
+		log.set(LOG_CROSS_ERROR, errorCross);
+		log.set(LOG_HEADING_ERROR, headingError_deg);
+		log.append(tickStart_sec);
+
+		recordTiming(tickStart_sec);
+	}
+
+	/**
+	 * Move the reference position along the trajectory up to point index
+	 */
+	private void advanceReference(int index) {
+		while (referenceIndex < index) {
+			int i = referenceIndex + 1;
+			double ds = trajectory.getPosition(i) - trajectory.getPosition(i - 1);
+			// midpoint heading over the step
+			double dHeading = Math.IEEEremainder(trajectory.getHeading(i) - trajectory.getHeading(i - 1), 2.0 * Math.PI);
+			double heading = trajectory.getHeading(i - 1) + dHeading / 2.0;
+			referenceX_inches += ds * Math.cos(heading);
+			referenceY_inches += ds * Math.sin(heading);
+			referenceIndex = i;
+		}
+	}
+
+	/**
+	 * Move the odometry pose into the trajectory's frame
+	 */
+	private void updatePose() {
+		Pose pose = navigation.getPose();
+		double dx = pose.getX_inches() - startPose.getX_inches();
+		double dy = pose.getY_inches() - startPose.getY_inches();
+		double cos = Math.cos(headingOffset_rad);
+		double sin = Math.sin(headingOffset_rad);
+		x_inches = cos * dx - sin * dy;
+		y_inches = sin * dx + cos * dy;
+		heading_rad = pose.getHeading_rad() + headingOffset_rad;
+	}
+
+	private void recordTiming(double tickStart_sec) {
+		double tickEnd_sec = Timer.getFPGATimestamp();
+		double execution_sec = tickEnd_sec - tickStart_sec;
+		double actualPeriod_sec = tickStart_sec - lastTickStart_sec;
+		lastTickStart_sec = tickStart_sec;
+
+		ticks++;
+		totalExecution_sec += execution_sec;
+		maxExecution_sec = Math.max(maxExecution_sec, execution_sec);
+		if (ticks > 1) {
+			// first tick's period is from start(), not from a tick
+			totalPeriod_sec += actualPeriod_sec;
+			maxPeriod_sec = Math.max(maxPeriod_sec, actualPeriod_sec);
+		}
+		if (execution_sec > period_sec) {
+			overruns++;
+		}
+	}
+
+	/**
+	 * Put tracking and timing stats on the dashboard, call from the main loop
+	 */
+	public void updateDashboard(String prefix) {
+		int n = ticks;
+		SmartDashboard.putString(prefix + "/Follower State", state.toString());
+		SmartDashboard.putNumber(prefix + "/Follower Ticks", n);
+		SmartDashboard.putNumber(prefix + "/Follower Overruns", overruns);
+		SmartDashboard.putNumber(prefix + "/Follower Avg Period (ms)", (n > 1) ? 1000.0 * totalPeriod_sec / (n - 1) : 0.0);
+		SmartDashboard.putNumber(prefix + "/Follower Max Period (ms)", 1000.0 * maxPeriod_sec);
+		SmartDashboard.putNumber(prefix + "/Follower Avg Exec (ms)", (n > 0) ? 1000.0 * totalExecution_sec / n : 0.0);
+		SmartDashboard.putNumber(prefix + "/Follower Max Exec (ms)", 1000.0 * maxExecution_sec);
+		SmartDashboard.putNumber(prefix + "/Follower Along Error (in)", alongError_inches);
+		SmartDashboard.putNumber(prefix + "/Follower Cross Error (in)", crossError_inches);
+		SmartDashboard.putNumber(prefix + "/Follower Max Cross Error (in)", maxCrossError_inches);
+		SmartDashboard.putNumber(prefix + "/Follower Heading Error (deg)", headingError_deg);
+	}
+}
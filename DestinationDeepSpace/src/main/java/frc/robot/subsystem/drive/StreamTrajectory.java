@@ -0,0 +1,86 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.drive;
+
+import frc.robot.subsystem.autonomous.motion.Trajectory;
+import frc.robot.subsystem.autonomous.motion.TrajectoryFinder;
+import frc.robot.subsystem.autonomous.motion.TrajectoryView;
+
+import frc.robot.subsystem.BitBucketCommand;
+import frc.robot.utils.CommandUtils;
+
+/**
+ * Follows a generated trajectory on the Talons' motion profile buffers
+ * (see TrajectoryExecutor). Finishes when the Talons reach the last point,
+ * or at the timeout, and goes back to Idle.
+ */
+public class StreamTrajectory extends BitBucketCommand
+{
+	private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
+	private final Trajectory trajectory;
+	private final double loopHertz;
+	private final double timeout_sec;
+
+	public StreamTrajectory(Trajectory trajectory, double loopHertz, double timeout_sec)
+	{
+		requires(driveSubsystem);
+
+		this.trajectory = trajectory;
+		this.loopHertz = loopHertz;
+		this.timeout_sec = timeout_sec;
+	}
+
+	public StreamTrajectory(TrajectoryFinder trajectory, double timeout_sec)
+	{
+		this(trajectory.getPoints(), trajectory.LOOP_HERTZ, timeout_sec);
+	}
+
+	public StreamTrajectory(TrajectoryView trajectory, double timeout_sec)
+	{
+		this(trajectory, trajectory.getLoopHertz(), timeout_sec);
+	}
+
+	// Called just before this Command runs the first time
+	protected void commandInitialize()
+	{
+		System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);
+		driveSubsystem.startTrajectory(trajectory, loopHertz);
+	}
+
+	// Called repeatedly when this Command is scheduled to run
+	protected void commandExecute()
+	{
+		// Nothing to do, the executor's notifier does all the work
+	}
+
+	// Make this return true when this Command no longer needs to run execute()
+	protected boolean commandIsFinished()
+	{
+		if (driveSubsystem.getTrajectoryExecutor().isFinished() ||
+		    timeSinceInitialized() > timeout_sec)
+		{
+			return CommandUtils.stateChange(new Idle());
+		}
+		return false;
+	}
+
+	// Called once after isFinished returns true
+	protected void commandEnd()
+	{
+		System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000 +
+		                   " underruns: " + driveSubsystem.getTrajectoryExecutor().getUnderrunCount());
+		driveSubsystem.stopTrajectory();
+	}
+
+	// Called when another command which requires one or more of the same
+	// subsystems is scheduled to run
+	protected void commandInterrupted()
+	{
+		commandEnd();
+	}
+}
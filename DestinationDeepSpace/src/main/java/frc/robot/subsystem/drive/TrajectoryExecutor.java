@@ -0,0 +1,251 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.drive;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+
+import frc.robot.subsystem.autonomous.motion.Trajectory;
+import frc.robot.utils.talonutils.TalonConfigCache;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Streams a generated trajectory into the left and right master Talons'
+ * motion profile buffers, so the path is followed closed loop on the
+ * controllers at the trajectory's full rate no matter what the 50 Hz robot
+ * loop is doing.
+ *
+ * Each Talon has a top buffer (in the roboRIO) and a bottom buffer (in the Talon).
+ * A Notifier running at twice the point rate moves points from the top to the
+ * bottom buffer and keeps the top buffer topped up from the trajectory, a
+ * chunk at a time so no single tick takes long. The profile is only enabled
+ * once the bottom buffers have a head start.
+ *
+ * Turning the trajectory into left and right wheel points is WheelPointStreamer's job.
+ */
+public class TrajectoryExecutor {
+
+	public enum State {
+		IDLE,		// nothing to do
+		LOADING,	// filling buffers, motors disabled
+		RUNNING,	// following the profile
+		FINISHED	// reached the last point, holding position
+	}
+
+	// points needed in the bottom buffers before starting, so it doesn't underrun right away
+	private static final int MIN_POINTS_TO_START = 10;
+	// most points pushed in one notifier tick
+	private static final int MAX_POINTS_PER_TICK = 50;
+
+	private final WPI_TalonSRX leftMotor;
+	private final WPI_TalonSRX rightMotor;
+	private final Notifier notifier;
+	private final WheelPointStreamer streamer;
+
+	// reused every tick, the notifier shouldn't make garbage
+	private final MotionProfileStatus leftStatus = new MotionProfileStatus();
+	private final MotionProfileStatus rightStatus = new MotionProfileStatus();
+
+	private volatile State state = State.IDLE;
+
+	// stats, read by the dashboard from the main thread
+	private volatile int underrunCount;
+	private volatile int pushErrorCount;
+	private volatile int pointsPushed;
+	private volatile int leftBottomBufferCount;
+	private volatile int rightBottomBufferCount;
+	private volatile int topBufferCount;
+
+	public TrajectoryExecutor(WPI_TalonSRX leftMotor, WPI_TalonSRX rightMotor) {
+		this.leftMotor = leftMotor;
+		this.rightMotor = rightMotor;
+		streamer = new WheelPointStreamer(pointBuffer(leftMotor), pointBuffer(rightMotor));
+		notifier = new Notifier(this::run);
+	}
+
+	private static WheelPointStreamer.PointBuffer pointBuffer(WPI_TalonSRX motor) {
+		return new WheelPointStreamer.PointBuffer() {
+			@Override
+			public boolean isFull() {
+				return motor.isMotionProfileTopLevelBufferFull();
+			}
+
+			@Override
+			public ErrorCode push(TrajectoryPoint point) {
+				return motor.pushMotionProfileTrajectory(point);
+			}
+		};
+	}
+
+	/**
+	 * Start streaming a trajectory. The caller is responsible for putting the
+	 * drive into a state where the masters aren't being commanded by anything else.
+	 *
+	 * @param loopHertz rate the trajectory's points are spaced at
+	 */
+	public synchronized void start(Trajectory trajectory, double loopHertz) {
+		notifier.stop();
+
+		underrunCount = 0;
+		pushErrorCount = 0;
+		pointsPushed = 0;
+
+		if (trajectory.size() == 0) {
+			// nothing to follow, and nothing would ever get the profile started
+			state = State.FINISHED;
+			return;
+		}
+
+		int period_ms = (int) Math.round(1000.0 / loopHertz);
+		int leftStart_ticks = prepare(leftMotor, period_ms);
+		int rightStart_ticks = prepare(rightMotor, period_ms);
+		streamer.start(trajectory, leftStart_ticks, rightStart_ticks);
+
+		state = State.LOADING;
+
+		// get a head start on the buffers before the notifier takes over
+		topUp();
+
+		// twice the point rate so the bottom buffers never wait on us
+		notifier.startPeriodic(period_ms / 2000.0);
+	}
+
+	/**
+	 * Get a master Talon ready for a new motion profile. Runs on the main
+	 * thread (from a Command's initialize()), so nothing here waits on the Talon.
+	 *
+	 * @return encoder position right now
+	 */
+	private int prepare(WPI_TalonSRX motor, int period_ms) {
+		motor.set(ControlMode.MotionProfile, SetValueMotionProfile.Disable.value);
+		motor.clearMotionProfileTrajectories();
+		motor.clearMotionProfileHasUnderrun(0);
+
+		// every point lasts this long (TrajectoryPoint.timeDur is left at 0 so this is used);
+		// usually the same every time, so the cache skips it
+		TalonConfigCache.of(motor).withTimeout(0).configMotionProfileTrajectoryPeriod(period_ms);
+		// send points to the Talon twice as fast as it uses them
+		motor.changeMotionControlFramePeriod(Math.max(1, period_ms / 2));
+
+		return motor.getSelectedSensorPosition(DriveConstants.PRIMARY_PID_LOOP);
+	}
+
+	/**
+	 * Stop streaming and stop the motors
+	 */
+	public synchronized void stop() {
+		notifier.stop();
+
+		if (state != State.IDLE) {
+			leftMotor.set(ControlMode.MotionProfile, SetValueMotionProfile.Disable.value);
+			rightMotor.set(ControlMode.MotionProfile, SetValueMotionProfile.Disable.value);
+			leftMotor.clearMotionProfileTrajectories();
+			rightMotor.clearMotionProfileTrajectories();
+		}
+
+		state = State.IDLE;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public boolean isFinished() {
+		return state == State.FINISHED;
+	}
+
+	public int getUnderrunCount() {
+		return underrunCount;
+	}
+
+	/**
+	 * Notifier tick
+	 */
+	private synchronized void run() {
+		if (state == State.IDLE || state == State.FINISHED) {
+			return;
+		}
+
+		// top buffer -> Talon
+		leftMotor.processMotionProfileBuffer();
+		rightMotor.processMotionProfileBuffer();
+
+		// trajectory -> top buffer
+		topUp();
+
+		leftMotor.getMotionProfileStatus(leftStatus);
+		rightMotor.getMotionProfileStatus(rightStatus);
+		leftBottomBufferCount = leftStatus.btmBufferCnt;
+		rightBottomBufferCount = rightStatus.btmBufferCnt;
+		topBufferCount = Math.max(leftStatus.topBufferCnt, rightStatus.topBufferCnt);
+
+		if (leftStatus.hasUnderrun || rightStatus.hasUnderrun) {
+			if (underrunCount == 0) {
+				DriverStation.reportWarning("Drive motion profile buffer underrun at point " + streamer.getNextPoint(), false);
+			}
+			underrunCount++;
+			// don't wait on the Talon from the notifier
+			leftMotor.clearMotionProfileHasUnderrun(0);
+			rightMotor.clearMotionProfileHasUnderrun(0);
+		}
+
+		switch (state) {
+		case LOADING:
+			// start once both sides have a head start (or everything is in already)
+			if ((leftStatus.btmBufferCnt >= MIN_POINTS_TO_START && rightStatus.btmBufferCnt >= MIN_POINTS_TO_START) ||
+				(streamer.allPushed() && leftStatus.btmBufferCnt > 0 && rightStatus.btmBufferCnt > 0)) {
+				leftMotor.set(ControlMode.MotionProfile, SetValueMotionProfile.Enable.value);
+				rightMotor.set(ControlMode.MotionProfile, SetValueMotionProfile.Enable.value);
+				state = State.RUNNING;
+			}
+			break;
+
+		case RUNNING:
+			// both sides on their last point, hold there
+			if (leftStatus.activePointValid && leftStatus.isLast &&
+				rightStatus.activePointValid && rightStatus.isLast) {
+				leftMotor.set(ControlMode.MotionProfile, SetValueMotionProfile.Hold.value);
+				rightMotor.set(ControlMode.MotionProfile, SetValueMotionProfile.Hold.value);
+				state = State.FINISHED;
+			}
+			break;
+
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Push as many trajectory points as fit (up to MAX_POINTS_PER_TICK) into the top buffers
+	 */
+	private void topUp() {
+		streamer.topUp(MAX_POINTS_PER_TICK);
+		pointsPushed = streamer.getNextPoint();
+		pushErrorCount = streamer.getPushErrorCount();
+	}
+
+	/**
+	 * Put streaming stats on the dashboard, call from the main loop
+	 */
+	public void updateDashboard(String prefix) {
+		SmartDashboard.putString(prefix + "/MP State", state.toString());
+		SmartDashboard.putNumber(prefix + "/MP Points Pushed", pointsPushed);
+		SmartDashboard.putNumber(prefix + "/MP Top Buffer", topBufferCount);
+		SmartDashboard.putNumber(prefix + "/MP Left Bottom Buffer", leftBottomBufferCount);
+		SmartDashboard.putNumber(prefix + "/MP Right Bottom Buffer", rightBottomBufferCount);
+		SmartDashboard.putNumber(prefix + "/MP Underruns", underrunCount);
+		SmartDashboard.putNumber(prefix + "/MP Push Errors", pushErrorCount);
+	}
+}
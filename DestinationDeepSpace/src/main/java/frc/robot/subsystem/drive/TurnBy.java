@@ -9,9 +9,9 @@ package frc.robot.subsystem.drive;
 
 import frc.robot.utils.CommandUtils;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
-public class TurnBy extends Command {
+public class TurnBy extends BitBucketCommand {
     private final DriveSubsystem driveSubsystem = DriveSubsystem.instance();
 
     private double timeout_sec;
@@ -27,14 +27,14 @@ public class TurnBy extends Command {
     }
 
     // Called just before this Command runs the first time
-    protected void initialize() 
+    protected void commandInitialize() 
     {
     	System.out.println(this.getClass().getName() + " Start" + " " + System.currentTimeMillis()/1000);
     	driveSubsystem.resetMotion();
     }
 
     // Called repeatedly when this Command is scheduled to run
-    protected void execute() 
+    protected void commandExecute() 
     {
     	System.out.println("Target: " + angle_deg + "\tCurrent: " + driveSubsystem.getLeftNativeUnits() + " \t" + driveSubsystem.getRightNativeUnits());
     	driveSubsystem.turn_degrees(angle_deg);
@@ -44,7 +44,7 @@ public class TurnBy extends Command {
     }
 
     // Make this return true when this Command no longer needs to run execute()
-    protected boolean isFinished() 
+    protected boolean commandIsFinished() 
     {
     	boolean timeout = (timeSinceInitialized() > timeout_sec);
     	
@@ -57,13 +57,13 @@ public class TurnBy extends Command {
     }
 
     // Called once after isFinished returns true
-    protected void end() {
+    protected void commandEnd() {
     	System.out.println(this.getClass().getName() + " END" + " " + System.currentTimeMillis()/1000);
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
-    protected void interrupted() {
-        end();
+    protected void commandInterrupted() {
+        commandEnd();
     }
 }
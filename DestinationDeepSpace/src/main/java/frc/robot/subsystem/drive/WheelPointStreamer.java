@@ -0,0 +1,176 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.drive;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+
+import frc.robot.subsystem.autonomous.motion.Trajectory;
+
+/**
+ * Turns trajectory points into left and right wheel points and pushes them
+ * into the two top buffers for TrajectoryExecutor.
+ *
+ * Each side keeps its own next point, so if a push fails on one side only,
+ * the other side doesn't get that point again next time. A side never gets
+ * more than one point ahead of the other.
+ *
+ * Wheel points come from the change in heading between points, assuming
+ * headings are counter-clockwise positive (left turn speeds up the right side).
+ */
+class WheelPointStreamer {
+
+	/**
+	 * One side's top buffer (a master Talon, or something pretending to be one)
+	 */
+	interface PointBuffer {
+		boolean isFull();
+		ErrorCode push(TrajectoryPoint point);
+	}
+
+	private static final double TICKS_PER_INCH = DriveConstants.DRIVE_MOTOR_NATIVE_TICKS_PER_REV /
+	                                             DriveConstants.WHEEL_CIRCUMFERENCE_INCHES;
+
+	private final PointBuffer left;
+	private final PointBuffer right;
+
+	// reused for every point, the notifier shouldn't make garbage
+	private final TrajectoryPoint leftPoint = new TrajectoryPoint();
+	private final TrajectoryPoint rightPoint = new TrajectoryPoint();
+
+	private Trajectory trajectory;
+	private int leftStart_ticks;
+	private int rightStart_ticks;
+
+	// next trajectory point to push to each side
+	private int leftNext;
+	private int rightNext;
+	// trajectory point leftPoint and rightPoint were made from, -1 for none
+	private int madePoint;
+	// wheel distances and heading of the last made point
+	private double leftPosition_inches;
+	private double rightPosition_inches;
+	private double lastPosition_inches;
+	private double lastHeading_rad;
+
+	private int pushErrorCount;
+
+	WheelPointStreamer(PointBuffer left, PointBuffer right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	/**
+	 * Start over with a new trajectory
+	 *
+	 * @param leftStart_ticks encoder positions the trajectory starts at, points are relative to these
+	 */
+	void start(Trajectory trajectory, int leftStart_ticks, int rightStart_ticks) {
+		this.trajectory = trajectory;
+		this.leftStart_ticks = leftStart_ticks;
+		this.rightStart_ticks = rightStart_ticks;
+		leftNext = 0;
+		rightNext = 0;
+		madePoint = -1;
+		pushErrorCount = 0;
+	}
+
+	/**
+	 * Push as many points as fit (up to maxPoints) into the top buffers.
+	 * Stops at the first failed push; that side tries the same point again next time.
+	 */
+	void topUp(int maxPoints) {
+		int pushed = 0;
+		while (getNextPoint() < trajectory.size() && pushed < maxPoints &&
+			   ! left.isFull() && ! right.isFull()) {
+
+			// the side that's behind (or both) needs point i
+			int i = getNextPoint();
+			if (madePoint != i) {
+				makeWheelPoints(i);
+				madePoint = i;
+			}
+
+			if (leftNext == i) {
+				if (left.push(leftPoint) != ErrorCode.OK) {
+					pushErrorCount++;
+					break;
+				}
+				leftNext++;
+			}
+			if (rightNext == i) {
+				if (right.push(rightPoint) != ErrorCode.OK) {
+					pushErrorCount++;
+					break;
+				}
+				rightNext++;
+			}
+			pushed++;
+		}
+	}
+
+	/**
+	 * Next point both sides still need, everything before it is in both buffers
+	 */
+	int getNextPoint() {
+		return Math.min(leftNext, rightNext);
+	}
+
+	boolean allPushed() {
+		return getNextPoint() >= trajectory.size();
+	}
+
+	int getPushErrorCount() {
+		return pushErrorCount;
+	}
+
+	/**
+	 * Turn trajectory point i into left and right wheel points.
+	 * Has to be called for every point in order, the wheel positions add up.
+	 */
+	private void makeWheelPoints(int i) {
+		double position_inches = trajectory.getPosition(i);
+		double heading_rad = trajectory.getHeading(i);
+		double velocity_ips = trajectory.getVelocity(i);
+		double turn_radps = 0;
+
+		if (i == 0) {
+			leftPosition_inches = position_inches;
+			rightPosition_inches = position_inches;
+		}
+		else {
+			// heading is atan2, so wrap the change back into -pi to pi
+			double dHeading_rad = Math.IEEEremainder(heading_rad - lastHeading_rad, 2.0 * Math.PI);
+			double dPosition_inches = position_inches - lastPosition_inches;
+
+			// left turn (positive) means the left wheel goes less far than the center
+			leftPosition_inches  += dPosition_inches - dHeading_rad * DriveConstants.WHEEL_TRACK_INCHES / 2.0;
+			rightPosition_inches += dPosition_inches + dHeading_rad * DriveConstants.WHEEL_TRACK_INCHES / 2.0;
+
+			turn_radps = trajectory.getSignedTurnRate(i);
+		}
+		lastPosition_inches = position_inches;
+		lastHeading_rad = heading_rad;
+
+		double diffSpeed_ips = turn_radps * DriveConstants.WHEEL_TRACK_INCHES / 2.0;
+		boolean last = (i == trajectory.size() - 1);
+
+		fillPoint(leftPoint,  leftStart_ticks,  leftPosition_inches,  velocity_ips - diffSpeed_ips, last);
+		fillPoint(rightPoint, rightStart_ticks, rightPosition_inches, velocity_ips + diffSpeed_ips, last);
+	}
+
+	private void fillPoint(TrajectoryPoint point, int start_ticks, double position_inches, double velocity_ips, boolean last) {
+		point.position = start_ticks + position_inches * TICKS_PER_INCH;
+		// native velocity units are ticks per 100 ms
+		point.velocity = velocity_ips * TICKS_PER_INCH / 10.0;
+		point.profileSlotSelect0 = DriveConstants.PID_MOTION_PROFILE_SLOT;
+		point.profileSlotSelect1 = 0;
+		point.zeroPos = false;
+		point.isLastPoint = last;
+	}
+}
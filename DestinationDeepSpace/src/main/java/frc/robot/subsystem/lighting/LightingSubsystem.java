@@ -121,7 +121,7 @@ public class LightingSubsystem extends BitBucketSubsystem {
 	}
 
 	@Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
 		clearDiagnosticsEnabled();		
 		updateBaseDashboard();
 		if (getTelemetryEnabled())
@@ -0,0 +1,91 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.navigation;
+
+/**
+ * One navX sample: angles, turn rates and acceleration, all from the same
+ * update. Only NavStateSampler fills these in; everyone else keeps their
+ * own NavState and passes it to NavigationSubsystem.getNavState() to get
+ * the latest, so reading one never allocates.
+ *
+ * Angles are degrees the way the navX reports them (yaw clockwise positive),
+ * rates are degrees per second in the same directions, acceleration is in g
+ * with gravity taken out.
+ */
+public class NavState {
+
+	long sequence;
+	double timestamp_sec;
+	long sensorTimestamp_ms;
+	double yaw_deg;
+	double pitch_deg;
+	double roll_deg;
+	double yawRate_degPerSec;
+	double pitchRate_degPerSec;
+	double rollRate_degPerSec;
+	double accelX_g;
+	double accelY_g;
+	double accelZ_g;
+
+	/**
+	 * Counts up by one for every navX update, 0 until the first one
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * FPGA time the sample got to the roboRIO
+	 */
+	public double getTimestamp_sec() {
+		return timestamp_sec;
+	}
+
+	/**
+	 * navX's own clock when it took the sample
+	 */
+	public long getSensorTimestamp_ms() {
+		return sensorTimestamp_ms;
+	}
+
+	public double getYaw_deg() {
+		return yaw_deg;
+	}
+
+	public double getPitch_deg() {
+		return pitch_deg;
+	}
+
+	public double getRoll_deg() {
+		return roll_deg;
+	}
+
+	public double getYawRate_degPerSec() {
+		return yawRate_degPerSec;
+	}
+
+	public double getPitchRate_degPerSec() {
+		return pitchRate_degPerSec;
+	}
+
+	public double getRollRate_degPerSec() {
+		return rollRate_degPerSec;
+	}
+
+	public double getAccelX_g() {
+		return accelX_g;
+	}
+
+	public double getAccelY_g() {
+		return accelY_g;
+	}
+
+	public double getAccelZ_g() {
+		return accelZ_g;
+	}
+}
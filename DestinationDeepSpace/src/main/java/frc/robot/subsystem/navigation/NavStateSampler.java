@@ -0,0 +1,138 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.navigation;
+
+import java.lang.invoke.VarHandle;
+
+import com.kauailabs.navx.AHRSProtocol.AHRSUpdateBase;
+import com.kauailabs.navx.frc.ITimestampedDataSubscriber;
+
+import frc.robot.utils.logging.DataLogger;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Gets every navX update as it arrives (the navX library calls us from its
+ * own thread, at the navX's update rate) and keeps the latest one for
+ * anyone on any thread to read.
+ *
+ * The latest sample is kept behind a sequence lock: the writer makes the
+ * sequence odd, writes, then makes it even again, and a reader copies the
+ * values and tries again if the sequence was odd or changed while it was
+ * copying. Nobody ever waits on the writer, and nothing is allocated.
+ *
+ * The navX doesn't send turn rates with each update, so they are worked out
+ * from the change since the last update, using the navX's own timestamps.
+ */
+class NavStateSampler implements ITimestampedDataSubscriber {
+
+	// writer sets it odd while it's changing the values below
+	private volatile long sequence;
+
+	private long count;
+	private double timestamp_sec;
+	private long sensorTimestamp_ms;
+	private double yaw_deg;
+	private double pitch_deg;
+	private double roll_deg;
+	private double yawRate_degPerSec;
+	private double pitchRate_degPerSec;
+	private double rollRate_degPerSec;
+	private double accelX_g;
+	private double accelY_g;
+	private double accelZ_g;
+
+	// every sample, from the navX thread only
+	private final DataLogger.Record log = DataLogger.instance().record("NavX",
+		"Yaw (deg)", "Pitch (deg)", "Roll (deg)",
+		"Yaw Rate (dps)", "Pitch Rate (dps)", "Roll Rate (dps)",
+		"Accel X (g)", "Accel Y (g)", "Accel Z (g)");
+
+	// on the navX thread
+	@Override
+	public void timestampedDataReceived(long systemTimestamp, long sensorTimestamp, AHRSUpdateBase data, Object context) {
+		double now_sec = Timer.getFPGATimestamp();
+
+		double yawRate = 0.0;
+		double pitchRate = 0.0;
+		double rollRate = 0.0;
+		long dt_ms = sensorTimestamp - sensorTimestamp_ms;
+		if (count > 0 && dt_ms > 0) {
+			double dt_sec = dt_ms / 1000.0;
+			yawRate = PoseHistory.wrap_deg(data.yaw - yaw_deg) / dt_sec;
+			pitchRate = PoseHistory.wrap_deg(data.pitch - pitch_deg) / dt_sec;
+			rollRate = PoseHistory.wrap_deg(data.roll - roll_deg) / dt_sec;
+		}
+
+		long s = sequence;
+		sequence = s + 1;
+		// keep the writes below from moving up before the sequence goes odd
+		VarHandle.storeStoreFence();
+
+		count++;
+		timestamp_sec = now_sec;
+		sensorTimestamp_ms = sensorTimestamp;
+		yaw_deg = data.yaw;
+		pitch_deg = data.pitch;
+		roll_deg = data.roll;
+		yawRate_degPerSec = yawRate;
+		pitchRate_degPerSec = pitchRate;
+		rollRate_degPerSec = rollRate;
+		accelX_g = data.linear_accel_x;
+		accelY_g = data.linear_accel_y;
+		accelZ_g = data.linear_accel_z;
+
+		sequence = s + 2;
+
+		log.set(0, data.yaw);
+		log.set(1, data.pitch);
+		log.set(2, data.roll);
+		log.set(3, yawRate);
+		log.set(4, pitchRate);
+		log.set(5, rollRate);
+		log.set(6, data.linear_accel_x);
+		log.set(7, data.linear_accel_y);
+		log.set(8, data.linear_accel_z);
+		log.append(now_sec);
+	}
+
+	/**
+	 * Copy the latest sample into state, from any thread
+	 *
+	 * @return false if there hasn't been a sample yet
+	 */
+	boolean read(NavState state) {
+		while (true) {
+			long before = sequence;
+			if ((before & 1) != 0) {
+				// being written right now, it's only a few stores
+				Thread.onSpinWait();
+				continue;
+			}
+
+			state.sequence = count;
+			state.timestamp_sec = timestamp_sec;
+			state.sensorTimestamp_ms = sensorTimestamp_ms;
+			state.yaw_deg = yaw_deg;
+			state.pitch_deg = pitch_deg;
+			state.roll_deg = roll_deg;
+			state.yawRate_degPerSec = yawRate_degPerSec;
+			state.pitchRate_degPerSec = pitchRate_degPerSec;
+			state.rollRate_degPerSec = rollRate_degPerSec;
+			state.accelX_g = accelX_g;
+			state.accelY_g = accelY_g;
+			state.accelZ_g = accelZ_g;
+
+			// keep the reads above from moving down past the second sequence read
+			VarHandle.loadLoadFence();
+			if (sequence == before) {
+				return state.sequence > 0;
+			}
+		}
+	}
+}
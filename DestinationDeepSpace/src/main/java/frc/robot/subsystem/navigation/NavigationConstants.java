@@ -11,4 +11,6 @@ package frc.robot.subsystem.navigation;
  * Add your docs here.
  */
 public class NavigationConstants {
+	// samples kept in the pose history, about 2.5 seconds of odometry at 100 Hz
+	public static final int POSE_HISTORY_SIZE = 256;
 }
@@ -9,8 +9,11 @@ package frc.robot.subsystem.navigation;
 
 import com.kauailabs.navx.frc.AHRS;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.utils.sensors.SensorSnapshot;
+import frc.robot.utils.telemetry.TelemetryChannel;
 
 /**
  * Add your docs here.
@@ -34,18 +37,41 @@ public class NavigationSubsystem extends BitBucketSubsystem {
 
 	private AHRS ahrs;
 
-	// TODO: provide an accessor that fetches the most current state (6-DOF)
-	// and returns it in a structure for reference; this allows consumer
-	// to fetch the best available state, at the same time the periodic
-	// loop can be keeping a limited history to allow image sensor data
-	// to be correlated to past position and angle data; this history
-	// would be interpolated if there is sufficient time synchronization
-	// between this Robot code and the image data.
+	// every navX update, as it arrives
+	private final NavStateSampler navStateSampler = new NavStateSampler();
+	private final NavState navState = new NavState();
+
+	// Latest pose from the drive Odometry, replaced (never changed) every tick
+	private volatile Pose pose = Pose.ORIGIN;
+
+	// Where the robot has been, so image data can be matched up with the
+	// position and angle the robot had when the camera took the picture.
+	// Every Odometry pose goes in, and nothing else, so it's one source throughout.
+	private final PoseHistory poseHistory = new PoseHistory(NavigationConstants.POSE_HISTORY_SIZE);
+	private final PoseHistory.Sample pastPose = new PoseHistory.Sample();
+
+	private TelemetryChannel xChannel;
+	private TelemetryChannel yChannel;
+	private TelemetryChannel headingChannel;
+	private TelemetryChannel pitchChannel;
+	private TelemetryChannel rollChannel;
+	private TelemetryChannel navXSamplesChannel;
 
 	@Override
 	public void initialize() {
 		initializeBaseDashboard();
 		ahrs = BitBucketsAHRS.instance();
+		SensorSnapshot.instance().trackNavX(ahrs);
+		if (!ahrs.registerCallback(navStateSampler, null)) {
+			DriverStation.reportWarning("Can't get navX updates, NavState won't be available", false);
+		}
+
+		xChannel = telemetry.channel("X (in)");
+		yChannel = telemetry.channel("Y (in)");
+		headingChannel = telemetry.channel("Heading (deg)");
+		pitchChannel = telemetry.channel("Pitch (deg)");
+		rollChannel = telemetry.channel("Roll (deg)");
+		navXSamplesChannel = telemetry.channel("NavX Samples");
 	}
 
   	@Override
@@ -72,12 +98,19 @@ public class NavigationSubsystem extends BitBucketSubsystem {
 	}
 
 	@Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
 		clearDiagnosticsEnabled();		
 		updateBaseDashboard();
 		if (getTelemetryEnabled())
 		{
-			
+			Pose pose = getPose();
+			xChannel.set(pose.getX_inches());
+			yChannel.set(pose.getY_inches());
+			headingChannel.set(Math.toDegrees(pose.getHeading_rad()));
+			getNavState(navState);
+			pitchChannel.set(navState.getPitch_deg());
+			rollChannel.set(navState.getRoll_deg());
+			navXSamplesChannel.set(navState.getSequence());
 		}
 		if (getDiagnosticsEnabled())
 		{
@@ -93,6 +126,50 @@ public class NavigationSubsystem extends BitBucketSubsystem {
 		
 	}
 
+	/**
+	 * Copy the latest navX sample into state. Works from any thread, doesn't
+	 * lock or allocate; keep a NavState around and reuse it.
+	 *
+	 * @return false if there hasn't been a navX update yet
+	 */
+	public boolean getNavState(NavState state) {
+		return navStateSampler.read(state);
+	}
+
+	/**
+	 * Odometry hands over each new pose here, from its own thread
+	 */
+	public void publishPose(Pose pose) {
+		this.pose = pose;
+		poseHistory.add(pose);
+	}
+
+	/**
+	 * Where the robot is, as of the last odometry tick. Safe from any thread.
+	 */
+	public Pose getPose() {
+		return pose;
+	}
+
+	public PoseHistory getPoseHistory() {
+		return poseHistory;
+	}
+
+	/**
+	 * How far the robot has turned (clockwise positive) since a time in the past,
+	 * ex. when a camera frame was taken. 0 if there's no history yet.
+	 * Compares against the latest pose, the same source as the history.
+	 * Main loop only, it shares a Sample.
+	 */
+	public double getYawChangeSince_deg(double timestamp_sec) {
+		if (!poseHistory.get(timestamp_sec, pastPose)) {
+			return 0.0;
+		}
+		return PoseHistory.wrap_deg(pose.getYaw_deg() - pastPose.yaw_deg);
+	}
+
+	// These read the navX right now; code in the main loop should use
+	// SensorSnapshot.instance().getYaw_deg() so it matches everything else this loop
 	public double getYaw_deg() {
 		return ahrs.getYaw();
 	}
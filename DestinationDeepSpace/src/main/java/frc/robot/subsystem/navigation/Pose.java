@@ -0,0 +1,82 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.navigation;
+
+/**
+ * Where the robot is on the field at one moment. Never changes once made,
+ * so it can be handed between threads without locking.
+ *
+ * x is forward and y is left of where the robot was when odometry started
+ * (or was last reset), and heading is counter-clockwise positive radians
+ * from the navX's zero. Heading keeps counting past a full turn, use
+ * getYaw_deg() for the navX style angle.
+ */
+public final class Pose {
+
+	public static final Pose ORIGIN = new Pose(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+	private final double timestamp_sec;
+	private final double x_inches;
+	private final double y_inches;
+	private final double heading_rad;
+	private final double speed_ips;
+	private final double turnRate_radps;
+
+	public Pose(double timestamp_sec, double x_inches, double y_inches, double heading_rad,
+	            double speed_ips, double turnRate_radps) {
+		this.timestamp_sec = timestamp_sec;
+		this.x_inches = x_inches;
+		this.y_inches = y_inches;
+		this.heading_rad = heading_rad;
+		this.speed_ips = speed_ips;
+		this.turnRate_radps = turnRate_radps;
+	}
+
+	/**
+	 * FPGA time the sensors were read
+	 */
+	public double getTimestamp_sec() {
+		return timestamp_sec;
+	}
+
+	public double getX_inches() {
+		return x_inches;
+	}
+
+	public double getY_inches() {
+		return y_inches;
+	}
+
+	public double getHeading_rad() {
+		return heading_rad;
+	}
+
+	/**
+	 * Heading like the navX reports it, clockwise positive degrees in [-180, 180]
+	 */
+	public double getYaw_deg() {
+		return PoseHistory.wrap_deg(-Math.toDegrees(heading_rad));
+	}
+
+	public double getSpeed_ips() {
+		return speed_ips;
+	}
+
+	/**
+	 * Counter-clockwise positive
+	 */
+	public double getTurnRate_radps() {
+		return turnRate_radps;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Pose(%.3f s: %.1f in, %.1f in, %.1f deg)",
+		                     timestamp_sec, x_inches, y_inches, Math.toDegrees(heading_rad));
+	}
+}
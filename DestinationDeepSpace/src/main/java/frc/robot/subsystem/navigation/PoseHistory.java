@@ -0,0 +1,179 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.navigation;
+
+/**
+ * The last few seconds of where the robot was, so things measured in the
+ * past (ex. a camera frame that took 100 ms to process) can be matched up
+ * with where the robot was when they were measured.
+ *
+ * Poses are stored in plain arrays used as a ring, oldest get written over.
+ * Looking up a time is a binary search, and poses between two samples are
+ * interpolated. Lookups fill in a Sample the caller keeps, so nothing is
+ * allocated once it's running.
+ *
+ * NavigationSubsystem fills it with every Odometry Pose (add(Pose)).
+ *
+ * Yaw is navX yaw, clockwise positive degrees in [-180, 180].
+ */
+public class PoseHistory {
+
+	/**
+	 * One pose, filled in by get()
+	 */
+	public static class Sample {
+		public double timestamp_sec;
+		public double x_inches;
+		public double y_inches;
+		public double yaw_deg;
+		public double yawRate_degPerSec;
+	}
+
+	private final double[] timestamp_sec;
+	private final double[] x_inches;
+	private final double[] y_inches;
+	private final double[] yaw_deg;
+	private final double[] yawRate_degPerSec;
+
+	// index of the oldest sample, and how many there are
+	private int head;
+	private int size;
+
+	public PoseHistory(int capacity) {
+		timestamp_sec = new double[capacity];
+		x_inches = new double[capacity];
+		y_inches = new double[capacity];
+		yaw_deg = new double[capacity];
+		yawRate_degPerSec = new double[capacity];
+	}
+
+	/**
+	 * Add the newest Odometry pose
+	 */
+	public void add(Pose pose) {
+		add(pose.getTimestamp_sec(), pose.getX_inches(), pose.getY_inches(),
+		    pose.getYaw_deg(), -Math.toDegrees(pose.getTurnRate_radps()));
+	}
+
+	/**
+	 * Add the newest pose. Times have to go forward, older ones are ignored.
+	 */
+	public synchronized void add(double timestamp_sec, double x_inches, double y_inches,
+	                             double yaw_deg, double yawRate_degPerSec) {
+		if (size > 0 && timestamp_sec <= this.timestamp_sec[index(size - 1)]) {
+			return;
+		}
+
+		int i;
+		if (size < this.timestamp_sec.length) {
+			i = index(size);
+			size++;
+		}
+		else {
+			i = head;
+			head = index(1);
+		}
+		this.timestamp_sec[i] = timestamp_sec;
+		this.x_inches[i] = x_inches;
+		this.y_inches[i] = y_inches;
+		this.yaw_deg[i] = yaw_deg;
+		this.yawRate_degPerSec[i] = yawRate_degPerSec;
+	}
+
+	/**
+	 * Where the robot was at a time, interpolated between the samples on either
+	 * side. Times before the oldest sample or after the newest get that sample.
+	 *
+	 * @return false if there's nothing in the history yet
+	 */
+	public synchronized boolean get(double time_sec, Sample sample) {
+		if (size == 0) {
+			return false;
+		}
+
+		// first sample at or after time_sec
+		int low = 0;
+		int high = size - 1;
+		if (time_sec >= timestamp_sec[index(high)]) {
+			copy(index(high), sample);
+			return true;
+		}
+		if (time_sec <= timestamp_sec[index(low)]) {
+			copy(index(low), sample);
+			return true;
+		}
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timestamp_sec[index(middle)] < time_sec) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+
+		int after = index(low);
+		int before = index(low - 1);
+		double fraction = (time_sec - timestamp_sec[before]) / (timestamp_sec[after] - timestamp_sec[before]);
+
+		sample.timestamp_sec = time_sec;
+		sample.x_inches = x_inches[before] + fraction * (x_inches[after] - x_inches[before]);
+		sample.y_inches = y_inches[before] + fraction * (y_inches[after] - y_inches[before]);
+		// the short way around, so 179 -> -179 goes through 180 and not 0
+		sample.yaw_deg = wrap_deg(yaw_deg[before] + fraction * wrap_deg(yaw_deg[after] - yaw_deg[before]));
+		sample.yawRate_degPerSec = yawRate_degPerSec[before] +
+		                           fraction * (yawRate_degPerSec[after] - yawRate_degPerSec[before]);
+		return true;
+	}
+
+	/**
+	 * The newest pose
+	 *
+	 * @return false if there's nothing in the history yet
+	 */
+	public synchronized boolean getLatest(Sample sample) {
+		if (size == 0) {
+			return false;
+		}
+		copy(index(size - 1), sample);
+		return true;
+	}
+
+	public synchronized void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return timestamp_sec.length;
+	}
+
+	/**
+	 * An angle in [-180, 180]
+	 */
+	public static double wrap_deg(double angle_deg) {
+		return Math.IEEEremainder(angle_deg, 360.0);
+	}
+
+	// i-th oldest sample
+	private int index(int i) {
+		return (head + i) % timestamp_sec.length;
+	}
+
+	private void copy(int i, Sample sample) {
+		sample.timestamp_sec = timestamp_sec[i];
+		sample.x_inches = x_inches[i];
+		sample.y_inches = y_inches[i];
+		sample.yaw_deg = yaw_deg[i];
+		sample.yawRate_degPerSec = yawRate_degPerSec[i];
+	}
+}
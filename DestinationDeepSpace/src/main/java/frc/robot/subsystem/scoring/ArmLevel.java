@@ -4,10 +4,10 @@ import frc.robot.operatorinterface.OI;
 import frc.robot.utils.CommandUtils;
 import frc.robot.subsystem.climber.ClimberSubsystem;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
-public class ArmLevel extends Command {
+public class ArmLevel extends BitBucketCommand {
     private static OI oi = OI.instance();
     private static ScoringSubsystem scoringSubsystem = ScoringSubsystem.instance();
     private static ClimberSubsystem climberSubsystem = ClimberSubsystem.instance();
@@ -29,7 +29,7 @@ public class ArmLevel extends Command {
 
 
     @Override
-    protected void initialize() {
+    protected void commandInitialize() {
         System.out.println(this.getClass().getName() + " " + LEVEL.toString() + " START " + System.currentTimeMillis()/1000);
 
         scoringSubsystem.goToLevel(LEVEL);
@@ -38,7 +38,7 @@ public class ArmLevel extends Command {
 
 
     @Override
-    protected boolean isFinished() {
+    protected boolean commandIsFinished() {
         boolean forceIdle = oi.operatorIdle() || 
                             scoringSubsystem.exceededCurrentLimit();
 
@@ -4,9 +4,9 @@ import frc.robot.operatorinterface.OI;
 import frc.robot.utils.CommandUtils;
 import frc.robot.subsystem.climber.ClimberSubsystem;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 
-public class Idle extends Command {
+public class Idle extends BitBucketCommand {
     private static OI oi = OI.instance();
     private static ClimberSubsystem climberSubsystem = ClimberSubsystem.instance();
     private static ScoringSubsystem scoringSubsystem = ScoringSubsystem.instance();
@@ -17,13 +17,13 @@ public class Idle extends Command {
     }
 
     @Override
-    protected void initialize() {
+    protected void commandInitialize() {
         System.out.println(this.getClass().getName() + " SCORING START" + " " + System.currentTimeMillis()/1000);
         scoringSubsystem.disable();
     }
 
     @Override
-    protected boolean isFinished() {
+    protected boolean commandIsFinished() {
         boolean forceIdle = oi.operatorIdle();
 
         if (forceIdle) {
@@ -4,10 +4,10 @@ import frc.robot.operatorinterface.OI;
 import frc.robot.utils.CommandUtils;
 import frc.robot.subsystem.climber.ClimberSubsystem;
 
-import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.subsystem.BitBucketCommand;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
-public class OrientationSwitch extends Command {
+public class OrientationSwitch extends BitBucketCommand {
     private static OI oi = OI.instance();
     private static ScoringSubsystem scoringSubsystem = ScoringSubsystem.instance();
     private static ClimberSubsystem climberSubsystem = ClimberSubsystem.instance();
@@ -26,7 +26,7 @@ public class OrientationSwitch extends Command {
 
 
     @Override
-    protected void initialize() {
+    protected void commandInitialize() {
         System.out.println(this.getClass().getName() + " START " + System.currentTimeMillis()/1000);
 
         scoringSubsystem.switchOrientation();
@@ -35,7 +35,7 @@ public class OrientationSwitch extends Command {
 
 
     @Override
-    protected boolean isFinished() {
+    protected boolean commandIsFinished() {
 
         boolean forceIdle = oi.operatorIdle() || 
                             scoringSubsystem.exceededCurrentLimit();
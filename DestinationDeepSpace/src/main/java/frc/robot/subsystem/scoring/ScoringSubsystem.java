@@ -12,10 +12,19 @@ import frc.robot.operatorinterface.OI;
 import frc.robot.subsystem.BitBucketSubsystem;
 import frc.robot.subsystem.scoring.ScoringConstants.BeakPosition;
 import frc.robot.subsystem.vision.VisionSubsystem;
+import frc.robot.utils.DeferredWorkQueue;
+import frc.robot.utils.sensors.SensorSnapshot;
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryFrame;
+import frc.robot.utils.talonutils.StatusFrameScheduler;
+import frc.robot.utils.talonutils.TalonConfigCache;
+import frc.robot.utils.talonutils.TalonInitializer;
 import frc.robot.utils.talonutils.TalonUtils;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
+import com.ctre.phoenix.ErrorCode;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 import com.ctre.phoenix.motorcontrol.ControlMode;
@@ -49,6 +58,39 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 	private final WPI_TalonSRX armMotor1;
 	private final WPI_TalonSRX armMotor2;
 	private final WPI_TalonSRX beakMotor;
+	// This loop's readings from the motors, see SensorSnapshot
+	private final SensorSnapshot.Talon arm1Sensors;
+	private final SensorSnapshot.Talon arm2Sensors;
+	private final SensorSnapshot.Talon beakSensors;
+
+	// Every loop's readings in one NetworkTables write, see TelemetryFrame
+	private TelemetryFrame frame;
+	private int frameArmTicks;
+	private int frameArmError;
+	private int frameArm1Current;
+	private int frameArm2Current;
+	private int frameFrontLimit;
+	private int frameBackLimit;
+	private int frameBeakTicks;
+	private int frameBeakError;
+	private int frameBeakCurrent;
+
+	// Dashboard values, made in initialize()
+	private TelemetryChannel frontLimitChannel;
+	private TelemetryChannel backLimitChannel;
+	private TelemetryChannel armFrontChannel;
+	private TelemetryChannel armAngleChannel;
+	private TelemetryChannel armTicksChannel;
+	private TelemetryChannel armErrorChannel;
+	private TelemetryChannel arm1CurrentChannel;
+	private TelemetryChannel arm2CurrentChannel;
+	private TelemetryChannel armTotalCurrentChannel;
+	private TelemetryChannel beakTicksChannel;
+	private TelemetryChannel beakErrorChannel;
+	private TelemetryChannel beakCurrentChannel;
+
+	// sends the extended telemetry after the control work is done
+	private DeferredWorkQueue.Task telemetryTask;
 	private double armMotor1Current_amps = 0;
 	private double armMotor2Current_amps = 0;
 
@@ -76,82 +118,118 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 		armMotor2   = new WPI_TalonSRX(MotorId.ARM_MOTOR2_ID);
 		beakMotor   = new WPI_TalonSRX(MotorId.BEAK_MOTOR_ID);
 
+		// Status frame rates are managed centrally to keep CAN bus load down
+		StatusFrameScheduler.instance().register(rollerMotor);
+		StatusFrameScheduler.instance().register(armMotor1);
+		StatusFrameScheduler.instance().register(armMotor2);
+		StatusFrameScheduler.instance().register(beakMotor);
+
+		// Read once a loop
+		arm1Sensors = SensorSnapshot.instance().track(armMotor1, SensorSnapshot.POSITION |
+		                                                         SensorSnapshot.CLOSED_LOOP_ERROR |
+		                                                         SensorSnapshot.CURRENT |
+		                                                         SensorSnapshot.LIMIT_SWITCHES);
+		arm2Sensors = SensorSnapshot.instance().track(armMotor2, SensorSnapshot.CURRENT);
+		beakSensors = SensorSnapshot.instance().track(beakMotor, SensorSnapshot.POSITION |
+		                                                         SensorSnapshot.CLOSED_LOOP_ERROR |
+		                                                         SensorSnapshot.CURRENT);
+
+		// Configured in the background with everything else, robotInit waits for it
 		// initialize motors before setting sensor positions and follower modes
 		// otherwise, it may clear those settings
-		TalonUtils.initializeMotorDefaults(rollerMotor);
-		TalonUtils.initializeMotorDefaults(armMotor1);
-		TalonUtils.initializeMotorDefaults(armMotor2);
-		TalonUtils.initializeMotorDefaults(beakMotor);
-
-		rollerMotor.setInverted(ScoringConstants.ROLLER_MOTOR_INVERSION);
-		armMotor1.setInverted(ScoringConstants.ARM_MOTOR_INVERSION);
-		armMotor2.setInverted(ScoringConstants.ARM_MOTOR_INVERSION);
-		beakMotor.setInverted(ScoringConstants.BEAK_MOTOR_INVERSION);
-
-		armMotor1.setSensorPhase(ScoringConstants.ARM_MOTOR_SENSOR_PHASE);
-		beakMotor.setSensorPhase(ScoringConstants.BEAK_MOTOR_SENSOR_PHASE);
-
-		armMotor1.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, LimitSwitchNormal.NormallyOpen,0);
-		armMotor1.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector,LimitSwitchNormal.NormallyOpen,0);
-		
-		armMotor1.overrideLimitSwitchesEnable(true);
-
-		armMotor1.setNeutralMode(NeutralMode.Brake);
-		beakMotor.setNeutralMode(NeutralMode.Brake);
-
-
-		TalonUtils.initializeMotorFPID(armMotor1, 
+		TalonInitializer.instance().device(getName() + " Roller", rollerMotor)
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(rollerMotor))
+			.run("inversion", () -> rollerMotor.setInverted(ScoringConstants.ROLLER_MOTOR_INVERSION))
+			.start();
+
+		TalonInitializer.instance().device(getName() + " Arm 1", armMotor1)
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(armMotor1))
+			.run("setup", () -> {
+				armMotor1.setInverted(ScoringConstants.ARM_MOTOR_INVERSION);
+				armMotor1.setSensorPhase(ScoringConstants.ARM_MOTOR_SENSOR_PHASE);
+			})
+			.step("forward limit switch", () -> armMotor1.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, LimitSwitchNormal.NormallyOpen,0))
+			.step("reverse limit switch", () -> armMotor1.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector,LimitSwitchNormal.NormallyOpen,0))
+			.run("brake", () -> {
+				armMotor1.overrideLimitSwitchesEnable(true);
+				armMotor1.setNeutralMode(NeutralMode.Brake);
+			})
+			.step("gains", () -> TalonUtils.initializeMotorFPID(armMotor1, 
 							ScoringConstants.ARM_MOTION_MAGIC_KF, 
 							ScoringConstants.ARM_MOTION_MAGIC_KP, 
 							ScoringConstants.ARM_MOTION_MAGIC_KI, 
 							ScoringConstants.ARM_MOTION_MAGIC_KD, 
-							ScoringConstants.ARM_MOTION_MAGIC_IZONE);
-		
-		TalonUtils.initializeMotorFPID(beakMotor, 
+							ScoringConstants.ARM_MOTION_MAGIC_IZONE))
+			// TODO: Configure armMotor1 to use initializeMagEncoderRelativeMotor
+			.step("encoder", () -> TalonUtils.initializeMagEncoderRelativeMotor(armMotor1, 1))
+			// Acceleration is the slope of the velocity profile used for motion magic
+			// Example: 250 tick/100ms/s is 2500 ticks/s/s
+			.step("acceleration", () -> TalonConfigCache.of(armMotor1).configMotionAcceleration(ScoringConstants.ARM_ACCELERATION_TICKS_PER_100MS_PER_SEC))
+			.step("cruise velocity", () -> TalonConfigCache.of(armMotor1).configMotionCruiseVelocity(ScoringConstants.ARM_CRUISE_SPEED_TICKS_PER_100MS))
+			.run("stop", () -> armMotor1.set(ControlMode.PercentOutput, 0))
+			.step("position", this::initializeArmPosition)
+			.start();
+
+		TalonInitializer.instance().device(getName() + " Arm 2", armMotor2)
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(armMotor2))
+			.run("setup", () -> {
+				armMotor2.setInverted(ScoringConstants.ARM_MOTOR_INVERSION);
+				armMotor2.follow(armMotor1);
+			})
+			.start();
+
+		TalonInitializer.instance().device(getName() + " Beak", beakMotor)
+			.step("factory default", () -> TalonUtils.initializeMotorDefaults(beakMotor))
+			.run("setup", () -> {
+				beakMotor.setInverted(ScoringConstants.BEAK_MOTOR_INVERSION);
+				beakMotor.setSensorPhase(ScoringConstants.BEAK_MOTOR_SENSOR_PHASE);
+				beakMotor.setNeutralMode(NeutralMode.Brake);
+			})
+			.step("gains", () -> TalonUtils.initializeMotorFPID(beakMotor, 
 							ScoringConstants.BEAK_MOTION_MAGIC_KF, 
 							ScoringConstants.BEAK_MOTION_MAGIC_KP, 
 							ScoringConstants.BEAK_MOTION_MAGIC_KI, 
 							ScoringConstants.BEAK_MOTION_MAGIC_KD, 
-							ScoringConstants.BEAK_MOTION_MAGIC_IZONE);
-
-		// TODO: Configure armMotor1 to use initializeMagEncoderRelativeMotor
-		TalonUtils.initializeMagEncoderRelativeMotor(armMotor1, 1);
-		TalonUtils.initializeQuadEncoderMotor(beakMotor, 1);
-
-
-		armMotor2.follow(armMotor1);
-
-		
-		
-		// Acceleration is the slope of the velocity profile used for motion magic
-		// Example: 250 tick/100ms/s is 2500 ticks/s/s
-		armMotor1.configMotionAcceleration(ScoringConstants.ARM_ACCELERATION_TICKS_PER_100MS_PER_SEC, 20);
-		armMotor1.configMotionCruiseVelocity(ScoringConstants.ARM_CRUISE_SPEED_TICKS_PER_100MS, 20);
-
-		beakMotor.configMotionAcceleration(ScoringConstants.BEAK_ACCELERATION_TICKS_PER_100MS_PER_SEC, 20);
-		beakMotor.configMotionCruiseVelocity(ScoringConstants.BEAK_CRUISE_SPEED_TICKS_PER_100MS, 20);
-		
-
-
-		setAllMotorsZero();
-
+							ScoringConstants.BEAK_MOTION_MAGIC_IZONE))
+			.step("encoder", () -> TalonUtils.initializeQuadEncoderMotor(beakMotor, 1))
+			.step("acceleration", () -> TalonConfigCache.of(beakMotor).configMotionAcceleration(ScoringConstants.BEAK_ACCELERATION_TICKS_PER_100MS_PER_SEC))
+			.step("cruise velocity", () -> TalonConfigCache.of(beakMotor).configMotionCruiseVelocity(ScoringConstants.BEAK_CRUISE_SPEED_TICKS_PER_100MS))
+			.run("stop", () -> beakMotor.set(ControlMode.PercentOutput, 0))
+			// The beak is normally at rest during initialization, this makes sure the motor knows that.
+			.step("position", () -> beakMotor.setSelectedSensorPosition(0))
+			.start();
+	}
 
 
+	// longest to wait for the arm's new position to show up after setting it
+	private static final double ARM_POSITION_WAIT_SEC = 0.5;
 
+	/**
+	 * Tell the arm's relative encoder where it is from the absolute position,
+	 * then wrap it to -180 to 180 degrees. Runs as the arm's last initialization step.
+	 */
+	private ErrorCode initializeArmPosition() {
 		// TODO:
 		// NOTE: It may need to be biased based on where the shaft was set when assembled
 		int abs_ticks = armMotor1.getSensorCollection().getPulseWidthPosition() & 0xFFF;
 		// set the ticks of relative magnetic encoder
 		// effectively telling the encoder where 0 is
-		armMotor1.setSelectedSensorPosition(abs_ticks - ScoringConstants.ARM_BIAS_TICKS);
-		beakMotor.setSelectedSensorPosition(0); // The beak is normally at rest during initialization, this makes sure the motor knows that.
-
+		int start_ticks = abs_ticks - ScoringConstants.ARM_BIAS_TICKS;
+		ErrorCode error = armMotor1.setSelectedSensorPosition(start_ticks);
+		if (error != ErrorCode.OK) {
+			return error;
+		}
 
+		// wait until the new position comes back in a status frame instead of
+		// always sleeping; the old reading is still there until then
+		double start_sec = Timer.getFPGATimestamp();
+		while (armMotor1.getSelectedSensorPosition() != start_ticks &&
+		       Timer.getFPGATimestamp() - start_sec < ARM_POSITION_WAIT_SEC) {
+			Timer.delay(0.005);
+		}
 
-		try {
-			Thread.sleep(500);
-		} catch (InterruptedException e) {}
-		double angle = getAngle_deg();
+		// runs before the first snapshot, so read the Talon directly
+		double angle = ticksToAngle_deg(armMotor1.getSelectedSensorPosition());
 		if (angle <= -180) {
 			angle += 360;
 		}
@@ -159,6 +237,7 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 			angle -= 360;
 		}
 		setAngle_deg(angle);
+		return ErrorCode.OK;
 	}
 
 
@@ -341,7 +420,7 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 
 
 	public int getArmLevelTickError() {
-		int err1 = Math.abs(armMotor1.getClosedLoopError());
+		int err1 = Math.abs(arm1Sensors.getClosedLoopError_ticks());
 
 		// Always output this
 		//SmartDashboard.putNumber(getName() + "/ArmLevelError (ticks)", err1);
@@ -400,8 +479,10 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 
 	/** Get angle from normal of scoring arm (-90 deg = exactly forward, +90 is backward) */
 	public double getAngle_deg() {
-		int ticks = armMotor1.getSelectedSensorPosition();
+		return ticksToAngle_deg(arm1Sensors.getPosition_ticks());
+	}
 
+	private static double ticksToAngle_deg(int ticks) {
 		return 360.0 * (double)ticks / (double)ScoringConstants.ARM_MOTOR_NATIVE_TICKS_PER_REV;
 	}
 
@@ -437,8 +518,8 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 	private static int currentLimitCount = 0;
 	public boolean exceededCurrentLimit()
 	{
-		armMotor1Current_amps = armMotor1.getOutputCurrent();
-		armMotor2Current_amps = armMotor2.getOutputCurrent();
+		armMotor1Current_amps = arm1Sensors.getOutputCurrent_amps();
+		armMotor2Current_amps = arm2Sensors.getOutputCurrent_amps();
 
 		boolean currentLimit = (armMotor1Current_amps >= ScoringConstants.MAX_ARM_MOTOR_CURRENT_AMPS) ||
 							   (armMotor2Current_amps >= ScoringConstants.MAX_ARM_MOTOR_CURRENT_AMPS);
@@ -452,8 +533,8 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 
 	public boolean frontLimit()
 	{
-		boolean result = armMotor1.getSensorCollection().isRevLimitSwitchClosed();
-		SmartDashboard.putBoolean(getName()+"/Arm Front Limit", result);
+		boolean result = arm1Sensors.isRevLimitSwitchClosed();
+		frontLimitChannel.set(result);
 
 		if (result) {
 			setAngle_deg(ScoringConstants.FRONT_LIMIT_ANGLE);
@@ -463,8 +544,8 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 	}
 	public boolean backLimit()
 	{
-		boolean result = armMotor1.getSensorCollection().isFwdLimitSwitchClosed();
-		SmartDashboard.putBoolean(getName()+"/Arm Back Limit", result);
+		boolean result = arm1Sensors.isFwdLimitSwitchClosed();
+		backLimitChannel.set(result);
 
 		if (result) {
 			setAngle_deg(ScoringConstants.BACK_LIMIT_ANGLE);
@@ -474,7 +555,7 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 	}
 
 	@Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
 		
 		if (exceededCurrentLimit())
 		{
@@ -583,22 +664,38 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 		
 		clearDiagnosticsEnabled();
 		updateBaseDashboard();
-		SmartDashboard.putBoolean(getName()+ "/Arm FRONT", !back);
-		SmartDashboard.putNumber(getName() + "/Arm Angle", getAngle_deg());
-		if (getTelemetryEnabled()) {
-			SmartDashboard.putNumber(getName() + "/Arm Ticks", armMotor1.getSelectedSensorPosition());
-			SmartDashboard.putNumber(getName() + "/Arm Error", armMotor1.getClosedLoopError());
-			SmartDashboard.putNumber(getName() + "/Arm Motor 0 Current", armMotor1Current_amps);
-			SmartDashboard.putNumber(getName() + "/Arm Motor 1 Current", armMotor2Current_amps);
-			SmartDashboard.putNumber(getName() + "/Arm Motor TOTAL Current", armMotor1Current_amps+armMotor2Current_amps);
-			SmartDashboard.putNumber(getName() + "/Beak Ticks", beakMotor.getSelectedSensorPosition());     // Log the beak motor rotation in ticks.
-			SmartDashboard.putNumber(getName() + "/Beak Error", beakMotor.getClosedLoopError());            // Log the beak motor error in ticks.
-			SmartDashboard.putNumber(getName() + "/Beak Motor Current", beakMotor.getOutputCurrent());      // Log the beak output current in amps.
 
+		frame.set(frameArmTicks,    arm1Sensors.getPosition_ticks());
+		frame.set(frameArmError,    arm1Sensors.getClosedLoopError_ticks());
+		frame.set(frameArm1Current, armMotor1Current_amps);
+		frame.set(frameArm2Current, armMotor2Current_amps);
+		frame.set(frameFrontLimit,  arm1Sensors.isRevLimitSwitchClosed());
+		frame.set(frameBackLimit,   arm1Sensors.isFwdLimitSwitchClosed());
+		frame.set(frameBeakTicks,   beakSensors.getPosition_ticks());
+		frame.set(frameBeakError,   beakSensors.getClosedLoopError_ticks());
+		frame.set(frameBeakCurrent, beakSensors.getOutputCurrent_amps());
+		frame.publish(SensorSnapshot.instance().getTimestamp_sec());
+
+		armFrontChannel.set(!back);
+		armAngleChannel.set(getAngle_deg());
+		if (getTelemetryEnabled()) {
+			telemetryTask.request();
 		}
 		// commands will handle dealing with arm manipulation
 	}
 
+	// Extended telemetry, run from the DeferredWorkQueue when there's time
+	private void updateTelemetry() {
+		armTicksChannel.set(arm1Sensors.getPosition_ticks());
+		armErrorChannel.set(arm1Sensors.getClosedLoopError_ticks());
+		arm1CurrentChannel.set(armMotor1Current_amps);
+		arm2CurrentChannel.set(armMotor2Current_amps);
+		armTotalCurrentChannel.set(armMotor1Current_amps+armMotor2Current_amps);
+		beakTicksChannel.set(beakSensors.getPosition_ticks());           // Log the beak motor rotation in ticks.
+		beakErrorChannel.set(beakSensors.getClosedLoopError_ticks());    // Log the beak motor error in ticks.
+		beakCurrentChannel.set(beakSensors.getOutputCurrent_amps());     // Log the beak output current in amps.
+	}
+
 	@Override
 	public void diagnosticsInitialize() {
 	}
@@ -623,6 +720,34 @@ public class ScoringSubsystem extends BitBucketSubsystem {
 	public void initialize() {
 		initializeBaseDashboard();
 
+		frame = new TelemetryFrame(getName());
+		frameArmTicks    = frame.addField("Arm Ticks");
+		frameArmError    = frame.addField("Arm Error (ticks)");
+		frameArm1Current = frame.addField("Arm Motor 1 Current (amps)");
+		frameArm2Current = frame.addField("Arm Motor 2 Current (amps)");
+		frameFrontLimit  = frame.addField("Arm Front Limit");
+		frameBackLimit   = frame.addField("Arm Back Limit");
+		frameBeakTicks   = frame.addField("Beak Ticks");
+		frameBeakError   = frame.addField("Beak Error (ticks)");
+		frameBeakCurrent = frame.addField("Beak Current (amps)");
+
+		frontLimitChannel = baseTelemetry.channel("Arm Front Limit");
+		backLimitChannel = baseTelemetry.channel("Arm Back Limit");
+		armFrontChannel = baseTelemetry.channel("Arm FRONT");
+		armAngleChannel = baseTelemetry.channel("Arm Angle");
+		armTicksChannel = telemetry.channel("Arm Ticks");
+		armErrorChannel = telemetry.channel("Arm Error");
+		arm1CurrentChannel = telemetry.channel("Arm Motor 0 Current");
+		arm2CurrentChannel = telemetry.channel("Arm Motor 1 Current");
+		armTotalCurrentChannel = telemetry.channel("Arm Motor TOTAL Current");
+		beakTicksChannel = telemetry.channel("Beak Ticks");
+		beakErrorChannel = telemetry.channel("Beak Error");
+		beakCurrentChannel = telemetry.channel("Beak Motor Current");
+
+		telemetryTask = DeferredWorkQueue.instance().task(getName() + " Telemetry",
+		                                                  DeferredWorkQueue.Priority.NORMAL,
+		                                                  this::updateTelemetry);
+
 		//SmartDashboard.putNumber(getName() + "/Test Angle", 0);
 	}
 
@@ -1,5 +1,6 @@
 package frc.robot.subsystem.vision;
 
+import edu.wpi.first.wpilibj.Timer;
 
 
 public class CameraFeedback {
@@ -7,14 +8,21 @@ public class CameraFeedback {
 	private final double PARALLAX;
 	private final double OFF_AXIS;
 	private final double DISTANCE;
+	// FPGA time the picture was taken
+	private final double TIMESTAMP_SEC;
 	
 	
 	
 	public CameraFeedback(boolean inAutoAssistRegion, double parallax, double offAxis, double distance) {
+		this(inAutoAssistRegion, parallax, offAxis, distance, Timer.getFPGATimestamp());
+	}
+
+	public CameraFeedback(boolean inAutoAssistRegion, double parallax, double offAxis, double distance, double timestamp_sec) {
 		IN_AUTO_ASSIST_REGION = inAutoAssistRegion;
 		PARALLAX = parallax;
 		OFF_AXIS = offAxis;
 		DISTANCE = distance;
+		TIMESTAMP_SEC = timestamp_sec;
 	}
 	
 	
@@ -36,4 +44,20 @@ public class CameraFeedback {
 	public double getDistance() {
 		return DISTANCE;
 	}
+
+	public double getTimestamp_sec() {
+		return TIMESTAMP_SEC;
+	}
+
+	/**
+	 * Where the target would be in the picture now, after the robot turned
+	 * yawChange_deg (clockwise positive) since the picture was taken
+	 */
+	public double getOffAxis(double yawChange_deg) {
+		// offAxis is in [-1, 1] across the picture, which is tan() of the angle, not the angle
+		double halfFov_rad = Math.toRadians(VisionConstants.CAMERA_HORIZONTAL_FOV_DEG / 2.0);
+		double angle_rad = Math.atan(OFF_AXIS * Math.tan(halfFov_rad));
+		// turning right moves the target left in the picture
+		return Math.tan(angle_rad - Math.toRadians(yawChange_deg)) / Math.tan(halfFov_rad);
+	}
 }
@@ -17,4 +17,24 @@ public class VisionConstants {
 
 	public static final int FRONT_CAMERA_ID = 1;
 	public static final int BACK_CAMERA_ID  = 0;
+
+	// time from the camera taking a picture to the targets showing up in
+	// NetworkTables (exposure + processing + network), for BucketVision
+	// versions that don't send packed frames with their own timestamps
+	public static final double CAMERA_LATENCY_SEC = 0.1; // TODO: measure
+	public static final double CAMERA_HORIZONTAL_FOV_DEG = 60.0; // TODO: actual
+
+	// Auto-align corrects the target's position for how far the robot has turned
+	// since the picture was taken (CameraFeedback.getOffAxis(yawChange)). That needs
+	// the two numbers above to be real; they're guesses, so leave this off and
+	// steer on the uncorrected position until they've been measured on the robot.
+	public static final boolean CORRECT_OFF_AXIS_FOR_TURN = false;
+
+	// most targets kept from one camera frame
+	public static final int MAX_TARGETS = 8;
+
+	// the old separate arrays are only used if no packed frame has come for this long
+	public static final double PACKED_FRAME_TIMEOUT_SEC = 1.0;
+	// frames to look for the fastest delivery over, when working out latency
+	public static final int TRANSIT_WINDOW_FRAMES = 100;
 }
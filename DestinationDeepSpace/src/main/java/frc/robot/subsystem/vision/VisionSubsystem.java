@@ -7,15 +7,19 @@
 
 package frc.robot.subsystem.vision;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableValue;
 import edu.wpi.first.wpilibj.DigitalOutput;
+import edu.wpi.first.wpilibj.Timer;
 import frc.robot.subsystem.BitBucketSubsystem;
 import frc.robot.subsystem.lighting.LightingControl;
 import frc.robot.subsystem.lighting.LightingSubsystem;
 import frc.robot.subsystem.lighting.LightingConstants.LightingObjects;
+import frc.robot.utils.telemetry.TelemetryChannel;
 
 /**
  * Add your docs here.
@@ -59,69 +63,197 @@ public class VisionSubsystem extends BitBucketSubsystem {
 	private NetworkTableEntry bvCameraNumber = bvTable.getEntry("CameraNum");
 	private NetworkTableEntry bvExposure = bvTable.getEntry("Exposure");
 
+	// BucketVision's targets, older versions: one array per value.
+	// NetworkTables hands us one connection's changes in the order they were
+	// written, so once the array BucketVision writes last in a frame gets
+	// here the others already have. LAST_TARGET_KEY has to match the order
+	// BucketVision writes them in; if it doesn't, frames from these can still
+	// be a mix of two camera frames (the packed TargetFrame can't be).
+	private static final String DISTANCE_KEY = "distance";
+	private static final String POS_X_KEY = "pos_x";
+	private static final String POS_Y_KEY = "pos_y";
+	private static final String PARALLAX_KEY = "parallax";
+	private static final String LAST_TARGET_KEY = PARALLAX_KEY;
+	private static final double[] NO_TARGETS = new double[0];
+
+	// The arrays so far, on the NetworkTables thread. NetworkTables only
+	// sends values that changed, so ones that didn't keep last frame's.
+	private double[] rxDistance = NO_TARGETS;
+	private double[] rxPosX = NO_TARGETS;
+	private double[] rxPosY = NO_TARGETS;
+	private double[] rxParallax = NO_TARGETS;
+	private double rxLast_sec;
+	// which arrays have changed since the last frame was put together
+	private int rxChanged;
+
+	// Each frame is put together into a VisionTargetFrame when BucketVision
+	// sends it (on the NetworkTables thread), into whichever of these two
+	// isn't the latest, then that one becomes the latest.
+	private final VisionTargetFrame[] targetFrames = { new VisionTargetFrame(), new VisionTargetFrame() };
+	private volatile VisionTargetFrame latestFrame;
+	private volatile long targetFrameCount;
+
+	// packed frames (see VisionTargetFrame), on the NetworkTables thread
+	private double lastPackedArrival_sec = Double.NEGATIVE_INFINITY;
+	private long lastFrameId = -1;
+	// smallest (arrival - send time) lately, the clock difference plus the fastest delivery;
+	// kept over two windows so a clock change on the vision computer gets forgotten
+	private double minTransit_sec = Double.POSITIVE_INFINITY;
+	private double previousMinTransit_sec = Double.POSITIVE_INFINITY;
+	private int transitWindowFrames;
+
+	// stats, for the dashboard
+	private final VisionTargetFrame statsFrame = new VisionTargetFrame();
+	private volatile int partialFrames;
+	private volatile long droppedFrames;
+	private volatile long packedFrames;
+	private volatile double totalLatency_sec;
+	private volatile double maxLatency_sec;
+	private long lastStatsFrames;
+	private long lastStatsPackedFrames;
+	private double lastStatsTotalLatency_sec;
+	private double lastStats_sec;
+	private TelemetryChannel targetFramesChannel;
+	private TelemetryChannel partialFramesChannel;
+	private TelemetryChannel frameAgeChannel;
+	private TelemetryChannel frameRateChannel;
+	private TelemetryChannel droppedFramesChannel;
+	private TelemetryChannel latencyChannel;
+	private TelemetryChannel maxLatencyChannel;
+
+	/**
+	 * Closest target in the latest camera frame, null if none is usable.
+	 * Costs nothing, it was picked out when the frame came in.
+	 */
 	public CameraFeedback getClosestObjectData() {
-		if (bvTable.getEntry("NumTargets").getValue().isDouble())
-		{
-			int numTargets = (int) bvTable.getEntry("NumTargets").getValue().getDouble();
-
-			double[] distance = bvTable.getEntry("distance").getValue().getDoubleArray();
-
-			double[] pos_x = bvTable.getEntry("pos_x").getValue().getDoubleArray();
-			double[] pos_y = bvTable.getEntry("pos_y").getValue().getDoubleArray();
-
-			double[] parallax = bvTable.getEntry("parallax").getValue().getDoubleArray();
+		VisionTargetFrame frame = latestFrame;
+		if (frame == null) {
+			// BucketVision hasn't sent anything
+			return new CameraFeedback(
+				false,
+				0,
+				0,
+				0
+			);
+		}
+		return frame.readClosest();
+	}
 
-			numTargets = Math.min(distance.length,Math.min(pos_x.length,Math.min(pos_y.length,parallax.length))); /// TODO: Temporary
+	/**
+	 * Copy every target in the latest camera frame into frame. Works from any
+	 * thread and doesn't allocate; keep a VisionTargetFrame around and reuse it.
+	 *
+	 * @return false if BucketVision hasn't sent a frame yet
+	 */
+	public boolean getTargetFrame(VisionTargetFrame frame) {
+		VisionTargetFrame latest = latestFrame;
+		return latest != null && latest.copyTo(frame);
+	}
 
-			//SmartDashboard.putNumber(getName() + "/Num Targets",numTargets);        
-			if (numTargets == 0) {
-				return null; // null if no target found (do we want this behavior?)
-			}
+	// on the NetworkTables listener thread, whenever BucketVision changes a value
+	private void targetsChanged(String key, NetworkTableValue value) {
+		// newer BucketVision sends packed frames, ignore the old arrays while it does
+		if (key.equals(VisionTargetFrame.PACKED_KEY) ||
+		    Timer.getFPGATimestamp() - lastPackedArrival_sec < VisionConstants.PACKED_FRAME_TIMEOUT_SEC) {
+			return;
+		}
+		if (!value.isDoubleArray()) {
+			return;
+		}
 
-			int min_index = -1;
-			double min_offAxis = 2 * pos_x[0] - 1; // normalize to [-1, 1] from [0, 1]
-			for (int i = 0; i < numTargets; i++) {
-				double offAxis = 2 * pos_x[i] - 1; // normalize to [-1, 1] from [0, 1]
-
-				if (Math.abs(offAxis) <= Math.abs(min_offAxis)) {
-					if ((pos_y[i] > 0.0) && (pos_y[i] < 1.0))
-					{
-						min_index = i;
-						min_offAxis = offAxis;
-					}
-				}
-			}
+		int bit;
+		switch (key) {
+		case DISTANCE_KEY: bit = 1; break;
+		case POS_X_KEY:    bit = 2; break;
+		case POS_Y_KEY:    bit = 4; break;
+		case PARALLAX_KEY: bit = 8; break;
+		default:
+			return;
+		}
 
-			//SmartDashboard.putNumber(getName() + "/Min Index",min_index);
+		// Same array again before the last one changed: the last one didn't change
+		// that frame, so the frame before this one is all here
+		if ((rxChanged & bit) != 0) {
+			assembleTargetFrame();
+		}
 
-			// If target is not acceptable
-			if (min_index == -1)
-			{
-				return null;
-			}
+		double[] array = value.getDoubleArray();
+		switch (bit) {
+		case 1: rxDistance = array; break;
+		case 2: rxPosX = array; break;
+		case 4: rxPosY = array; break;
+		default: rxParallax = array; break;
+		}
+		rxChanged |= bit;
+		rxLast_sec = Timer.getFPGATimestamp();
 
-			double offAxis = 2 * pos_x[min_index] - 1; // normalize to [-1, 1] from [0, 1]
+		if (key.equals(LAST_TARGET_KEY)) {
+			assembleTargetFrame();
+		}
+	}
 
+	// on the NetworkTables listener thread, once a frame's arrays are all here
+	private void assembleTargetFrame() {
+		rxChanged = 0;
 
+		// all the same length or they can't be from the same frame
+		int n = rxDistance.length;
+		if (rxPosX.length != n || rxPosY.length != n || rxParallax.length != n) {
+			partialFrames++;
+			return;
+		}
 
-			boolean isInAutoAssistRegion = true; // TODO: for now
+		VisionTargetFrame next = (latestFrame == targetFrames[0]) ? targetFrames[1] : targetFrames[0];
+		// BucketVision doesn't send when the picture was taken, so go back by the usual latency
+		next.fill(++targetFrameCount, rxLast_sec - VisionConstants.CAMERA_LATENCY_SEC,
+		          rxDistance, rxPosX, rxPosY, rxParallax);
+		latestFrame = next;
+	}
 
-			return new CameraFeedback(
-				isInAutoAssistRegion,
-				parallax[min_index],
-				offAxis,
-				distance[min_index]
-			);
+	// on the NetworkTables listener thread, when BucketVision sends a packed frame
+	private void packedFrameReceived(NetworkTableValue value) {
+		if (!value.isDoubleArray()) {
+			return;
+		}
+		double arrival_sec = Timer.getFPGATimestamp();
+		double[] packed = value.getDoubleArray();
+		if (!VisionTargetFrame.isValidPacked(packed)) {
+			partialFrames++;
+			return;
 		}
-		else {
+		lastPackedArrival_sec = arrival_sec;
 
-			return new CameraFeedback(
-				false,
-				0,
-				0,
-				0
-			);
+		long frameId = (long) packed[VisionTargetFrame.FRAME_ID];
+		if (frameId == lastFrameId) {
+			return;
+		}
+		if (lastFrameId >= 0 && frameId > lastFrameId + 1) {
+			// frames BucketVision made that never got here (or NetworkTables only sent the newest)
+			droppedFrames += frameId - lastFrameId - 1;
 		}
+		// (a smaller ID means BucketVision restarted, just start counting from there)
+		lastFrameId = frameId;
+
+		// The two clocks aren't synced, so the time on the vision computer is exact
+		// but the time on the network is only known compared to the fastest one lately
+		double processing_sec = packed[VisionTargetFrame.SEND_TIME] - packed[VisionTargetFrame.CAPTURE_TIME];
+		double transit_sec = arrival_sec - packed[VisionTargetFrame.SEND_TIME];
+		minTransit_sec = Math.min(minTransit_sec, transit_sec);
+		if (++transitWindowFrames >= VisionConstants.TRANSIT_WINDOW_FRAMES) {
+			previousMinTransit_sec = minTransit_sec;
+			minTransit_sec = Double.POSITIVE_INFINITY;
+			transitWindowFrames = 0;
+		}
+		double extraTransit_sec = transit_sec - Math.min(minTransit_sec, previousMinTransit_sec);
+		double latency_sec = processing_sec + extraTransit_sec;
+
+		packedFrames++;
+		totalLatency_sec += latency_sec;
+		maxLatency_sec = Math.max(maxLatency_sec, latency_sec);
+
+		VisionTargetFrame next = (latestFrame == targetFrames[0]) ? targetFrames[1] : targetFrames[0];
+		next.fillPacked(++targetFrameCount, arrival_sec - latency_sec, latency_sec, packed);
+		latestFrame = next;
 	}
 
 	@Override
@@ -131,7 +263,7 @@ public class VisionSubsystem extends BitBucketSubsystem {
 	}
 
 	@Override
-	public void periodic() {
+	protected void subsystemPeriodic() {
 		clearDiagnosticsEnabled();		
 		if (ds.isDisabled())
 		{
@@ -145,7 +277,37 @@ public class VisionSubsystem extends BitBucketSubsystem {
 		updateBaseDashboard();	
 		if (getTelemetryEnabled())
 		{
-			
+			updateTargetFrameStats();
+		}
+	}
+
+	private void updateTargetFrameStats()
+	{
+		double now_sec = Timer.getFPGATimestamp();
+		boolean haveFrame = getTargetFrame(statsFrame);
+		long frames = targetFrameCount;
+		long packed = packedFrames;
+		double totalLatency = totalLatency_sec;
+
+		targetFramesChannel.set(frames);
+		partialFramesChannel.set(partialFrames);
+		droppedFramesChannel.set(droppedFrames);
+		frameAgeChannel.set(haveFrame ? 1000.0 * (now_sec - statsFrame.getTimestamp_sec()) : -1.0);
+		maxLatencyChannel.set(1000.0 * maxLatency_sec);
+
+		// rate and average latency since the last time
+		double elapsed_sec = now_sec - lastStats_sec;
+		if (elapsed_sec >= 1.0)
+		{
+			frameRateChannel.set((frames - lastStatsFrames) / elapsed_sec);
+			if (packed > lastStatsPackedFrames)
+			{
+				latencyChannel.set(1000.0 * (totalLatency - lastStatsTotalLatency_sec) / (packed - lastStatsPackedFrames));
+			}
+			lastStatsFrames = frames;
+			lastStatsPackedFrames = packed;
+			lastStatsTotalLatency_sec = totalLatency;
+			lastStats_sec = now_sec;
 		}
 	}
 
@@ -177,6 +339,19 @@ public class VisionSubsystem extends BitBucketSubsystem {
 
 		initializeBaseDashboard();
 
+		targetFramesChannel = telemetry.channel("Target Frames");
+		partialFramesChannel = telemetry.channel("Partial Target Frames");
+		frameAgeChannel = telemetry.channel("Target Frame Age (ms)");
+		frameRateChannel = telemetry.channel("Target Frame Rate (fps)");
+		droppedFramesChannel = telemetry.channel("Dropped Target Frames");
+		latencyChannel = telemetry.channel("Target Latency (ms)");
+		maxLatencyChannel = telemetry.channel("Max Target Latency (ms)");
+		lastStats_sec = Timer.getFPGATimestamp();
+		bvTable.addEntryListener(VisionTargetFrame.PACKED_KEY, (table, key, entry, value, flags) -> packedFrameReceived(value),
+		                         EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+		bvTable.addEntryListener((table, key, entry, value, flags) -> targetsChanged(key, value),
+		                         EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+
 		// Turn on illuminator in a snoring posture
 		bvStateEntry.setString("UNKNOWN");
 		setIlluminatorSnore();
@@ -0,0 +1,278 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.subsystem.vision;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Every target BucketVision found in one camera frame, all from the same
+ * frame. VisionSubsystem fills two of these in on the NetworkTables thread,
+ * taking turns; keep your own and have VisionSubsystem.getTargetFrame()
+ * copy the latest into it.
+ *
+ * The copy uses a sequence lock like NavStateSampler: fill() makes version
+ * odd while it's writing, and copyTo() tries again if version was odd or
+ * changed while it was copying, so a copy is never half of two frames.
+ *
+ * The closest target is picked out when the frame comes in, so
+ * getClosest() costs nothing.
+ *
+ * BucketVision sends each frame packed into one double[] (BucketVision/TargetFrame),
+ * so it all arrives together:
+ *
+ *     [frame ID, capture time (sec), send time (sec), target count,
+ *      distance, pos_x, pos_y, parallax,    <- target 0
+ *      distance, pos_x, pos_y, parallax,    <- target 1
+ *      ...]
+ *
+ * Times are on the vision computer's clock. Older BucketVision sends one
+ * array per value instead (distance, pos_x, ...), which still works.
+ */
+public class VisionTargetFrame {
+
+	public static final String PACKED_KEY = "TargetFrame";
+
+	// packed frame header
+	public static final int FRAME_ID = 0;
+	public static final int CAPTURE_TIME = 1;
+	public static final int SEND_TIME = 2;
+	public static final int TARGET_COUNT = 3;
+	public static final int HEADER_SIZE = 4;
+
+	// each target, after the header
+	public static final int DISTANCE = 0;
+	public static final int POS_X = 1;
+	public static final int POS_Y = 2;
+	public static final int PARALLAX = 3;
+	public static final int FIELDS_PER_TARGET = 4;
+
+	// odd while fill() is changing the values below
+	private volatile long version;
+
+	private long sequence;
+	private long frameId;
+	private double timestamp_sec;
+	private double latency_sec;
+	private int count;
+	private final double[] distance = new double[VisionConstants.MAX_TARGETS];
+	private final double[] offAxis = new double[VisionConstants.MAX_TARGETS];
+	private final double[] posY = new double[VisionConstants.MAX_TARGETS];
+	private final double[] parallax = new double[VisionConstants.MAX_TARGETS];
+	private CameraFeedback closest;
+
+	/**
+	 * Fill in from BucketVision's separate arrays, which all have to be the same length
+	 *
+	 * @param pos_x [0, 1] across the picture
+	 */
+	void fill(long sequence, double timestamp_sec,
+	          double[] distance, double[] pos_x, double[] pos_y, double[] parallax) {
+		beginWrite();
+		this.sequence = sequence;
+		// not sent in this format
+		frameId = -1;
+		latency_sec = Double.NaN;
+		this.timestamp_sec = timestamp_sec;
+		count = Math.min(distance.length, VisionConstants.MAX_TARGETS);
+		for (int i = 0; i < count; i++) {
+			setTarget(i, distance[i], pos_x[i], pos_y[i], parallax[i]);
+		}
+		findClosest();
+		endWrite();
+	}
+
+	/**
+	 * Fill in from a packed frame; check it with isValidPacked() first
+	 *
+	 * @param timestamp_sec FPGA time the picture was taken
+	 * @param latency_sec from the picture being taken to the frame getting here
+	 */
+	void fillPacked(long sequence, double timestamp_sec, double latency_sec, double[] packed) {
+		beginWrite();
+		this.sequence = sequence;
+		frameId = (long) packed[FRAME_ID];
+		this.latency_sec = latency_sec;
+		this.timestamp_sec = timestamp_sec;
+		count = Math.min((int) packed[TARGET_COUNT], VisionConstants.MAX_TARGETS);
+		for (int i = 0; i < count; i++) {
+			int target = HEADER_SIZE + i * FIELDS_PER_TARGET;
+			setTarget(i, packed[target + DISTANCE], packed[target + POS_X], packed[target + POS_Y], packed[target + PARALLAX]);
+		}
+		findClosest();
+		endWrite();
+	}
+
+	// only ever one writer (the NetworkTables thread), so ++ is fine
+	private void beginWrite() {
+		version++;
+		// keep the writes that follow from moving up before version goes odd
+		VarHandle.storeStoreFence();
+	}
+
+	private void endWrite() {
+		version++;
+	}
+
+	/**
+	 * Copy this frame into to, from any thread, trying again if it changes
+	 * while copying
+	 *
+	 * @return false if nothing has been filled in yet
+	 */
+	boolean copyTo(VisionTargetFrame to) {
+		while (true) {
+			long before = version;
+			if ((before & 1) != 0) {
+				// being filled right now, it's quick
+				Thread.onSpinWait();
+				continue;
+			}
+
+			to.sequence = sequence;
+			to.frameId = frameId;
+			to.timestamp_sec = timestamp_sec;
+			to.latency_sec = latency_sec;
+			// a bad count from a torn read gets caught below, just don't run off the end first
+			int n = Math.max(0, Math.min(count, VisionConstants.MAX_TARGETS));
+			to.count = n;
+			System.arraycopy(distance, 0, to.distance, 0, n);
+			System.arraycopy(offAxis, 0, to.offAxis, 0, n);
+			System.arraycopy(posY, 0, to.posY, 0, n);
+			System.arraycopy(parallax, 0, to.parallax, 0, n);
+			to.closest = closest;
+
+			// keep the reads above from moving down past the second version read
+			VarHandle.loadLoadFence();
+			if (version == before) {
+				return to.sequence > 0;
+			}
+		}
+	}
+
+	/**
+	 * Just the closest target, from any thread, see copyTo()
+	 */
+	CameraFeedback readClosest() {
+		while (true) {
+			long before = version;
+			if ((before & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+			CameraFeedback result = closest;
+			VarHandle.loadLoadFence();
+			if (version == before) {
+				return result;
+			}
+		}
+	}
+
+	/**
+	 * Whether a packed frame has the header and as many targets as it says
+	 */
+	static boolean isValidPacked(double[] packed) {
+		return packed.length >= HEADER_SIZE &&
+		       packed[TARGET_COUNT] >= 0 &&
+		       packed.length == HEADER_SIZE + (int) packed[TARGET_COUNT] * FIELDS_PER_TARGET;
+	}
+
+	private void setTarget(int i, double distance, double pos_x, double pos_y, double parallax) {
+		this.distance[i] = distance;
+		offAxis[i] = 2 * pos_x - 1; // normalize to [-1, 1] from [0, 1]
+		posY[i] = pos_y;
+		this.parallax[i] = parallax;
+	}
+
+	// closest to the middle of the picture, and not off the top or bottom
+	private void findClosest() {
+		int closestIndex = -1;
+		double closestOffAxis = (count > 0) ? offAxis[0] : 0.0;
+		for (int i = 0; i < count; i++) {
+			if (Math.abs(offAxis[i]) <= Math.abs(closestOffAxis)) {
+				if ((posY[i] > 0.0) && (posY[i] < 1.0)) {
+					closestIndex = i;
+					closestOffAxis = offAxis[i];
+				}
+			}
+		}
+
+		if (closestIndex == -1) {
+			closest = null;
+		}
+		else {
+			boolean isInAutoAssistRegion = true; // TODO: for now
+			closest = new CameraFeedback(isInAutoAssistRegion,
+			                             parallax[closestIndex],
+			                             offAxis[closestIndex],
+			                             distance[closestIndex],
+			                             timestamp_sec);
+		}
+	}
+
+	/**
+	 * Counts up by one for every camera frame, 0 if there hasn't been one
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * BucketVision's number for the frame, -1 if it sent separate arrays
+	 */
+	public long getFrameId() {
+		return frameId;
+	}
+
+	/**
+	 * From the picture being taken to the frame getting here, NaN if it sent
+	 * separate arrays (then it's assumed to be VisionConstants.CAMERA_LATENCY_SEC)
+	 */
+	public double getLatency_sec() {
+		return latency_sec;
+	}
+
+	/**
+	 * FPGA time the picture was taken
+	 */
+	public double getTimestamp_sec() {
+		return timestamp_sec;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getDistance(int target) {
+		return distance[target];
+	}
+
+	/**
+	 * [-1, 1] across the picture
+	 */
+	public double getOffAxis(int target) {
+		return offAxis[target];
+	}
+
+	/**
+	 * [0, 1] up the picture
+	 */
+	public double getPosY(int target) {
+		return posY[target];
+	}
+
+	public double getParallax(int target) {
+		return parallax[target];
+	}
+
+	/**
+	 * Target closest to the middle of the picture, null if there isn't a usable one
+	 */
+	public CameraFeedback getClosest() {
+		return closest;
+	}
+}
@@ -0,0 +1,213 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryGroup;
+
+/**
+ * Runs the stuff that doesn't steer the robot (dashboard updates, switch
+ * reads, logging) after the control work is done, with a time limit per loop.
+ *
+ * Register a task once, then ask for it whenever there's something to do:
+ *
+ *     dashboardTask = DeferredWorkQueue.instance().task("Drive Dashboard", Priority.NORMAL, this::updateDashboard);
+ *     ...
+ *     dashboardTask.request();
+ *
+ * or have it asked for every N loops with every(N). Robot.robotPeriodic calls
+ * run() after the Scheduler. Tasks run highest priority first, then the one
+ * that's been waiting longest, until BUDGET_NS is used up; the rest wait for
+ * the next loop. Asking for a task that is already waiting doesn't queue it
+ * twice, so a task that gets pushed back just runs once with the latest data.
+ *
+ * A task that has waited MAX_WAIT_LOOPS gets run even if it's over budget, so
+ * nothing waits forever. A task that took longer than the time left last
+ * time is skipped for smaller ones, so a slow task can end up only running
+ * every MAX_WAIT_LOOPS.
+ */
+public class DeferredWorkQueue {
+
+    // Singleton method; use DeferredWorkQueue.instance() to get the DeferredWorkQueue instance.
+    public static DeferredWorkQueue instance() {
+        if (inst == null) {
+            inst = new DeferredWorkQueue();
+        }
+        return inst;
+    }
+    private static DeferredWorkQueue inst;
+
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    // time per loop for deferred work
+    public static final long BUDGET_NS = 2_000_000;
+    // longest a task waits before it runs over budget anyway (0.5 s at 50 Hz)
+    public static final int MAX_WAIT_LOOPS = 25;
+
+    /**
+     * Something that can be deferred
+     */
+    public class Task {
+        private final String name;
+        private final Priority priority;
+        private final Runnable work;
+        private int everyLoops;
+
+        private boolean pending;
+        private long requestedLoop;
+        private long lastDuration_ns;
+
+        // stats
+        private int runs;
+        private int deferrals;
+        private int coalesced;
+        private final TelemetryChannel deferralsChannel;
+        private final TelemetryChannel coalescedChannel;
+
+        private Task(String name, Priority priority, Runnable work) {
+            this.name = name;
+            this.priority = priority;
+            this.work = work;
+            deferralsChannel = telemetry.channel(name + "/Deferrals");
+            coalescedChannel = telemetry.channel(name + "/Coalesced");
+        }
+
+        /**
+         * Ask for the task to run, this loop if there's time
+         */
+        public void request() {
+            if (pending) {
+                coalesced++;
+                return;
+            }
+            pending = true;
+            requestedLoop = loop;
+        }
+
+        /**
+         * Ask for the task every this many loops, on top of any request()s
+         */
+        public Task every(int loops) {
+            everyLoops = Math.max(1, loops);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getDeferrals() {
+            return deferrals;
+        }
+
+        private void run() {
+            long start_ns = System.nanoTime();
+            work.run();
+            lastDuration_ns = System.nanoTime() - start_ns;
+            pending = false;
+            runs++;
+        }
+    }
+
+    private final TelemetryGroup telemetry = new TelemetryGroup("DeferredWork", true);
+    private final List<Task> tasks = new ArrayList<>();
+    private final TelemetryChannel usedChannel;
+    private final TelemetryChannel deferredChannel;
+
+    private long loop;
+
+    private DeferredWorkQueue() {
+        usedChannel = telemetry.channel("Used (ms)");
+        deferredChannel = telemetry.channel("Deferred");
+    }
+
+    /**
+     * Register a task, do this once (ex. in a constructor)
+     */
+    public synchronized Task task(String name, Priority priority, Runnable work) {
+        Task task = new Task(name, priority, work);
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Run waiting tasks until the budget is used up. Call once a loop, after the control work.
+     */
+    public void run() {
+        long start_ns = System.nanoTime();
+        loop++;
+
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task.everyLoops > 0 && loop % task.everyLoops == 0) {
+                task.request();
+            }
+        }
+
+        // anything that's waited too long goes first, budget or not
+        Task overdue = next(MAX_WAIT_LOOPS, Long.MAX_VALUE);
+        if (overdue != null) {
+            overdue.run();
+        }
+
+        while (true) {
+            long left_ns = BUDGET_NS - (System.nanoTime() - start_ns);
+            if (left_ns <= 0) {
+                break;
+            }
+            // skip tasks that took longer than what's left last time, smaller ones may fit
+            Task task = next(0, left_ns);
+            if (task == null) {
+                break;
+            }
+            task.run();
+        }
+
+        int deferred = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task.pending) {
+                task.deferrals++;
+                deferred++;
+            }
+        }
+
+        usedChannel.set((System.nanoTime() - start_ns) / 1e6);
+        deferredChannel.set(deferred);
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).deferralsChannel.set(tasks.get(i).deferrals);
+            tasks.get(i).coalescedChannel.set(tasks.get(i).coalesced);
+        }
+    }
+
+    /**
+     * Highest priority, longest waiting task that has waited at least minWaitLoops
+     * and took no longer than maxDuration_ns last time
+     */
+    private Task next(int minWaitLoops, long maxDuration_ns) {
+        Task best = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (!task.pending ||
+                loop - task.requestedLoop < minWaitLoops ||
+                task.lastDuration_ns > maxDuration_ns) {
+                continue;
+            }
+            if (best == null ||
+                task.priority.ordinal() < best.priority.ordinal() ||
+                (task.priority == best.priority && task.requestedLoop < best.requestedLoop)) {
+                best = task;
+            }
+        }
+        return best;
+    }
+}
@@ -2,13 +2,14 @@ package frc.robot.utils.autotuner;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
-import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 
 import frc.robot.utils.talonutils.MotorTestModes;
+import frc.robot.utils.talonutils.StatusFrameScheduler;
+import frc.robot.utils.talonutils.TalonConfigCache;
 
 import frc.robot.utils.autotuner.steps.TuningStep;
 import frc.robot.utils.autotuner.steps.KfStep;
@@ -74,6 +75,11 @@ public class AutoTuner {
     private static WPI_TalonSRX motor; // current motor for tuning
     private static boolean stepDone = false;
 
+    // the motor gets fast status frames while it's being tuned, then
+    // goes back to whatever it had before
+    private static boolean activated = false;
+    private static boolean wasActive = false;
+
 
 
     public static WPI_TalonSRX getMotor() {
@@ -89,6 +95,16 @@ public class AutoTuner {
             motor.set(ControlMode.PercentOutput, 0);
             changeStep(Step.None);
         }
+        releaseStatusFrames();
+    }
+
+
+
+    private static void releaseStatusFrames() {
+        if (activated) {
+            StatusFrameScheduler.instance().setActive(motor, wasActive);
+            activated = false;
+        }
     }
 
 
@@ -246,6 +262,9 @@ public class AutoTuner {
         SmartDashboard.putBoolean(TunerConstants.OSCILLATING_KEY, false);
         SmartDashboard.putString(TunerConstants.QUESTION_KEY, "");
 
+        // in case we were still tuning something else
+        releaseStatusFrames();
+
         motor = m;
 
         // AutoTuner shares the same motor as MotorTestModes
@@ -257,16 +276,18 @@ public class AutoTuner {
 
         
         //motor.configSelectedFeedbackSensor(FeedbackDevice.QuadEncoder, TunerConstants.kPIDLoopIdx, TunerConstants.kTimeoutMs);
-		motor.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 10, TunerConstants.kTimeoutMs);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 10, TunerConstants.kTimeoutMs);
+        // fast PIDF0 and motion magic frames while tuning (test mode), until stop()
+        wasActive = StatusFrameScheduler.instance().isActive(motor);
+        StatusFrameScheduler.instance().setActive(motor, true);
+        activated = true;
         
 		// Set the peak and nominal outputs
-		motor.configNominalOutputForward(0, TunerConstants.kTimeoutMs);
-		motor.configNominalOutputReverse(0, TunerConstants.kTimeoutMs);
-		motor.configPeakOutputForward(1, TunerConstants.kTimeoutMs);
-        motor.configPeakOutputReverse(-1, TunerConstants.kTimeoutMs);
+		config().configNominalOutputForward(0);
+		config().configNominalOutputReverse(0);
+		config().configPeakOutputForward(1);
+        config().configPeakOutputReverse(-1);
         
-        motor.selectProfileSlot(TunerConstants.kSlotIdx, TunerConstants.kPIDLoopIdx);
+        config().selectProfileSlot(TunerConstants.kSlotIdx, TunerConstants.kPIDLoopIdx);
         setKf(0);
         setKp(0);
         setKi(0);
@@ -275,7 +296,7 @@ public class AutoTuner {
 
         // Set acceleration and vcruise velocity - see documentation
 		setCruise(15000);
-        motor.configMotionAcceleration(6000, TunerConstants.kTimeoutMs);
+        config().configMotionAcceleration(6000);
         
         motor.setSelectedSensorPosition(0, TunerConstants.kPIDLoopIdx, TunerConstants.kTimeoutMs);
     }
@@ -295,29 +316,36 @@ public class AutoTuner {
 
 
 
+    // Config writes skip values the motor already has, and (like the CTRE
+    // tuning code) don't wait for the Talon to answer. Only our writes,
+    // everyone else using the same Talon still waits.
+    private static TalonConfigCache config() {
+        return TalonConfigCache.of(motor).withTimeout(TunerConstants.kTimeoutMs);
+    }
+
     // helper functions because we don't like typing a lot
     public static void setKf(double val) {
-        motor.config_kF(TunerConstants.kSlotIdx, val, TunerConstants.kTimeoutMs);
+        config().config_kF(TunerConstants.kSlotIdx, val);
     }
 
     public static void setCruise(int val) {
-        motor.configMotionCruiseVelocity(val, TunerConstants.kTimeoutMs);
+        config().configMotionCruiseVelocity(val);
     }
 
     public static void setKp(double val) {
-        motor.config_kP(TunerConstants.kSlotIdx, val, TunerConstants.kTimeoutMs);
+        config().config_kP(TunerConstants.kSlotIdx, val);
     }
 
     public static void setKi(double val) {
-        motor.config_kI(TunerConstants.kSlotIdx, val, TunerConstants.kTimeoutMs);
+        config().config_kI(TunerConstants.kSlotIdx, val);
     }
 
     public static void setIZone(int val) {
-        motor.config_IntegralZone(TunerConstants.kSlotIdx, val, TunerConstants.kTimeoutMs);
+        config().config_IntegralZone(TunerConstants.kSlotIdx, val);
     }
 
     public static void setKd(double val) {
-        motor.config_kD(TunerConstants.kSlotIdx, val, TunerConstants.kTimeoutMs);
+        config().config_kD(TunerConstants.kSlotIdx, val);
     }
 
 
@@ -4,12 +4,16 @@ package frc.robot.utils.autotuner.steps;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 import com.ctre.phoenix.motorcontrol.ControlMode;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import frc.robot.utils.autotuner.AutoTuner;
 import frc.robot.utils.autotuner.DFT_DataWindow;
 import frc.robot.utils.autotuner.DataWindow;
 import frc.robot.utils.autotuner.TunerConstants;
+import frc.robot.utils.logging.DataLogger;
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryGroup;
 
 
 
@@ -167,6 +171,13 @@ public abstract class TuningStep {
 
 
 
+    // looked up once, put() runs every sample
+    private static final TelemetryGroup TUNER_TELEMETRY = new TelemetryGroup("", true);
+    private static final TelemetryChannel ERROR_CHANNEL    = TUNER_TELEMETRY.channel(TunerConstants.ERROR_KEY).sendUnchanged();
+    private static final TelemetryChannel POSITION_CHANNEL = TUNER_TELEMETRY.channel(TunerConstants.POSITION_KEY).sendUnchanged();
+    private static final TelemetryChannel VELOCITY_CHANNEL = TUNER_TELEMETRY.channel(TunerConstants.VELOCITY_KEY).sendUnchanged();
+    private static final TelemetryChannel POWER_CHANNEL    = TUNER_TELEMETRY.channel(TunerConstants.POWER_KEY).sendUnchanged();
+
     /** Put some data on the Dashboard */
     private void put(int error, int position, int velocity, double power) {
         // make sure the Dashboard adds the values while they
@@ -175,10 +186,10 @@ public abstract class TuningStep {
         // it was before)
         double epsilon = Math.random() * 0.0001;
 
-        SmartDashboard.putNumber(TunerConstants.ERROR_KEY,    error + epsilon);
-        SmartDashboard.putNumber(TunerConstants.POSITION_KEY, position + epsilon);
-        SmartDashboard.putNumber(TunerConstants.VELOCITY_KEY, velocity + epsilon);
-        SmartDashboard.putNumber(TunerConstants.POWER_KEY,    power + epsilon);
+        ERROR_CHANNEL   .set(error + epsilon);
+        POSITION_CHANNEL.set(position + epsilon);
+        VELOCITY_CHANNEL.set(velocity + epsilon);
+        POWER_CHANNEL   .set(power + epsilon);
     }
 
 
@@ -288,7 +299,7 @@ public abstract class TuningStep {
     }*/
 
     protected void log(String data) {
-        // TODO: implement later in some way
+        DataLogger.instance().message(Timer.getFPGATimestamp(), data);
     }
 
 
@@ -0,0 +1,368 @@
+package frc.robot.utils.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Logs numbers to a file on the roboRIO (or a USB stick if one is plugged in)
+ * at full loop rate, for looking at after a match.
+ *
+ * The file is made at full size when the robot starts and memory mapped, so
+ * logging is just writing into memory; the OS gets it to the disk, and a
+ * background thread forces it out once a second. The file is a ring, each
+ * record only takes the bytes its fields need, and when it's full the oldest
+ * records get written over. Everything together logs roughly 60 KB a second
+ * while enabled, so that's about 15 minutes on a USB stick and 6 on the
+ * roboRIO's own disk (which is small, so it gets a smaller file and keeps
+ * only one old log). While disabled only every DISABLED_KEEP_EVERY'th append
+ * of each record is kept, so sitting in the queue after a match doesn't
+ * write over it.
+ *
+ * Every kind of record has a fixed list of fields, registered once:
+ *
+ *     driveLog = DataLogger.instance().record("Drive", "Left Ticks", "Right Ticks");
+ *     ...
+ *     driveLog.set(0, leftTicks);
+ *     driveLog.set(1, rightTicks);
+ *     driveLog.append(timestamp_sec);
+ *
+ * append() doesn't lock or allocate, so it's safe from the main loop and from
+ * Notifiers at the same time, as long as each Record is only used from one thread.
+ * message() logs a line of text (ex. a tuning report), it does allocate so
+ * keep it out of every-loop code. DataLogDecoder turns a log file into CSV files.
+ *
+ * File layout (big endian):
+ *     header, HEADER_SIZE bytes:
+ *         int magic, int version, int data size, int record header size,
+ *         int data start, long last sequence flushed, int schema length,
+ *         schema text (one line per record: "id,name,field,field,...")
+ *     data, data size bytes, a ring of records one after the other:
+ *         long sequence (0 while being written), int record id, int field count,
+ *         double timestamp, long position (where the record starts, counting
+ *         from the start of the log, not the ring), double fields...
+ *     (a message has record id MESSAGE_ID, and the byte count and UTF-8
+ *     text, padded to 8 bytes, in place of the field count and fields)
+ *
+ * Records are 8 byte aligned and the ring is a multiple of 8, so a record can
+ * wrap around the end but a single value never does. There's no index; the
+ * decoder finds records by their position matching where they sit in the ring.
+ */
+public class DataLogger {
+
+    // Singleton method; use DataLogger.instance() to get the DataLogger instance.
+    public static DataLogger instance() {
+        if (inst == null) {
+            inst = new DataLogger();
+        }
+        return inst;
+    }
+    private static DataLogger inst;
+
+    public static final int MAGIC = 0x42424C47;  // "BBLG"
+    public static final int VERSION = 2;
+
+    public static final int HEADER_SIZE = 64 * 1024;
+    public static final int RECORD_HEADER_SIZE = 32;
+    public static final int MAX_FIELDS = 256;
+    public static final int MAX_MESSAGE_SIZE = 4096;
+    public static final int MESSAGE_ID = -1;
+
+    // record header offsets
+    public static final int RECORD_ID_OFFSET = 8;
+    public static final int RECORD_COUNT_OFFSET = 12;
+    public static final int RECORD_TIMESTAMP_OFFSET = 16;
+    public static final int RECORD_POSITION_OFFSET = 24;
+
+    // header offsets
+    public static final int DATA_SIZE_OFFSET = 8;
+    public static final int RECORD_HEADER_SIZE_OFFSET = 12;
+    public static final int DATA_START_OFFSET = 16;
+    public static final int LAST_SEQUENCE_OFFSET = 20;
+    public static final int SCHEMA_LENGTH_OFFSET = 28;
+    public static final int SCHEMA_OFFSET = 32;
+
+    // USB stick if there is one, otherwise the roboRIO's own disk. The older logs
+    // (bitbuckets.1.bblog, ...) are kept so a reboot doesn't lose the last match,
+    // but the roboRIO's flash is shared with everything else, so only keep one
+    // small one there: 2 x 24 MB, vs 4 x 64 MB on the stick.
+    private static final String[] LOG_DIRECTORIES = { "/u/logs", "/home/lvuser/logs" };
+    private static final long[] LOG_SIZES = { 64L * 1024 * 1024, 24L * 1024 * 1024 };
+    private static final int[] LOGS_KEPT = { 3, 1 };
+    private static final String LOG_NAME = "bitbuckets";
+    private static final String LOG_EXTENSION = ".bblog";
+
+    private static final int PAGE_SIZE = 4096;
+
+    // while disabled, keep 1 in this many appends of each record
+    public static final int DISABLED_KEEP_EVERY = 10;
+
+    private static final long FLUSH_PERIOD_MS = 1000;
+
+    /**
+     * One kind of record, with its own fields. Only use each Record from one thread.
+     */
+    public class Record {
+        private final int id;
+        private final String name;
+        private final double[] values;
+        private final int size;
+        private final boolean enabled;
+        private int skipped;
+
+        private Record(int id, String name, int fields, boolean enabled) {
+            this.id = id;
+            this.name = name;
+            this.values = new double[fields];
+            this.size = RECORD_HEADER_SIZE + 8 * fields;
+            this.enabled = enabled;
+        }
+
+        public void set(int field, double value) {
+            values[field] = value;
+        }
+
+        public void set(int field, boolean value) {
+            values[field] = value ? 1.0 : 0.0;
+        }
+
+        /**
+         * Log the values set since the last append
+         */
+        public void append(double timestamp_sec) {
+            append(timestamp_sec, values, 0);
+        }
+
+        /**
+         * Log values straight from an array, starting at from
+         */
+        public void append(double timestamp_sec, double[] source, int from) {
+            if (!enabled || buffer == null) {
+                return;
+            }
+            if (robotDisabled) {
+                if (skipped++ % DISABLED_KEEP_EVERY != 0) {
+                    return;
+                }
+            }
+            else {
+                skipped = 0;
+            }
+
+            long sequence = nextSequence.getAndIncrement();
+            long position = nextPosition.getAndAdd(size);
+
+            // absolute puts don't touch the buffer's position, so other threads
+            // writing other records at the same time is fine
+            long field = writeHeader(position, id, values.length, timestamp_sec);
+            for (int i = 0; i < values.length; i++, field += 8) {
+                buffer.putDouble(offset(field), source[from + i]);
+            }
+            // written last, so a record with a sequence is complete
+            buffer.putLong(offset(position), sequence);
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private MappedByteBuffer buffer;
+    private int dataSize;
+    private File file;
+
+    // sequence numbers start at 1, 0 marks a record being written
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    // bytes from the start of the log, the ring offset is this mod dataSize
+    private final AtomicLong nextPosition = new AtomicLong(0);
+    private volatile boolean robotDisabled = true;
+
+    private int nextId;
+    private int schemaLength;
+
+    private DataLogger() {
+        open();
+        if (buffer != null) {
+            Thread flusher = new Thread(this::flushLoop, "DataLogger");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    private void open() {
+        File directory = null;
+        int choice;
+        for (choice = 0; choice < LOG_DIRECTORIES.length; choice++) {
+            File candidate = new File(LOG_DIRECTORIES[choice]);
+            if (candidate.getParentFile().isDirectory() && (candidate.isDirectory() || candidate.mkdir())) {
+                directory = candidate;
+                break;
+            }
+        }
+        if (directory == null) {
+            // ex. running in the simulator on a laptop
+            DriverStation.reportWarning("DataLogger: no log directory, not logging", false);
+            return;
+        }
+
+        long fileSize = LOG_SIZES[choice];
+        try {
+            rotate(directory, LOGS_KEPT[choice]);
+            file = new File(directory, LOG_NAME + LOG_EXTENSION);
+            // start from an empty file so nothing from the last run shows up in this one
+            if (file.exists() && !file.delete()) {
+                throw new IOException("can't delete old " + file);
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(fileSize);
+                // the mapping stays valid after the file is closed
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            }
+        }
+        catch (IOException e) {
+            DriverStation.reportWarning("DataLogger: can't open log, not logging: " + e, false);
+            buffer = null;
+            return;
+        }
+
+        dataSize = (int) (fileSize - HEADER_SIZE);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(DATA_SIZE_OFFSET, dataSize);
+        buffer.putInt(RECORD_HEADER_SIZE_OFFSET, RECORD_HEADER_SIZE);
+        buffer.putInt(DATA_START_OFFSET, HEADER_SIZE);
+        buffer.putLong(LAST_SEQUENCE_OFFSET, 0);
+        buffer.putInt(SCHEMA_LENGTH_OFFSET, 0);
+        // touch every page now, so the disk space for the whole file gets
+        // allocated before the match instead of as the ring fills up
+        for (int offset = 0; offset < dataSize; offset += PAGE_SIZE) {
+            buffer.putLong(HEADER_SIZE + offset, 0);
+        }
+        System.out.println("DataLogger: logging to " + file);
+    }
+
+    // bitbuckets.bblog -> bitbuckets.1.bblog -> bitbuckets.2.bblog ...
+    private static void rotate(File directory, int kept) {
+        // ones past what we keep now (ex. left from when we kept more)
+        for (int i = kept + 1; new File(directory, LOG_NAME + "." + i + LOG_EXTENSION).delete(); i++) {
+        }
+        for (int i = kept - 1; i >= 0; i--) {
+            File from = new File(directory, LOG_NAME + (i == 0 ? "" : "." + i) + LOG_EXTENSION);
+            File to = new File(directory, LOG_NAME + "." + (i + 1) + LOG_EXTENSION);
+            if (from.exists()) {
+                to.delete();
+                from.renameTo(to);
+            }
+        }
+    }
+
+    /**
+     * Register a kind of record. Do this once (ex. in a constructor), not every loop.
+     *
+     * @param fields names of the values, with units
+     */
+    public synchronized Record record(String name, String... fields) {
+        int id = nextId++;
+        if (fields.length > MAX_FIELDS) {
+            DriverStation.reportWarning("DataLogger: " + name + " has " + fields.length +
+                                        " fields, only " + MAX_FIELDS + " are allowed, not logging it", false);
+            return new Record(id, name, fields.length, false);
+        }
+        if (buffer == null) {
+            return new Record(id, name, fields.length, false);
+        }
+
+        StringBuilder line = new StringBuilder();
+        line.append(id).append(',').append(name.replace(',', ';'));
+        for (String field : fields) {
+            line.append(',').append(field.replace(',', ';'));
+        }
+        line.append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        if (SCHEMA_OFFSET + schemaLength + bytes.length > HEADER_SIZE) {
+            DriverStation.reportWarning("DataLogger: no room in the header for " + name + ", not logging it", false);
+            return new Record(id, name, fields.length, false);
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(SCHEMA_OFFSET + schemaLength + i, bytes[i]);
+        }
+        schemaLength += bytes.length;
+        buffer.putInt(SCHEMA_LENGTH_OFFSET, schemaLength);
+        return new Record(id, name, fields.length, true);
+    }
+
+    /**
+     * Log a line of text, cut off at MAX_MESSAGE_SIZE bytes. Messages are
+     * kept while disabled too.
+     */
+    public void message(double timestamp_sec, String text) {
+        if (buffer == null) {
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_MESSAGE_SIZE);
+
+        long sequence = nextSequence.getAndIncrement();
+        long position = nextPosition.getAndAdd(RECORD_HEADER_SIZE + (length + 7) / 8 * 8);
+        long text_position = writeHeader(position, MESSAGE_ID, length, timestamp_sec);
+        for (int i = 0; i < length; i++) {
+            buffer.put(offset(text_position + i), bytes[i]);
+        }
+        buffer.putLong(offset(position), sequence);
+    }
+
+    /**
+     * Everything but the sequence, returns where the fields start
+     */
+    private long writeHeader(long position, int id, int count, double timestamp_sec) {
+        buffer.putLong(offset(position), 0);
+        buffer.putInt(offset(position + RECORD_ID_OFFSET), id);
+        buffer.putInt(offset(position + RECORD_COUNT_OFFSET), count);
+        buffer.putDouble(offset(position + RECORD_TIMESTAMP_OFFSET), timestamp_sec);
+        buffer.putLong(offset(position + RECORD_POSITION_OFFSET), position);
+        return position + RECORD_HEADER_SIZE;
+    }
+
+    // an id and a count share 8 bytes, so nothing ever straddles the end of the ring
+    private int offset(long position) {
+        return HEADER_SIZE + (int) (position % dataSize);
+    }
+
+    /**
+     * Keep only 1 in DISABLED_KEEP_EVERY records while disabled (Robot sets this on every mode change)
+     */
+    public void setRobotDisabled(boolean disabled) {
+        robotDisabled = disabled;
+    }
+
+    public boolean isLogging() {
+        return buffer != null;
+    }
+
+    /**
+     * Records appended so far
+     */
+    public long getRecordCount() {
+        return nextSequence.get() - 1;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            try {
+                Thread.sleep(FLUSH_PERIOD_MS);
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            buffer.putLong(LAST_SEQUENCE_OFFSET, nextSequence.get() - 1);
+            buffer.force();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package frc.robot.utils.profiling;
+
+/**
+ * Counts how long something took in fixed size buckets, so percentiles can
+ * be worked out later without keeping every sample or allocating anything.
+ *
+ * Buckets are BUCKET_NS wide up to MAX_NS; anything longer goes in the last
+ * bucket (the max is still tracked exactly).
+ */
+public class LatencyHistogram {
+
+    // 50 us buckets up to 2 loops (40 ms)
+    public static final long BUCKET_NS = 50_000;
+    public static final long MAX_NS = 40_000_000;
+    private static final int NUM_BUCKETS = (int) (MAX_NS / BUCKET_NS) + 1;
+
+    private final long[] buckets = new long[NUM_BUCKETS];
+    private long count;
+    private long total_ns;
+    private long max_ns;
+
+    public void record(long elapsed_ns) {
+        int bucket = (int) Math.min(Math.max(elapsed_ns, 0) / BUCKET_NS, NUM_BUCKETS - 1);
+        buckets[bucket]++;
+        count++;
+        total_ns += elapsed_ns;
+        if (elapsed_ns > max_ns) {
+            max_ns = elapsed_ns;
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets[i] = 0;
+        }
+        count = 0;
+        total_ns = 0;
+        max_ns = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Time that fraction of the samples were at or under, rounded up to the
+     * top of its bucket
+     *
+     * @param fraction ex. 0.99 for p99
+     */
+    public double getPercentile_ms(double fraction) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long needed = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= needed) {
+                // the top of the last bucket is open ended, use the max instead
+                long top_ns = (i == NUM_BUCKETS - 1) ? max_ns : Math.min((i + 1) * BUCKET_NS, max_ns);
+                return top_ns / 1e6;
+            }
+        }
+        return max_ns / 1e6;
+    }
+
+    public double getMean_ms() {
+        return (count == 0) ? 0.0 : total_ns / 1e6 / count;
+    }
+
+    public double getMax_ms() {
+        return max_ns / 1e6;
+    }
+}
@@ -0,0 +1,189 @@
+package frc.robot.utils.profiling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import frc.robot.utils.telemetry.TelemetryChannel;
+import frc.robot.utils.telemetry.TelemetryGroup;
+
+/**
+ * Times the pieces of the robot loop so we can see what is using up the 20 ms.
+ *
+ * Each thing being timed is a Section with its own LatencyHistogram. Get a
+ * Section once (ex. in a constructor) and then every loop:
+ *
+ *     long start_ns = System.nanoTime();
+ *     ...
+ *     section.stop(start_ns);
+ *
+ * which doesn't allocate anything. BitBucketSubsystem times every subsystem's
+ * periodic, BitBucketCommand times every command's execute + isFinished, and
+ * Robot times the sensor capture, the Scheduler and the DeferredWorkQueue.
+ *
+ * p50/p99/max for every section go on the dashboard under LoopProfiler/ once
+ * a second. Stats start over at every mode change.
+ */
+public class LoopProfiler {
+
+    // Singleton method; use LoopProfiler.instance() to get the LoopProfiler instance.
+    public static LoopProfiler instance() {
+        if (inst == null) {
+            inst = new LoopProfiler();
+        }
+        return inst;
+    }
+    private static LoopProfiler inst;
+
+    // loops between dashboard updates, once a second at 50 Hz
+    public static final int PUBLISH_LOOPS = 50;
+    // a loop that starts this much later than it should counts as late
+    private static final double LATE_FACTOR = 1.5;
+
+    /**
+     * One thing being timed
+     */
+    public class Section {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final TelemetryChannel p50Channel;
+        private final TelemetryChannel p99Channel;
+        private final TelemetryChannel maxChannel;
+        private final TelemetryChannel countChannel;
+
+        private Section(String name) {
+            this.name = name;
+            p50Channel = telemetry.channel(name + "/p50 (ms)");
+            p99Channel = telemetry.channel(name + "/p99 (ms)");
+            maxChannel = telemetry.channel(name + "/max (ms)");
+            countChannel = telemetry.channel(name + "/count");
+        }
+
+        /**
+         * Record the time since start_ns (from System.nanoTime())
+         */
+        public void stop(long start_ns) {
+            histogram.record(System.nanoTime() - start_ns);
+        }
+
+        public void record(long elapsed_ns) {
+            histogram.record(elapsed_ns);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        private void publish() {
+            p50Channel.set(histogram.getPercentile_ms(0.50));
+            p99Channel.set(histogram.getPercentile_ms(0.99));
+            maxChannel.set(histogram.getMax_ms());
+            countChannel.set(histogram.getCount());
+        }
+    }
+
+    private final TelemetryGroup telemetry = new TelemetryGroup("LoopProfiler", true);
+    private final Map<String, Section> sectionsByName = new HashMap<>();
+    private final List<Section> sections = new ArrayList<>();
+
+    // whole loop: work done in robotPeriodic, and time from one loop to the next
+    private final Section loop;
+    private final Section period;
+    private final TelemetryChannel overrunsChannel;
+    private final TelemetryChannel lateLoopsChannel;
+
+    private long budget_ns = 20_000_000;
+    private long loopStart_ns;
+    private long lastLoopStart_ns;
+    private int loops;
+    private int overruns;
+    private int lateLoops;
+
+    private LoopProfiler() {
+        loop = section("Loop");
+        period = section("Loop Period");
+        overrunsChannel = telemetry.channel("Overruns");
+        lateLoopsChannel = telemetry.channel("Late Loops");
+    }
+
+    /**
+     * Get the section with this name, making it the first time.
+     * Don't call this every loop, keep the Section.
+     */
+    public synchronized Section section(String name) {
+        Section section = sectionsByName.get(name);
+        if (section == null) {
+            section = new Section(name);
+            sectionsByName.put(name, section);
+            sections.add(section);
+        }
+        return section;
+    }
+
+    /**
+     * How long a loop is supposed to take (TimedRobot.getPeriod())
+     */
+    public void setLoopPeriod(double period_sec) {
+        budget_ns = (long) (period_sec * 1e9);
+    }
+
+    /**
+     * Call first thing in robotPeriodic
+     */
+    public void startLoop() {
+        loopStart_ns = System.nanoTime();
+        if (lastLoopStart_ns != 0) {
+            long period_ns = loopStart_ns - lastLoopStart_ns;
+            period.record(period_ns);
+            if (period_ns > LATE_FACTOR * budget_ns) {
+                lateLoops++;
+            }
+        }
+        lastLoopStart_ns = loopStart_ns;
+    }
+
+    /**
+     * Call last thing in robotPeriodic
+     */
+    public void endLoop() {
+        long elapsed_ns = System.nanoTime() - loopStart_ns;
+        loop.record(elapsed_ns);
+        if (elapsed_ns > budget_ns) {
+            overruns++;
+        }
+        loops++;
+    }
+
+    /**
+     * Put the stats on the dashboard; Robot has the DeferredWorkQueue do this every PUBLISH_LOOPS
+     */
+    public void updateDashboard() {
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).publish();
+        }
+        overrunsChannel.set(overruns);
+        lateLoopsChannel.set(lateLoops);
+    }
+
+    /**
+     * Start the stats over, ex. on a mode change
+     */
+    public void reset() {
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).histogram.reset();
+        }
+        overruns = 0;
+        lateLoops = 0;
+        // the gap from the last loop of the old mode isn't interesting
+        lastLoopStart_ns = 0;
+    }
+
+    public int getOverruns() {
+        return overruns;
+    }
+}
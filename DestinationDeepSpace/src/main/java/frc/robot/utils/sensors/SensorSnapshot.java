@@ -0,0 +1,301 @@
+package frc.robot.utils.sensors;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.kauailabs.navx.frc.AHRS;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import frc.robot.utils.logging.DataLogger;
+
+/**
+ * Reads every Talon and the navX once at the start of each robot loop, so
+ * everything that runs in that loop sees the same values from the same moment.
+ *
+ * Each read (getSelectedSensorPosition, getOutputCurrent, ...) is a JNI call,
+ * and the same values were being read several times a loop from different
+ * places. Subsystems track() the devices they use and say what they need:
+ *
+ *     armSensors = SensorSnapshot.instance().track(armMotor1, SensorSnapshot.POSITION | SensorSnapshot.CURRENT);
+ *     ...
+ *     int ticks = armSensors.getPosition_ticks();
+ *
+ * Robot.robotPeriodic() calls capture() before the Scheduler runs. Every
+ * capture also goes to the DataLogger as a "SensorSnapshot" record; the
+ * fields are fixed at the first capture, so track() everything before then.
+ *
+ * This is for the main loop only. Anything running on its own Notifier
+ * (PathFollower, TrajectoryExecutor) or during initialization should keep
+ * reading the devices itself, the snapshot can be up to a loop old.
+ */
+public class SensorSnapshot {
+
+    // Singleton method; use SensorSnapshot.instance() to get the SensorSnapshot instance.
+    public static SensorSnapshot instance() {
+        if (inst == null) {
+            inst = new SensorSnapshot();
+        }
+        return inst;
+    }
+    private static SensorSnapshot inst;
+
+    // what to read from a Talon, or them together
+    public static final int POSITION = 1;
+    public static final int VELOCITY = 2;
+    public static final int CURRENT = 4;
+    public static final int CLOSED_LOOP_ERROR = 8;
+    public static final int LIMIT_SWITCHES = 16;
+
+    // everything uses the primary PID loop
+    private static final int PID_LOOP = 0;
+
+    /**
+     * One Talon's values from the last capture()
+     */
+    public static class Talon {
+        private final TalonSRX motor;
+        private int reads;
+        // what's in the log record, reads added after the first capture aren't logged
+        private int loggedReads;
+
+        private int position_ticks;
+        private int velocity_tp100;
+        private int closedLoopError_ticks;
+        private double outputCurrent_amps;
+        private boolean fwdLimitClosed;
+        private boolean revLimitClosed;
+
+        private Talon(TalonSRX motor, int reads) {
+            this.motor = motor;
+            this.reads = reads;
+        }
+
+        private int capture() {
+            int calls = 0;
+            if ((reads & POSITION) != 0) {
+                position_ticks = motor.getSelectedSensorPosition(PID_LOOP);
+                calls++;
+            }
+            if ((reads & VELOCITY) != 0) {
+                velocity_tp100 = motor.getSelectedSensorVelocity(PID_LOOP);
+                calls++;
+            }
+            if ((reads & CLOSED_LOOP_ERROR) != 0) {
+                closedLoopError_ticks = motor.getClosedLoopError(PID_LOOP);
+                calls++;
+            }
+            if ((reads & CURRENT) != 0) {
+                outputCurrent_amps = motor.getOutputCurrent();
+                calls++;
+            }
+            if ((reads & LIMIT_SWITCHES) != 0) {
+                fwdLimitClosed = motor.getSensorCollection().isFwdLimitSwitchClosed();
+                revLimitClosed = motor.getSensorCollection().isRevLimitSwitchClosed();
+                calls += 2;
+            }
+            return calls;
+        }
+
+        private void addLogFields(List<String> fields) {
+            loggedReads = reads;
+            String prefix = "Talon " + motor.getDeviceID() + " ";
+            if ((loggedReads & POSITION) != 0) {
+                fields.add(prefix + "Position (ticks)");
+            }
+            if ((loggedReads & VELOCITY) != 0) {
+                fields.add(prefix + "Velocity (ticks/100ms)");
+            }
+            if ((loggedReads & CLOSED_LOOP_ERROR) != 0) {
+                fields.add(prefix + "Closed Loop Error (ticks)");
+            }
+            if ((loggedReads & CURRENT) != 0) {
+                fields.add(prefix + "Current (amps)");
+            }
+            if ((loggedReads & LIMIT_SWITCHES) != 0) {
+                fields.add(prefix + "Fwd Limit");
+                fields.add(prefix + "Rev Limit");
+            }
+        }
+
+        // same order as addLogFields
+        private int log(double[] values, int field) {
+            if ((loggedReads & POSITION) != 0) {
+                values[field++] = position_ticks;
+            }
+            if ((loggedReads & VELOCITY) != 0) {
+                values[field++] = velocity_tp100;
+            }
+            if ((loggedReads & CLOSED_LOOP_ERROR) != 0) {
+                values[field++] = closedLoopError_ticks;
+            }
+            if ((loggedReads & CURRENT) != 0) {
+                values[field++] = outputCurrent_amps;
+            }
+            if ((loggedReads & LIMIT_SWITCHES) != 0) {
+                values[field++] = fwdLimitClosed ? 1.0 : 0.0;
+                values[field++] = revLimitClosed ? 1.0 : 0.0;
+            }
+            return field;
+        }
+
+        public TalonSRX getMotor() {
+            return motor;
+        }
+
+        public int getPosition_ticks() {
+            return position_ticks;
+        }
+
+        /**
+         * Native units, ticks per 100 ms
+         */
+        public int getVelocity_tp100() {
+            return velocity_tp100;
+        }
+
+        public int getClosedLoopError_ticks() {
+            return closedLoopError_ticks;
+        }
+
+        public double getOutputCurrent_amps() {
+            return outputCurrent_amps;
+        }
+
+        public boolean isFwdLimitSwitchClosed() {
+            return fwdLimitClosed;
+        }
+
+        public boolean isRevLimitSwitchClosed() {
+            return revLimitClosed;
+        }
+    }
+
+    private final Map<TalonSRX, Talon> byMotor = new IdentityHashMap<>();
+    private final List<Talon> talons = new ArrayList<>();
+
+    private AHRS ahrs;
+    private double yaw_deg;
+    private double yawRate_degPerSec;
+
+    private double timestamp_sec;
+    private long loopCount;
+
+    // cost of capture(), for the dashboard
+    private int callsPerCapture;
+    private double capture_sec;
+    private double maxCapture_sec;
+
+    private DataLogger.Record log;
+    private double[] logValues;
+    private int loggedTalons;
+
+    private SensorSnapshot() {
+    }
+
+    /**
+     * Start reading a Talon every loop. Tracking the same Talon again adds to what is read.
+     *
+     * @param reads what to read, ex. POSITION | VELOCITY
+     */
+    public Talon track(TalonSRX motor, int reads) {
+        Talon talon = byMotor.get(motor);
+        if (talon == null) {
+            talon = new Talon(motor, reads);
+            byMotor.put(motor, talon);
+            talons.add(talon);
+        }
+        else {
+            talon.reads |= reads;
+        }
+        return talon;
+    }
+
+    /**
+     * Start reading the navX every loop
+     */
+    public void trackNavX(AHRS ahrs) {
+        this.ahrs = ahrs;
+    }
+
+    /**
+     * Read everything being tracked, call once at the start of the loop
+     */
+    public void capture() {
+        timestamp_sec = Timer.getFPGATimestamp();
+
+        int calls = 0;
+        for (int i = 0; i < talons.size(); i++) {
+            calls += talons.get(i).capture();
+        }
+        if (ahrs != null) {
+            yaw_deg = ahrs.getYaw();
+            yawRate_degPerSec = ahrs.getRate();
+            calls += 2;
+        }
+
+        loopCount++;
+        callsPerCapture = calls;
+        capture_sec = Timer.getFPGATimestamp() - timestamp_sec;
+        maxCapture_sec = Math.max(maxCapture_sec, capture_sec);
+
+        log();
+    }
+
+    private void log() {
+        if (log == null) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < talons.size(); i++) {
+                talons.get(i).addLogFields(fields);
+            }
+            fields.add("Yaw (deg)");
+            fields.add("Yaw Rate (dps)");
+            log = DataLogger.instance().record("SensorSnapshot", fields.toArray(new String[0]));
+            logValues = new double[fields.size()];
+            loggedTalons = talons.size();
+        }
+
+        int field = 0;
+        for (int i = 0; i < loggedTalons; i++) {
+            field = talons.get(i).log(logValues, field);
+        }
+        logValues[field++] = yaw_deg;
+        logValues[field++] = yawRate_degPerSec;
+        log.append(timestamp_sec, logValues, 0);
+    }
+
+    /**
+     * FPGA time the last capture() started
+     */
+    public double getTimestamp_sec() {
+        return timestamp_sec;
+    }
+
+    /**
+     * Number of captures so far, to tell if a value is from this loop
+     */
+    public long getLoopCount() {
+        return loopCount;
+    }
+
+    /**
+     * navX yaw, clockwise positive
+     */
+    public double getYaw_deg() {
+        return yaw_deg;
+    }
+
+    public double getYawRate_degPerSec() {
+        return yawRate_degPerSec;
+    }
+
+    public void updateDashboard() {
+        SmartDashboard.putNumber("SensorSnapshot/Reads per Loop", callsPerCapture);
+        SmartDashboard.putNumber("SensorSnapshot/Capture (ms)", 1000.0 * capture_sec);
+        SmartDashboard.putNumber("SensorSnapshot/Max Capture (ms)", 1000.0 * maxCapture_sec);
+    }
+}
@@ -51,6 +51,16 @@ public class MotorTestModes {
 
 
 
+    // called from Robot.disabledInit, so leaving test mode stops any tuning
+    // and the next time starts over
+    public static void stop() {
+        AutoTuner.stop();
+        lastMotorID = 0;
+        lastTestMode = null;
+    }
+
+
+
     // called from Robot.testPeriodic
     public static void periodic() {
         // get the selected motor ID
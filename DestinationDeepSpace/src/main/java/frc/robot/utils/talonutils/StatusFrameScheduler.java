@@ -0,0 +1,365 @@
+package frc.robot.utils.talonutils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.MotorId;
+import frc.robot.Robot.RunMode;
+import frc.robot.subsystem.drive.DriveConstants;
+
+/**
+ * Decides how often every Talon sends each of its status frames, so the CAN
+ * bus has room to spare as more motors get added.
+ *
+ * Every Talon has a role (from its MotorId):
+ * - CLOSED_LOOP: drive masters, arm, beak; we read their sensors
+ * - OPEN_LOOP: intake, climber; only need the limit switches in the general frame
+ * - FOLLOWER: just copies another Talon, nobody reads it
+ * and closed loop Talons are only given fast frames while they're actively
+ * running closed loop (setActive()) in an enabled mode. Everything else gets
+ * slowed down as far as it can go.
+ *
+ * Robot calls setMode() from each xInit, and changes are sent in the
+ * background (through TalonConfigCache, so unchanged periods cost nothing).
+ * The estimated bus load is put on the dashboard every time the plan changes.
+ * checkForResets() sends the periods again to any Talon that has reset.
+ * Talons that are still being configured (TalonInitializer timed out on
+ * them) are held, and don't get anything sent until they're released.
+ */
+public class StatusFrameScheduler {
+
+    // Singleton method; use StatusFrameScheduler.instance() to get the StatusFrameScheduler instance.
+    public static StatusFrameScheduler instance() {
+        if (inst == null) {
+            inst = new StatusFrameScheduler();
+        }
+        return inst;
+    }
+    private static StatusFrameScheduler inst;
+
+    public enum Role {
+        CLOSED_LOOP,
+        OPEN_LOOP,
+        FOLLOWER
+    }
+
+    // slowest a status frame can be set to
+    public static final int SLOWEST_PERIOD_MS = 255;
+
+    // CAN bus rate and the size of an 8 byte extended frame with worst case bit stuffing
+    private static final double BUS_BITS_PER_SEC = 1.0e6;
+    private static final double BITS_PER_FRAME = 150.0;
+    // frames we don't schedule but every Talon sends/receives anyway
+    private static final int CONTROL_FRAME_PERIOD_MS = 10;  // roboRIO -> Talon
+    private static final int MOTION_PROFILE_BUFFER_PERIOD_MS = 160;  // Status_9, left at default
+    // warn above this much estimated load
+    public static final double MAX_BUS_LOAD = 0.70;
+    // how often to check for Talons that reset (0.5 s at 50 Hz)
+    public static final int RESET_CHECK_LOOPS = 25;
+
+    // frames that get scheduled, in the same order as the periods in a Plan
+    private static final StatusFrameEnhanced[] FRAMES = {
+        StatusFrameEnhanced.Status_1_General,  // output, limit switches, faults
+        StatusFrameEnhanced.Status_2_Feedback0,  // selected sensor position/velocity
+        StatusFrameEnhanced.Status_13_Base_PIDF0,  // closed loop error, target
+        StatusFrameEnhanced.Status_10_MotionMagic,  // motion magic/profile targets
+        StatusFrameEnhanced.Status_3_Quadrature,  // raw quadrature
+        StatusFrameEnhanced.Status_8_PulseWidth,  // raw pulse width (absolute position)
+        StatusFrameEnhanced.Status_4_AinTempVbat,  // analog in, temperature, battery
+        StatusFrameEnhanced.Status_12_Feedback1,  // aux sensor, not used
+        StatusFrameEnhanced.Status_14_Turn_PIDF1  // aux PID, not used
+    };
+
+    /**
+     * Period for each of FRAMES, in milliseconds
+     */
+    private static class Plan {
+        final String name;
+        final int[] periods_ms;
+
+        Plan(String name, int... periods_ms) {
+            this.name = name;
+            this.periods_ms = periods_ms;
+        }
+    }
+
+    //                                                    Gen  Fb0 PIDF0  MM Quad  PW  Ain Fb1 PIDF1
+    private static final Plan ACTIVE      = new Plan("Active",      10, 10,  20,  20, 160, 160, 160, 255, 255);
+    private static final Plan TEST_ACTIVE = new Plan("Test Active", 10, 10,  10,  10, 100, 100, 100, 255, 255);
+    private static final Plan IDLE        = new Plan("Idle",        10, 20, 255, 255, 255, 255, 255, 255, 255);
+    private static final Plan OPEN_LOOP   = new Plan("Open Loop",   20, 100, 255, 255, 255, 255, 255, 255, 255);
+    private static final Plan FOLLOWER    = new Plan("Follower",   100, 100, 255, 255, 255, 255, 255, 255, 255);
+
+    // role of every Talon on the robot
+    private static final Map<Integer, Role> ROLES = new HashMap<>();
+    static {
+        for (int id : DriveConstants.LEFT_DRIVE_MOTOR_IDS) {
+            ROLES.put(id, Role.FOLLOWER);
+        }
+        for (int id : DriveConstants.RIGHT_DRIVE_MOTOR_IDS) {
+            ROLES.put(id, Role.FOLLOWER);
+        }
+        ROLES.put(DriveConstants.LEFT_DRIVE_MOTOR_IDS[0], Role.CLOSED_LOOP);
+        ROLES.put(DriveConstants.RIGHT_DRIVE_MOTOR_IDS[0], Role.CLOSED_LOOP);
+
+        ROLES.put(MotorId.INTAKE_MOTOR_ID, Role.OPEN_LOOP);
+        ROLES.put(MotorId.ARM_MOTOR1_ID, Role.CLOSED_LOOP);
+        ROLES.put(MotorId.ARM_MOTOR2_ID, Role.FOLLOWER);
+        ROLES.put(MotorId.BEAK_MOTOR_ID, Role.CLOSED_LOOP);
+
+        ROLES.put(MotorId.CLIMB_MOTOR_1_ID, Role.OPEN_LOOP);
+        ROLES.put(MotorId.CLIMB_MOTOR_2_ID, Role.FOLLOWER);
+    }
+
+    // Status_2 (position/velocity) period for Talons that need it fast all the time
+    public static final int FAST_FEEDBACK_PERIOD_MS = 10;
+
+    /**
+     * A Talon being scheduled
+     */
+    private static class Entry {
+        BaseMotorController motor;
+        final Role role;
+        boolean active;
+        // someone reads the sensor all the time (ex. Odometry), not just while active
+        boolean fastFeedback;
+        // still being configured, don't send it anything
+        boolean held;
+        Plan plan;
+
+        Entry(BaseMotorController motor, Role role, boolean active) {
+            this.motor = motor;
+            this.role = role;
+            this.active = active;
+        }
+    }
+
+    // by device ID, in the order they were registered
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final List<Entry> ordered = new ArrayList<>();
+
+    private RunMode mode = RunMode.DISABLED;
+    private volatile double estimatedLoad;
+
+    // frame period changes go out here so mode changes don't wait on CAN
+    // (TalonConfigCache doesn't hold its lock while these wait, so mode
+    // switches on the main thread don't wait behind them either)
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "StatusFrameScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private StatusFrameScheduler() {
+    }
+
+    /**
+     * Start scheduling a Talon, with the role MotorId says it has.
+     * Closed loop Talons start out active; call setActive() for ones that aren't always.
+     */
+    public synchronized void register(BaseMotorController motor) {
+        Role role = ROLES.getOrDefault(motor.getDeviceID(), Role.CLOSED_LOOP);
+        register(motor, role, role == Role.CLOSED_LOOP);
+    }
+
+    private void register(BaseMotorController motor, Role role, boolean active) {
+        Entry entry = entries.get(motor.getDeviceID());
+        if (entry != null) {
+            // someone made a new object for the same Talon (ex. test modes), use that one
+            entry.motor = motor;
+            entry.active = active;
+            return;
+        }
+        entry = new Entry(motor, role, active);
+        entries.put(motor.getDeviceID(), entry);
+        ordered.add(entry);
+    }
+
+    /**
+     * Tell the scheduler whether a closed loop Talon is running closed loop right now
+     */
+    public synchronized void setActive(BaseMotorController motor, boolean active) {
+        Entry entry = entries.get(motor.getDeviceID());
+        if (entry == null) {
+            register(motor, ROLES.getOrDefault(motor.getDeviceID(), Role.CLOSED_LOOP), active);
+            apply();
+            return;
+        }
+
+        entry.motor = motor;
+        if (entry.active != active) {
+            entry.active = active;
+            apply();
+        }
+    }
+
+    /**
+     * Keep a Talon's Status_2 (selected sensor position/velocity) at
+     * FAST_FEEDBACK_PERIOD_MS in every mode, for something that reads it all the
+     * time, like Odometry
+     */
+    public synchronized void setFastFeedback(BaseMotorController motor, boolean fastFeedback) {
+        Entry entry = entries.get(motor.getDeviceID());
+        if (entry == null) {
+            register(motor);
+            entry = entries.get(motor.getDeviceID());
+        }
+        if (entry.fastFeedback != fastFeedback) {
+            entry.fastFeedback = fastFeedback;
+            apply();
+        }
+    }
+
+    /**
+     * Don't send a Talon any frame periods until release(), ex. while its
+     * configuration is still running in the background
+     */
+    public synchronized void hold(BaseMotorController motor) {
+        Entry entry = entries.get(motor.getDeviceID());
+        if (entry == null) {
+            register(motor);
+            entry = entries.get(motor.getDeviceID());
+        }
+        entry.held = true;
+    }
+
+    /**
+     * Send a held Talon its frame periods, all of them, since whatever was
+     * configuring it may have changed them behind the cache's back
+     */
+    public synchronized void release(BaseMotorController motor) {
+        Entry entry = entries.get(motor.getDeviceID());
+        if (entry != null && entry.held) {
+            entry.held = false;
+            TalonConfigCache.of(motor).invalidate();
+            apply();
+        }
+    }
+
+    /**
+     * Whether a Talon is set as running closed loop right now
+     */
+    public synchronized boolean isActive(BaseMotorController motor) {
+        Entry entry = entries.get(motor.getDeviceID());
+        return entry != null && entry.active;
+    }
+
+    /**
+     * Switch every Talon to the frame rates for a robot mode
+     */
+    public synchronized void setMode(RunMode mode) {
+        this.mode = mode;
+        apply();
+    }
+
+    public synchronized RunMode getMode() {
+        return mode;
+    }
+
+    /**
+     * A Talon that resets (ex. brownout) goes back to its default frame periods,
+     * so send everything again if any have. Call every RESET_CHECK_LOOPS.
+     */
+    public synchronized void checkForResets() {
+        if (TalonConfigCache.checkForResets()) {
+            DriverStation.reportWarning("Talon reset, sending status frame periods again", false);
+            apply();
+        }
+    }
+
+    /**
+     * Fraction of the bus the scheduled frames are expected to use
+     */
+    public double getEstimatedLoad() {
+        return estimatedLoad;
+    }
+
+    /**
+     * Work out every Talon's plan and send whatever changed
+     */
+    private void apply() {
+        List<BaseMotorController> motors = new ArrayList<>();
+        List<Plan> plans = new ArrayList<>();
+        double framesPerSec = 0;
+
+        for (Entry entry : ordered) {
+            entry.plan = planFor(entry);
+            if (entry.fastFeedback) {
+                entry.plan = withFastFeedback(entry.plan);
+            }
+            if (!entry.held) {
+                motors.add(entry.motor);
+                plans.add(entry.plan);
+            }
+
+            for (int period_ms : entry.plan.periods_ms) {
+                framesPerSec += 1000.0 / period_ms;
+            }
+            framesPerSec += 1000.0 / CONTROL_FRAME_PERIOD_MS;
+            framesPerSec += 1000.0 / MOTION_PROFILE_BUFFER_PERIOD_MS;
+        }
+        estimatedLoad = framesPerSec * BITS_PER_FRAME / BUS_BITS_PER_SEC;
+
+        executor.execute(() -> send(motors, plans));
+
+        updateDashboard();
+        if (estimatedLoad > MAX_BUS_LOAD) {
+            DriverStation.reportWarning("Estimated CAN bus load " + Math.round(100.0 * estimatedLoad) +
+                                        "% is over " + Math.round(100.0 * MAX_BUS_LOAD) + "%", false);
+        }
+    }
+
+    private Plan planFor(Entry entry) {
+        switch (entry.role) {
+        case FOLLOWER:
+            return FOLLOWER;
+        case OPEN_LOOP:
+            return OPEN_LOOP;
+        case CLOSED_LOOP:
+        default:
+            if (!entry.active || mode == RunMode.DISABLED) {
+                return IDLE;
+            }
+            return (mode == RunMode.TEST) ? TEST_ACTIVE : ACTIVE;
+        }
+    }
+
+    private static Plan withFastFeedback(Plan plan) {
+        // Status_2 is FRAMES[1]
+        if (plan.periods_ms[1] <= FAST_FEEDBACK_PERIOD_MS) {
+            return plan;
+        }
+        int[] periods_ms = plan.periods_ms.clone();
+        periods_ms[1] = FAST_FEEDBACK_PERIOD_MS;
+        return new Plan(plan.name + " + Feedback", periods_ms);
+    }
+
+    // on the executor thread
+    private static void send(List<BaseMotorController> motors, List<Plan> plans) {
+        for (int i = 0; i < motors.size(); i++) {
+            TalonConfigCache config = TalonConfigCache.of(motors.get(i));
+            int[] periods_ms = plans.get(i).periods_ms;
+            for (int f = 0; f < FRAMES.length; f++) {
+                config.setStatusFramePeriod(FRAMES[f], periods_ms[f]);
+            }
+        }
+    }
+
+    private void updateDashboard() {
+        SmartDashboard.putString("StatusFrames/Mode", mode.toString());
+        SmartDashboard.putNumber("StatusFrames/Estimated Bus Load (%)", 100.0 * estimatedLoad);
+        for (Entry entry : ordered) {
+            SmartDashboard.putString("StatusFrames/Talon " + entry.motor.getDeviceID(),
+                                     entry.role + " " + entry.plan.name + (entry.held ? " (held)" : ""));
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package frc.robot.utils.talonutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.RobotMap;
+
+/**
+ * Remembers the last value each Talon acknowledged for every config parameter
+ * (per slot / PID loop / status frame) and skips writes that wouldn't change anything.
+ *
+ * Every config* call with a timeout waits for the Talon to answer, up to
+ * CONTROLLER_TIMEOUT_MS each. Switching modes or re-running initialization
+ * would send the same gains again and wait on every one of them, so instead
+ * go through here:
+ *
+ *     TalonConfigCache.of(motor).config_kP(slot, kP);
+ *
+ * A value is only remembered once the Talon says OK, so failed writes are
+ * tried again next time. configFactoryDefault() forgets everything for that Talon.
+ * If something changes a Talon's config without going through here, call invalidate().
+ * A Talon that resets (brownout) loses its frame periods and profile slot, so
+ * checkForResets() should be called every so often to forget those Talons too.
+ *
+ * The lock is only held to look things up, not while waiting on the Talon,
+ * so a slow write from one thread doesn't hold up another thread's write.
+ *
+ * Writes wait RobotMap.CONTROLLER_TIMEOUT_MS; use withTimeout() for a
+ * different wait on some writes without changing everyone else's.
+ */
+public class TalonConfigCache {
+
+    // every Talon that has a cache, so there is only ever one per Talon
+    private static final Map<BaseMotorController, TalonConfigCache> caches =
+        Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Forget everything for any Talon that has reset since the last check
+     *
+     * @return true if any had
+     */
+    public static boolean checkForResets() {
+        List<TalonConfigCache> all;
+        synchronized (caches) {
+            all = new ArrayList<>(caches.values());
+        }
+        boolean reset = false;
+        for (TalonConfigCache cache : all) {
+            reset |= cache.checkForReset();
+        }
+        return reset;
+    }
+
+    /**
+     * Get the cache for a Talon, making it the first time
+     */
+    public static TalonConfigCache of(BaseMotorController motor) {
+        synchronized (caches) {
+            TalonConfigCache cache = caches.get(motor);
+            if (cache == null) {
+                cache = new TalonConfigCache(motor, new State(), RobotMap.CONTROLLER_TIMEOUT_MS);
+                caches.put(motor, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Things that can be configured. Each one can have several values (one per
+     * slot, PID loop or status frame), so the key is parameter + index.
+     */
+    private enum Param {
+        KF, KP, KI, KD, INTEGRAL_ZONE,              // per slot
+        PROFILE_SLOT, FEEDBACK_SENSOR,              // per PID loop
+        STATUS_FRAME, STATUS_FRAME_ENHANCED,        // per frame
+        MOTION_CRUISE_VELOCITY, MOTION_ACCELERATION, MOTION_PROFILE_TRAJECTORY_PERIOD,
+        OPEN_LOOP_RAMP, CLOSED_LOOP_RAMP, NEUTRAL_DEADBAND,
+        NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE,
+        PEAK_OUTPUT_FORWARD, PEAK_OUTPUT_REVERSE
+    }
+
+    // plenty of room for slots, loops, and frames
+    private static final int MAX_INDEX = 256;
+
+    /**
+     * What we know about one Talon, shared by its cache and any withTimeout() copies.
+     * Everything is guarded by locking the State.
+     */
+    private static class State {
+        // last value the Talon acknowledged for each parameter + index
+        final Map<Integer, Double> acknowledged = new HashMap<>();
+        // latest write sent for each parameter + index that hasn't been answered yet
+        final Map<Integer, Long> inFlight = new HashMap<>();
+        long lastWrite;
+
+        // CAN config traffic, for the dashboard
+        volatile int writes;
+        volatile int skips;
+        volatile int failures;
+        volatile int resets;
+    }
+
+    private final BaseMotorController motor;
+    private final State state;
+    private final int timeout_ms;
+
+    private TalonConfigCache(BaseMotorController motor, State state, int timeout_ms) {
+        this.motor = motor;
+        this.state = state;
+        this.timeout_ms = timeout_ms;
+    }
+
+    public BaseMotorController getMotor() {
+        return motor;
+    }
+
+    /**
+     * The same cache, but with writes waiting this long for the Talon to answer.
+     * 0 doesn't wait at all, and the value is remembered as soon as it's sent.
+     */
+    public TalonConfigCache withTimeout(int timeout_ms) {
+        if (timeout_ms == this.timeout_ms) {
+            return this;
+        }
+        return new TalonConfigCache(motor, state, timeout_ms);
+    }
+
+    /**
+     * Forget everything, every parameter gets written next time
+     */
+    public void invalidate() {
+        synchronized (state) {
+            state.acknowledged.clear();
+            // anything still being written can't be trusted either
+            state.inFlight.clear();
+        }
+    }
+
+    /**
+     * Forget everything if the Talon has reset since the last check
+     *
+     * @return true if it had
+     */
+    public boolean checkForReset() {
+        if (!motor.hasResetOccurred()) {
+            return false;
+        }
+        synchronized (state) {
+            state.acknowledged.clear();
+            state.inFlight.clear();
+            state.resets++;
+        }
+        return true;
+    }
+
+    /**
+     * Send a write if the value is different from the last one acknowledged
+     *
+     * @param write does the actual config call
+     * @return OK if skipped, otherwise whatever the Talon said
+     */
+    private ErrorCode write(Param param, int index, double value, Supplier<ErrorCode> write) {
+        Integer key = param.ordinal() * MAX_INDEX + index;
+        long id;
+        synchronized (state) {
+            Double last = state.acknowledged.get(key);
+            // if another write is still going the Talon could end up with either value
+            if (last != null && last == value && !state.inFlight.containsKey(key)) {
+                state.skips++;
+                return ErrorCode.OK;
+            }
+            id = ++state.lastWrite;
+            state.inFlight.put(key, id);
+            state.writes++;
+        }
+
+        // can wait up to timeout_ms for the Talon, so not while holding the lock
+        ErrorCode error = write.get();
+
+        synchronized (state) {
+            if (error != ErrorCode.OK) {
+                state.failures++;
+            }
+            Long latest = state.inFlight.get(key);
+            if (latest == null || latest != id) {
+                // invalidated, or a newer write was sent while we waited; leave it to that one
+                return error;
+            }
+            state.inFlight.remove(key);
+            if (error == ErrorCode.OK) {
+                state.acknowledged.put(key, value);
+            }
+            else {
+                // don't know what the Talon has now
+                state.acknowledged.remove(key);
+            }
+        }
+        return error;
+    }
+
+    public ErrorCode configFactoryDefault() {
+        ErrorCode error = motor.configFactoryDefault(timeout_ms);
+        // either everything is back to defaults or we don't know what it is
+        synchronized (state) {
+            state.acknowledged.clear();
+            state.inFlight.clear();
+            state.writes++;
+            if (error != ErrorCode.OK) {
+                state.failures++;
+            }
+        }
+        return error;
+    }
+
+    // PIDF gains
+
+    public ErrorCode config_kF(int slot, double value) {
+        return write(Param.KF, slot, value, () -> motor.config_kF(slot, value, timeout_ms));
+    }
+
+    public ErrorCode config_kP(int slot, double value) {
+        return write(Param.KP, slot, value, () -> motor.config_kP(slot, value, timeout_ms));
+    }
+
+    public ErrorCode config_kI(int slot, double value) {
+        return write(Param.KI, slot, value, () -> motor.config_kI(slot, value, timeout_ms));
+    }
+
+    public ErrorCode config_kD(int slot, double value) {
+        return write(Param.KD, slot, value, () -> motor.config_kD(slot, value, timeout_ms));
+    }
+
+    public ErrorCode config_IntegralZone(int slot, int value) {
+        return write(Param.INTEGRAL_ZONE, slot, value, () -> motor.config_IntegralZone(slot, value, timeout_ms));
+    }
+
+    /**
+     * Not a config call (no answer to wait for), but still a CAN frame, so skip it if nothing changes
+     */
+    public ErrorCode selectProfileSlot(int slot, int pidLoop) {
+        return write(Param.PROFILE_SLOT, pidLoop, slot, () -> {
+            motor.selectProfileSlot(slot, pidLoop);
+            return ErrorCode.OK;
+        });
+    }
+
+    // Sensors and status frames
+
+    public ErrorCode configSelectedFeedbackSensor(FeedbackDevice device, int pidLoop) {
+        return write(Param.FEEDBACK_SENSOR, pidLoop, device.ordinal(),
+                     () -> motor.configSelectedFeedbackSensor(device, pidLoop, timeout_ms));
+    }
+
+    public ErrorCode setStatusFramePeriod(StatusFrame frame, int period_ms) {
+        return write(Param.STATUS_FRAME, frame.ordinal(), period_ms,
+                     () -> motor.setStatusFramePeriod(frame, period_ms, timeout_ms));
+    }
+
+    /**
+     * Only Talons have the enhanced status frames
+     */
+    public ErrorCode setStatusFramePeriod(StatusFrameEnhanced frame, int period_ms) {
+        return write(Param.STATUS_FRAME_ENHANCED, frame.ordinal(), period_ms,
+                     () -> ((TalonSRX) motor).setStatusFramePeriod(frame, period_ms, timeout_ms));
+    }
+
+    // Motion Magic
+
+    public ErrorCode configMotionCruiseVelocity(int value) {
+        return write(Param.MOTION_CRUISE_VELOCITY, 0, value, () -> motor.configMotionCruiseVelocity(value, timeout_ms));
+    }
+
+    public ErrorCode configMotionAcceleration(int value) {
+        return write(Param.MOTION_ACCELERATION, 0, value, () -> motor.configMotionAcceleration(value, timeout_ms));
+    }
+
+    // Motion profiles
+
+    public ErrorCode configMotionProfileTrajectoryPeriod(int period_ms) {
+        return write(Param.MOTION_PROFILE_TRAJECTORY_PERIOD, 0, period_ms,
+                     () -> motor.configMotionProfileTrajectoryPeriod(period_ms, timeout_ms));
+    }
+
+    // Output shaping
+
+    public ErrorCode configOpenloopRamp(double value) {
+        return write(Param.OPEN_LOOP_RAMP, 0, value, () -> motor.configOpenloopRamp(value, timeout_ms));
+    }
+
+    public ErrorCode configClosedloopRamp(double value) {
+        return write(Param.CLOSED_LOOP_RAMP, 0, value, () -> motor.configClosedloopRamp(value, timeout_ms));
+    }
+
+    public ErrorCode configNeutralDeadband(double value) {
+        return write(Param.NEUTRAL_DEADBAND, 0, value, () -> motor.configNeutralDeadband(value, timeout_ms));
+    }
+
+    public ErrorCode configNominalOutputForward(double value) {
+        return write(Param.NOMINAL_OUTPUT_FORWARD, 0, value, () -> motor.configNominalOutputForward(value, timeout_ms));
+    }
+
+    public ErrorCode configNominalOutputReverse(double value) {
+        return write(Param.NOMINAL_OUTPUT_REVERSE, 0, value, () -> motor.configNominalOutputReverse(value, timeout_ms));
+    }
+
+    public ErrorCode configPeakOutputForward(double value) {
+        return write(Param.PEAK_OUTPUT_FORWARD, 0, value, () -> motor.configPeakOutputForward(value, timeout_ms));
+    }
+
+    public ErrorCode configPeakOutputReverse(double value) {
+        return write(Param.PEAK_OUTPUT_REVERSE, 0, value, () -> motor.configPeakOutputReverse(value, timeout_ms));
+    }
+
+    /**
+     * Writes actually sent to the Talon
+     */
+    public int getWrites() {
+        return state.writes;
+    }
+
+    /**
+     * Writes skipped because the Talon already had the value
+     */
+    public int getSkips() {
+        return state.skips;
+    }
+
+    /**
+     * Writes the Talon didn't acknowledge
+     */
+    public int getFailures() {
+        return state.failures;
+    }
+
+    /**
+     * Times checkForReset() found the Talon had reset
+     */
+    public int getResets() {
+        return state.resets;
+    }
+
+    /**
+     * Put this Talon's config traffic on the dashboard
+     */
+    public void updateDashboard(String prefix) {
+        String name = prefix + "/Talon " + motor.getDeviceID();
+        SmartDashboard.putNumber(name + " Config Writes", state.writes);
+        SmartDashboard.putNumber(name + " Config Skips", state.skips);
+        SmartDashboard.putNumber(name + " Config Failures", state.failures);
+        SmartDashboard.putNumber(name + " Resets", state.resets);
+    }
+}
@@ -0,0 +1,275 @@
+package frc.robot.utils.talonutils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Configures every Talon at the same time instead of one after another.
+ *
+ * Most of the time spent configuring a Talon is waiting for it to answer
+ * over CAN, so while one Talon is thinking about its factory default the
+ * others can be getting theirs. Each device gets a job (a list of steps run
+ * in order on their own thread), and every step's ErrorCode is checked and
+ * the step tried again if it failed.
+ *
+ *     TalonInitializer.instance().device("Arm", armMotor)
+ *         .step("defaults", () -> TalonUtils.initializeMotorDefaults(armMotor))
+ *         .run("brake", () -> armMotor.setNeutralMode(NeutralMode.Brake))
+ *         .start();
+ *
+ * Subsystems start their jobs when they're constructed, and robotInit calls
+ * awaitAll() once everything has been started so nothing runs before the
+ * Talons are ready.
+ *
+ * A job that's still going when awaitAll() gives up can't be stopped (the
+ * CTRE calls don't notice interrupts), so it keeps running. Its Talon is held
+ * in the StatusFrameScheduler until the job is done, so the two don't fight
+ * over its frame periods, and the dashboard shows which ones timed out.
+ */
+public class TalonInitializer {
+
+    // Singleton method; use TalonInitializer.instance() to get the TalonInitializer instance.
+    public static TalonInitializer instance() {
+        if (inst == null) {
+            inst = new TalonInitializer();
+        }
+        return inst;
+    }
+    private static TalonInitializer inst;
+
+    // tries per step before giving up on it
+    public static final int MAX_ATTEMPTS = 3;
+    // wait between tries, gives the bus a moment
+    public static final long RETRY_DELAY_MS = 10;
+
+    /**
+     * One configuration step, returns what the Talon said
+     */
+    @FunctionalInterface
+    public interface ConfigStep {
+        ErrorCode apply();
+    }
+
+    // threads are mostly waiting on CAN, so one per device; they go away when idle
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "TalonInitializer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Job> jobs = new ArrayList<>();
+
+    private TalonInitializer() {
+    }
+
+    /**
+     * Start describing the configuration for a device, call start() on the result to run it
+     *
+     * @param name shows up in error messages and on the dashboard
+     * @param motor the Talon the job configures
+     */
+    public Job device(String name, BaseMotorController motor) {
+        return new Job(name, motor);
+    }
+
+    /**
+     * Wait for every job started so far and report how it went
+     *
+     * @param timeout_sec longest to wait for all of them together
+     * @return true if every step of every job worked
+     */
+    public boolean awaitAll(double timeout_sec) {
+        List<Job> pending;
+        synchronized (jobs) {
+            pending = new ArrayList<>(jobs);
+            jobs.clear();
+        }
+
+        long first_ns = System.nanoTime();
+        long deadline_ns = first_ns + (long) (timeout_sec * 1e9);
+        boolean allOk = true;
+        double sequential_sec = 0;
+        List<String> timedOut = new ArrayList<>();
+
+        // from when the first job was started, that's how long they took all together
+        for (Job job : pending) {
+            first_ns = Math.min(first_ns, job.started_ns);
+        }
+
+        for (Job job : pending) {
+            try {
+                long left_ns = Math.max(0, deadline_ns - System.nanoTime());
+                job.future.get(left_ns, TimeUnit.NANOSECONDS);
+            }
+            catch (TimeoutException e) {
+                // can't be stopped, keep the scheduler off its Talon until it's done
+                if (job.holdUntilDone()) {
+                    timedOut.add(job.name);
+                    allOk = false;
+                    DriverStation.reportError("Talon initialization for " + job.name + " timed out in step '" +
+                                              job.currentStep + "', still running", false);
+                    continue;
+                }
+            }
+            catch (Exception e) {
+                job.failure = "threw " + e;
+            }
+
+            if (job.failure != null) {
+                allOk = false;
+                DriverStation.reportError("Talon initialization for " + job.name + " failed: " + job.failure, false);
+            }
+            sequential_sec += job.elapsed_sec;
+            SmartDashboard.putNumber("TalonInitializer/" + job.name + " (ms)", job.elapsed_sec * 1000.0);
+            SmartDashboard.putNumber("TalonInitializer/" + job.name + " Retries", job.retries);
+        }
+
+        double total_sec = (System.nanoTime() - first_ns) / 1e9;
+        SmartDashboard.putNumber("TalonInitializer/Total (ms)", total_sec * 1000.0);
+        SmartDashboard.putNumber("TalonInitializer/Sequential (ms)", sequential_sec * 1000.0);
+        SmartDashboard.putBoolean("TalonInitializer/OK", allOk);
+        SmartDashboard.putString("TalonInitializer/Timed Out", String.join(", ", timedOut));
+        System.out.println("Talon initialization: " + pending.size() + " devices in " +
+                           Math.round(total_sec * 1000.0) + " ms (" +
+                           Math.round(sequential_sec * 1000.0) + " ms one at a time)" +
+                           (allOk ? "" : ", WITH FAILURES") +
+                           (timedOut.isEmpty() ? "" : ", still waiting on " + String.join(", ", timedOut)));
+        return allOk;
+    }
+
+    /**
+     * Everything that has to be done to one device, in order
+     */
+    public class Job {
+        private final String name;
+        private final BaseMotorController motor;
+        private final List<String> descriptions = new ArrayList<>();
+        private final List<ConfigStep> steps = new ArrayList<>();
+
+        private Future<?> future;
+        private volatile String currentStep = "not started";
+        private volatile String failure;
+        private volatile int retries;
+        private volatile double elapsed_sec;
+        private long started_ns;
+        // both only touched holding the Job's lock
+        private boolean done;
+        private boolean held;
+
+        private Job(String name, BaseMotorController motor) {
+            this.name = name;
+            this.motor = motor;
+        }
+
+        /**
+         * Add a step that returns an ErrorCode, tried again if it isn't OK
+         */
+        public Job step(String description, ConfigStep step) {
+            descriptions.add(description);
+            steps.add(step);
+            return this;
+        }
+
+        /**
+         * Add a step that can't fail (ex. setInverted, follow)
+         */
+        public Job run(String description, Runnable step) {
+            return step(description, () -> {
+                step.run();
+                return ErrorCode.OK;
+            });
+        }
+
+        /**
+         * Start running the steps in the background
+         */
+        public Job start() {
+            started_ns = System.nanoTime();
+            future = executor.submit(this::runSteps);
+            synchronized (jobs) {
+                jobs.add(this);
+            }
+            return this;
+        }
+
+        private void runSteps() {
+            long start_ns = System.nanoTime();
+            try {
+                for (int i = 0; i < steps.size(); i++) {
+                    currentStep = descriptions.get(i);
+                    ErrorCode error = steps.get(i).apply();
+                    for (int attempt = 1; error != ErrorCode.OK && attempt < MAX_ATTEMPTS; attempt++) {
+                        retries++;
+                        Thread.sleep(RETRY_DELAY_MS);
+                        error = steps.get(i).apply();
+                    }
+                    if (error != ErrorCode.OK) {
+                        // keep going, the rest of the steps may still work
+                        failure = (failure == null ? "" : failure + ", ") + "'" + currentStep + "' gave " + error;
+                    }
+                }
+                currentStep = "done";
+            }
+            catch (InterruptedException e) {
+                failure = "interrupted in step '" + currentStep + "'";
+            }
+            finally {
+                elapsed_sec = (System.nanoTime() - start_ns) / 1e9;
+                finished();
+            }
+        }
+
+        /**
+         * Hold the Talon in the StatusFrameScheduler until the steps are done
+         *
+         * @return false if they already are
+         */
+        private synchronized boolean holdUntilDone() {
+            if (done) {
+                return false;
+            }
+            held = true;
+            StatusFrameScheduler.instance().hold(motor);
+            return true;
+        }
+
+        private synchronized void finished() {
+            done = true;
+            if (held) {
+                held = false;
+                DriverStation.reportWarning("Talon initialization for " + name + " finished late, after " +
+                                            Math.round(elapsed_sec * 1000.0) + " ms" +
+                                            (failure == null ? "" : ": " + failure), false);
+                SmartDashboard.putNumber("TalonInitializer/" + name + " (ms)", elapsed_sec * 1000.0);
+                SmartDashboard.putNumber("TalonInitializer/" + name + " Retries", retries);
+                StatusFrameScheduler.instance().release(motor);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDone() {
+            return future != null && future.isDone();
+        }
+
+        /**
+         * What went wrong, or null if nothing has (yet)
+         */
+        public String getFailure() {
+            return failure;
+        }
+    }
+}
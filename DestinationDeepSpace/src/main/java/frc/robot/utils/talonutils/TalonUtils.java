@@ -1,5 +1,6 @@
 package frc.robot.utils.talonutils;
 
+import com.ctre.phoenix.ErrorCode;
 import com.ctre.phoenix.motorcontrol.ControlFrame;
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
@@ -18,89 +19,103 @@ public class TalonUtils {
      * The following T O D O is done.
      * T O D O: Move this to a separate package?
      */
-    public static void initializeMotorDefaults(WPI_TalonSRX motor)
+    public static ErrorCode initializeMotorDefaults(WPI_TalonSRX motor)
     {
-        // TODO: Check ErrorCode?
-        motor.configFactoryDefault(RobotMap.CONTROLLER_TIMEOUT_MS);
+        // through the cache so it knows to forget what it thought the Talon had
+        ErrorCode error = TalonConfigCache.of(motor).configFactoryDefault();
 
         motor.stopMotor();
 
+        return error;
     }
-    public static void initializeMotorFPID(WPI_TalonSRX motor, double kF, double kP, double kI, double kD, int iZone){
+    public static ErrorCode initializeMotorFPID(WPI_TalonSRX motor, double kF, double kP, double kI, double kD, int iZone){
         /**
          * The following T O D O is done.
          * T O D O: Actually write this function.
          */
 
         int slotIdx = 0;
-        initializeMotorFPID(motor, kF, kP, kI, kD, iZone, slotIdx);
+        return initializeMotorFPID(motor, kF, kP, kI, kD, iZone, slotIdx);
     }
-    public static void initializeMotorFPID(WPI_TalonSRX motor, double kF, double kP, double kI, double kD, int iZone, int slotIdx){
+    public static ErrorCode initializeMotorFPID(WPI_TalonSRX motor, double kF, double kP, double kI, double kD, int iZone, int slotIdx){
         /**
          * The following T O D O is done.
          * T O D O: Actually write this function too.
          */
 
-        int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
+        // only gains that actually changed get sent
+        TalonConfigCache config = TalonConfigCache.of(motor);
 
-        motor.selectProfileSlot(slotIdx, RobotMap.PRIMARY_PID_LOOP);
-        motor.config_kF(slotIdx, kF, timeout);
-        motor.config_kP(slotIdx, kP, timeout);
-        motor.config_kI(slotIdx, kI, timeout);
-        motor.config_kD(slotIdx, kD, timeout);
-        motor.config_IntegralZone(slotIdx, iZone, RobotMap.CONTROLLER_TIMEOUT_MS);
+        config.selectProfileSlot(slotIdx, RobotMap.PRIMARY_PID_LOOP);
+        return firstError(config.config_kF(slotIdx, kF),
+                          config.config_kP(slotIdx, kP),
+                          config.config_kI(slotIdx, kI),
+                          config.config_kD(slotIdx, kD),
+                          config.config_IntegralZone(slotIdx, iZone));
     }
 
-    public static void initializeQuadEncoderMotor(WPI_TalonSRX motor) {
-        initializeQuadEncoderMotor(motor, MAX_STATUS_FRAME_PERIOD);
+    public static ErrorCode initializeQuadEncoderMotor(WPI_TalonSRX motor) {
+        return initializeQuadEncoderMotor(motor, MAX_STATUS_FRAME_PERIOD);
     }
-    public static void initializeMagEncoderRelativeMotor(WPI_TalonSRX motor) {
-        initializeMagEncoderRelativeMotor(motor, MAX_STATUS_FRAME_PERIOD);
+    public static ErrorCode initializeMagEncoderRelativeMotor(WPI_TalonSRX motor) {
+        return initializeMagEncoderRelativeMotor(motor, MAX_STATUS_FRAME_PERIOD);
     }
-    public static void initializeMagEncoderAbsoluteMotor(WPI_TalonSRX motor) {
-        initializeMagEncoderAbsoluteMotor(motor, MAX_STATUS_FRAME_PERIOD);
+    public static ErrorCode initializeMagEncoderAbsoluteMotor(WPI_TalonSRX motor) {
+        return initializeMagEncoderAbsoluteMotor(motor, MAX_STATUS_FRAME_PERIOD);
     }
 
     /**
      * Initializes the quad encoder motor, whatever that means.
      */
-    public static void initializeQuadEncoderMotor(WPI_TalonSRX motor, int statusFramePeriod) {
+    public static ErrorCode initializeQuadEncoderMotor(WPI_TalonSRX motor, int statusFramePeriod) {
         int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
         int pidLoop = RobotMap.PRIMARY_PID_LOOP;
 
 
-        motor.configSelectedFeedbackSensor(FeedbackDevice.QuadEncoder, pidLoop, timeout);
-        motor.setSelectedSensorPosition(0,pidLoop, timeout);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod, timeout);
+        return firstError(TalonConfigCache.of(motor).configSelectedFeedbackSensor(FeedbackDevice.QuadEncoder, pidLoop),
+                          motor.setSelectedSensorPosition(0,pidLoop, timeout),
+                          TalonConfigCache.of(motor).setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod));
 
     }
 
     /**
      * Initializes the motor controller to have a relative mag encoder.
      */
-    public static void initializeMagEncoderRelativeMotor(WPI_TalonSRX motor, int statusFramePeriod) {
+    public static ErrorCode initializeMagEncoderRelativeMotor(WPI_TalonSRX motor, int statusFramePeriod) {
         int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
         int pidLoop = RobotMap.PRIMARY_PID_LOOP;
 
 
-        motor.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, pidLoop, timeout);
-        motor.setSelectedSensorPosition(0,pidLoop, timeout);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod, timeout);
+        return firstError(TalonConfigCache.of(motor).configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, pidLoop),
+                          motor.setSelectedSensorPosition(0,pidLoop, timeout),
+                          TalonConfigCache.of(motor).setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod));
 
     }
 
     /**
      * Initializes the motor controller to have a relative mag encoder.
      */
-    public static void initializeMagEncoderAbsoluteMotor(WPI_TalonSRX motor, int statusFramePeriod) {
+    public static ErrorCode initializeMagEncoderAbsoluteMotor(WPI_TalonSRX motor, int statusFramePeriod) {
         int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
         int pidLoop = RobotMap.PRIMARY_PID_LOOP;
 
 
-        motor.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute, pidLoop, timeout);
-        motor.setSelectedSensorPosition(0,pidLoop, timeout);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_8_PulseWidth, statusFramePeriod, timeout);
+        return firstError(TalonConfigCache.of(motor).configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute, pidLoop),
+                          motor.setSelectedSensorPosition(0,pidLoop, timeout),
+                          TalonConfigCache.of(motor).setStatusFramePeriod(StatusFrameEnhanced.Status_8_PulseWidth, statusFramePeriod));
+
+    }
 
+    /**
+     * First error out of several config calls, or OK if they all worked
+     */
+    public static ErrorCode firstError(ErrorCode... errors) {
+        for (ErrorCode error : errors) {
+            if (error != ErrorCode.OK) {
+                return error;
+            }
+        }
+        return ErrorCode.OK;
     }
 
 }
@@ -0,0 +1,135 @@
+package frc.robot.utils.telemetry;
+
+import java.util.Objects;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * One value on the dashboard, with its NetworkTable entry looked up once
+ * instead of every time it's sent.
+ *
+ * SmartDashboard.putNumber(getName() + "/left encoder", x) builds the key
+ * string and looks it up in a hash map on every call. A channel does that
+ * when it's made, and set() just hands a primitive to the entry:
+ *
+ *     leftEncoder = telemetry.channel("left encoder");
+ *     ...
+ *     leftEncoder.set(ticks);
+ *
+ * Values that haven't changed aren't sent again, and a channel can be
+ * decimated to only send every Nth set(). Channels belong to a TelemetryGroup
+ * and send nothing while their group is disabled.
+ *
+ * Keys are in the SmartDashboard table, so existing dashboard layouts still work.
+ */
+public class TelemetryChannel {
+
+    private static final String SMART_DASHBOARD_TABLE = "SmartDashboard";
+
+    private final TelemetryGroup group;
+    private final String key;
+    private final NetworkTableEntry entry;
+
+    private int decimation = 1;
+    private int calls;
+    private boolean dropUnchanged = true;
+
+    // last value of each type sent, so unchanged ones can be skipped
+    // (separate flags so switching types on one channel still sends)
+    private boolean sentNumber;
+    private boolean sentBoolean;
+    private boolean sentString;
+    private double lastNumber;
+    private boolean lastBoolean;
+    private String lastString;
+
+    TelemetryChannel(TelemetryGroup group, String key) {
+        this.group = group;
+        this.key = key;
+        this.entry = NetworkTableInstance.getDefault().getTable(SMART_DASHBOARD_TABLE).getEntry(key);
+        this.decimation = group.getDecimation();
+    }
+
+    /**
+     * Only send every Nth value given to set(), 1 sends all of them
+     */
+    public TelemetryChannel decimate(int decimation) {
+        this.decimation = Math.max(1, decimation);
+        return this;
+    }
+
+    /**
+     * Send every value even if it's the same as the last one
+     */
+    public TelemetryChannel sendUnchanged() {
+        this.dropUnchanged = false;
+        return this;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Send the next value no matter what (ex. after the group is enabled again)
+     */
+    void invalidate() {
+        sentNumber = false;
+        sentBoolean = false;
+        sentString = false;
+        calls = 0;
+    }
+
+    // true if this call should go out, before checking the value
+    private boolean due() {
+        if (!group.isEnabled()) {
+            return false;
+        }
+        return (calls++ % decimation) == 0;
+    }
+
+    public void set(double value) {
+        if (!due()) {
+            return;
+        }
+        // != is fine here, NaN never equals itself so it always gets sent
+        if (!dropUnchanged || !sentNumber || value != lastNumber) {
+            entry.setDouble(value);
+            lastNumber = value;
+            sentNumber = true;
+            sentBoolean = false;
+            sentString = false;
+        }
+    }
+
+    public void set(boolean value) {
+        if (!due()) {
+            return;
+        }
+        if (!dropUnchanged || !sentBoolean || value != lastBoolean) {
+            entry.setBoolean(value);
+            lastBoolean = value;
+            sentBoolean = true;
+            sentNumber = false;
+            sentString = false;
+        }
+    }
+
+    /**
+     * Compared with equals(), so sending the same string again only costs the compare.
+     * Null is passed on like SmartDashboard.putString() would.
+     */
+    public void set(String value) {
+        if (!due()) {
+            return;
+        }
+        if (!dropUnchanged || !sentString || !Objects.equals(value, lastString)) {
+            entry.setString(value);
+            lastString = value;
+            sentString = true;
+            sentNumber = false;
+            sentBoolean = false;
+        }
+    }
+}
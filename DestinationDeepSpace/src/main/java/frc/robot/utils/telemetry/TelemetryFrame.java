@@ -0,0 +1,122 @@
+package frc.robot.utils.telemetry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+
+import frc.robot.utils.logging.DataLogger;
+
+/**
+ * All of a subsystem's numbers for one loop, sent as a single double[] entry.
+ *
+ * Separate keys get sent separately, so the dashboard can end up showing
+ * values from different loops side by side. A frame is written all at once,
+ * so everything in it is from the same loop:
+ *
+ *     Telemetry/<name>/Frame   [sequence, timestamp_sec, field 0, field 1, ...]
+ *     Telemetry/<name>/Schema  ["sequence", "timestamp_sec", name of field 0, ...]
+ *
+ * The schema is only written once, with the first frame. Fields have to be
+ * added before then.
+ *
+ *     frame = new TelemetryFrame("DriveSubsystem");
+ *     LEFT_TICKS = frame.addField("Left Encoder (ticks)");
+ *     ...
+ *     frame.set(LEFT_TICKS, ticks);
+ *     frame.publish();
+ *
+ * NetworkTables only sends the latest value every flush (100 ms by default),
+ * so not every frame makes it to the dashboard; the sequence number shows
+ * which ones did. TelemetryFrameDecoder turns frames back into CSV on a laptop.
+ * Every frame also goes to the DataLogger, so the full rate copy is on the robot.
+ */
+public class TelemetryFrame {
+
+    public static final String TABLE = "Telemetry";
+    public static final String FRAME_KEY = "Frame";
+    public static final String SCHEMA_KEY = "Schema";
+
+    // slots at the front of every frame, before the fields
+    public static final int SEQUENCE = 0;
+    public static final int TIMESTAMP = 1;
+    public static final int HEADER_SIZE = 2;
+
+    private final String name;
+    private final NetworkTableEntry frameEntry;
+    private final NetworkTableEntry schemaEntry;
+
+    private final List<String> schema = new ArrayList<>();
+    private double[] frame = new double[HEADER_SIZE];
+    private long sequence;
+    private boolean schemaPublished;
+    private DataLogger.Record log;
+
+    public TelemetryFrame(String name) {
+        this.name = name;
+        NetworkTable table = NetworkTableInstance.getDefault().getTable(TABLE).getSubTable(name);
+        frameEntry = table.getEntry(FRAME_KEY);
+        schemaEntry = table.getEntry(SCHEMA_KEY);
+
+        schema.add("sequence");
+        schema.add("timestamp_sec");
+    }
+
+    /**
+     * Add a value to the frame
+     *
+     * @param fieldName with units, ex. "Left Speed (ips)"
+     * @return what to pass to set() for this field
+     */
+    public int addField(String fieldName) {
+        if (schemaPublished) {
+            throw new IllegalStateException("Can't add " + fieldName + " to " + name + " telemetry frame, it's already been published");
+        }
+        schema.add(fieldName);
+        frame = Arrays.copyOf(frame, schema.size());
+        return schema.size() - 1;
+    }
+
+    public void set(int field, double value) {
+        frame[field] = value;
+    }
+
+    public void set(int field, boolean value) {
+        frame[field] = value ? 1.0 : 0.0;
+    }
+
+    /**
+     * Send the frame, stamped with the time right now
+     */
+    public void publish() {
+        publish(Timer.getFPGATimestamp());
+    }
+
+    /**
+     * Send the frame, stamped with when its values were read
+     * (ex. SensorSnapshot.getTimestamp_sec())
+     */
+    public void publish(double timestamp_sec) {
+        if (!schemaPublished) {
+            schemaEntry.setStringArray(schema.toArray(new String[0]));
+            schemaPublished = true;
+            log = DataLogger.instance().record(name, schema.subList(HEADER_SIZE, schema.size()).toArray(new String[0]));
+        }
+        frame[SEQUENCE] = sequence++;
+        frame[TIMESTAMP] = timestamp_sec;
+        frameEntry.setDoubleArray(frame);
+        log.append(timestamp_sec, frame, HEADER_SIZE);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFieldCount() {
+        return schema.size() - HEADER_SIZE;
+    }
+}
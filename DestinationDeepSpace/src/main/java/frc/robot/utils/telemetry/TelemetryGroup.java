@@ -0,0 +1,77 @@
+package frc.robot.utils.telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of TelemetryChannels under one prefix (usually a subsystem's name)
+ * that get turned on and off together.
+ *
+ * BitBucketSubsystem has two: baseTelemetry, which is always on, and
+ * telemetry, which follows the subsystem's TelemetryEnabled switch.
+ */
+public class TelemetryGroup {
+
+    private final String prefix;
+    private final List<TelemetryChannel> channels = new ArrayList<>();
+
+    private volatile boolean enabled;
+    private int decimation = 1;
+
+    /**
+     * @param prefix put in front of every channel's key, with a "/" between ("" for none)
+     * @param enabled whether the group starts out sending
+     */
+    public TelemetryGroup(String prefix, boolean enabled) {
+        this.prefix = prefix;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Make a channel for prefix + "/" + name. Only do this once per name,
+     * the point is to keep the channel and reuse it.
+     */
+    public TelemetryChannel channel(String name) {
+        String key = prefix.isEmpty() ? name : prefix + "/" + name;
+        TelemetryChannel channel = new TelemetryChannel(this, key);
+        synchronized (channels) {
+            channels.add(channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Decimation for channels made after this, see TelemetryChannel.decimate()
+     */
+    public TelemetryGroup decimate(int decimation) {
+        this.decimation = Math.max(1, decimation);
+        return this;
+    }
+
+    int getDecimation() {
+        return decimation;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn the whole group on or off. Turning it on sends every channel's next
+     * value even if it hasn't changed, since the dashboard may have missed it.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            synchronized (channels) {
+                for (TelemetryChannel channel : channels) {
+                    channel.invalidate();
+                }
+            }
+        }
+        this.enabled = enabled;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+}
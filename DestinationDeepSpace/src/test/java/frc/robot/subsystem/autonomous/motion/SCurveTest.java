@@ -0,0 +1,92 @@
+package frc.robot.subsystem.autonomous.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * S_CURVE profiles start and end where they should and never change
+ * acceleration faster than the jerk limit
+ */
+public class SCurveTest {
+
+    private static final double ACC = 60;
+    private static final double V_CRUISE = 100;
+    private static final double DEC = -80;
+    private static final double JERK = 300;
+    // step used to estimate jerk from acceleration
+    private static final double DT = 1e-4;
+
+    private static TrajectoryFinder profile(double length, double v_start, double v_end) {
+        Waypoint[] waypoints = {
+            new Waypoint(0, 0, 0),
+            new Waypoint(length, 0, 0)
+        };
+        return new TrajectoryFinder(TrajectoryFinder.MotionProfile.S_CURVE, PathFinder.PathType.QUINTIC_HERMITE,
+            waypoints, ACC, V_CRUISE, DEC, v_start, v_end, JERK, new TrajectoryBuffer());
+    }
+
+    private static void checkEndpoints(TrajectoryFinder finder, double v_start, double v_end) {
+        double[] start = finder.getPointInfo(0);
+        assertEquals(0, start[0], 1e-9);
+        assertEquals(v_start, start[1], 1e-9);
+
+        // just before the end should already be there, not jump to it
+        double[] end = finder.getPointInfo(finder.t_total - 1e-9);
+        assertEquals(finder.totalDistance, end[0], 1e-3);
+        assertEquals(v_end, end[1], 1e-3);
+
+        double[] after = finder.getPointInfo(finder.t_total);
+        assertEquals(finder.totalDistance, after[0], 1e-9);
+        assertEquals(v_end, after[1], 1e-9);
+    }
+
+    private static void checkLimits(TrajectoryFinder finder) {
+        double[] previous = finder.getPointInfo(0);
+        for (double t = DT; t < finder.t_total; t += DT) {
+            double[] point = finder.getPointInfo(t);
+            assertTrue("velocity " + point[1] + " at " + t, point[1] <= V_CRUISE + 1e-6);
+            assertTrue("acceleration " + point[2] + " at " + t, point[2] <= ACC + 1e-6 && point[2] >= DEC - 1e-6);
+            // acceleration is continuous, so it can't move more than jerk*dt per step
+            double jerk = Math.abs(point[2] - previous[2]) / DT;
+            assertTrue("jerk " + jerk + " at " + t, jerk <= JERK * (1 + 1e-6));
+            assertTrue("going backwards at " + t, point[0] >= previous[0] - 1e-9);
+            previous = point;
+        }
+    }
+
+    @Test
+    public void longPathReachesCruise() {
+        TrajectoryFinder finder = profile(400, 0, 0);
+        checkEndpoints(finder, 0, 0);
+        checkLimits(finder);
+        assertEquals(V_CRUISE, finder.getPointInfo(finder.t_total / 2)[1], 1e-6);
+    }
+
+    @Test
+    public void shortPathNeverReachesAccelerationLimit() {
+        TrajectoryFinder finder = profile(10, 0, 0);
+        checkEndpoints(finder, 0, 0);
+        checkLimits(finder);
+    }
+
+    @Test
+    public void movingStartAndEnd() {
+        TrajectoryFinder finder = profile(200, 20, 40);
+        checkEndpoints(finder, 20, 40);
+        checkLimits(finder);
+    }
+
+    @Test
+    public void lastPointIsNearEndOfPath() {
+        TrajectoryFinder finder = profile(150, 0, 0);
+        TrajectoryBuffer points = finder.getPoints();
+        assertEquals(finder.getNumPoints(), points.size());
+        assertEquals(0, points.getPosition(0), 1e-9);
+        // last point is the last whole loop, so it can be up to one loop short of the end
+        double loop = 1 / finder.LOOP_HERTZ;
+        assertEquals(finder.totalDistance, points.getPosition(points.size() - 1), V_CRUISE * loop);
+        assertEquals(0, points.getVelocity(points.size() - 1), -DEC * loop);
+    }
+}
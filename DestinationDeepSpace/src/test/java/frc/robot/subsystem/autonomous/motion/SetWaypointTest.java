@@ -0,0 +1,69 @@
+package frc.robot.subsystem.autonomous.motion;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+/**
+ * Moving one waypoint gives the same splines as building the path from scratch,
+ * and doesn't touch finders made from the old path
+ */
+public class SetWaypointTest {
+
+    private static Waypoint[] waypoints() {
+        return new Waypoint[] {
+            new Waypoint(0, 0, 0),
+            new Waypoint(30, 50, 30),
+            new Waypoint(60, 90, 0),
+            new Waypoint(40, 140, -45),
+            new Waypoint(0, 200, 0)
+        };
+    }
+
+    private static void assertSameSplines(String message, Spline[] expected, Spline[] actual) {
+        assertEquals(message, expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(message + " x " + i, expected[i].xcoef, actual[i].xcoef, 1e-12);
+            assertArrayEquals(message + " y " + i, expected[i].ycoef, actual[i].ycoef, 1e-12);
+            assertEquals(message + " length " + i, expected[i].arcLength, actual[i].arcLength, 1e-9);
+            assertEquals(message + " previous " + i, expected[i].previousLength, actual[i].previousLength, 1e-9);
+        }
+    }
+
+    @Test
+    public void sameAsRebuilding() {
+        for (PathFinder.PathType type : PathFinder.PathType.values()) {
+            for (int index = 0; index < waypoints().length; index++) {
+                Waypoint moved = new Waypoint(index * 10 + 5, index * 45 - 3, 20);
+
+                PathFinder path = new PathFinder(waypoints(), type);
+                path.setWaypoint(index, moved);
+
+                Waypoint[] rebuilt = waypoints();
+                rebuilt[index] = moved;
+                assertSameSplines(type + " waypoint " + index, new PathFinder(rebuilt, type).splines, path.splines);
+            }
+        }
+    }
+
+    @Test
+    public void oldFinderKeepsOldPath() {
+        PathFinder path = new PathFinder(waypoints(), PathFinder.PathType.QUINTIC_HERMITE);
+        Spline[] before = path.splines;
+        TrajectoryFinder finder = new TrajectoryFinder(TrajectoryFinder.MotionProfile.TRAPEZOIDAL, path,
+            60, 100, -60, 0, 0, Double.POSITIVE_INFINITY, new TrajectoryBuffer());
+        MotionPoint expected = finder.getMotionPoint(finder.t_total / 2);
+
+        path.setWaypoint(2, new Waypoint(90, 80, 10));
+        assertNotSame(before, path.splines);
+        assertSameSplines("old path", new PathFinder(waypoints(), PathFinder.PathType.QUINTIC_HERMITE).splines, before);
+
+        MotionPoint actual = finder.getMotionPoint(finder.t_total / 2);
+        assertEquals(expected.l_pos, actual.l_pos, 0);
+        assertEquals(expected.r_pos, actual.r_pos, 0);
+        assertEquals(expected.l_vel, actual.l_vel, 0);
+        assertEquals(expected.r_vel, actual.r_vel, 0);
+    }
+}
@@ -0,0 +1,90 @@
+package frc.robot.subsystem.autonomous.motion;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks the adaptive arc length table against brute force integration
+ */
+public class SplineTest {
+
+    private static final PathFinder.PathType[] TYPES = PathFinder.PathType.values();
+
+    private static final Waypoint[] WAYPOINTS = {
+        new Waypoint(0, 0, 0),
+        new Waypoint(60, 40, 45),
+        new Waypoint(120, 40, -30),
+        new Waypoint(200, 0, 0)
+    };
+
+    // length of a spline by adding up lots of tiny straight lines
+    private static double polylineLength(Spline spline, double s_end) {
+        int steps = 200_000;
+        double length = 0;
+        double x = spline.evaluateFunction(spline.xcoef, 0);
+        double y = spline.evaluateFunction(spline.ycoef, 0);
+        for (int i = 1; i <= steps; i++) {
+            double s = s_end * i / steps;
+            double nextX = spline.evaluateFunction(spline.xcoef, s);
+            double nextY = spline.evaluateFunction(spline.ycoef, s);
+            length += Math.hypot(nextX - x, nextY - y);
+            x = nextX;
+            y = nextY;
+        }
+        return length;
+    }
+
+    @Test
+    public void straightLineLengthIsDistance() {
+        for (PathFinder.PathType type : TYPES) {
+            PathFinder path = new PathFinder(new Waypoint[] {
+                new Waypoint(0, 0, 0),
+                new Waypoint(100, 0, 0)
+            }, type);
+            // some path types have extra bits at the ends, but it's still all on the line
+            double total = 0;
+            for (Spline spline : path.splines) {
+                total += spline.arcLength;
+            }
+            assertEquals(type.toString(), 100, total, 1e-9);
+        }
+    }
+
+    @Test
+    public void arcLengthMatchesBruteForce() {
+        for (PathFinder.PathType type : TYPES) {
+            PathFinder path = new PathFinder(WAYPOINTS, type);
+            for (Spline spline : path.splines) {
+                assertEquals(type.toString(), polylineLength(spline, 1), spline.arcLength, 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void previousLengthAddsUp() {
+        for (PathFinder.PathType type : TYPES) {
+            PathFinder path = new PathFinder(WAYPOINTS, type);
+            double total = 0;
+            for (Spline spline : path.splines) {
+                assertEquals(type.toString(), total, spline.previousLength, 1e-9);
+                total += spline.arcLength;
+            }
+        }
+    }
+
+    @Test
+    public void getSInvertsArcLength() {
+        PathFinder path = new PathFinder(WAYPOINTS, PathFinder.PathType.QUINTIC_HERMITE);
+        for (Spline spline : path.splines) {
+            assertEquals(0, spline.getS(0), 1e-9);
+            assertEquals(1, spline.getS(spline.arcLength), 1e-9);
+            for (double fraction : new double[] {0.1, 0.25, 0.5, 0.9}) {
+                double l = spline.arcLength * fraction;
+                double s = spline.getS(l);
+                // interpolating the table is good to about INTERPOLATION_TOLERANCE of the knot distance
+                assertEquals(l, polylineLength(spline, s), spline.knot_Distance * Spline.INTERPOLATION_TOLERANCE * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package frc.robot.subsystem.autonomous.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Trajectories written to a file come back exactly the same
+ */
+public class TrajectoryLibraryTest {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("trajectories", ".bin");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static TrajectoryBuffer trajectory(double length, double heading) {
+        Waypoint[] waypoints = {
+            new Waypoint(0, 0, 0),
+            new Waypoint(length / 2, length, heading)
+        };
+        return new TrajectoryFinder(TrajectoryFinder.MotionProfile.TRAPEZOIDAL, PathFinder.PathType.QUINTIC_HERMITE,
+            waypoints, 60, 100, -60, 0, 0, new TrajectoryBuffer()).getPoints();
+    }
+
+    private static void assertSameTrajectory(String name, Trajectory expected, Trajectory actual) {
+        assertEquals(name, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(name, expected.getPosition(i), actual.getPosition(i), 0);
+            assertEquals(name, expected.getVelocity(i), actual.getVelocity(i), 0);
+            assertEquals(name, expected.getAcceleration(i), actual.getAcceleration(i), 0);
+            assertEquals(name, expected.getHeading(i), actual.getHeading(i), 0);
+            assertEquals(name, expected.getTurnRate(i), actual.getTurnRate(i), 0);
+            assertEquals(name, expected.getTurnAcceleration(i), actual.getTurnAcceleration(i), 0);
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Map<String, TrajectoryBuffer> trajectories = new LinkedHashMap<>();
+        trajectories.put("short", trajectory(40, 10));
+        // odd length name so the point data needs padding to line up
+        trajectories.put("longer one", trajectory(150, -30));
+        trajectories.put("empty", new TrajectoryBuffer());
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            TrajectoryLibrary.write(trajectories, 200, out);
+        }
+        TrajectoryLibrary library = TrajectoryLibrary.load(file);
+
+        assertEquals(3, library.size());
+        assertEquals(Arrays.asList("short", "longer one", "empty"), Arrays.asList(library.getNames().toArray()));
+        for (Map.Entry<String, TrajectoryBuffer> entry : trajectories.entrySet()) {
+            TrajectoryView view = library.get(entry.getKey());
+            assertEquals(entry.getKey(), view.getName());
+            assertEquals(200, view.getLoopHertz(), 0);
+            assertSameTrajectory(entry.getKey(), entry.getValue(), view);
+        }
+        assertNull(library.get("missing"));
+    }
+
+    @Test
+    public void copyToBuffer() throws IOException {
+        Map<String, TrajectoryBuffer> trajectories = new LinkedHashMap<>();
+        trajectories.put("path", trajectory(80, 20));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            TrajectoryLibrary.write(trajectories, 200, out);
+        }
+
+        TrajectoryBuffer copy = new TrajectoryBuffer();
+        TrajectoryLibrary.load(file).get("path").copyTo(copy);
+        assertSameTrajectory("path", trajectories.get("path"), copy);
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        try {
+            TrajectoryLibrary.load(file);
+            fail("loaded a file that isn't a trajectory file");
+        }
+        catch (IOException e) {
+            // expected
+        }
+
+        // right magic, but cut off in the middle of the directory
+        Files.write(file, new byte[] {0x42, 0x42, 0x54, 0x4A, 0, 0, 0, 1, 0, 0, 0, 5, 0});
+        try {
+            TrajectoryLibrary.load(file);
+            fail("loaded a truncated file");
+        }
+        catch (IOException e) {
+            // expected
+        }
+    }
+}
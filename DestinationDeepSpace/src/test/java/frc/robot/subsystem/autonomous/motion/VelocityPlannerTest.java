@@ -0,0 +1,102 @@
+package frc.robot.subsystem.autonomous.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * The time optimal planner stays under every one of its caps
+ */
+public class VelocityPlannerTest {
+
+    private static final double V_MAX = 120;
+    private static final double ACC = 80;
+    private static final double DEC = -100;
+    private static final double MAX_LAT_ACC = 60;
+    private static final double TRACK_WIDTH = 24;
+    private static final double DT = 1e-3;
+
+    private static final PathFinder CURVY = new PathFinder(new Waypoint[] {
+        new Waypoint(0, 0, 0),
+        new Waypoint(40, 60, 90),
+        new Waypoint(0, 120, 180),
+        new Waypoint(-40, 180, 90)
+    }, PathFinder.PathType.QUINTIC_HERMITE);
+
+    private static double curvatureAt(PathFinder path, double distance) {
+        double[] splineNo = path.getSplineNo(distance);
+        Spline spline = path.splines[(int) splineNo[0]];
+        return Math.abs(spline.getCurvature(spline.getS(splineNo[1])));
+    }
+
+    @Test
+    public void startsAndEndsAtGivenVelocities() {
+        VelocityPlanner planner = new VelocityPlanner(CURVY, V_MAX, ACC, DEC, 10, 5, MAX_LAT_ACC, TRACK_WIDTH);
+        double[] result = new double[3];
+
+        planner.getPointInfo(0, result);
+        assertEquals(0, result[0], 1e-9);
+        assertEquals(10, result[1], 1e-9);
+
+        planner.getPointInfo(planner.getDuration(), result);
+        assertEquals(planner.getTotalDistance(), result[0], 1e-9);
+        assertEquals(5, result[1], 1e-9);
+
+        double total = 0;
+        for (Spline spline : CURVY.splines) {
+            total += spline.arcLength;
+        }
+        assertEquals(total, planner.getTotalDistance(), 1e-9);
+    }
+
+    @Test
+    public void staysUnderVelocityAndAccelerationCaps() {
+        VelocityPlanner planner = new VelocityPlanner(CURVY, V_MAX, ACC, DEC, 0, 0, MAX_LAT_ACC, TRACK_WIDTH);
+        double[] result = new double[3];
+        double lastPosition = 0;
+        for (double t = 0; t <= planner.getDuration(); t += DT) {
+            planner.getPointInfo(t, result);
+            assertTrue("velocity " + result[1] + " at " + t, result[1] <= V_MAX + 1e-9);
+            assertTrue("acceleration " + result[2] + " at " + t, result[2] <= ACC + 1e-6);
+            assertTrue("deceleration " + result[2] + " at " + t, result[2] >= DEC - 1e-6);
+            assertTrue("going backwards at " + t, result[0] >= lastPosition - 1e-9);
+            lastPosition = result[0];
+        }
+    }
+
+    @Test
+    public void slowsDownForCurves() {
+        VelocityPlanner planner = new VelocityPlanner(CURVY, V_MAX, ACC, DEC, 0, 0, MAX_LAT_ACC, TRACK_WIDTH);
+
+        // caps only hold exactly at the samples, so allow a little for the bits in between
+        double[] result = new double[3];
+        for (double t = 0; t <= planner.getDuration(); t += DT) {
+            planner.getPointInfo(t, result);
+            double curvature = curvatureAt(CURVY, result[0]);
+            double v = result[1];
+            assertTrue("lateral acceleration " + v * v * curvature + " at " + t,
+                v * v * curvature <= MAX_LAT_ACC * 1.05);
+            assertTrue("outside wheel " + v * (1 + curvature * TRACK_WIDTH / 2) + " at " + t,
+                v * (1 + curvature * TRACK_WIDTH / 2) <= V_MAX * 1.05);
+        }
+    }
+
+    @Test
+    public void straightPathReachesMaxVelocity() {
+        PathFinder straight = new PathFinder(new Waypoint[] {
+            new Waypoint(0, 0, 0),
+            new Waypoint(300, 0, 0)
+        }, PathFinder.PathType.QUINTIC_HERMITE);
+        VelocityPlanner planner = new VelocityPlanner(straight, V_MAX, ACC, DEC, 0, 0, MAX_LAT_ACC, TRACK_WIDTH);
+        double[] result = new double[3];
+        planner.getPointInfo(planner.getDuration() / 2, result);
+        assertEquals(V_MAX, result[1], 1e-6);
+
+        // same as a trapezoid with the same limits
+        double d_acc = V_MAX * V_MAX / 2 / ACC;
+        double d_dec = -V_MAX * V_MAX / 2 / DEC;
+        double expected = V_MAX / ACC - V_MAX / DEC + (planner.getTotalDistance() - d_acc - d_dec) / V_MAX;
+        assertEquals(expected, planner.getDuration(), 0.01);
+    }
+}
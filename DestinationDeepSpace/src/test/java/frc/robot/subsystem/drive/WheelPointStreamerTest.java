@@ -0,0 +1,177 @@
+package frc.robot.subsystem.drive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+
+import org.junit.Test;
+
+import frc.robot.subsystem.autonomous.motion.Trajectory;
+
+/**
+ * A push failing on one side only must not leave the sides a point apart
+ */
+public class WheelPointStreamerTest {
+
+    private static final int POINTS = 40;
+
+    /**
+     * Top buffer that remembers what was pushed, and fails the pushes it's told to
+     */
+    private static class FakeBuffer implements WheelPointStreamer.PointBuffer {
+        final List<Double> positions = new ArrayList<>();
+        final List<Boolean> lastPoints = new ArrayList<>();
+        // push attempts (counting from 0) that fail
+        final Set<Integer> failures = new HashSet<>();
+        int attempts;
+        int capacity = Integer.MAX_VALUE;
+
+        @Override
+        public boolean isFull() {
+            return positions.size() >= capacity;
+        }
+
+        @Override
+        public ErrorCode push(TrajectoryPoint point) {
+            if (failures.contains(attempts++)) {
+                return ErrorCode.GeneralError;
+            }
+            positions.add(point.position);
+            lastPoints.add(point.isLastPoint);
+            return ErrorCode.OK;
+        }
+    }
+
+    // a gentle left turn, so left and right points are different
+    private static final Trajectory TURN = new Trajectory() {
+        public int size() { return POINTS; }
+        public double getPosition(int i) { return i * 0.5; }
+        public double getVelocity(int i) { return 100; }
+        public double getAcceleration(int i) { return 0; }
+        public double getHeading(int i) { return i * 0.01; }
+        public double getTurnRate(int i) { return 2; }
+        public double getTurnAcceleration(int i) { return 0; }
+    };
+
+    private static void pushEverything(WheelPointStreamer streamer) {
+        for (int tick = 0; tick < 100 && ! streamer.allPushed(); tick++) {
+            streamer.topUp(7);
+        }
+        assertTrue(streamer.allPushed());
+    }
+
+    private static FakeBuffer[] reference() {
+        FakeBuffer left = new FakeBuffer();
+        FakeBuffer right = new FakeBuffer();
+        WheelPointStreamer streamer = new WheelPointStreamer(left, right);
+        streamer.start(TURN, 1000, -1000);
+        pushEverything(streamer);
+        return new FakeBuffer[] {left, right};
+    }
+
+    private static void assertSamePoints(FakeBuffer expected, FakeBuffer actual) {
+        assertEquals(expected.positions, actual.positions);
+        assertEquals(expected.lastPoints, actual.lastPoints);
+    }
+
+    @Test
+    public void everyPointOnceWithoutFailures() {
+        FakeBuffer[] sides = reference();
+        assertEquals(POINTS, sides[0].positions.size());
+        assertEquals(POINTS, sides[1].positions.size());
+        assertTrue(sides[0].lastPoints.get(POINTS - 1));
+        assertEquals(1, sides[0].lastPoints.stream().filter(last -> last).count());
+        // turning left, so the right wheel goes further
+        assertTrue(sides[1].positions.get(POINTS - 1) - sides[1].positions.get(0) >
+                   sides[0].positions.get(POINTS - 1) - sides[0].positions.get(0));
+    }
+
+    @Test
+    public void leftFailsOnly() {
+        FakeBuffer left = new FakeBuffer();
+        FakeBuffer right = new FakeBuffer();
+        left.failures.add(3);
+        left.failures.add(20);
+        WheelPointStreamer streamer = new WheelPointStreamer(left, right);
+        streamer.start(TURN, 1000, -1000);
+
+        streamer.topUp(50);
+        assertEquals(3, streamer.getNextPoint());
+        assertEquals(1, streamer.getPushErrorCount());
+
+        pushEverything(streamer);
+        FakeBuffer[] expected = reference();
+        assertSamePoints(expected[0], left);
+        assertSamePoints(expected[1], right);
+        assertEquals(2, streamer.getPushErrorCount());
+    }
+
+    @Test
+    public void rightFailsOnly() {
+        FakeBuffer left = new FakeBuffer();
+        FakeBuffer right = new FakeBuffer();
+        right.failures.add(3);
+        right.failures.add(4);
+        right.failures.add(30);
+        WheelPointStreamer streamer = new WheelPointStreamer(left, right);
+        streamer.start(TURN, 1000, -1000);
+
+        // left already has point 3, and mustn't get it again while right catches up
+        streamer.topUp(50);
+        assertEquals(3, streamer.getNextPoint());
+        assertEquals(4, left.positions.size());
+        assertEquals(3, right.positions.size());
+        streamer.topUp(50);
+        assertEquals(4, left.positions.size());
+        assertEquals(3, right.positions.size());
+
+        pushEverything(streamer);
+        FakeBuffer[] expected = reference();
+        assertSamePoints(expected[0], left);
+        assertSamePoints(expected[1], right);
+        assertEquals(3, streamer.getPushErrorCount());
+    }
+
+    @Test
+    public void stopsWhenABufferIsFull() {
+        FakeBuffer left = new FakeBuffer();
+        FakeBuffer right = new FakeBuffer();
+        right.capacity = 5;
+        WheelPointStreamer streamer = new WheelPointStreamer(left, right);
+        streamer.start(TURN, 0, 0);
+
+        streamer.topUp(50);
+        assertEquals(5, left.positions.size());
+        assertEquals(5, right.positions.size());
+        assertEquals(0, streamer.getPushErrorCount());
+    }
+
+    @Test
+    public void startOver() {
+        FakeBuffer left = new FakeBuffer();
+        FakeBuffer right = new FakeBuffer();
+        right.failures.add(10);
+        WheelPointStreamer streamer = new WheelPointStreamer(left, right);
+        streamer.start(TURN, 1000, -1000);
+        streamer.topUp(50);
+
+        left.positions.clear();
+        left.lastPoints.clear();
+        right.positions.clear();
+        right.lastPoints.clear();
+        streamer.start(TURN, 1000, -1000);
+        assertEquals(0, streamer.getPushErrorCount());
+        pushEverything(streamer);
+
+        FakeBuffer[] expected = reference();
+        assertSamePoints(expected[0], left);
+        assertSamePoints(expected[1], right);
+    }
+}
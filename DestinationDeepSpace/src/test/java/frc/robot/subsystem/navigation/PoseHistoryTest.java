@@ -0,0 +1,118 @@
+package frc.robot.subsystem.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PoseHistoryTest {
+
+    @Test
+    public void emptyHasNothing() {
+        PoseHistory history = new PoseHistory(8);
+        PoseHistory.Sample sample = new PoseHistory.Sample();
+        assertFalse(history.get(1.0, sample));
+        assertFalse(history.getLatest(sample));
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    public void interpolatesBetweenSamples() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(1.0, 0, 0, 10, 0);
+        history.add(2.0, 10, 20, 30, 40);
+        history.add(3.0, 10, 40, 30, 0);
+
+        PoseHistory.Sample sample = new PoseHistory.Sample();
+        assertTrue(history.get(1.25, sample));
+        assertEquals(1.25, sample.timestamp_sec, 1e-12);
+        assertEquals(2.5, sample.x_inches, 1e-12);
+        assertEquals(5, sample.y_inches, 1e-12);
+        assertEquals(15, sample.yaw_deg, 1e-12);
+        assertEquals(10, sample.yawRate_degPerSec, 1e-12);
+
+        // exactly on a sample
+        assertTrue(history.get(2.0, sample));
+        assertEquals(10, sample.x_inches, 1e-12);
+        assertEquals(20, sample.y_inches, 1e-12);
+
+        assertTrue(history.get(2.5, sample));
+        assertEquals(10, sample.x_inches, 1e-12);
+        assertEquals(30, sample.y_inches, 1e-12);
+    }
+
+    @Test
+    public void clampsOutsideHistory() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(1.0, 1, 2, 3, 4);
+        history.add(2.0, 5, 6, 7, 8);
+
+        PoseHistory.Sample sample = new PoseHistory.Sample();
+        assertTrue(history.get(0.0, sample));
+        assertEquals(1.0, sample.timestamp_sec, 0);
+        assertEquals(1, sample.x_inches, 0);
+
+        assertTrue(history.get(5.0, sample));
+        assertEquals(2.0, sample.timestamp_sec, 0);
+        assertEquals(5, sample.x_inches, 0);
+    }
+
+    @Test
+    public void yawGoesTheShortWayAround() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(1.0, 0, 0, 170, 0);
+        history.add(2.0, 0, 0, -170, 0);
+
+        PoseHistory.Sample sample = new PoseHistory.Sample();
+        history.get(1.5, sample);
+        assertEquals(180, Math.abs(sample.yaw_deg), 1e-9);
+
+        history.get(1.75, sample);
+        assertEquals(-175, sample.yaw_deg, 1e-9);
+
+        history.get(1.25, sample);
+        assertEquals(175, sample.yaw_deg, 1e-9);
+    }
+
+    @Test
+    public void wrapDeg() {
+        assertEquals(0, PoseHistory.wrap_deg(360), 1e-12);
+        assertEquals(-170, PoseHistory.wrap_deg(190), 1e-12);
+        assertEquals(170, PoseHistory.wrap_deg(-190), 1e-12);
+        assertEquals(90, PoseHistory.wrap_deg(90 + 720), 1e-12);
+    }
+
+    @Test
+    public void oldestAreWrittenOver() {
+        PoseHistory history = new PoseHistory(4);
+        for (int i = 0; i < 10; i++) {
+            history.add(i, i * 10, 0, 0, 0);
+        }
+        assertEquals(4, history.size());
+        assertEquals(4, history.capacity());
+
+        PoseHistory.Sample sample = new PoseHistory.Sample();
+        // 0-5 are gone, so earlier times get the oldest left
+        history.get(0.0, sample);
+        assertEquals(6.0, sample.timestamp_sec, 0);
+        history.get(7.5, sample);
+        assertEquals(75, sample.x_inches, 1e-12);
+        assertTrue(history.getLatest(sample));
+        assertEquals(9.0, sample.timestamp_sec, 0);
+    }
+
+    @Test
+    public void ignoresOutOfOrder() {
+        PoseHistory history = new PoseHistory(4);
+        history.add(2.0, 20, 0, 0, 0);
+        history.add(1.0, 10, 0, 0, 0);
+        history.add(2.0, 30, 0, 0, 0);
+        assertEquals(1, history.size());
+
+        history.clear();
+        assertEquals(0, history.size());
+        history.add(1.0, 10, 0, 0, 0);
+        assertEquals(1, history.size());
+    }
+}
@@ -0,0 +1,64 @@
+package frc.robot.utils.profiling;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyIsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile_ms(0.99), 0);
+        assertEquals(0, histogram.getMean_ms(), 0);
+        assertEquals(0, histogram.getMax_ms(), 0);
+    }
+
+    @Test
+    public void percentilesRoundUpToBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 0.1 ms, 0.2 ms, ... 10 ms
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 100_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5.05, histogram.getMean_ms(), 1e-9);
+        assertEquals(10.0, histogram.getMax_ms(), 1e-9);
+        // 50th sample is 5 ms, which is the bottom of the 5.00-5.05 ms bucket
+        assertEquals(5.05, histogram.getPercentile_ms(0.5), 1e-9);
+        assertEquals(9.05, histogram.getPercentile_ms(0.9), 1e-9);
+        assertEquals(9.95, histogram.getPercentile_ms(0.99), 1e-9);
+        // the top bucket stops at the max
+        assertEquals(10.0, histogram.getPercentile_ms(1.0), 1e-9);
+    }
+
+    @Test
+    public void overflowUsesMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000_000L);
+        }
+        histogram.record(LatencyHistogram.MAX_NS * 3);
+
+        assertEquals(1.05, histogram.getPercentile_ms(0.5), 1e-9);
+        assertEquals(1.05, histogram.getPercentile_ms(0.99), 1e-9);
+        assertEquals(LatencyHistogram.MAX_NS * 3 / 1e6, histogram.getPercentile_ms(1.0), 1e-9);
+        assertEquals(LatencyHistogram.MAX_NS * 3 / 1e6, histogram.getMax_ms(), 1e-9);
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3_000_000L);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax_ms(), 0);
+
+        histogram.record(200_000L);
+        // bucket goes to 0.25 ms, but nothing was longer than the max
+        assertEquals(0.2, histogram.getPercentile_ms(0.5), 1e-9);
+        assertEquals(0.2, histogram.getMean_ms(), 1e-9);
+    }
+}
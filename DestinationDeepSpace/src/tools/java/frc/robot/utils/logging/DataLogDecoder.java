@@ -0,0 +1,182 @@
+package frc.robot.utils.logging;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs on a laptop, not the robot (it's in the tools source set, so it isn't
+ * in the robot jar). Turns a DataLogger file (copied off the roboRIO or the
+ * USB stick) into one CSV per record, <name>.csv, plus messages.txt for the
+ * text messages, all in order.
+ *
+ *     scp lvuser@roborio-4183-frc.local:logs/bitbuckets.bblog .
+ *     ./gradlew decodeDataLog -Plog=bitbuckets.bblog
+ *
+ * The files end up in build/decoded.
+ */
+public class DataLogDecoder {
+
+    private static class Entry {
+        final long sequence;
+        final long position;
+
+        Entry(long sequence, long position) {
+            this.sequence = sequence;
+            this.position = position;
+        }
+    }
+
+    private static MappedByteBuffer buffer;
+    private static int dataStart;
+    private static int dataSize;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: DataLogDecoder <log file>");
+            return;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(args[0], "r")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+
+        if (buffer.getInt(0) != DataLogger.MAGIC) {
+            System.err.println(args[0] + " isn't a DataLogger file");
+            return;
+        }
+        if (buffer.getInt(4) != DataLogger.VERSION) {
+            System.err.println(args[0] + " is version " + buffer.getInt(4) + ", this reads version " + DataLogger.VERSION);
+            return;
+        }
+        dataSize = buffer.getInt(DataLogger.DATA_SIZE_OFFSET);
+        int headerSize = buffer.getInt(DataLogger.RECORD_HEADER_SIZE_OFFSET);
+        dataStart = buffer.getInt(DataLogger.DATA_START_OFFSET);
+        long lastFlushed = buffer.getLong(DataLogger.LAST_SEQUENCE_OFFSET);
+
+        // "id,name,field,field,..." per line
+        byte[] schemaBytes = new byte[buffer.getInt(DataLogger.SCHEMA_LENGTH_OFFSET)];
+        for (int i = 0; i < schemaBytes.length; i++) {
+            schemaBytes[i] = buffer.get(DataLogger.SCHEMA_OFFSET + i);
+        }
+        Map<Integer, String[]> schemas = new HashMap<>();
+        for (String line : new String(schemaBytes, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                String[] parts = line.split(",", -1);
+                schemas.put(Integer.parseInt(parts[0]), parts);
+            }
+        }
+
+        // records start anywhere 8 byte aligned, a record starts where its
+        // position matches where it is in the ring and its id and count make sense
+        List<Entry> entries = new ArrayList<>();
+        long end = 0;
+        for (int offset = 0; offset < dataSize; offset += 8) {
+            long sequence = buffer.getLong(dataStart + offset);
+            long position = getLong(offset + DataLogger.RECORD_POSITION_OFFSET);
+            if (sequence <= 0 || position < 0 || position % dataSize != offset) {
+                continue;
+            }
+            int id = getInt(position + DataLogger.RECORD_ID_OFFSET);
+            int count = getInt(position + DataLogger.RECORD_COUNT_OFFSET);
+            int size;
+            if (id == DataLogger.MESSAGE_ID && count >= 0 && count <= DataLogger.MAX_MESSAGE_SIZE) {
+                size = headerSize + (count + 7) / 8 * 8;
+            }
+            else if (schemas.containsKey(id) && schemas.get(id).length - 2 == count) {
+                size = headerSize + 8 * count;
+            }
+            else {
+                continue;
+            }
+            entries.add(new Entry(sequence, position));
+            end = Math.max(end, position + size);
+        }
+        // anything from before the last lap of the ring has been partly written over
+        long oldest = end - dataSize;
+        entries.removeIf(entry -> entry.position < oldest);
+        // sort by sequence to get the oldest first
+        entries.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+
+        Map<Integer, PrintWriter> outs = new HashMap<>();
+        Map<Integer, Long> counts = new HashMap<>();
+        try {
+            for (Entry entry : entries) {
+                int id = getInt(entry.position + DataLogger.RECORD_ID_OFFSET);
+                int count = getInt(entry.position + DataLogger.RECORD_COUNT_OFFSET);
+                double timestamp_sec = Double.longBitsToDouble(getLong(entry.position + DataLogger.RECORD_TIMESTAMP_OFFSET));
+                long data = entry.position + headerSize;
+
+                if (id == DataLogger.MESSAGE_ID) {
+                    byte[] text = new byte[count];
+                    for (int i = 0; i < count; i++) {
+                        text[i] = buffer.get(dataStart + (int) ((data + i) % dataSize));
+                    }
+                    out(outs, id, "messages.txt", null).println(timestamp_sec + " " + new String(text, StandardCharsets.UTF_8));
+                }
+                else {
+                    String[] schema = schemas.get(id);
+                    String fileName = schema[1].replaceAll("[^A-Za-z0-9_-]", "_") + ".csv";
+                    StringBuilder row = new StringBuilder();
+                    row.append(entry.sequence).append(',').append(timestamp_sec);
+                    for (int i = 0; i < count; i++) {
+                        row.append(',').append(Double.longBitsToDouble(getLong(data + 8 * i)));
+                    }
+                    out(outs, id, fileName, schema).println(row);
+                }
+                counts.merge(id, 1L, Long::sum);
+            }
+        }
+        finally {
+            for (PrintWriter out : outs.values()) {
+                out.close();
+            }
+        }
+
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            String name = entry.getKey() == DataLogger.MESSAGE_ID ? "messages" : schemas.get(entry.getKey())[1];
+            System.out.println(name + ": " + entry.getValue() + " records");
+        }
+        if (!entries.isEmpty()) {
+            long first = entries.get(0).sequence;
+            long last = entries.get(entries.size() - 1).sequence;
+            // ones missing in the middle were being written when the robot lost power
+            System.out.println("sequence " + first + " to " + last + ", " + (last - first + 1 - entries.size()) +
+                               " missing, last flushed " + lastFlushed);
+        }
+    }
+
+    // position is from the start of the log, everything is 8 byte aligned so nothing straddles the end
+    private static long getLong(long position) {
+        return buffer.getLong(dataStart + (int) (position % dataSize));
+    }
+
+    private static int getInt(long position) {
+        return buffer.getInt(dataStart + (int) (position % dataSize));
+    }
+
+    private static PrintWriter out(Map<Integer, PrintWriter> outs, int id, String fileName, String[] schema) throws IOException {
+        PrintWriter out = outs.get(id);
+        if (out == null) {
+            out = new PrintWriter(new FileWriter(fileName));
+            if (schema != null) {
+                StringBuilder header = new StringBuilder("sequence,timestamp_sec");
+                for (int i = 2; i < schema.length; i++) {
+                    header.append(',').append(schema[i]);
+                }
+                out.println(header);
+            }
+            outs.put(id, out);
+            System.out.println("Writing " + fileName);
+        }
+        return out;
+    }
+}
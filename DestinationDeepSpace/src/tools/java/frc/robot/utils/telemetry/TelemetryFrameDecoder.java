@@ -0,0 +1,127 @@
+package frc.robot.utils.telemetry;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Runs on a laptop, not the robot (it's in the tools source set, so it isn't
+ * in the robot jar). Connects to the robot's NetworkTables and writes every
+ * TelemetryFrame it sees to <name>.csv in build/decoded, one row per frame,
+ * with the schema as the header.
+ *
+ *     ./gradlew recordTelemetry -Probot=4183
+ *     ./gradlew recordTelemetry -Probot=localhost        (simulator)
+ *
+ * Frames NetworkTables didn't deliver show up as gaps in the sequence column,
+ * and the number missed is printed when it exits (Ctrl-C).
+ */
+public class TelemetryFrameDecoder {
+
+    /**
+     * One subsystem's frames
+     */
+    private static class Stream {
+        String[] schema;
+        PrintWriter out;
+        long frames;
+        long missed;
+        long lastSequence = -1;
+    }
+
+    private final Map<String, Stream> streams = new HashMap<>();
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("usage: TelemetryFrameDecoder <team number | host>");
+            return;
+        }
+
+        NetworkTableInstance nt = NetworkTableInstance.create();
+        if (args[0].matches("\\d+")) {
+            nt.startClientTeam(Integer.parseInt(args[0]));
+        }
+        else {
+            nt.startClient(args[0]);
+        }
+
+        TelemetryFrameDecoder decoder = new TelemetryFrameDecoder();
+        nt.addEntryListener("/" + TelemetryFrame.TABLE + "/", decoder::received,
+                            EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+        Runtime.getRuntime().addShutdownHook(new Thread(decoder::close));
+
+        System.out.println("Waiting for telemetry frames...");
+        while (true) {
+            Thread.sleep(1000);
+        }
+    }
+
+    // on the NetworkTables listener thread
+    private synchronized void received(EntryNotification notification) {
+        // /Telemetry/<name>/<key>
+        String[] path = notification.name.split("/");
+        if (path.length != 4) {
+            return;
+        }
+        String name = path[2];
+        Stream stream = streams.computeIfAbsent(name, n -> new Stream());
+
+        if (path[3].equals(TelemetryFrame.SCHEMA_KEY)) {
+            stream.schema = notification.value.getStringArray();
+        }
+        else if (path[3].equals(TelemetryFrame.FRAME_KEY) && stream.schema != null) {
+            write(name, stream, notification.value.getDoubleArray());
+        }
+    }
+
+    private void write(String name, Stream stream, double[] frame) {
+        if (frame.length != stream.schema.length) {
+            // robot code changed under us, wait for the new schema
+            return;
+        }
+
+        if (stream.out == null) {
+            try {
+                stream.out = new PrintWriter(new FileWriter(name + ".csv"));
+            }
+            catch (IOException e) {
+                System.err.println("Can't write " + name + ".csv: " + e);
+                return;
+            }
+            stream.out.println(String.join(",", stream.schema));
+            System.out.println("Writing " + name + ".csv");
+        }
+
+        long sequence = (long) frame[TelemetryFrame.SEQUENCE];
+        if (stream.lastSequence >= 0 && sequence > stream.lastSequence + 1) {
+            stream.missed += sequence - stream.lastSequence - 1;
+        }
+        stream.lastSequence = sequence;
+        stream.frames++;
+
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < frame.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            row.append(frame[i]);
+        }
+        stream.out.println(row);
+    }
+
+    private synchronized void close() {
+        for (Map.Entry<String, Stream> entry : streams.entrySet()) {
+            Stream stream = entry.getValue();
+            if (stream.out != null) {
+                stream.out.close();
+            }
+            System.out.println(entry.getKey() + ": " + stream.frames + " frames, " + stream.missed + " missed");
+        }
+    }
+}